@@ -1,8 +1,23 @@
 package com.infinitpages;
 
+import com.infinitpages.model.service.CompteurEmpruntsService;
+import com.infinitpages.model.service.CompteurNotificationsService;
+import com.infinitpages.model.service.EnvoiNotificationsService;
+import com.infinitpages.model.service.LecteursService;
+import com.infinitpages.model.service.NotificationService;
+import com.infinitpages.model.service.PurgeNotificationsService;
+import com.infinitpages.model.service.QuantilesService;
+import com.infinitpages.model.service.RecommandationService;
+import com.infinitpages.model.service.RappelService;
+import com.infinitpages.model.service.RegroupementRappelsService;
+import com.infinitpages.model.service.ReservationService;
+import com.infinitpages.model.service.RetardService;
+import com.infinitpages.model.service.SoldeService;
+import com.infinitpages.model.service.SimilariteService;
 import com.infinitpages.util.db.DatabaseConnection;
 import com.infinitpages.util.config.DatabaseConfig;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +32,9 @@ public class Main extends Application {
     
     @Override
     public void start(Stage primaryStage) {
+        // Livrer les nouvelles notifications aux vues sur le thread FX
+        NotificationService.getBus().setExecutor(Platform::runLater);
+        
         // Initialiser la base de données au démarrage
         initializeDatabase();
         
@@ -49,6 +67,44 @@ public class Main extends Application {
             // Tester la connexion
             if (DatabaseConnection.testConnection()) {
                 logger.info("✓ Connexion à la base de données réussie !");
+                
+                // File d'envoi asynchrone des notifications
+                EnvoiNotificationsService.getInstance().demarrer();
+                
+                // Réconciliation périodique des compteurs de notifications non lues
+                CompteurNotificationsService.getInstance().demarrer();
+                
+                // Purge nocturne des notifications expirées
+                PurgeNotificationsService.getInstance().demarrer();
+                
+                // Réconciliation périodique des compteurs d'emprunts actifs
+                CompteurEmpruntsService.getInstance().demarrer();
+                
+                // Files de réservation des documents
+                ReservationService.getInstance().demarrer();
+                
+                // Consolidation périodique du grand livre des soldes
+                SoldeService.getInstance().demarrer();
+                
+                // Index "ont aussi emprunté" : construit en arrière-plan, puis chaque nuit
+                RecommandationService.getInstance().demarrer();
+                
+                // Construire l'index des documents similaires
+                int nbIndexes = SimilariteService.getInstance().indexerTout();
+                logger.info("Index des documents similaires : {} documents", nbIndexes);
+                
+                // Reprendre les sketches de lecteurs distincts du jour
+                LecteursService.getInstance().demarrer();
+                
+                // Reprendre les sketches de quantiles (durées, retards) du jour
+                QuantilesService.getInstance().demarrer();
+                
+                // Traitement quotidien des retards (rattrapage du jour puis chaque nuit)
+                RetardService.getInstance().demarrer();
+                
+                // Regroupement des rappels par destinataire, puis rappels des emprunts actifs
+                RegroupementRappelsService.getInstance().demarrer();
+                RappelService.getInstance().demarrer();
             } else {
                 logger.error("✗ Échec de la connexion à la base de données");
             }
@@ -67,6 +123,19 @@ public class Main extends Application {
     public static void main(String[] args) {
         // Fermer proprement la connexion à la fermeture de l'application
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            LecteursService.getInstance().arreter();
+            QuantilesService.getInstance().arreter();
+            RetardService.getInstance().arreter();
+            RappelService.getInstance().arreter();
+            RegroupementRappelsService.getInstance().arreter();
+            ReservationService.getInstance().arreter();
+            SoldeService.getInstance().arreter();
+            RecommandationService.getInstance().arreter();
+            // Vider la file des notifications avant de fermer le pool
+            EnvoiNotificationsService.getInstance().arreter();
+            CompteurNotificationsService.getInstance().arreter();
+            PurgeNotificationsService.getInstance().arreter();
+            CompteurEmpruntsService.getInstance().arreter();
             DatabaseConnection.close();
             logger.info("Connexion à la base de données fermée");
         }));
@@ -2,14 +2,23 @@ package com.infinitpages.controller;
 
 import com.infinitpages.model.entity.Admin;
 import com.infinitpages.model.entity.Document;
+import com.infinitpages.model.entity.DocumentReel;
+import com.infinitpages.model.entity.Exemplaire;
 import com.infinitpages.model.entity.Categorie;
 import com.infinitpages.model.entity.Emprunt;
 import com.infinitpages.model.entity.Avis;
 import com.infinitpages.model.entity.Rapport;
 import com.infinitpages.model.entity.Utilisateur;
+import com.infinitpages.model.dao.ExportDAO;
+import com.infinitpages.model.dao.TraitementRetardsDAO;
 import com.infinitpages.model.service.AdminService;
+import com.infinitpages.model.service.AnalyseService;
+import com.infinitpages.model.service.PurgeNotificationsService;
+import com.infinitpages.util.export.ResultSetExporter;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Contrôleur pour la gestion administrative.
@@ -115,6 +124,34 @@ public class AdminController {
         }
     }
     
+    /**
+     * Gère l'action d'ajouter un exemplaire à un document réel.
+     * 
+     * @param document Le document réel
+     * @param exemplaire Le nouvel exemplaire
+     */
+    public void ajouterExemplaire(DocumentReel document, Exemplaire exemplaire) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (document == null || exemplaire == null) {
+            // TODO: view.showError("Veuillez sélectionner un document");
+            return;
+        }
+        
+        try {
+            adminService.ajouterExemplaire(adminConnecte, document, exemplaire);
+            // TODO: view.showSuccess("Exemplaire ajouté avec succès");
+            // TODO: view.rafraichirListeDocuments();
+            
+        } catch (IllegalStateException e) {
+            // TODO: view.showError(e.getMessage());
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de l'ajout de l'exemplaire : " + e.getMessage());
+        }
+    }
+    
     /**
      * Gère l'action de supprimer un document.
      * 
@@ -213,6 +250,195 @@ public class AdminController {
         }
     }
     
+    /**
+     * Génère en une fois les rapports de plusieurs périodes (clôture de fin de mois).
+     * 
+     * @param periodes Les périodes couvertes (ex: les 12 derniers mois)
+     * @param types Les types de rapports ("EMPRUNTS", "CONSULTATIONS")
+     */
+    public void genererRapports(List<String> periodes, List<String> types) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (periodes == null || periodes.isEmpty()) {
+            // TODO: view.showError("Veuillez spécifier au moins une période");
+            return;
+        }
+        
+        try {
+            List<Rapport> rapports = adminService.genererRapports(adminConnecte, periodes, types);
+            // TODO: view.afficherRapports(rapports);
+            // TODO: view.showSuccess(rapports.size() + " rapports générés avec succès");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la génération des rapports : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Génère un rapport sur les lecteurs distincts.
+     * 
+     * @param periode La période couverte
+     */
+    public void genererRapportLecteurs(String periode) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (periode == null || periode.isEmpty()) {
+            // TODO: view.showError("Veuillez spécifier une période");
+            return;
+        }
+        
+        try {
+            Rapport rapport = adminService.genererRapportLecteurs(adminConnecte, periode);
+            // TODO: view.afficherRapport(rapport);
+            // TODO: view.showSuccess("Rapport généré avec succès");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la génération du rapport : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Génère un rapport sur la durée des emprunts et les jours de retard.
+     * 
+     * @param periode La période couverte
+     */
+    public void genererRapportQuantiles(String periode) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (periode == null || periode.isEmpty()) {
+            // TODO: view.showError("Veuillez spécifier une période");
+            return;
+        }
+        
+        try {
+            Rapport rapport = adminService.genererRapportQuantiles(adminConnecte, periode);
+            // TODO: view.afficherRapport(rapport);
+            // TODO: view.showSuccess("Rapport généré avec succès");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la génération du rapport : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Analyse les emprunts selon une dimension (ex: pénalités par type d'utilisateur).
+     * 
+     * @param dimension La dimension de groupement
+     * @param mesure La mesure calculée
+     * @param filtre Les critères de sélection (null pour tous)
+     */
+    public void analyserEmprunts(AnalyseService.Dimension dimension, AnalyseService.Mesure mesure,
+                                 AnalyseService.Filtre filtre) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (dimension == null || mesure == null) {
+            // TODO: view.showError("Veuillez choisir une dimension et une mesure");
+            return;
+        }
+        
+        try {
+            Map<String, Double> resultats = adminService.analyserEmprunts(adminConnecte, dimension, mesure, filtre);
+            // TODO: view.afficherAnalyse(resultats);
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de l'analyse : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Analyse les emprunts selon deux dimensions (ex: emprunts par genre et par mois).
+     * 
+     * @param ligne La première dimension
+     * @param colonne La seconde dimension
+     * @param mesure La mesure calculée
+     * @param filtre Les critères de sélection (null pour tous)
+     */
+    public void analyserEmprunts(AnalyseService.Dimension ligne, AnalyseService.Dimension colonne,
+                                 AnalyseService.Mesure mesure, AnalyseService.Filtre filtre) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (ligne == null || colonne == null || mesure == null) {
+            // TODO: view.showError("Veuillez choisir deux dimensions et une mesure");
+            return;
+        }
+        
+        try {
+            Map<String, Map<String, Double>> resultats =
+                adminService.analyserEmprunts(adminConnecte, ligne, colonne, mesure, filtre);
+            // TODO: view.afficherTableauCroise(resultats);
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de l'analyse : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Exporte une table dans un fichier CSV ou JSON Lines.
+     * 
+     * @param table La table à exporter
+     * @param fichier Le fichier de destination
+     * @param format CSV ou JSONL
+     * @param gzip true pour compresser le fichier
+     */
+    public void exporterDonnees(ExportDAO.TableExport table, Path fichier, ResultSetExporter.Format format, boolean gzip) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (table == null || fichier == null || format == null) {
+            // TODO: view.showError("Veuillez choisir une table, un fichier et un format");
+            return;
+        }
+        
+        try {
+            long lignes = adminService.exporterDonnees(adminConnecte, table, fichier, format, gzip);
+            // TODO: view.showSuccess(lignes + " lignes exportées");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de l'export : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Annonce un nouveau document à tous les utilisateurs actifs.
+     * La diffusion se poursuit en arrière-plan ; la vue suit l'avancement.
+     * 
+     * @param document Le document à annoncer
+     */
+    public void annoncerDocument(Document document) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        if (document == null) {
+            // TODO: view.showError("Veuillez sélectionner un document");
+            return;
+        }
+        
+        try {
+            adminService.annoncerDocument(adminConnecte, document, (inseres, total) -> {
+                // TODO: Platform.runLater(() -> view.afficherProgression(inseres, total));
+            }).whenComplete((envoyees, erreur) -> {
+                // TODO: Platform.runLater(() -> erreur == null
+                //     ? view.showSuccess(envoyees + " utilisateurs notifiés")
+                //     : view.showError("Erreur lors de l'annonce : " + erreur.getMessage()));
+            });
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de l'annonce : " + e.getMessage());
+        }
+    }
+    
     /**
      * Affiche l'activité des utilisateurs.
      */
@@ -249,6 +475,87 @@ public class AdminController {
         }
     }
     
+    /**
+     * Lance le traitement des retards du jour.
+     * 
+     * @param forcer true pour relancer un jour déjà traité
+     */
+    public void traiterRetards(boolean forcer) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        
+        try {
+            TraitementRetardsDAO.BilanTraitement bilan = adminService.traiterRetards(adminConnecte, forcer);
+            // TODO: view.showSuccess(bilan.empruntsMarques() + " emprunts marqués en retard");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors du traitement des retards : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Lance une purge des notifications expirées.
+     */
+    public void purgerNotifications() {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        
+        try {
+            long supprimees = adminService.purgerNotifications(adminConnecte);
+            // TODO: view.showSuccess(supprimees + " notifications supprimées");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la purge : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Modifie la durée de conservation des notifications d'un type.
+     * 
+     * @param type Le type (RAPPEL, ALERTE, INFO)
+     * @param priorite La priorité, ou null pour toutes
+     * @param jours Le nombre de jours de conservation
+     */
+    public void definirRetentionNotifications(String type, String priorite, int jours) {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        
+        try {
+            adminService.definirRetentionNotifications(adminConnecte, type, priorite, jours);
+            // TODO: view.showSuccess("Durée de conservation mise à jour");
+            
+        } catch (IllegalArgumentException e) {
+            // TODO: view.showError(e.getMessage());
+        } catch (Exception e) {
+            // TODO: view.showError("Une erreur est survenue : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Affiche l'avancement de la purge des notifications.
+     */
+    public void afficherMetriquesPurge() {
+        if (adminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant qu'admin");
+            return;
+        }
+        
+        try {
+            PurgeNotificationsService.MetriquesPurge metriques =
+                adminService.getMetriquesPurgeNotifications(adminConnecte);
+            // TODO: view.afficherMetriquesPurge(metriques);
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur : " + e.getMessage());
+        }
+    }
+    
     /**
      * Valide le retour d'un document emprunté.
      * 
@@ -9,6 +9,10 @@ import com.infinitpages.model.dao.DocumentDAO;
 import com.infinitpages.model.dao.CategorieDAO;
 import com.infinitpages.model.dao.impl.DocumentDAOImpl;
 import com.infinitpages.model.dao.impl.CategorieDAOImpl;
+import com.infinitpages.model.service.LecteursService;
+import com.infinitpages.model.service.RecommandationService;
+import com.infinitpages.model.service.SimilariteService;
+import com.infinitpages.model.service.TendanceService;
 import com.infinitpages.util.constants.Genre;
 
 import java.util.List;
@@ -207,6 +211,10 @@ public class DocumentController {
                 
                 // Incrémenter le compteur de consultations
                 documentDAO.incrementerConsultations(idDocument);
+                TendanceService.getInstance().enregistrerConsultation(idDocument);
+                if (utilisateurConnecte != null) {
+                    LecteursService.getInstance().enregistrerLecture(utilisateurConnecte.getId(), document);
+                }
                 
                 // TODO: view.afficherDetailsDocument(document);
                 return Optional.of(document);
@@ -265,6 +273,59 @@ public class DocumentController {
         }
     }
     
+    /**
+     * Récupère les documents tendance (les plus consultés et empruntés récemment).
+     * 
+     * @param fenetre La fenêtre glissante (dernière heure, jour ou semaine)
+     * @param limit Nombre maximum de résultats
+     * @return Liste des documents tendance, du plus actif au moins actif
+     */
+    public List<Document> getDocumentsTendance(TendanceService.Fenetre fenetre, int limit) {
+        try {
+            int[] ids = TendanceService.getInstance().getTendances(fenetre, limit);
+            return documentDAO.findByIds(ids);
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la récupération : " + e.getMessage());
+            return List.of();
+        }
+    }
+    
+    /**
+     * Récupère les documents souvent empruntés avec un document donné
+     * ("les lecteurs de ce document ont aussi emprunté…").
+     * 
+     * @param idDocument L'identifiant du document consulté
+     * @param limit Nombre maximum de résultats
+     * @return Liste des documents recommandés, du plus proche au moins proche
+     */
+    public List<Document> getRecommandations(int idDocument, int limit) {
+        try {
+            int[] ids = RecommandationService.getInstance().getDocumentsSimilaires(idDocument, limit);
+            return documentDAO.findByIds(ids);
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la récupération : " + e.getMessage());
+            return List.of();
+        }
+    }
+    
+    /**
+     * Récupère les documents au contenu proche d'un document donné
+     * (mots-clés, genre et catégorie en commun).
+     * 
+     * @param idDocument L'identifiant du document consulté
+     * @param limit Nombre maximum de résultats
+     * @return Liste des documents similaires, du plus proche au moins proche
+     */
+    public List<Document> getDocumentsSimilaires(int idDocument, int limit) {
+        try {
+            int[] ids = SimilariteService.getInstance().getDocumentsSimilaires(idDocument, limit);
+            return documentDAO.findByIds(ids);
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la récupération : " + e.getMessage());
+            return List.of();
+        }
+    }
+    
     /**
      * Récupère toutes les catégories.
      * 
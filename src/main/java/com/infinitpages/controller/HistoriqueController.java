@@ -5,6 +5,7 @@ import com.infinitpages.model.entity.Utilisateur;
 import com.infinitpages.model.entity.Document;
 import com.infinitpages.model.dao.HistoriqueDAO;
 import com.infinitpages.model.dao.impl.HistoriqueDAOImpl;
+import com.infinitpages.model.service.RecommandationService;
 
 import java.util.List;
 import java.util.Optional;
@@ -271,6 +272,7 @@ public class HistoriqueController {
         try {
             boolean success = historiqueDAO.addDocument(liste.getId(), document.getId());
             if (success) {
+                RecommandationService.getInstance().enregistrerEmprunt(utilisateurConnecte.getId(), document.getId());
                 // TODO: view.showSuccess("Document ajouté à la liste");
                 // TODO: view.rafraichirListe(liste);
             } else {
@@ -2,8 +2,12 @@ package com.infinitpages.controller;
 
 import com.infinitpages.model.entity.Emprunt;
 import com.infinitpages.model.entity.Document;
+import com.infinitpages.model.entity.Reservation;
 import com.infinitpages.model.entity.Utilisateur;
 import com.infinitpages.model.service.LoanService;
+import com.infinitpages.model.service.ReservationService;
+
+import java.util.List;
 
 /**
  * Contrôleur pour la gestion des emprunts.
@@ -19,11 +23,13 @@ import com.infinitpages.model.service.LoanService;
 public class LoanController {
     
     private LoanService loanService;
+    private ReservationService reservationService;
     // TODO: Injecter la vue quand elle sera créée
     // private LoanView view;
     
     public LoanController(LoanService loanService) {
         this.loanService = loanService;
+        this.reservationService = ReservationService.getInstance();
     }
     
     /**
@@ -61,6 +67,7 @@ public class LoanController {
         } catch (IllegalStateException e) {
             // 5. Gérer les erreurs métier
             // TODO: view.showError(e.getMessage());
+            // TODO: si le document n'est pas disponible, view.proposerReservation(document);
         } catch (Exception e) {
             // 6. Gérer les erreurs inattendues
             // TODO: view.showError("Une erreur est survenue : " + e.getMessage());
@@ -105,6 +112,111 @@ public class LoanController {
         }
     }
     
+    /**
+     * Gère la réservation d'un document indisponible.
+     * 
+     * @param utilisateur L'utilisateur qui réserve
+     * @param document Le document à réserver
+     */
+    public void reserverDocument(Utilisateur utilisateur, Document document) {
+        if (utilisateur == null) {
+            // TODO: view.showError("Utilisateur non connecté");
+            return;
+        }
+        if (document == null) {
+            // TODO: view.showError("Veuillez sélectionner un document");
+            return;
+        }
+        
+        try {
+            Reservation reservation = reservationService.reserver(utilisateur, document);
+            int position = reservationService.getPosition(utilisateur, document);
+            
+            // TODO: view.showSuccess("Document réservé");
+            // TODO: view.afficherPositionReservation(position);
+            
+        } catch (IllegalStateException e) {
+            // TODO: view.showError(e.getMessage());
+        } catch (Exception e) {
+            // TODO: view.showError("Une erreur est survenue : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Gère l'annulation d'une réservation.
+     * 
+     * @param utilisateur L'utilisateur
+     * @param document Le document réservé
+     */
+    public void annulerReservation(Utilisateur utilisateur, Document document) {
+        if (utilisateur == null || document == null) {
+            return;
+        }
+        
+        try {
+            if (reservationService.annuler(utilisateur, document)) {
+                // TODO: view.showSuccess("Réservation annulée");
+            } else {
+                // TODO: view.showError("Aucune réservation à annuler");
+            }
+        } catch (Exception e) {
+            // TODO: view.showError("Une erreur est survenue : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Gère l'emprunt d'une pile de documents scannés au guichet.
+     * Tous les emprunts sont enregistrés en une seule transaction.
+     * 
+     * @param utilisateur L'utilisateur qui emprunte
+     * @param documents Les documents scannés
+     */
+    public void emprunterDocuments(Utilisateur utilisateur, List<Document> documents) {
+        if (utilisateur == null) {
+            // TODO: view.showError("Utilisateur non connecté");
+            return;
+        }
+        if (documents == null || documents.isEmpty()) {
+            // TODO: view.showError("Veuillez scanner au moins un document");
+            return;
+        }
+        
+        try {
+            List<LoanService.ResultatCirculation> resultats = loanService.emprunterDocuments(utilisateur, documents);
+            
+            // TODO: view.showSuccess(resultats.stream().filter(LoanService.ResultatCirculation::estReussi).count()
+            //     + " document(s) emprunté(s) sur " + resultats.size());
+            // TODO: view.afficherResultatsCirculation(resultats);
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Une erreur est survenue : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Gère le retour d'une pile d'emprunts scannés au guichet.
+     * Tous les retours sont enregistrés en une seule transaction.
+     * 
+     * @param emprunts Les emprunts scannés
+     */
+    public void retournerDocuments(List<Emprunt> emprunts) {
+        if (emprunts == null || emprunts.isEmpty()) {
+            // TODO: view.showError("Veuillez scanner au moins un emprunt");
+            return;
+        }
+        
+        try {
+            List<LoanService.ResultatCirculation> resultats = loanService.retournerDocuments(emprunts);
+            
+            // TODO: view.showSuccess(resultats.stream().filter(LoanService.ResultatCirculation::estReussi).count()
+            //     + " document(s) retourné(s) sur " + resultats.size());
+            // TODO: view.afficherResultatsCirculation(resultats);
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors du retour : " + e.getMessage());
+        }
+    }
+    
     /**
      * Affiche les détails d'un emprunt avec tous les calculs.
      * Les calculs sont faits par l'entité, le controller les récupère juste.
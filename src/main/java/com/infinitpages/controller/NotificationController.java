@@ -5,6 +5,7 @@ import com.infinitpages.model.entity.Personne;
 import com.infinitpages.model.entity.Utilisateur;
 import com.infinitpages.model.entity.Admin;
 import com.infinitpages.model.service.NotificationService;
+import com.infinitpages.util.event.KeyedEventBus;
 
 import java.util.List;
 
@@ -23,6 +24,7 @@ public class NotificationController {
     
     private NotificationService notificationService;
     private Personne utilisateurConnecte; // L'utilisateur actuellement connecté
+    private KeyedEventBus.Subscription abonnement; // Nouvelles notifications poussées
     // TODO: Injecter la vue quand elle sera créée
     // private NotificationView view;
     
@@ -42,6 +44,19 @@ public class NotificationController {
      */
     public void setUtilisateurConnecte(Personne personne) {
         this.utilisateurConnecte = personne;
+        
+        // Recevoir les nouvelles notifications sans interroger la base
+        if (abonnement != null) {
+            abonnement.close();
+            abonnement = null;
+        }
+        if (personne != null) {
+            abonnement = notificationService.abonner(personne, (idDestinataire, notifications) -> {
+                // Livré sur le thread FX, par lots
+                // TODO: view.ajouterNotifications(notifications);
+                // TODO: view.afficherBadgeNotifications(compterNotificationsNonLues());
+            });
+        }
     }
     
     /**
@@ -234,7 +249,7 @@ public class NotificationController {
         
         // 2. Déléguer au Service
         try {
-            Notification notification = notificationService.envoyerNotification(
+            notificationService.envoyerNotification(
                 message, 
                 type, 
                 priorite, 
@@ -8,6 +8,7 @@ import com.infinitpages.model.service.SuperAdminService;
 import com.infinitpages.util.constants.TypeAdmin;
 import com.infinitpages.util.constants.TypeUtilisateur;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -190,6 +191,108 @@ public class SuperAdminController {
         }
     }
     
+    /**
+     * Recalcule les agrégats journaliers des rapports sur une période
+     * (rattrapage de l'historique).
+     * 
+     * @param dateDebut Premier jour inclus
+     * @param dateFin Dernier jour inclus
+     */
+    public void reconstruireAgregats(LocalDate dateDebut, LocalDate dateFin) {
+        if (superAdminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant que super-admin");
+            return;
+        }
+        if (dateDebut == null || dateFin == null) {
+            // TODO: view.showError("Veuillez spécifier une période");
+            return;
+        }
+        
+        try {
+            int lignes = superAdminService.reconstruireAgregats(superAdminConnecte, dateDebut, dateFin);
+            // TODO: view.showSuccess(lignes + " lignes d'agrégats recalculées");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la reconstruction des agrégats : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Convertit les indicateurs de lecture des notifications en filigranes
+     * (migration unique après mise à jour du schéma).
+     */
+    public void migrerLecturesNotifications() {
+        if (superAdminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant que super-admin");
+            return;
+        }
+        
+        try {
+            int destinataires = superAdminService.migrerLecturesNotifications(superAdminConnecte);
+            // TODO: view.showSuccess(destinataires + " destinataires migrés");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la migration : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Crée les exemplaires des documents réels existants
+     * (migration unique après mise à jour du schéma).
+     */
+    public void migrerExemplaires() {
+        if (superAdminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant que super-admin");
+            return;
+        }
+        
+        try {
+            int documents = superAdminService.migrerExemplaires(superAdminConnecte);
+            // TODO: view.showSuccess(documents + " documents migrés");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la migration des exemplaires : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Recalcule le nombre d'emprunts actifs de chaque utilisateur
+     * (migration après mise à jour du schéma, ou correction).
+     */
+    public void recalculerEmpruntsActifs() {
+        if (superAdminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant que super-admin");
+            return;
+        }
+        
+        try {
+            int utilisateurs = superAdminService.recalculerEmpruntsActifs(superAdminConnecte);
+            // TODO: view.showSuccess(utilisateurs + " utilisateurs recalculés");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors du recalcul : " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reprend les soldes à payer existants dans le grand livre des soldes
+     * (migration unique après mise à jour du schéma).
+     */
+    public void ouvrirSoldes() {
+        if (superAdminConnecte == null) {
+            // TODO: view.showError("Vous devez être connecté en tant que super-admin");
+            return;
+        }
+        
+        try {
+            int utilisateurs = superAdminService.ouvrirSoldes(superAdminConnecte);
+            // TODO: view.showSuccess(utilisateurs + " soldes repris");
+            
+        } catch (Exception e) {
+            // TODO: view.showError("Erreur lors de la reprise des soldes : " + e.getMessage());
+        }
+    }
+    
     /**
      * Configure un paramètre système global.
      * 
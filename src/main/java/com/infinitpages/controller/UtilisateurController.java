@@ -10,6 +10,7 @@ import com.infinitpages.model.dao.AvisDAO;
 import com.infinitpages.model.dao.impl.UtilisateurDAOImpl;
 import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
 import com.infinitpages.model.dao.impl.AvisDAOImpl;
+import com.infinitpages.model.service.SoldeService;
 
 import java.util.List;
 import java.util.Optional;
@@ -190,9 +191,10 @@ public class UtilisateurController {
     }
     
     /**
-     * Récupère le solde à payer de l'utilisateur connecté.
+     * Récupère le solde à payer de l'utilisateur connecté, calculé sur le grand livre
+     * (la colonne solde_a_payer n'est avancée que par la consolidation périodique).
      * 
-     * @return Le solde à payer
+     * @return Le solde à payer (0 si l'utilisateur a un avoir)
      */
     public double getSoldeAPayer() {
         if (utilisateurConnecte == null) {
@@ -200,11 +202,7 @@ public class UtilisateurController {
         }
         
         try {
-            Optional<Utilisateur> utilisateurOpt = utilisateurDAO.findById(utilisateurConnecte.getId());
-            if (utilisateurOpt.isPresent()) {
-                return utilisateurOpt.get().getSoldeAPayer();
-            }
-            return 0.0;
+            return Math.max(0.0, SoldeService.getInstance().getSolde(utilisateurConnecte));
         } catch (Exception e) {
             // TODO: view.showError("Erreur lors de la récupération : " + e.getMessage());
             return 0.0;
@@ -0,0 +1,96 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Interface DAO pour les agrégats journaliers (tables agregat_emprunt_jour
+ * et agregat_paiement_jour).
+ *
+ * Les agrégats sont incrémentés au fil des emprunts, retours et paiements ;
+ * les rapports mensuels ou annuels lisent quelques centaines de lignes
+ * pré-agrégées au lieu de parcourir emprunt et paiement.
+ * Le type d'utilisateur est résolu par la base à partir de l'identifiant.
+ */
+public interface AgregatJournalierDAO {
+
+    /**
+     * Totaux des emprunts sur une période.
+     *
+     * @param empruntsOuverts Emprunts commencés
+     * @param empruntsRetournes Emprunts rendus
+     * @param retoursEnRetard Emprunts rendus après la date de retour prévue
+     * @param totalPenalites Somme des pénalités des emprunts rendus
+     */
+    record TotauxEmprunts(int empruntsOuverts, int empruntsRetournes, int retoursEnRetard, double totalPenalites) {
+    }
+
+    /**
+     * Compte un nouvel emprunt.
+     *
+     * @param jour Le jour de l'emprunt
+     * @param idUtilisateur L'identifiant de l'emprunteur
+     * @return true si l'agrégat a été mis à jour
+     */
+    boolean ajouterEmprunt(LocalDate jour, int idUtilisateur);
+
+    /**
+     * Compte un retour.
+     *
+     * @param jour Le jour du retour
+     * @param idUtilisateur L'identifiant de l'emprunteur
+     * @param enRetard true si le retour est en retard
+     * @param penalite La pénalité appliquée
+     * @return true si l'agrégat a été mis à jour
+     */
+    boolean ajouterRetour(LocalDate jour, int idUtilisateur, boolean enRetard, double penalite);
+
+    /**
+     * Compte un paiement validé (ou en retire un avec un signe négatif, en cas d'annulation).
+     *
+     * @param jour La date du paiement
+     * @param idUtilisateur L'identifiant du payeur
+     * @param methodePaiement ESPECES, CARTE, CHEQUE ou VIREMENT
+     * @param nombre 1 pour une validation, -1 pour l'annulation d'un paiement validé
+     * @param montant Le montant (négatif en cas d'annulation)
+     * @return true si l'agrégat a été mis à jour
+     */
+    boolean ajouterPaiement(LocalDate jour, int idUtilisateur, String methodePaiement, int nombre, double montant);
+
+    /**
+     * Recalcule les agrégats d'une période à partir des tables emprunt et paiement
+     * (rattrapage de l'historique ou correction d'une dérive), en une transaction.
+     *
+     * @param dateDebut Premier jour inclus
+     * @param dateFin Dernier jour inclus
+     * @return Le nombre de lignes d'agrégats écrites, ou -1 en cas d'erreur
+     */
+    int reconstruire(LocalDate dateDebut, LocalDate dateFin);
+
+    /**
+     * Somme les agrégats d'emprunts d'une période.
+     *
+     * @param dateDebut Premier jour inclus
+     * @param dateFin Dernier jour inclus
+     * @return Les totaux (à zéro si aucune donnée)
+     */
+    TotauxEmprunts getTotauxEmprunts(LocalDate dateDebut, LocalDate dateFin);
+
+    /**
+     * Somme des paiements validés d'une période, par méthode de paiement.
+     *
+     * @param dateDebut Premier jour inclus
+     * @param dateFin Dernier jour inclus
+     * @return Map méthode → montant
+     */
+    Map<String, Double> getRevenusParMethode(LocalDate dateDebut, LocalDate dateFin);
+
+    /**
+     * Somme des paiements validés d'une période, par type d'utilisateur.
+     *
+     * @param dateDebut Premier jour inclus
+     * @param dateFin Dernier jour inclus
+     * @return Map type d'utilisateur → montant
+     */
+    Map<String, Double> getRevenusParTypeUtilisateur(LocalDate dateDebut, LocalDate dateFin);
+}
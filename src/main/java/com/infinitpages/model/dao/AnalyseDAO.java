@@ -0,0 +1,34 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+
+/**
+ * Interface DAO pour le chargement de l'instantané d'analyse des emprunts.
+ */
+public interface AnalyseDAO {
+
+    /**
+     * Un emprunt avec le genre et la catégorie du document et le type de l'emprunteur.
+     *
+     * @param dateRetourEffective null si l'emprunt n'est pas rendu
+     * @param categorie Nom de la catégorie (null si le document n'en a pas)
+     */
+    record LigneEmprunt(LocalDate dateEmprunt, LocalDate dateRetour, LocalDate dateRetourEffective, String etat,
+                        double penalite, double montantPaye, String genre, String categorie, String typeUtilisateur) {
+    }
+
+    /**
+     * Visiteur des emprunts, appelé ligne par ligne.
+     */
+    interface LigneVisiteur {
+        void visiter(LigneEmprunt ligne);
+    }
+
+    /**
+     * Parcourt tous les emprunts en streaming (une seule requête, sans tout charger en mémoire côté JDBC).
+     *
+     * @param visiteur Appelé pour chaque emprunt
+     * @return Le nombre d'emprunts parcourus, ou -1 en cas d'erreur
+     */
+    long parcourirEmprunts(LigneVisiteur visiteur);
+}
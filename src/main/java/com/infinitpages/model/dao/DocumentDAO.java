@@ -26,6 +26,15 @@ public interface DocumentDAO {
      */
     List<Document> findAll();
     
+    /**
+     * Trouve plusieurs documents par leurs IDs en une seule requête.
+     * L'ordre des identifiants fournis est conservé.
+     * 
+     * @param ids Les identifiants des documents
+     * @return Liste des documents trouvés
+     */
+    List<Document> findByIds(int[] ids);
+    
     /**
      * Trouve tous les documents disponibles.
      * 
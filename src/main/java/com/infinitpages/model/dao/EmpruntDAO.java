@@ -3,6 +3,7 @@ package com.infinitpages.model.dao;
 import com.infinitpages.model.entity.Emprunt;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -10,6 +11,27 @@ import java.util.Optional;
  */
 public interface EmpruntDAO {
     
+    /**
+     * Visiteur des emprunts actifs, appelé ligne par ligne.
+     */
+    interface EmpruntActifVisiteur {
+        void visiter(int idEmprunt, LocalDate dateRetour);
+    }
+    
+    /**
+     * Issue d'un emprunt atomique. EMPRUNTE_SUR_RESERVATION : aucun exemplaire libre,
+     * mais le document était mis de côté pour l'utilisateur et sa réservation a été retirée.
+     */
+    enum ResultatEmprunt { EMPRUNTE, EMPRUNTE_SUR_RESERVATION, INDISPONIBLE, LIMITE_ATTEINTE, ERREUR }
+    
+    /**
+     * Issue d'un retour en lot.
+     * 
+     * @param retournes Pour chaque emprunt, true s'il a été retourné (false s'il l'était déjà)
+     * @param reservations Pour chaque emprunt, la réservation pour laquelle son exemplaire a été mis de côté, ou 0
+     */
+    record ResultatRetour(boolean[] retournes, int[] reservations) {}
+    
     /**
      * Trouve un emprunt par son ID.
      * 
@@ -80,6 +102,31 @@ public interface EmpruntDAO {
      */
     int countEmpruntsActifs(int idUtilisateur);
     
+    /**
+     * Compte en une requête les emprunts actifs de plusieurs utilisateurs.
+     * 
+     * @param idsUtilisateurs Les identifiants des utilisateurs
+     * @return Map id utilisateur → nombre d'emprunts actifs (absents : aucun), ou null en cas d'erreur
+     */
+    Map<Integer, Integer> countActifsParUtilisateur(int[] idsUtilisateurs);
+    
+    /**
+     * Recalcule la colonne utilisateur.emprunts_actifs de tous les utilisateurs à partir
+     * des emprunts (reprise des données, ou correction d'une dérive).
+     * 
+     * @return Le nombre d'utilisateurs recalculés, ou -1 en cas d'erreur
+     */
+    int recalculerEmpruntsActifs();
+    
+    /**
+     * Parcourt en streaming les emprunts non rendus (EN_COURS ou EN_RETARD),
+     * sans charger les entités.
+     * 
+     * @param visiteur Appelé pour chaque emprunt actif
+     * @return Le nombre d'emprunts parcourus, ou -1 en cas d'erreur
+     */
+    long parcourirActifs(EmpruntActifVisiteur visiteur);
+    
     /**
      * Trouve tous les emprunts dans une période donnée.
      * 
@@ -97,6 +144,61 @@ public interface EmpruntDAO {
      */
     Emprunt save(Emprunt emprunt);
     
+    /**
+     * Enregistre un emprunt en une seule transaction : le compteur d'exemplaires libres du
+     * document est décrémenté par UPDATE conditionnel (WHERE exemplaires_disponibles > 0), le compteur
+     * utilisateur.emprunts_actifs est incrémenté sous la limite (WHERE emprunts_actifs < limite),
+     * un exemplaire libre est pris, puis l'emprunt est inséré.
+     * Deux emprunts simultanés du dernier exemplaire ne peuvent pas réussir tous les deux.
+     * Sans exemplaire libre, la réservation à retirer de l'utilisateur pour ce document est
+     * cherchée en base (mise de côté depuis un autre poste) et retirée dans la même transaction.
+     * 
+     * @param emprunt L'emprunt à enregistrer (son ID est renseigné en cas de succès)
+     * @param limiteEmprunts Le nombre maximal d'emprunts actifs de l'utilisateur
+     * @return EMPRUNTE, EMPRUNTE_SUR_RESERVATION, ou la raison du refus (rien n'est écrit)
+     */
+    ResultatEmprunt emprunter(Emprunt emprunt, int limiteEmprunts);
+    
+    /**
+     * Enregistre l'emprunt d'un document mis de côté pour l'utilisateur, en une
+     * seule transaction : la réservation à retirer est supprimée (le document
+     * a déjà été décompté), la limite est vérifiée, un exemplaire est pris, puis l'emprunt est inséré.
+     * 
+     * @param emprunt L'emprunt à enregistrer (son ID est renseigné en cas de succès)
+     * @param limiteEmprunts Le nombre maximal d'emprunts actifs de l'utilisateur
+     * @param idReservation La réservation à retirer de l'utilisateur pour ce document
+     * @return EMPRUNTE, ou la raison du refus (INDISPONIBLE si la réservation n'est plus à retirer)
+     */
+    ResultatEmprunt emprunterReserve(Emprunt emprunt, int limiteEmprunts, int idReservation);
+    
+    /**
+     * Enregistre plusieurs emprunts d'un même utilisateur en une seule transaction,
+     * par lots JDBC. La limite est vérifiée une fois ; les documents sont
+     * pris dans l'ordre sur leur compteur d'exemplaires tant qu'elle n'est pas atteinte ;
+     * un document sans exemplaire libre est pris sur la réservation à retirer de l'utilisateur, s'il en a une.
+     * Un document mis de côté pour l'utilisateur est pris sur sa réservation, dans la même transaction.
+     * 
+     * @param emprunts Les emprunts à enregistrer, tous du même utilisateur (IDs renseignés en cas de succès)
+     * @param limiteEmprunts Le nombre maximal d'emprunts actifs de l'utilisateur
+     * @param idsReservations Pour chaque emprunt, la réservation à retirer connue de ce poste (0 si aucune)
+     * @return L'issue de chaque emprunt, dans l'ordre (EMPRUNTE_SUR_RESERVATION pour un document
+     *         mis de côté), ou null en cas d'erreur (rien n'est écrit)
+     */
+    ResultatEmprunt[] emprunterEnLot(List<Emprunt> emprunts, int limiteEmprunts, int[] idsReservations);
+    
+    /**
+     * Enregistre plusieurs retours en une seule transaction, par lots JDBC :
+     * chaque emprunt non encore rendu passe à RETOURNE (date de retour effective,
+     * pénalité), son exemplaire est remis en rayon et le compteur des emprunts actifs
+     * de l'utilisateur décrémenté. Si le document est réservé, l'exemplaire est mis de
+     * côté pour le premier de la file dans la même transaction ; sinon le compteur du
+     * document est incrémenté.
+     * 
+     * @param emprunts Les emprunts à retourner, date de retour effective et pénalité renseignées
+     * @return Les emprunts retournés et les réservations servies, ou null en cas d'erreur
+     */
+    ResultatRetour retournerEnLot(List<Emprunt> emprunts);
+    
     /**
      * Met à jour un emprunt existant.
      * 
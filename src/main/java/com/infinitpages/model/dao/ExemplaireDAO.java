@@ -0,0 +1,50 @@
+package com.infinitpages.model.dao;
+
+import com.infinitpages.model.entity.Exemplaire;
+import java.util.List;
+
+/**
+ * Interface DAO pour la classe Exemplaire.
+ *
+ * La disponibilité d'un titre ne se calcule pas en comptant ses exemplaires :
+ * la table document tient un compteur exemplaires_disponibles, modifié par
+ * UPDATE relatif dans la même transaction que l'exemplaire concerné.
+ */
+public interface ExemplaireDAO {
+
+    /**
+     * Trouve les exemplaires d'un document réel.
+     *
+     * @param idDocument L'identifiant du document
+     * @return Liste des exemplaires, par identifiant
+     */
+    List<Exemplaire> findByDocument(int idDocument);
+
+    /**
+     * Ajoute un exemplaire à un document réel, en une seule transaction :
+     * l'exemplaire est inséré et les compteurs du document incrémentés.
+     *
+     * @param exemplaire L'exemplaire à ajouter (document renseigné)
+     * @return L'exemplaire avec son ID généré, ou null en cas d'erreur
+     */
+    Exemplaire save(Exemplaire exemplaire);
+
+    /**
+     * Retourne le plus grand identifiant de document réel.
+     *
+     * @return L'identifiant, 0 s'il n'y a aucun document réel, ou -1 en cas d'erreur
+     */
+    int findIdDocumentMax();
+
+    /**
+     * Crée l'exemplaire unique des documents réels d'une plage qui n'en ont pas encore,
+     * par des requêtes ensemblistes en une seule transaction : compteurs du document
+     * (1 exemplaire, libre s'il était disponible), insertion de l'exemplaire, puis
+     * rattachement des emprunts en cours. Relancer sur une plage déjà migrée ne change rien.
+     *
+     * @param idMin Premier identifiant de document de la plage
+     * @param idMax Dernier identifiant de document de la plage
+     * @return Le nombre de documents migrés, ou -1 en cas d'erreur (rien n'est écrit)
+     */
+    int migrerPlage(int idMin, int idMax);
+}
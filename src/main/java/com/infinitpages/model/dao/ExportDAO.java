@@ -0,0 +1,36 @@
+package com.infinitpages.model.dao;
+
+import com.infinitpages.util.export.ResultSetExporter;
+
+import java.nio.file.Path;
+
+/**
+ * Interface DAO pour l'export en masse des tables (CSV ou JSON Lines).
+ *
+ * Les lignes sont lues par un curseur en lecture seule et écrites au fil de l'eau :
+ * la mémoire utilisée ne dépend pas de la taille de la table exportée.
+ */
+public interface ExportDAO {
+
+    /**
+     * Tables exportables. Les requêtes sont fixées par l'implémentation.
+     */
+    enum TableExport {
+        EMPRUNTS,
+        PAIEMENTS,
+        CATALOGUE,
+        RAPPORTS
+    }
+
+    /**
+     * Exporte une table dans un fichier (créé ou écrasé).
+     * En cas d'erreur, le fichier partiel est supprimé.
+     *
+     * @param table La table à exporter
+     * @param fichier Le fichier de destination
+     * @param format CSV ou JSONL
+     * @param gzip true pour compresser le fichier
+     * @return Le nombre de lignes exportées, ou -1 en cas d'erreur
+     */
+    long exporter(TableExport table, Path fichier, ResultSetExporter.Format format, boolean gzip);
+}
@@ -0,0 +1,65 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Interface DAO pour les sketches HyperLogLog des lecteurs distincts.
+ * Un sketch est stocké par cible (document, catégorie ou global) et par jour.
+ */
+public interface LecteursDAO {
+
+    String TYPE_DOCUMENT = "DOCUMENT";
+    String TYPE_CATEGORIE = "CATEGORIE";
+    String TYPE_GLOBAL = "GLOBAL";
+
+    /**
+     * Sketch journalier sérialisé d'une cible.
+     *
+     * @param typeCible DOCUMENT, CATEGORIE ou GLOBAL
+     * @param idCible L'identifiant de la cible (0 pour GLOBAL)
+     * @param jour Le jour couvert
+     * @param registres Le sketch sérialisé (HyperLogLog.toBytes())
+     */
+    record SketchLecteurs(String typeCible, int idCible, LocalDate jour, byte[] registres) {
+    }
+
+    /**
+     * Enregistre des sketches journaliers, en une seule transaction. Chaque sketch est
+     * fusionné avec la ligne déjà en base (lue sous SELECT ... FOR UPDATE) : plusieurs
+     * postes enregistrant le même jour ne s'écrasent pas.
+     *
+     * @param sketches Les sketches à enregistrer
+     * @return true si tous les sketches ont été enregistrés
+     */
+    boolean saveAll(List<SketchLecteurs> sketches);
+
+    /**
+     * Récupère tous les sketches d'un jour donné.
+     *
+     * @param jour Le jour
+     * @return Liste des sketches de ce jour
+     */
+    List<SketchLecteurs> findByJour(LocalDate jour);
+
+    /**
+     * Récupère les sketches d'une cible sur une période.
+     *
+     * @param typeCible Le type de cible
+     * @param idCible L'identifiant de la cible
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Liste des sketches journaliers
+     */
+    List<SketchLecteurs> findByCible(String typeCible, int idCible, LocalDate debut, LocalDate fin);
+
+    /**
+     * Récupère les sketches de toutes les cibles d'un type sur une période.
+     *
+     * @param typeCible Le type de cible
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Liste des sketches journaliers
+     */
+    List<SketchLecteurs> findByType(String typeCible, LocalDate debut, LocalDate fin);
+}
@@ -1,7 +1,9 @@
 package com.infinitpages.model.dao;
 
 import com.infinitpages.model.entity.Notification;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -9,6 +11,22 @@ import java.util.Optional;
  */
 public interface NotificationDAO {
     
+    /**
+     * Suivi d'une insertion en masse, appelé après chaque lot validé.
+     */
+    interface Progression {
+        void avancer(int inseres, int total);
+    }
+    
+    /**
+     * Durée de conservation enregistrée pour un type et une priorité.
+     * 
+     * @param type Le type (RAPPEL, ALERTE, INFO)
+     * @param priorite La priorité (HAUTE, MOYENNE, BASSE)
+     * @param jours Le nombre de jours de conservation
+     */
+    record Retention(String type, String priorite, int jours) {}
+    
     /**
      * Trouve une notification par son ID.
      * 
@@ -56,6 +74,14 @@ public interface NotificationDAO {
      */
     int countNonLues(int idDestinataire);
     
+    /**
+     * Compte en une requête les notifications non lues de plusieurs destinataires.
+     * 
+     * @param idsDestinataires Les identifiants des destinataires
+     * @return Map id destinataire → nombre de non lues (absents : aucune), ou null en cas d'erreur
+     */
+    Map<Integer, Integer> countNonLuesParDestinataire(int[] idsDestinataires);
+    
     /**
      * Marque une notification comme lue.
      * 
@@ -65,13 +91,25 @@ public interface NotificationDAO {
     boolean marquerCommeLue(int id);
     
     /**
-     * Marque toutes les notifications d'un destinataire comme lues.
+     * Marque toutes les notifications d'un destinataire comme lues, en avançant
+     * son filigrane "lu jusqu'à" : l'identifiant de sa plus récente notification
+     * déjà insérée (une seule ligne écrite). Les notifications insérées ensuite restent non lues.
      * 
      * @param idDestinataire L'identifiant du destinataire
-     * @return Le nombre de notifications mises à jour
+     * @return 1 si le filigrane a été écrit, 0 en cas d'erreur
      */
     int marquerToutesCommeLues(int idDestinataire);
     
+    /**
+     * Convertit les indicateurs est_lue existants en filigranes, par tranches
+     * de destinataires : le filigrane est placé juste avant la plus ancienne
+     * notification non lue. Les notifications lues individuellement après
+     * ce point gardent leur indicateur.
+     * 
+     * @return Le nombre de destinataires ayant un filigrane, ou -1 en cas d'erreur
+     */
+    int migrerLectures();
+    
     /**
      * Sauvegarde une nouvelle notification.
      * 
@@ -80,6 +118,28 @@ public interface NotificationDAO {
      */
     Notification save(Notification notification);
     
+    /**
+     * Sauvegarde plusieurs notifications en un seul lot (une transaction).
+     * 
+     * @param notifications Les notifications à sauvegarder (leurs ID sont renseignés)
+     * @return Le nombre de notifications sauvegardées, ou -1 en cas d'erreur (rien n'est sauvegardé)
+     */
+    int saveAll(List<Notification> notifications);
+    
+    /**
+     * Insère la même notification pour de nombreux destinataires, par lots
+     * d'INSERT multi-lignes dans une seule transaction.
+     * 
+     * @param message Le message commun
+     * @param type Le type (RAPPEL, ALERTE, INFO)
+     * @param priorite La priorité (HAUTE, MOYENNE, BASSE)
+     * @param idsDestinataires Les identifiants des destinataires
+     * @param progression Suivi de l'avancement (peut être null)
+     * @return Le nombre de notifications insérées, ou -1 en cas d'erreur (rien n'est inséré)
+     */
+    int saveEnMasse(String message, String type, String priorite, int[] idsDestinataires,
+                    Progression progression);
+    
     /**
      * Met à jour une notification existante.
      * 
@@ -103,5 +163,33 @@ public interface NotificationDAO {
      * @return Le nombre de notifications supprimées
      */
     int deleteLuesByDestinataire(int idDestinataire);
+    
+    /**
+     * Supprime un lot de notifications anciennes d'un type et d'une priorité,
+     * les plus anciennes d'abord. Appelé en boucle par la purge jusqu'à
+     * obtenir moins de lignes que la limite.
+     * 
+     * @param type Le type (RAPPEL, ALERTE, INFO)
+     * @param priorite La priorité (HAUTE, MOYENNE, BASSE)
+     * @param avant Les notifications envoyées avant cette date sont supprimées
+     * @param limite Le nombre maximal de lignes supprimées
+     * @return Le nombre de notifications supprimées, ou -1 en cas d'erreur
+     */
+    int deleteAnciennes(String type, String priorite, LocalDateTime avant, int limite);
+    
+    /**
+     * Trouve les durées de conservation enregistrées (les autres gardent leur valeur par défaut).
+     * 
+     * @return Liste des durées enregistrées, ou null en cas d'erreur
+     */
+    List<Retention> findRetentions();
+    
+    /**
+     * Enregistre (ou remplace) des durées de conservation, en une seule transaction.
+     * 
+     * @param retentions Les durées à enregistrer
+     * @return true si toutes les durées ont été enregistrées
+     */
+    boolean saveRetentions(List<Retention> retentions);
 }
 
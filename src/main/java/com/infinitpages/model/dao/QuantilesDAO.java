@@ -0,0 +1,104 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Interface DAO pour les sketches de quantiles (KLL) des emprunts rendus.
+ * Un sketch est stocké par mesure (durée ou jours de retard), par dimension
+ * (type d'utilisateur ou genre), par valeur de la dimension, par jour de retour
+ * et par poste : chaque poste n'écrit que ses propres lignes, et les lignes des
+ * différents postes sont fusionnées à la lecture.
+ */
+public interface QuantilesDAO {
+
+    String MESURE_DUREE = "DUREE";
+    String MESURE_RETARD = "RETARD";
+
+    String DIMENSION_TYPE_UTILISATEUR = "TYPE_UTILISATEUR";
+    String DIMENSION_GENRE = "GENRE";
+
+    /**
+     * Sketch journalier sérialisé.
+     *
+     * @param mesure DUREE ou RETARD
+     * @param dimension TYPE_UTILISATEUR ou GENRE
+     * @param valeur La valeur de la dimension (ex: ETUDIANT, MANGA)
+     * @param jour Le jour de retour couvert
+     * @param poste Le poste (processus) qui a écrit le sketch
+     * @param donnees Le sketch sérialisé (KllSketch.toBytes())
+     */
+    record SketchQuantiles(String mesure, String dimension, String valeur, LocalDate jour, String poste,
+                           byte[] donnees) {
+    }
+
+    /**
+     * Type d'utilisateur et genre d'un emprunt (noms des constantes, null si inconnus).
+     */
+    record DimensionsEmprunt(String typeUtilisateur, String genre) {
+    }
+
+    /**
+     * Visiteur des emprunts rendus, appelé ligne par ligne.
+     */
+    interface RetourVisiteur {
+        void visiter(LocalDate jour, String typeUtilisateur, String genre, long duree, long joursRetard);
+    }
+
+    /**
+     * Enregistre (ou remplace) des sketches journaliers d'un poste, en une seule transaction.
+     * Les lignes des autres postes ne sont pas touchées.
+     *
+     * @param sketches Les sketches à enregistrer
+     * @return true si tous les sketches ont été enregistrés
+     */
+    boolean saveAll(List<SketchQuantiles> sketches);
+
+    /**
+     * Remplace tous les sketches d'une période, de tous les postes (reconstruction), en une seule transaction.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @param sketches Les nouveaux sketches de la période
+     * @return true si la période a été remplacée
+     */
+    boolean remplacer(LocalDate debut, LocalDate fin, List<SketchQuantiles> sketches);
+
+    /**
+     * Récupère tous les sketches d'un jour donné, de tous les postes.
+     *
+     * @param jour Le jour
+     * @return Liste des sketches de ce jour
+     */
+    List<SketchQuantiles> findByJour(LocalDate jour);
+
+    /**
+     * Récupère les sketches d'une mesure et d'une dimension sur une période (toutes valeurs
+     * et tous postes confondus).
+     *
+     * @param mesure DUREE ou RETARD
+     * @param dimension TYPE_UTILISATEUR ou GENRE
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Liste des sketches journaliers
+     */
+    List<SketchQuantiles> findByDimension(String mesure, String dimension, LocalDate debut, LocalDate fin);
+
+    /**
+     * Résout le type d'utilisateur et le genre d'un emprunt.
+     *
+     * @param idEmprunt L'identifiant de l'emprunt
+     * @return Les dimensions, ou null si l'emprunt n'existe pas
+     */
+    DimensionsEmprunt findDimensions(int idEmprunt);
+
+    /**
+     * Parcourt en streaming les emprunts rendus sur une période (reconstruction des sketches).
+     *
+     * @param debut Premier jour de retour inclus
+     * @param fin Dernier jour de retour inclus
+     * @param visiteur Appelé pour chaque emprunt rendu
+     * @return Le nombre d'emprunts parcourus, ou -1 en cas d'erreur
+     */
+    long parcourirRetours(LocalDate debut, LocalDate fin, RetourVisiteur visiteur);
+}
@@ -0,0 +1,32 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+
+/**
+ * Interface DAO pour le journal des rappels de retour envoyés.
+ *
+ * Chaque poste planifie les rappels de tous les emprunts actifs ; avant
+ * d'envoyer un rappel, le poste le réserve par INSERT IGNORE sur la clé
+ * (emprunt, type, jour) : un seul poste l'envoie, quel que soit le nombre
+ * de postes ouverts.
+ */
+public interface RappelDAO {
+
+    /**
+     * Réserve l'envoi d'un rappel.
+     *
+     * @param idEmprunt L'identifiant de l'emprunt
+     * @param type BIENTOT ou RETARD
+     * @param jour Le jour d'échéance du rappel
+     * @return 1 si ce poste doit envoyer le rappel, 0 s'il a déjà été réservé, ou -1 en cas d'erreur
+     */
+    int reserver(int idEmprunt, String type, LocalDate jour);
+
+    /**
+     * Supprime les réservations échues avant un jour donné.
+     *
+     * @param avant Le jour limite (exclu)
+     * @return Le nombre de lignes supprimées, ou -1 en cas d'erreur
+     */
+    int purger(LocalDate avant);
+}
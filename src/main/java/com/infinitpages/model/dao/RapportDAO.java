@@ -65,6 +65,14 @@ public interface RapportDAO {
      */
     Rapport save(Rapport rapport);
     
+    /**
+     * Sauvegarde plusieurs rapports en un seul lot (une transaction).
+     * 
+     * @param rapports Les rapports à sauvegarder (leurs ID sont renseignés)
+     * @return Le nombre de rapports sauvegardés (0 en cas d'erreur)
+     */
+    int saveAll(List<Rapport> rapports);
+    
     /**
      * Met à jour un rapport existant.
      * 
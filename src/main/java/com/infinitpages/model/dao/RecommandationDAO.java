@@ -0,0 +1,27 @@
+package com.infinitpages.model.dao;
+
+/**
+ * Interface DAO pour les données servant aux recommandations.
+ * Fournit les paires (utilisateur, document) issues des emprunts
+ * et des listes de lecture.
+ */
+public interface RecommandationDAO {
+
+    /**
+     * Reçoit les paires lues en base, une par une, sans les matérialiser en liste.
+     */
+    @FunctionalInterface
+    interface PaireVisiteur {
+        void visiter(int idUtilisateur, int idDocument);
+    }
+
+    /**
+     * Parcourt toutes les paires distinctes (utilisateur, document) présentes
+     * dans les emprunts et dans l'historique / les listes de lecture.
+     * Les lignes sont lues avec un curseur en avant seulement.
+     *
+     * @param visiteur Le visiteur appelé pour chaque paire
+     * @return Le nombre de paires parcourues
+     */
+    long parcourirPaires(PaireVisiteur visiteur);
+}
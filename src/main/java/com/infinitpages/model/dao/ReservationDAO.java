@@ -0,0 +1,61 @@
+package com.infinitpages.model.dao;
+
+import com.infinitpages.model.entity.Reservation;
+import java.util.List;
+
+/**
+ * Interface DAO pour la classe Reservation.
+ */
+public interface ReservationDAO {
+
+    /**
+     * Issue de l'attribution d'un document retourné à une réservation.
+     */
+    enum ResultatAttribution { ATTRIBUEE, DOCUMENT_PRIS, RESERVATION_CADUQUE, ERREUR }
+
+    /**
+     * Sauvegarde une nouvelle réservation.
+     *
+     * @param reservation La réservation à sauvegarder
+     * @return La réservation avec son ID généré, ou null (erreur, ou document déjà réservé par l'utilisateur)
+     */
+    Reservation save(Reservation reservation);
+
+    /**
+     * Trouve toutes les réservations en cours (en attente ou à retirer), par ordre d'arrivée.
+     *
+     * @return Liste des réservations, ou null en cas d'erreur
+     */
+    List<Reservation> findActives();
+
+    /**
+     * Supprime une réservation (annulée ou honorée).
+     *
+     * @param id L'identifiant de la réservation
+     * @return true si la suppression a réussi
+     */
+    boolean delete(int id);
+
+    /**
+     * Met un exemplaire du document de côté pour une réservation, en une seule transaction :
+     * le compteur d'exemplaires disponibles est décrémenté par UPDATE conditionnel
+     * (WHERE exemplaires_disponibles > 0) et la réservation passe de EN_ATTENTE à A_RETIRER.
+     *
+     * @param idReservation L'identifiant de la réservation servie
+     * @param idDocument L'identifiant du document
+     * @return ATTRIBUEE, ou la raison de l'échec (rien n'est écrit)
+     */
+    ResultatAttribution attribuer(int idReservation, int idDocument);
+
+    /**
+     * Supprime une réservation à retirer et, dans la même transaction, met son exemplaire
+     * de côté pour le premier de la file du document ; sans personne en attente,
+     * l'exemplaire redevient disponible.
+     *
+     * @param idReservation L'identifiant de la réservation
+     * @param idDocument L'identifiant du document mis de côté
+     * @return L'identifiant de la réservation servie à sa place, 0 si personne n'attendait,
+     *         ou -1 si la réservation n'était plus à retirer (ou en cas d'erreur)
+     */
+    int liberer(int idReservation, int idDocument);
+}
@@ -0,0 +1,108 @@
+package com.infinitpages.model.dao;
+
+import com.infinitpages.model.entity.Paiement;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interface DAO pour le grand livre des soldes utilisateurs.
+ *
+ * Chaque somme due ou payée est une ligne ajoutée à mouvement_solde : deux
+ * paiements simultanés n'écrivent pas la même ligne. Le solde se lit comme
+ * l'instantané (solde_instantane) plus les mouvements non encore consolidés ;
+ * la consolidation périodique marque les mouvements qu'elle reporte
+ * (id_consolidation) et avance les instantanés et la colonne
+ * utilisateur.solde_a_payer par UPDATE relatif.
+ */
+public interface SoldeDAO {
+
+    /**
+     * Un mouvement du grand livre.
+     *
+     * @param id Identifiant (0 pour un mouvement à enregistrer)
+     * @param idUtilisateur L'utilisateur concerné
+     * @param montant Positif si l'utilisateur doit la somme, négatif s'il l'a payée
+     * @param motif OUVERTURE, PENALITE (portée au retour ou par le traitement des retards), PAIEMENT
+     *              ou ANNULATION_PAIEMENT
+     * @param idPaiement Le paiement à l'origine du mouvement, ou null
+     * @param idEmprunt L'emprunt à l'origine du mouvement, ou null
+     * @param dateMouvement Date d'enregistrement (null pour un mouvement à enregistrer)
+     */
+    record Mouvement(long id, int idUtilisateur, double montant, String motif, Integer idPaiement,
+                     Integer idEmprunt, LocalDateTime dateMouvement) {
+
+        public Mouvement(int idUtilisateur, double montant, String motif, Integer idPaiement, Integer idEmprunt) {
+            this(0, idUtilisateur, montant, motif, idPaiement, idEmprunt, null);
+        }
+    }
+
+    /**
+     * Ajoute des mouvements au grand livre, en une seule transaction (lot JDBC).
+     *
+     * @param mouvements Les mouvements à ajouter
+     * @return true si tous les mouvements ont été enregistrés
+     */
+    boolean enregistrer(List<Mouvement> mouvements);
+
+    /**
+     * Enregistre un nouveau paiement et les mouvements qui en découlent, en une seule
+     * transaction : un paiement n'existe jamais sans son crédit au grand livre. Les
+     * mouvements reçoivent l'identifiant généré du paiement.
+     *
+     * @param paiement Le paiement à enregistrer
+     * @param mouvements Les mouvements à ajouter
+     * @return Le paiement avec son ID généré, ou null en cas d'erreur (rien n'est écrit)
+     */
+    Paiement enregistrerPaiement(Paiement paiement, List<Mouvement> mouvements);
+
+    /**
+     * Change le statut d'un paiement et ajoute les mouvements qui en découlent, en une
+     * seule transaction. Le changement est conditionnel (WHERE statut = ancienStatut) :
+     * un paiement déjà passé à un autre statut, par exemple annulé deux fois, n'écrit rien.
+     *
+     * @param idPaiement L'identifiant du paiement
+     * @param ancienStatut Le statut attendu
+     * @param nouveauStatut Le nouveau statut
+     * @param mouvements Les mouvements à ajouter (liste vide : aucun)
+     * @return 1 si le statut a changé, 0 si le paiement n'avait plus l'ancien statut, ou -1 en cas d'erreur
+     */
+    int changerStatutPaiement(int idPaiement, String ancienStatut, String nouveauStatut, List<Mouvement> mouvements);
+
+    /**
+     * Calcule le solde d'un utilisateur : instantané plus mouvements non consolidés.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @return Le solde (négatif pour un avoir), ou null en cas d'erreur
+     */
+    Double getSolde(int idUtilisateur);
+
+    /**
+     * Trouve les mouvements d'un utilisateur, du plus récent au plus ancien.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @return Liste des mouvements
+     */
+    List<Mouvement> findByUtilisateur(int idUtilisateur);
+
+    /**
+     * Reporte dans les instantanés, et dans utilisateur.solde_a_payer, les mouvements non
+     * encore consolidés, en une seule transaction : les mouvements sont d'abord marqués d'un
+     * nouvel identifiant de consolidation, puis seuls les mouvements marqués sont additionnés.
+     * Un mouvement validé pendant la consolidation reste non consolidé pour le passage suivant,
+     * quel que soit son identifiant.
+     * Un seul poste consolide à la fois (verrou nommé) ; les autres passent leur tour.
+     *
+     * @return Le nombre d'utilisateurs dont le solde consolidé a changé, ou -1 en cas d'erreur
+     */
+    int consolider();
+
+    /**
+     * Crée le mouvement d'ouverture (et l'instantané correspondant) des utilisateurs
+     * qui ont un solde à payer mais aucun mouvement : reprise des soldes tenus
+     * avant le grand livre. Relancer ne change rien.
+     *
+     * @return Le nombre d'utilisateurs repris, ou -1 en cas d'erreur
+     */
+    int ouvrirSoldes();
+}
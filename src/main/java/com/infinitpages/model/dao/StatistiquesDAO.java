@@ -0,0 +1,63 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Interface DAO pour les agrégats des rapports administratifs.
+ * Les totaux sont calculés par la base (SUM, COUNT, GROUP BY) :
+ * seules quelques valeurs remontent, quelle que soit la taille des tables.
+ */
+public interface StatistiquesDAO {
+
+    /**
+     * Agrégats des emprunts d'une période.
+     *
+     * @param totalEmprunts Nombre d'emprunts commencés dans la période
+     * @param empruntsEnRetard Emprunts rendus en retard ou dont la date de retour est dépassée
+     * @param totalPenalites Somme des pénalités enregistrées (emprunt.penalite, taux du type d'utilisateur)
+     */
+    record StatistiquesEmprunts(int totalEmprunts, int empruntsEnRetard, double totalPenalites) {
+    }
+
+    /**
+     * Agrégats des consultations du catalogue.
+     *
+     * @param totalConsultations Somme des consultations de tous les documents
+     * @param idDocumentPlusConsulte Le document le plus consulté (0 si le catalogue est vide)
+     * @param titreDocumentPlusConsulte Son titre (null si le catalogue est vide)
+     * @param consultationsDocumentPlusConsulte Son nombre de consultations
+     */
+    record StatistiquesConsultations(long totalConsultations, int idDocumentPlusConsulte,
+                                     String titreDocumentPlusConsulte, int consultationsDocumentPlusConsulte) {
+    }
+
+    /**
+     * Calcule les agrégats des emprunts commencés entre deux dates.
+     *
+     * @param dateDebut Date de début (incluse)
+     * @param dateFin Date de fin (incluse)
+     * @param aujourdhui Date de référence pour les emprunts non rendus
+     * @return Les agrégats (tous à zéro si aucun emprunt)
+     */
+    StatistiquesEmprunts getStatistiquesEmprunts(LocalDate dateDebut, LocalDate dateFin, LocalDate aujourdhui);
+
+    /**
+     * Calcule les agrégats des emprunts de chaque mois d'une plage, en un seul parcours (GROUP BY mois).
+     *
+     * @param dateDebut Date de début (incluse)
+     * @param dateFin Date de fin (incluse)
+     * @param aujourdhui Date de référence pour les emprunts non rendus
+     * @return Map mois → agrégats (les mois sans emprunt sont absents)
+     */
+    Map<YearMonth, StatistiquesEmprunts> getStatistiquesEmpruntsParMois(LocalDate dateDebut, LocalDate dateFin,
+                                                                        LocalDate aujourdhui);
+
+    /**
+     * Calcule le total des consultations et le document le plus consulté.
+     *
+     * @return Les agrégats des consultations
+     */
+    StatistiquesConsultations getStatistiquesConsultations();
+}
@@ -0,0 +1,82 @@
+package com.infinitpages.model.dao;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Interface DAO pour le traitement quotidien des retards.
+ *
+ * Les emprunts non rendus dont la date de retour est dépassée sont marqués
+ * EN_RETARD et leur pénalité est recalculée par des UPDATE ensemblistes,
+ * lot par lot (plages d'identifiants), sans charger les emprunts en Java.
+ * Chaque exécution est journalisée dans la table traitement_retards.
+ */
+public interface TraitementRetardsDAO {
+
+    /**
+     * Bilan d'une exécution du traitement.
+     *
+     * @param jour Le jour traité
+     * @param empruntsMarques Emprunts passés de EN_COURS à EN_RETARD
+     * @param penalitesMisesAJour Emprunts en retard dont la pénalité a été recalculée
+     * @param lots Nombre de lots (plages d'identifiants) traités
+     * @param dureeMs Durée totale du traitement
+     */
+    record BilanTraitement(LocalDate jour, int empruntsMarques, int penalitesMisesAJour, int lots, long dureeMs) {
+    }
+
+    /**
+     * Plage d'identifiants des emprunts concernés.
+     */
+    record BornesIds(int min, int max) {
+    }
+
+    /**
+     * Calcule la plage d'identifiants des emprunts non rendus dont la date de retour est dépassée.
+     *
+     * @param jour Le jour de référence
+     * @return La plage, ou null si aucun emprunt n'est en retard
+     */
+    BornesIds findBornesEnRetard(LocalDate jour);
+
+    /**
+     * Marque EN_RETARD les emprunts EN_COURS d'une plage dont la date de retour est dépassée.
+     *
+     * @param jour Le jour de référence
+     * @param idMin Premier identifiant de la plage
+     * @param idMax Dernier identifiant de la plage
+     * @return Le nombre d'emprunts marqués, ou -1 en cas d'erreur
+     */
+    int marquerEnRetard(LocalDate jour, int idMin, int idMax);
+
+    /**
+     * Recalcule la pénalité des emprunts EN_RETARD non rendus d'une plage :
+     * jours de retard × prix par jour × taux du type d'utilisateur.
+     * Le calcul part des dates : le relancer le même jour donne le même résultat.
+     * La hausse des pénalités est portée au grand livre (mouvements PENALITE) dans la même transaction.
+     *
+     * @param jour Le jour de référence
+     * @param idMin Premier identifiant de la plage
+     * @param idMax Dernier identifiant de la plage
+     * @param tauxParType Taux de pénalité par type d'utilisateur (nom de la constante)
+     * @param tauxDefaut Taux appliqué aux types absents de la map
+     * @return Le nombre d'emprunts mis à jour, ou -1 en cas d'erreur
+     */
+    int appliquerPenalites(LocalDate jour, int idMin, int idMax, Map<String, Double> tauxParType, double tauxDefaut);
+
+    /**
+     * Récupère le bilan du traitement d'un jour.
+     *
+     * @param jour Le jour
+     * @return Le bilan, ou null si le jour n'a pas été traité
+     */
+    BilanTraitement findByJour(LocalDate jour);
+
+    /**
+     * Enregistre (ou remplace) le bilan du traitement d'un jour.
+     *
+     * @param bilan Le bilan
+     * @return true si le bilan a été enregistré
+     */
+    boolean save(BilanTraitement bilan);
+}
@@ -51,15 +51,6 @@ public interface UtilisateurDAO extends PersonneDAO {
      */
     boolean update(Utilisateur utilisateur);
     
-    /**
-     * Met à jour le solde à payer d'un utilisateur.
-     * 
-     * @param idUtilisateur L'identifiant de l'utilisateur
-     * @param nouveauSolde Le nouveau solde
-     * @return true si la mise à jour a réussi
-     */
-    boolean updateSoldeAPayer(int idUtilisateur, double nouveauSolde);
-    
     /**
      * Compte le nombre d'utilisateurs par type.
      * 
@@ -0,0 +1,235 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.AgregatJournalierDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Implémentation de AgregatJournalierDAO.
+ */
+public class AgregatJournalierDAOImpl implements AgregatJournalierDAO {
+
+    @Override
+    public boolean ajouterEmprunt(LocalDate jour, int idUtilisateur) {
+        String sql = "INSERT INTO agregat_emprunt_jour (jour, type_utilisateur, emprunts_ouverts) " +
+                     "SELECT ?, type_utilisateur, 1 FROM utilisateur WHERE id_personne = ? " +
+                     "ON DUPLICATE KEY UPDATE emprunts_ouverts = emprunts_ouverts + 1";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+            stmt.setInt(2, idUtilisateur);
+
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la mise à jour de l'agrégat des emprunts: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean ajouterRetour(LocalDate jour, int idUtilisateur, boolean enRetard, double penalite) {
+        String sql = "INSERT INTO agregat_emprunt_jour " +
+                     "(jour, type_utilisateur, emprunts_retournes, retours_en_retard, total_penalites) " +
+                     "SELECT ?, type_utilisateur, 1, ?, ? FROM utilisateur WHERE id_personne = ? " +
+                     "ON DUPLICATE KEY UPDATE emprunts_retournes = emprunts_retournes + 1, " +
+                     "retours_en_retard = retours_en_retard + VALUES(retours_en_retard), " +
+                     "total_penalites = total_penalites + VALUES(total_penalites)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+            stmt.setInt(2, enRetard ? 1 : 0);
+            stmt.setDouble(3, penalite);
+            stmt.setInt(4, idUtilisateur);
+
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la mise à jour de l'agrégat des retours: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean ajouterPaiement(LocalDate jour, int idUtilisateur, String methodePaiement, int nombre, double montant) {
+        String sql = "INSERT INTO agregat_paiement_jour " +
+                     "(jour, methode_paiement, type_utilisateur, nombre_paiements, montant_total) " +
+                     "SELECT ?, ?, type_utilisateur, ?, ? FROM utilisateur WHERE id_personne = ? " +
+                     "ON DUPLICATE KEY UPDATE nombre_paiements = nombre_paiements + VALUES(nombre_paiements), " +
+                     "montant_total = montant_total + VALUES(montant_total)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+            stmt.setString(2, methodePaiement);
+            stmt.setInt(3, nombre);
+            stmt.setDouble(4, montant);
+            stmt.setInt(5, idUtilisateur);
+
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la mise à jour de l'agrégat des paiements: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    @Override
+    public int reconstruire(LocalDate dateDebut, LocalDate dateFin) {
+        String sqlSupprimerEmprunts = "DELETE FROM agregat_emprunt_jour WHERE jour BETWEEN ? AND ?";
+        String sqlEmprunts = "INSERT INTO agregat_emprunt_jour " +
+                             "(jour, type_utilisateur, emprunts_ouverts, emprunts_retournes, retours_en_retard, total_penalites) " +
+                             "SELECT jour, type_utilisateur, SUM(ouverts), SUM(retournes), SUM(en_retard), SUM(penalites) FROM (" +
+                             "  SELECT e.date_emprunt AS jour, u.type_utilisateur, 1 AS ouverts, 0 AS retournes, " +
+                             "         0 AS en_retard, 0 AS penalites " +
+                             "  FROM emprunt e INNER JOIN utilisateur u ON u.id_personne = e.id_utilisateur " +
+                             "  WHERE e.date_emprunt BETWEEN ? AND ? " +
+                             "  UNION ALL " +
+                             "  SELECT e.date_retour_effective, u.type_utilisateur, 0, 1, " +
+                             "         e.date_retour_effective > e.date_retour, e.penalite " +
+                             "  FROM emprunt e INNER JOIN utilisateur u ON u.id_personne = e.id_utilisateur " +
+                             "  WHERE e.date_retour_effective BETWEEN ? AND ?" +
+                             ") t GROUP BY jour, type_utilisateur";
+        String sqlSupprimerPaiements = "DELETE FROM agregat_paiement_jour WHERE jour BETWEEN ? AND ?";
+        String sqlPaiements = "INSERT INTO agregat_paiement_jour " +
+                              "(jour, methode_paiement, type_utilisateur, nombre_paiements, montant_total) " +
+                              "SELECT p.date_paiement, p.methode_paiement, u.type_utilisateur, COUNT(*), SUM(p.montant) " +
+                              "FROM paiement p INNER JOIN utilisateur u ON u.id_personne = p.id_utilisateur " +
+                              "WHERE p.statut = 'VALIDE' AND p.date_paiement BETWEEN ? AND ? " +
+                              "GROUP BY p.date_paiement, p.methode_paiement, u.type_utilisateur";
+
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int lignes = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(sqlSupprimerEmprunts)) {
+                setPeriode(stmt, 1, dateDebut, dateFin);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sqlEmprunts)) {
+                setPeriode(stmt, 1, dateDebut, dateFin);
+                setPeriode(stmt, 3, dateDebut, dateFin);
+                lignes += stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sqlSupprimerPaiements)) {
+                setPeriode(stmt, 1, dateDebut, dateFin);
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sqlPaiements)) {
+                setPeriode(stmt, 1, dateDebut, dateFin);
+                lignes += stmt.executeUpdate();
+            }
+
+            conn.commit();
+            return lignes;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la reconstruction des agrégats: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public TotauxEmprunts getTotauxEmprunts(LocalDate dateDebut, LocalDate dateFin) {
+        String sql = "SELECT COALESCE(SUM(emprunts_ouverts), 0) AS ouverts, " +
+                     "COALESCE(SUM(emprunts_retournes), 0) AS retournes, " +
+                     "COALESCE(SUM(retours_en_retard), 0) AS en_retard, " +
+                     "COALESCE(SUM(total_penalites), 0) AS penalites " +
+                     "FROM agregat_emprunt_jour WHERE jour BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            setPeriode(stmt, 1, dateDebut, dateFin);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new TotauxEmprunts(
+                        rs.getInt("ouverts"),
+                        rs.getInt("retournes"),
+                        rs.getInt("en_retard"),
+                        rs.getDouble("penalites")
+                    );
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la lecture des agrégats d'emprunts: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return new TotauxEmprunts(0, 0, 0, 0.0);
+    }
+
+    @Override
+    public Map<String, Double> getRevenusParMethode(LocalDate dateDebut, LocalDate dateFin) {
+        return getRevenusGroupes("methode_paiement", dateDebut, dateFin);
+    }
+
+    @Override
+    public Map<String, Double> getRevenusParTypeUtilisateur(LocalDate dateDebut, LocalDate dateFin) {
+        return getRevenusGroupes("type_utilisateur", dateDebut, dateFin);
+    }
+
+    /**
+     * Somme les montants des paiements validés, groupés par une colonne de agregat_paiement_jour.
+     */
+    private Map<String, Double> getRevenusGroupes(String colonne, LocalDate dateDebut, LocalDate dateFin) {
+        Map<String, Double> revenus = new LinkedHashMap<>();
+        String sql = "SELECT " + colonne + " AS groupe, SUM(montant_total) AS montant " +
+                     "FROM agregat_paiement_jour WHERE jour BETWEEN ? AND ? " +
+                     "GROUP BY " + colonne + " ORDER BY " + colonne;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            setPeriode(stmt, 1, dateDebut, dateFin);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    revenus.put(rs.getString("groupe"), rs.getDouble("montant"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la lecture des agrégats de paiements: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return revenus;
+    }
+
+    private void setPeriode(PreparedStatement stmt, int index, LocalDate dateDebut, LocalDate dateFin) throws SQLException {
+        stmt.setDate(index, Date.valueOf(dateDebut));
+        stmt.setDate(index + 1, Date.valueOf(dateFin));
+    }
+}
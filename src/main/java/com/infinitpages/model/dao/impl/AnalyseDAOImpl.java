@@ -0,0 +1,58 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.AnalyseDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Implémentation de AnalyseDAO.
+ */
+public class AnalyseDAOImpl implements AnalyseDAO {
+
+    @Override
+    public long parcourirEmprunts(LigneVisiteur visiteur) {
+        String sql = "SELECT e.date_emprunt, e.date_retour, e.date_retour_effective, " +
+                     "e.etat, e.penalite, e.montant_paye, d.genre, c.nom, u.type_utilisateur " +
+                     "FROM emprunt e " +
+                     "INNER JOIN document d ON d.id = e.id_document " +
+                     "INNER JOIN utilisateur u ON u.id_personne = e.id_utilisateur " +
+                     "LEFT JOIN categorie c ON c.id = d.id_categorie";
+        long count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL : Integer.MIN_VALUE active le streaming ligne par ligne
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    visiteur.visiter(new LigneEmprunt(
+                        toLocalDate(rs.getDate(1)),
+                        toLocalDate(rs.getDate(2)),
+                        toLocalDate(rs.getDate(3)),
+                        rs.getString(4),
+                        rs.getDouble(5),
+                        rs.getDouble(6),
+                        rs.getString(7),
+                        rs.getString(8),
+                        rs.getString(9)
+                    ));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du chargement des emprunts pour l'analyse: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+
+        return count;
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+}
@@ -9,7 +9,10 @@ import com.infinitpages.util.db.DatabaseConnection;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -59,6 +62,46 @@ public class DocumentDAOImpl implements DocumentDAO {
         return documents;
     }
     
+    @Override
+    public List<Document> findByIds(int[] ids) {
+        List<Document> documents = new ArrayList<>();
+        if (ids == null || ids.length == 0) {
+            return documents;
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(ids.length, "?"));
+        String sql = "SELECT * FROM document WHERE id IN (" + placeholders + ")";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < ids.length; i++) {
+                stmt.setInt(i + 1, ids[i]);
+            }
+            
+            Map<Integer, Document> parId = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Document document = mapResultSetToDocument(rs);
+                    parId.put(document.getId(), document);
+                }
+            }
+            
+            // Conserver l'ordre demandé (ex: classement des recommandations)
+            for (int id : ids) {
+                Document document = parId.get(id);
+                if (document != null) {
+                    documents.add(document);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche de documents par IDs: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return documents;
+    }
+    
     @Override
     public List<Document> findDisponibles() {
         List<Document> documents = new ArrayList<>();
@@ -331,8 +374,8 @@ public class DocumentDAOImpl implements DocumentDAO {
     public boolean update(Document document) {
         String sql = "UPDATE document SET titre = ?, auteur = ?, genre = ?, format = ?, " +
                      "date_publication = ?, resume = ?, mots_cles = ?, prix_par_jour = ?, " +
-                     "disponible = ?, nombre_consultations = ?, nombre_emprunts = ?, " +
-                     "note_globale = ?, id_categorie = ? WHERE id = ?";
+                     "disponible = (? AND exemplaires_disponibles > 0), nombre_consultations = ?, " +
+                     "nombre_emprunts = ?, note_globale = ?, id_categorie = ? WHERE id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -540,6 +583,8 @@ public class DocumentDAOImpl implements DocumentDAO {
         }
         document.setPrixParJour(rs.getDouble("prix_par_jour"));
         document.setDisponible(rs.getBoolean("disponible"));
+        document.setNombreExemplaires(rs.getInt("nombre_exemplaires"));
+        document.setExemplairesDisponibles(rs.getInt("exemplaires_disponibles"));
         document.setNombreConsultations(rs.getInt("nombre_consultations"));
         document.setNombreEmprunts(rs.getInt("nombre_emprunts"));
         document.setNoteGlobale(rs.getDouble("note_globale"));
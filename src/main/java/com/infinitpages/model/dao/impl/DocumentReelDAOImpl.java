@@ -184,6 +184,17 @@ public class DocumentReelDAOImpl extends DocumentDAOImpl implements DocumentReel
                     stmtReel.executeUpdate();
                 }
                 
+                // 3. Premier exemplaire (les colonnes compteurs valent 1 par défaut)
+                String sqlExemplaire = "INSERT INTO exemplaire (id_document, emplacement, condition_livre) VALUES (?, ?, ?)";
+                
+                try (PreparedStatement stmtExemplaire = conn.prepareStatement(sqlExemplaire)) {
+                    stmtExemplaire.setInt(1, docBase.getId());
+                    stmtExemplaire.setString(2, documentReel.getEmplacement());
+                    stmtExemplaire.setString(3, documentReel.getCondition());
+                    
+                    stmtExemplaire.executeUpdate();
+                }
+                
                 conn.commit();
                 return docBase;
             }
@@ -300,6 +311,8 @@ public class DocumentReelDAOImpl extends DocumentDAOImpl implements DocumentReel
         }
         documentReel.setPrixParJour(rs.getDouble("prix_par_jour"));
         documentReel.setDisponible(rs.getBoolean("disponible"));
+        documentReel.setNombreExemplaires(rs.getInt("nombre_exemplaires"));
+        documentReel.setExemplairesDisponibles(rs.getInt("exemplaires_disponibles"));
         documentReel.setNombreConsultations(rs.getInt("nombre_consultations"));
         documentReel.setNombreEmprunts(rs.getInt("nombre_emprunts"));
         documentReel.setNoteGlobale(rs.getDouble("note_globale"));
@@ -3,13 +3,17 @@ package com.infinitpages.model.dao.impl;
 import com.infinitpages.model.dao.EmpruntDAO;
 import com.infinitpages.model.entity.Document;
 import com.infinitpages.model.entity.Emprunt;
+import com.infinitpages.model.entity.Exemplaire;
 import com.infinitpages.model.entity.Utilisateur;
 import com.infinitpages.util.db.DatabaseConnection;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -17,6 +21,37 @@ import java.util.Optional;
  */
 public class EmpruntDAOImpl implements EmpruntDAO {
     
+    private static final String SQL_INSERTION =
+        "INSERT INTO emprunt (id_utilisateur, id_document, date_emprunt, date_retour, " +
+        "date_retour_effective, etat, duree_max, penalite, statut, montant_paye, date_paiement, id_exemplaire) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String SQL_COMPTAGE_ACTIFS =
+        "SELECT COUNT(*) FROM emprunt WHERE id_utilisateur = ? AND etat IN ('EN_COURS', 'EN_RETARD')";
+    
+    // Limite vérifiée et emprunt compté en une seule écriture sur la ligne de l'utilisateur
+    private static final String SQL_AJOUT_EMPRUNT_ACTIF =
+        "UPDATE utilisateur SET emprunts_actifs = emprunts_actifs + 1 " +
+        "WHERE id_personne = ? AND emprunts_actifs < ?";
+    
+    // Une seule transaction peut prendre le dernier exemplaire libre (SET évalué de gauche à droite)
+    private static final String SQL_PRISE_EXEMPLAIRE =
+        "UPDATE document SET exemplaires_disponibles = exemplaires_disponibles - 1, " +
+        "disponible = exemplaires_disponibles > 0 WHERE id = ? AND exemplaires_disponibles > 0";
+    
+    // Document mis de côté pour l'utilisateur, éventuellement depuis un autre poste : déjà décompté
+    private static final String SQL_RETRAIT_RESERVATION =
+        "DELETE FROM reservation WHERE id_document = ? AND id_utilisateur = ? AND etat = 'A_RETIRER'";
+    
+    // Réservation connue de ce poste comme mise de côté pour l'utilisateur
+    private static final String SQL_CONSOMMATION_RESERVATION =
+        "DELETE FROM reservation WHERE id = ? AND id_document = ? AND id_utilisateur = ? AND etat = 'A_RETIRER'";
+    
+    // LAST_INSERT_ID(id) retient l'exemplaire choisi sans SELECT ... FOR UPDATE
+    private static final String SQL_CHOIX_EXEMPLAIRE =
+        "UPDATE exemplaire SET disponible = FALSE, id = LAST_INSERT_ID(id) " +
+        "WHERE id_document = ? AND disponible = TRUE LIMIT 1";
+    
     @Override
     public Optional<Emprunt> findById(int id) {
         String sql = "SELECT * FROM emprunt WHERE id = ?";
@@ -131,7 +166,7 @@ public class EmpruntDAOImpl implements EmpruntDAO {
     @Override
     public List<Emprunt> findActifsByUtilisateur(int idUtilisateur) {
         List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM emprunt WHERE id_utilisateur = ? AND etat = 'EN_COURS' ORDER BY date_retour ASC";
+        String sql = "SELECT * FROM emprunt WHERE id_utilisateur = ? AND etat IN ('EN_COURS', 'EN_RETARD') ORDER BY date_retour ASC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -154,7 +189,7 @@ public class EmpruntDAOImpl implements EmpruntDAO {
     @Override
     public List<Emprunt> findEnRetard() {
         List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM emprunt WHERE etat = 'EN_COURS' AND date_retour < CURDATE() ORDER BY date_retour ASC";
+        String sql = "SELECT * FROM emprunt WHERE etat IN ('EN_COURS', 'EN_RETARD') AND date_retour < CURDATE() ORDER BY date_retour ASC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
@@ -174,7 +209,7 @@ public class EmpruntDAOImpl implements EmpruntDAO {
     @Override
     public List<Emprunt> findEnRetardByUtilisateur(int idUtilisateur) {
         List<Emprunt> emprunts = new ArrayList<>();
-        String sql = "SELECT * FROM emprunt WHERE id_utilisateur = ? AND etat = 'EN_COURS' AND date_retour < CURDATE() ORDER BY date_retour ASC";
+        String sql = "SELECT * FROM emprunt WHERE id_utilisateur = ? AND etat IN ('EN_COURS', 'EN_RETARD') AND date_retour < CURDATE() ORDER BY date_retour ASC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -196,10 +231,8 @@ public class EmpruntDAOImpl implements EmpruntDAO {
     
     @Override
     public int countEmpruntsActifs(int idUtilisateur) {
-        String sql = "SELECT COUNT(*) FROM emprunt WHERE id_utilisateur = ? AND etat = 'EN_COURS'";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SQL_COMPTAGE_ACTIFS)) {
             
             stmt.setInt(1, idUtilisateur);
             
@@ -216,6 +249,65 @@ public class EmpruntDAOImpl implements EmpruntDAO {
         return 0;
     }
     
+    @Override
+    public Map<Integer, Integer> countActifsParUtilisateur(int[] idsUtilisateurs) {
+        Map<Integer, Integer> compteurs = new HashMap<>();
+        if (idsUtilisateurs == null || idsUtilisateurs.length == 0) {
+            return compteurs;
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(idsUtilisateurs.length, "?"));
+        String sql = "SELECT id_utilisateur, COUNT(*) FROM emprunt " +
+                     "WHERE id_utilisateur IN (" + placeholders + ") AND etat IN ('EN_COURS', 'EN_RETARD') " +
+                     "GROUP BY id_utilisateur";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < idsUtilisateurs.length; i++) {
+                stmt.setInt(i + 1, idsUtilisateurs[i]);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    compteurs.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du comptage des emprunts actifs: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return compteurs;
+    }
+    
+    @Override
+    public long parcourirActifs(EmpruntActifVisiteur visiteur) {
+        String sql = "SELECT id, date_retour FROM emprunt WHERE etat IN ('EN_COURS', 'EN_RETARD')";
+        long count = 0;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // MySQL : Integer.MIN_VALUE active le streaming ligne par ligne
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    visiteur.visiter(rs.getInt(1), rs.getDate(2).toLocalDate());
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du parcours des emprunts actifs: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+        
+        return count;
+    }
+    
     @Override
     public List<Emprunt> findByPeriode(LocalDate dateDebut, LocalDate dateFin) {
         List<Emprunt> emprunts = new ArrayList<>();
@@ -242,35 +334,10 @@ public class EmpruntDAOImpl implements EmpruntDAO {
     
     @Override
     public Emprunt save(Emprunt emprunt) {
-        String sql = "INSERT INTO emprunt (id_utilisateur, id_document, date_emprunt, date_retour, " +
-                     "date_retour_effective, etat, duree_max, penalite, statut, montant_paye, date_paiement) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+             PreparedStatement stmt = conn.prepareStatement(SQL_INSERTION, Statement.RETURN_GENERATED_KEYS)) {
             
-            stmt.setInt(1, emprunt.getUtilisateur().getId());
-            stmt.setInt(2, emprunt.getDocument().getId());
-            stmt.setDate(3, Date.valueOf(emprunt.getDateEmprunt()));
-            stmt.setDate(4, Date.valueOf(emprunt.getDateRetour()));
-            
-            if (emprunt.getDateRetourEffective() != null) {
-                stmt.setDate(5, Date.valueOf(emprunt.getDateRetourEffective()));
-            } else {
-                stmt.setNull(5, Types.DATE);
-            }
-            
-            stmt.setString(6, emprunt.getEtat());
-            stmt.setInt(7, emprunt.getDureeMax());
-            stmt.setDouble(8, emprunt.getPenalite());
-            stmt.setString(9, emprunt.getStatut());
-            stmt.setDouble(10, emprunt.getMontantPaye());
-            
-            if (emprunt.getDatePaiement() != null) {
-                stmt.setDate(11, Date.valueOf(emprunt.getDatePaiement()));
-            } else {
-                stmt.setNull(11, Types.DATE);
-            }
+            remplirInsertion(stmt, emprunt);
             
             int affectedRows = stmt.executeUpdate();
             
@@ -290,6 +357,400 @@ public class EmpruntDAOImpl implements EmpruntDAO {
         return null;
     }
     
+    @Override
+    public ResultatEmprunt emprunter(Emprunt emprunt, int limiteEmprunts) {
+        return emprunter(emprunt, limiteEmprunts, 0);
+    }
+    
+    @Override
+    public ResultatEmprunt emprunterReserve(Emprunt emprunt, int limiteEmprunts, int idReservation) {
+        return emprunter(emprunt, limiteEmprunts, idReservation);
+    }
+    
+    /**
+     * Emprunt atomique ; idReservation > 0 pour un document mis de côté pour l'utilisateur.
+     */
+    private ResultatEmprunt emprunter(Emprunt emprunt, int limiteEmprunts, int idReservation) {
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            ResultatEmprunt resultat = ResultatEmprunt.EMPRUNTE;
+            if (idReservation > 0) {
+                // Document déjà mis de côté (non disponible) : consommer la réservation
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_CONSOMMATION_RESERVATION)) {
+                    stmt.setInt(1, idReservation);
+                    stmt.setInt(2, emprunt.getDocument().getId());
+                    stmt.setInt(3, emprunt.getUtilisateur().getId());
+                    if (stmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return ResultatEmprunt.INDISPONIBLE;
+                    }
+                }
+            } else {
+                // Prendre un exemplaire libre sur le compteur du document
+                boolean pris;
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_PRISE_EXEMPLAIRE)) {
+                    stmt.setInt(1, emprunt.getDocument().getId());
+                    pris = stmt.executeUpdate() > 0;
+                }
+                if (!pris) {
+                    // Le reflet des réservations de ce poste peut ignorer une mise de côté faite ailleurs
+                    try (PreparedStatement stmt = conn.prepareStatement(SQL_RETRAIT_RESERVATION)) {
+                        stmt.setInt(1, emprunt.getDocument().getId());
+                        stmt.setInt(2, emprunt.getUtilisateur().getId());
+                        if (stmt.executeUpdate() == 0) {
+                            conn.rollback();
+                            return ResultatEmprunt.INDISPONIBLE;
+                        }
+                    }
+                    resultat = ResultatEmprunt.EMPRUNTE_SUR_RESERVATION;
+                }
+            }
+            
+            // Compter l'emprunt sur l'utilisateur, sous sa limite : vaut pour tous les postes
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_AJOUT_EMPRUNT_ACTIF)) {
+                stmt.setInt(1, emprunt.getUtilisateur().getId());
+                stmt.setInt(2, limiteEmprunts);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return ResultatEmprunt.LIMITE_ATTEINTE;
+                }
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_CHOIX_EXEMPLAIRE)) {
+                choisirExemplaire(conn, stmt, emprunt);
+            }
+            
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERTION, Statement.RETURN_GENERATED_KEYS)) {
+                remplirInsertion(stmt, emprunt);
+                stmt.executeUpdate();
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        conn.rollback();
+                        return ResultatEmprunt.ERREUR;
+                    }
+                    emprunt.setId(generatedKeys.getInt(1));
+                }
+            }
+            
+            conn.commit();
+            return resultat;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'emprunt atomique: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return ResultatEmprunt.ERREUR;
+    }
+    
+    @Override
+    public ResultatEmprunt[] emprunterEnLot(List<Emprunt> emprunts, int limiteEmprunts, int[] idsReservations) {
+        ResultatEmprunt[] resultats = new ResultatEmprunt[emprunts.size()];
+        if (emprunts.isEmpty()) {
+            return resultats;
+        }
+        
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            // Verrouiller la ligne de l'utilisateur en lisant son nombre d'emprunts actifs, une seule fois
+            int idUtilisateur = emprunts.get(0).getUtilisateur().getId();
+            int restants = limiteEmprunts;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT emprunts_actifs FROM utilisateur WHERE id_personne = ? FOR UPDATE")) {
+                stmt.setInt(1, idUtilisateur);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        restants -= rs.getInt(1);
+                    }
+                }
+            }
+            
+            // Réserver les documents par lots : autant que la limite le permet,
+            // puis compléter avec les suivants si certains étaient indisponibles
+            // (un document sans exemplaire libre peut être mis de côté pour l'utilisateur)
+            List<Emprunt> acceptes = new ArrayList<>();
+            int suivant = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_PRISE_EXEMPLAIRE);
+                 PreparedStatement consommation = conn.prepareStatement(SQL_CONSOMMATION_RESERVATION);
+                 PreparedStatement retrait = conn.prepareStatement(SQL_RETRAIT_RESERVATION)) {
+                while (restants > 0 && suivant < emprunts.size()) {
+                    int debut = suivant;
+                    int fin = Math.min(emprunts.size(), debut + restants);
+                    List<Integer> surCompteur = new ArrayList<>();
+                    List<Integer> misDeCote = new ArrayList<>();
+                    for (int i = debut; i < fin; i++) {
+                        int idDocument = emprunts.get(i).getDocument().getId();
+                        if (idsReservations[i] > 0) {
+                            // Document déjà mis de côté (déjà décompté) : consommer la réservation
+                            consommation.setInt(1, idsReservations[i]);
+                            consommation.setInt(2, idDocument);
+                            consommation.setInt(3, idUtilisateur);
+                            consommation.addBatch();
+                            misDeCote.add(i);
+                        } else {
+                            stmt.setInt(1, idDocument);
+                            stmt.addBatch();
+                            surCompteur.add(i);
+                        }
+                    }
+                    if (!misDeCote.isEmpty()) {
+                        int[] consommees = consommation.executeBatch();
+                        for (int k = 0; k < consommees.length; k++) {
+                            resultats[misDeCote.get(k)] = consommees[k] > 0
+                                ? ResultatEmprunt.EMPRUNTE_SUR_RESERVATION : ResultatEmprunt.INDISPONIBLE;
+                        }
+                    }
+                    
+                    List<Integer> sansExemplaire = new ArrayList<>();
+                    if (!surCompteur.isEmpty()) {
+                        int[] modifies = stmt.executeBatch();
+                        for (int k = 0; k < modifies.length; k++) {
+                            int i = surCompteur.get(k);
+                            if (modifies[k] > 0) {
+                                resultats[i] = ResultatEmprunt.EMPRUNTE;
+                            } else {
+                                retrait.setInt(1, emprunts.get(i).getDocument().getId());
+                                retrait.setInt(2, idUtilisateur);
+                                retrait.addBatch();
+                                sansExemplaire.add(i);
+                            }
+                        }
+                    }
+                    if (!sansExemplaire.isEmpty()) {
+                        int[] retirees = retrait.executeBatch();
+                        for (int k = 0; k < retirees.length; k++) {
+                            resultats[sansExemplaire.get(k)] = retirees[k] > 0
+                                ? ResultatEmprunt.EMPRUNTE_SUR_RESERVATION : ResultatEmprunt.INDISPONIBLE;
+                        }
+                    }
+                    
+                    for (int i = debut; i < fin; i++) {
+                        if (resultats[i] != ResultatEmprunt.INDISPONIBLE) {
+                            acceptes.add(emprunts.get(i));
+                            restants--;
+                        }
+                    }
+                    suivant = fin;
+                }
+            }
+            for (int i = suivant; i < resultats.length; i++) {
+                resultats[i] = ResultatEmprunt.LIMITE_ATTEINTE;
+            }
+            
+            if (!acceptes.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE utilisateur SET emprunts_actifs = emprunts_actifs + ? WHERE id_personne = ?")) {
+                    stmt.setInt(1, acceptes.size());
+                    stmt.setInt(2, idUtilisateur);
+                    stmt.executeUpdate();
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_CHOIX_EXEMPLAIRE)) {
+                    for (Emprunt emprunt : acceptes) {
+                        choisirExemplaire(conn, stmt, emprunt);
+                    }
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERTION, Statement.RETURN_GENERATED_KEYS)) {
+                    for (Emprunt emprunt : acceptes) {
+                        remplirInsertion(stmt, emprunt);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    
+                    try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                        for (Emprunt emprunt : acceptes) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("Clés générées manquantes pour le lot d'emprunts");
+                            }
+                            emprunt.setId(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+            }
+            
+            conn.commit();
+            return resultats;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'emprunt en lot: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    @Override
+    public ResultatRetour retournerEnLot(List<Emprunt> emprunts) {
+        boolean[] retournes = new boolean[emprunts.size()];
+        int[] reservations = new int[emprunts.size()];
+        if (emprunts.isEmpty()) {
+            return new ResultatRetour(retournes, reservations);
+        }
+        
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            // Un emprunt déjà rendu (par un autre guichet) n'est pas modifié
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE emprunt SET date_retour_effective = ?, etat = 'RETOURNE', penalite = ? " +
+                    "WHERE id = ? AND date_retour_effective IS NULL")) {
+                for (Emprunt emprunt : emprunts) {
+                    stmt.setDate(1, Date.valueOf(emprunt.getDateRetourEffective()));
+                    stmt.setDouble(2, emprunt.getPenalite());
+                    stmt.setInt(3, emprunt.getId());
+                    stmt.addBatch();
+                }
+                int[] modifies = stmt.executeBatch();
+                for (int i = 0; i < retournes.length; i++) {
+                    retournes[i] = modifies[i] > 0;
+                }
+            }
+            
+            // Décompter les emprunts rendus sur leurs utilisateurs
+            boolean rendus = false;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE utilisateur u INNER JOIN emprunt em ON em.id_utilisateur = u.id_personne " +
+                    "SET u.emprunts_actifs = GREATEST(u.emprunts_actifs - 1, 0) WHERE em.id = ?")) {
+                for (int i = 0; i < retournes.length; i++) {
+                    if (retournes[i]) {
+                        stmt.setInt(1, emprunts.get(i).getId());
+                        stmt.addBatch();
+                        rendus = true;
+                    }
+                }
+                if (rendus) {
+                    stmt.executeBatch();
+                }
+            }
+            
+            // Porter au grand livre les pénalités de retard (la part pas encore portée chaque nuit)
+            for (int i = 0; i < retournes.length; i++) {
+                if (retournes[i]) {
+                    int idEmprunt = emprunts.get(i).getId();
+                    SoldeDAOImpl.reporterPenalites(conn, idEmprunt, idEmprunt, "");
+                }
+            }
+            
+            // Remettre l'exemplaire en rayon, puis le mettre de côté pour le premier de la file
+            // du document, ou à défaut incrémenter le compteur du document : un emprunteur
+            // de passage ne peut pas prendre l'exemplaire d'une réservation entre les deux
+            boolean exemplaires = false;
+            boolean documents = false;
+            try (PreparedStatement exemplaire = conn.prepareStatement(
+                         "UPDATE exemplaire e JOIN emprunt em ON em.id_exemplaire = e.id " +
+                         "SET e.disponible = TRUE WHERE em.id = ?");
+                 PreparedStatement stmt = conn.prepareStatement(
+                         "UPDATE document SET exemplaires_disponibles = LEAST(exemplaires_disponibles + 1, nombre_exemplaires), " +
+                         "disponible = TRUE WHERE id = ?")) {
+                for (int i = 0; i < retournes.length; i++) {
+                    Document document = emprunts.get(i).getDocument();
+                    if (retournes[i] && document != null && document.getId() > 0) {
+                        exemplaire.setInt(1, emprunts.get(i).getId());
+                        exemplaire.addBatch();
+                        exemplaires = true;
+                        
+                        reservations[i] = ReservationDAOImpl.mettreDeCote(conn, document.getId());
+                        if (reservations[i] == 0) {
+                            stmt.setInt(1, document.getId());
+                            stmt.addBatch();
+                            documents = true;
+                        }
+                    }
+                }
+                if (exemplaires) {
+                    exemplaire.executeBatch();
+                }
+                if (documents) {
+                    stmt.executeBatch();
+                }
+            }
+            
+            conn.commit();
+            return new ResultatRetour(retournes, reservations);
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors du retour en lot: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return null;
+    }
+    
+    @Override
+    public int recalculerEmpruntsActifs() {
+        String sql = "UPDATE utilisateur u SET u.emprunts_actifs = (" +
+                     "SELECT COUNT(*) FROM emprunt e WHERE e.id_utilisateur = u.id_personne " +
+                     "AND e.etat IN ('EN_COURS', 'EN_RETARD'))";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            return stmt.executeUpdate(sql);
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du recalcul des emprunts actifs: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
     @Override
     public boolean update(Emprunt emprunt) {
         String sql = "UPDATE emprunt SET id_utilisateur = ?, id_document = ?, date_emprunt = ?, " +
@@ -350,6 +811,62 @@ public class EmpruntDAOImpl implements EmpruntDAO {
         return false;
     }
     
+    /**
+     * Renseigne les paramètres de SQL_INSERTION.
+     */
+    private void remplirInsertion(PreparedStatement stmt, Emprunt emprunt) throws SQLException {
+        stmt.setInt(1, emprunt.getUtilisateur().getId());
+        stmt.setInt(2, emprunt.getDocument().getId());
+        stmt.setDate(3, Date.valueOf(emprunt.getDateEmprunt()));
+        stmt.setDate(4, Date.valueOf(emprunt.getDateRetour()));
+        
+        if (emprunt.getDateRetourEffective() != null) {
+            stmt.setDate(5, Date.valueOf(emprunt.getDateRetourEffective()));
+        } else {
+            stmt.setNull(5, Types.DATE);
+        }
+        
+        stmt.setString(6, emprunt.getEtat());
+        stmt.setInt(7, emprunt.getDureeMax());
+        stmt.setDouble(8, emprunt.getPenalite());
+        stmt.setString(9, emprunt.getStatut());
+        stmt.setDouble(10, emprunt.getMontantPaye());
+        
+        if (emprunt.getDatePaiement() != null) {
+            stmt.setDate(11, Date.valueOf(emprunt.getDatePaiement()));
+        } else {
+            stmt.setNull(11, Types.DATE);
+        }
+        
+        if (emprunt.getExemplaire() != null) {
+            stmt.setInt(12, emprunt.getExemplaire().getId());
+        } else {
+            stmt.setNull(12, Types.INTEGER);
+        }
+    }
+    
+    /**
+     * Prend un exemplaire libre du document avec SQL_CHOIX_EXEMPLAIRE et le rattache à l'emprunt.
+     * Un document sans exemplaires enregistrés (numérique, ou non migré) est emprunté sans exemplaire.
+     */
+    private void choisirExemplaire(Connection conn, PreparedStatement stmt, Emprunt emprunt) throws SQLException {
+        emprunt.setExemplaire(null);
+        stmt.setInt(1, emprunt.getDocument().getId());
+        if (stmt.executeUpdate() == 0) {
+            return;
+        }
+        
+        try (Statement select = conn.createStatement();
+             ResultSet rs = select.executeQuery("SELECT LAST_INSERT_ID()")) {
+            if (rs.next()) {
+                Exemplaire exemplaire = new Exemplaire();
+                exemplaire.setId(rs.getInt(1));
+                exemplaire.setDisponible(false);
+                emprunt.setExemplaire(exemplaire);
+            }
+        }
+    }
+    
     /**
      * Mappe un ResultSet vers un objet Emprunt.
      */
@@ -368,6 +885,13 @@ public class EmpruntDAOImpl implements EmpruntDAO {
         document.setId(rs.getInt("id_document"));
         emprunt.setDocument(document);
         
+        int idExemplaire = rs.getInt("id_exemplaire");
+        if (!rs.wasNull()) {
+            Exemplaire exemplaire = new Exemplaire();
+            exemplaire.setId(idExemplaire);
+            emprunt.setExemplaire(exemplaire);
+        }
+        
         Date dateEmprunt = rs.getDate("date_emprunt");
         if (dateEmprunt != null) {
             emprunt.setDateEmprunt(dateEmprunt.toLocalDate());
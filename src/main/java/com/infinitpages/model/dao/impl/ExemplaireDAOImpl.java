@@ -0,0 +1,211 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.ExemplaireDAO;
+import com.infinitpages.model.entity.DocumentReel;
+import com.infinitpages.model.entity.Exemplaire;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation de ExemplaireDAO.
+ */
+public class ExemplaireDAOImpl implements ExemplaireDAO {
+
+    @Override
+    public List<Exemplaire> findByDocument(int idDocument) {
+        List<Exemplaire> exemplaires = new ArrayList<>();
+        String sql = "SELECT * FROM exemplaire WHERE id_document = ? ORDER BY id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, idDocument);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    exemplaires.add(mapResultSetToExemplaire(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des exemplaires: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return exemplaires;
+    }
+
+    @Override
+    public Exemplaire save(Exemplaire exemplaire) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO exemplaire (id_document, code_barre, emplacement, condition_livre, disponible) " +
+                    "VALUES (?, ?, ?, ?, TRUE)", Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setInt(1, exemplaire.getDocument().getId());
+                stmt.setString(2, exemplaire.getCodeBarre());
+                stmt.setString(3, exemplaire.getEmplacement());
+                stmt.setString(4, exemplaire.getCondition());
+                stmt.executeUpdate();
+
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (!generatedKeys.next()) {
+                        conn.rollback();
+                        return null;
+                    }
+                    exemplaire.setId(generatedKeys.getInt(1));
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE document SET nombre_exemplaires = nombre_exemplaires + 1, " +
+                    "exemplaires_disponibles = exemplaires_disponibles + 1, disponible = TRUE WHERE id = ?")) {
+                stmt.setInt(1, exemplaire.getDocument().getId());
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            exemplaire.setDisponible(true);
+            return exemplaire;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'ajout de l'exemplaire: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public int findIdDocumentMax() {
+        String sql = "SELECT COALESCE(MAX(id_document), 0) FROM document_reel";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche du dernier document réel: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int migrerPlage(int idMin, int idMax) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // 1. Compteurs : un exemplaire, libre si le document l'était
+            int migres;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE document d INNER JOIN document_reel dr ON dr.id_document = d.id " +
+                    "SET d.nombre_exemplaires = 1, d.exemplaires_disponibles = IF(d.disponible, 1, 0) " +
+                    "WHERE d.id BETWEEN ? AND ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM exemplaire e WHERE e.id_document = d.id)")) {
+                stmt.setInt(1, idMin);
+                stmt.setInt(2, idMax);
+                migres = stmt.executeUpdate();
+            }
+
+            // 2. L'exemplaire, en rayon sauf s'il est emprunté
+            //    (un document mis de côté pour une réservation n'est décompté que sur le compteur)
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO exemplaire (id_document, emplacement, condition_livre, disponible) " +
+                    "SELECT dr.id_document, dr.emplacement, dr.condition_livre, " +
+                    "NOT EXISTS (SELECT 1 FROM emprunt em WHERE em.id_document = dr.id_document " +
+                    "AND em.date_retour_effective IS NULL) " +
+                    "FROM document_reel dr " +
+                    "WHERE dr.id_document BETWEEN ? AND ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM exemplaire e WHERE e.id_document = dr.id_document)")) {
+                stmt.setInt(1, idMin);
+                stmt.setInt(2, idMax);
+                stmt.executeUpdate();
+            }
+
+            // 3. Les emprunts en cours pointent sur l'exemplaire sorti
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE emprunt em INNER JOIN exemplaire e ON e.id_document = em.id_document " +
+                    "SET em.id_exemplaire = e.id " +
+                    "WHERE em.id_document BETWEEN ? AND ? AND em.id_exemplaire IS NULL " +
+                    "AND em.date_retour_effective IS NULL AND e.disponible = FALSE")) {
+                stmt.setInt(1, idMin);
+                stmt.setInt(2, idMax);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            return migres;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la migration des exemplaires: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Mappe un ResultSet vers un objet Exemplaire.
+     */
+    private Exemplaire mapResultSetToExemplaire(ResultSet rs) throws SQLException {
+        Exemplaire exemplaire = new Exemplaire();
+
+        exemplaire.setId(rs.getInt("id"));
+
+        // Document avec juste l'ID
+        DocumentReel document = new DocumentReel();
+        document.setId(rs.getInt("id_document"));
+        exemplaire.setDocument(document);
+
+        exemplaire.setCodeBarre(rs.getString("code_barre"));
+        exemplaire.setEmplacement(rs.getString("emplacement"));
+        exemplaire.setCondition(rs.getString("condition_livre"));
+        exemplaire.setDisponible(rs.getBoolean("disponible"));
+
+        return exemplaire;
+    }
+}
@@ -0,0 +1,67 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.ExportDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+import com.infinitpages.util.export.ResultSetExporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+
+/**
+ * Implémentation de ExportDAO.
+ */
+public class ExportDAOImpl implements ExportDAO {
+
+    @Override
+    public long exporter(TableExport table, Path fichier, ResultSetExporter.Format format, boolean gzip) {
+        String sql = getRequete(table);
+        ResultSetExporter exporter = new ResultSetExporter(format, gzip);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL : Integer.MIN_VALUE active le streaming ligne par ligne
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                return exporter.export(rs, fichier);
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Erreur lors de l'export de la table " + table + ": " + e.getMessage());
+            e.printStackTrace();
+            try {
+                Files.deleteIfExists(fichier);
+            } catch (IOException ex) {
+                System.err.println("Erreur lors de la suppression du fichier partiel: " + ex.getMessage());
+            }
+        }
+
+        return -1;
+    }
+
+    private String getRequete(TableExport table) {
+        switch (table) {
+            case EMPRUNTS:
+                return "SELECT id, id_utilisateur, id_document, date_emprunt, date_retour, date_retour_effective, " +
+                       "etat, duree_max, penalite, statut, montant_paye, date_paiement FROM emprunt ORDER BY id";
+            case PAIEMENTS:
+                return "SELECT id, id_utilisateur, id_emprunt, montant, date_paiement, methode_paiement, statut, " +
+                       "reference, motif FROM paiement ORDER BY id";
+            case CATALOGUE:
+                return "SELECT d.id, d.titre, d.auteur, d.genre, d.format, d.date_publication, d.mots_cles, " +
+                       "d.prix_par_jour, d.disponible, d.nombre_consultations, d.nombre_emprunts, d.note_globale, " +
+                       "d.id_categorie, c.nom AS categorie, " +
+                       "CASE WHEN dr.id_document IS NOT NULL THEN 'REEL' ELSE 'NUMERIQUE' END AS type_document " +
+                       "FROM document d " +
+                       "LEFT JOIN categorie c ON c.id = d.id_categorie " +
+                       "LEFT JOIN document_reel dr ON dr.id_document = d.id " +
+                       "ORDER BY d.id";
+            case RAPPORTS:
+                return "SELECT id, id_admin, titre, date_generation, type, periode, contenu FROM rapport ORDER BY id";
+            default:
+                throw new IllegalArgumentException("Table d'export inconnue: " + table);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.LecteursDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+import com.infinitpages.util.sketch.HyperLogLog;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Implémentation de LecteursDAO.
+ */
+public class LecteursDAOImpl implements LecteursDAO {
+
+    @Override
+    public boolean saveAll(List<SketchLecteurs> sketches) {
+        if (sketches == null || sketches.isEmpty()) {
+            return true;
+        }
+
+        String sqlLire = "SELECT registres FROM sketch_lecteurs WHERE type_cible = ? AND id_cible = ? AND jour = ? " +
+                         "FOR UPDATE";
+        String sqlEcrire = "INSERT INTO sketch_lecteurs (type_cible, id_cible, jour, registres) VALUES (?, ?, ?, ?) " +
+                           "ON DUPLICATE KEY UPDATE registres = VALUES(registres)";
+        Connection conn = null;
+
+        // Lignes verrouillées toujours dans le même ordre : deux postes ne s'attendent pas mutuellement
+        List<SketchLecteurs> ordonnes = new ArrayList<>(sketches);
+        ordonnes.sort(Comparator.comparing(SketchLecteurs::typeCible)
+            .thenComparingInt(SketchLecteurs::idCible)
+            .thenComparing(SketchLecteurs::jour));
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Fusionner avec la ligne en base, écrite par les autres postes : la fusion
+            // HyperLogLog est idempotente, la ligne reste l'union de tous les postes
+            try (PreparedStatement lire = conn.prepareStatement(sqlLire);
+                 PreparedStatement stmt = conn.prepareStatement(sqlEcrire)) {
+                for (SketchLecteurs sketch : ordonnes) {
+                    lire.setString(1, sketch.typeCible());
+                    lire.setInt(2, sketch.idCible());
+                    lire.setDate(3, Date.valueOf(sketch.jour()));
+
+                    byte[] registres = sketch.registres();
+                    try (ResultSet rs = lire.executeQuery()) {
+                        if (rs.next()) {
+                            HyperLogLog fusion = HyperLogLog.fromBytes(rs.getBytes(1));
+                            fusion.merge(HyperLogLog.fromBytes(registres));
+                            registres = fusion.toBytes();
+                        }
+                    }
+
+                    stmt.setString(1, sketch.typeCible());
+                    stmt.setInt(2, sketch.idCible());
+                    stmt.setDate(3, Date.valueOf(sketch.jour()));
+                    stmt.setBytes(4, registres);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la sauvegarde des sketches de lecteurs: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public List<SketchLecteurs> findByJour(LocalDate jour) {
+        List<SketchLecteurs> sketches = new ArrayList<>();
+        String sql = "SELECT * FROM sketch_lecteurs WHERE jour = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sketches.add(mapResultSetToSketch(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des sketches par jour: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return sketches;
+    }
+
+    @Override
+    public List<SketchLecteurs> findByCible(String typeCible, int idCible, LocalDate debut, LocalDate fin) {
+        List<SketchLecteurs> sketches = new ArrayList<>();
+        String sql = "SELECT * FROM sketch_lecteurs WHERE type_cible = ? AND id_cible = ? AND jour BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, typeCible);
+            stmt.setInt(2, idCible);
+            stmt.setDate(3, Date.valueOf(debut));
+            stmt.setDate(4, Date.valueOf(fin));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sketches.add(mapResultSetToSketch(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des sketches par cible: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return sketches;
+    }
+
+    @Override
+    public List<SketchLecteurs> findByType(String typeCible, LocalDate debut, LocalDate fin) {
+        List<SketchLecteurs> sketches = new ArrayList<>();
+        String sql = "SELECT * FROM sketch_lecteurs WHERE type_cible = ? AND jour BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, typeCible);
+            stmt.setDate(2, Date.valueOf(debut));
+            stmt.setDate(3, Date.valueOf(fin));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sketches.add(mapResultSetToSketch(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des sketches par type: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return sketches;
+    }
+
+    /**
+     * Mappe un ResultSet vers un SketchLecteurs.
+     */
+    private SketchLecteurs mapResultSetToSketch(ResultSet rs) throws SQLException {
+        return new SketchLecteurs(
+            rs.getString("type_cible"),
+            rs.getInt("id_cible"),
+            rs.getDate("jour").toLocalDate(),
+            rs.getBytes("registres")
+        );
+    }
+}
@@ -6,8 +6,12 @@ import com.infinitpages.model.entity.Personne;
 import com.infinitpages.util.db.DatabaseConnection;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,9 +19,25 @@ import java.util.Optional;
  */
 public class NotificationDAOImpl implements NotificationDAO {
     
+    // Lignes par INSERT multi-lignes (5 paramètres par ligne)
+    private static final int TAILLE_LOT_INSERTION = 1000;
+    
+    // Destinataires par requête de migration des lectures
+    private static final int TAILLE_LOT_MIGRATION = 1000;
+    
+    // Une notification est lue si elle a été marquée, ou insérée avant le filigrane de son destinataire
+    // (identifiant, et non date : deux notifications de la même seconde restent distinguées)
+    private static final String SELECT_NOTIFICATION =
+        "SELECT n.id, n.id_destinataire, n.message, n.date_envoi, n.date_lecture, n.type, n.priorite, " +
+        "(n.est_lue OR (l.id_lu_jusqua IS NOT NULL AND n.id <= l.id_lu_jusqua)) AS est_lue " +
+        "FROM notification n LEFT JOIN notification_lecture l ON l.id_destinataire = n.id_destinataire ";
+    
+    private static final String CONDITION_NON_LUE =
+        "n.est_lue = FALSE AND (l.id_lu_jusqua IS NULL OR n.id > l.id_lu_jusqua)";
+    
     @Override
     public Optional<Notification> findById(int id) {
-        String sql = "SELECT * FROM notification WHERE id = ?";
+        String sql = SELECT_NOTIFICATION + "WHERE n.id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -40,7 +60,7 @@ public class NotificationDAOImpl implements NotificationDAO {
     @Override
     public List<Notification> findByDestinataire(int idDestinataire) {
         List<Notification> notifications = new ArrayList<>();
-        String sql = "SELECT * FROM notification WHERE id_destinataire = ? ORDER BY date_envoi DESC";
+        String sql = SELECT_NOTIFICATION + "WHERE n.id_destinataire = ? ORDER BY n.date_envoi DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -63,7 +83,8 @@ public class NotificationDAOImpl implements NotificationDAO {
     @Override
     public List<Notification> findNonLuesByDestinataire(int idDestinataire) {
         List<Notification> notifications = new ArrayList<>();
-        String sql = "SELECT * FROM notification WHERE id_destinataire = ? AND est_lue = FALSE ORDER BY date_envoi DESC";
+        String sql = SELECT_NOTIFICATION + "WHERE n.id_destinataire = ? AND " + CONDITION_NON_LUE +
+                     " ORDER BY n.date_envoi DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -86,7 +107,7 @@ public class NotificationDAOImpl implements NotificationDAO {
     @Override
     public List<Notification> findByType(String type) {
         List<Notification> notifications = new ArrayList<>();
-        String sql = "SELECT * FROM notification WHERE type = ? ORDER BY date_envoi DESC";
+        String sql = SELECT_NOTIFICATION + "WHERE n.type = ? ORDER BY n.date_envoi DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -109,7 +130,7 @@ public class NotificationDAOImpl implements NotificationDAO {
     @Override
     public List<Notification> findNonLues() {
         List<Notification> notifications = new ArrayList<>();
-        String sql = "SELECT * FROM notification WHERE est_lue = FALSE ORDER BY date_envoi DESC";
+        String sql = SELECT_NOTIFICATION + "WHERE " + CONDITION_NON_LUE + " ORDER BY n.date_envoi DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
@@ -128,7 +149,9 @@ public class NotificationDAOImpl implements NotificationDAO {
     
     @Override
     public int countNonLues(int idDestinataire) {
-        String sql = "SELECT COUNT(*) FROM notification WHERE id_destinataire = ? AND est_lue = FALSE";
+        String sql = "SELECT COUNT(*) FROM notification n " +
+                     "LEFT JOIN notification_lecture l ON l.id_destinataire = n.id_destinataire " +
+                     "WHERE n.id_destinataire = ? AND " + CONDITION_NON_LUE;
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -148,6 +171,40 @@ public class NotificationDAOImpl implements NotificationDAO {
         return 0;
     }
     
+    @Override
+    public Map<Integer, Integer> countNonLuesParDestinataire(int[] idsDestinataires) {
+        Map<Integer, Integer> compteurs = new HashMap<>();
+        if (idsDestinataires == null || idsDestinataires.length == 0) {
+            return compteurs;
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(idsDestinataires.length, "?"));
+        String sql = "SELECT n.id_destinataire, COUNT(*) FROM notification n " +
+                     "LEFT JOIN notification_lecture l ON l.id_destinataire = n.id_destinataire " +
+                     "WHERE n.id_destinataire IN (" + placeholders + ") AND " + CONDITION_NON_LUE + " " +
+                     "GROUP BY n.id_destinataire";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < idsDestinataires.length; i++) {
+                stmt.setInt(i + 1, idsDestinataires[i]);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    compteurs.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du comptage des notifications non lues: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return compteurs;
+    }
+    
     @Override
     public boolean marquerCommeLue(int id) {
         String sql = "UPDATE notification SET est_lue = TRUE, date_lecture = ? WHERE id = ?";
@@ -169,15 +226,19 @@ public class NotificationDAOImpl implements NotificationDAO {
     
     @Override
     public int marquerToutesCommeLues(int idDestinataire) {
-        String sql = "UPDATE notification SET est_lue = TRUE, date_lecture = ? WHERE id_destinataire = ? AND est_lue = FALSE";
+        // Une seule ligne écrite quel que soit le nombre de notifications ; le filigrane est la plus
+        // récente notification déjà insérée (via idx_destinataire) et ne recule jamais
+        String sql = "INSERT INTO notification_lecture (id_destinataire, id_lu_jusqua) " +
+                     "SELECT ?, COALESCE(MAX(id), 0) FROM notification WHERE id_destinataire = ? " +
+                     "ON DUPLICATE KEY UPDATE id_lu_jusqua = GREATEST(id_lu_jusqua, VALUES(id_lu_jusqua))";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setTimestamp(1, Timestamp.valueOf(java.time.LocalDateTime.now()));
+            stmt.setInt(1, idDestinataire);
             stmt.setInt(2, idDestinataire);
             
-            return stmt.executeUpdate();
+            return stmt.executeUpdate() > 0 ? 1 : 0;
         } catch (SQLException e) {
             System.err.println("Erreur lors du marquage de toutes comme lues: " + e.getMessage());
             e.printStackTrace();
@@ -186,6 +247,48 @@ public class NotificationDAOImpl implements NotificationDAO {
         return 0;
     }
     
+    @Override
+    public int migrerLectures() {
+        String sqlBornes = "SELECT MIN(id_destinataire), MAX(id_destinataire) FROM notification";
+        // Filigrane : juste avant la plus ancienne non lue, ou la plus récente si tout est lu
+        String sql = "INSERT INTO notification_lecture (id_destinataire, id_lu_jusqua) " +
+                     "SELECT id_destinataire, COALESCE(MIN(CASE WHEN est_lue = FALSE THEN id END) - 1, MAX(id)) " +
+                     "FROM notification " +
+                     "WHERE id_destinataire BETWEEN ? AND ? GROUP BY id_destinataire " +
+                     "ON DUPLICATE KEY UPDATE id_lu_jusqua = GREATEST(id_lu_jusqua, VALUES(id_lu_jusqua))";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int min;
+            int max;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sqlBornes)) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return 0;
+                }
+                min = rs.getInt(1);
+                max = rs.getInt(2);
+            }
+            
+            // Une requête courte par tranche de destinataires (autocommit) : pas de long verrou
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (long debut = min; debut <= max; debut += TAILLE_LOT_MIGRATION) {
+                    stmt.setInt(1, (int) debut);
+                    stmt.setInt(2, (int) Math.min(debut + TAILLE_LOT_MIGRATION - 1, max));
+                    stmt.executeUpdate();
+                }
+            }
+            
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM notification_lecture")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la migration des lectures de notifications: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+    
     @Override
     public Notification save(Notification notification) {
         String sql = "INSERT INTO notification (id_destinataire, message, date_envoi, date_lecture, " +
@@ -231,6 +334,167 @@ public class NotificationDAOImpl implements NotificationDAO {
         return null;
     }
     
+    @Override
+    public int saveAll(List<Notification> notifications) {
+        if (notifications == null || notifications.isEmpty()) {
+            return 0;
+        }
+        
+        String sql = "INSERT INTO notification (id_destinataire, message, date_envoi, date_lecture, " +
+                     "est_lue, type, priorite) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Notification notification : notifications) {
+                    stmt.setInt(1, notification.getDestinataire().getId());
+                    stmt.setString(2, notification.getMessage());
+                    
+                    if (notification.getDateEnvoi() != null) {
+                        stmt.setTimestamp(3, Timestamp.valueOf(notification.getDateEnvoi()));
+                    } else {
+                        stmt.setTimestamp(3, Timestamp.valueOf(java.time.LocalDateTime.now()));
+                    }
+                    
+                    if (notification.getDateLecture() != null) {
+                        stmt.setTimestamp(4, Timestamp.valueOf(notification.getDateLecture()));
+                    } else {
+                        stmt.setNull(4, Types.TIMESTAMP);
+                    }
+                    
+                    stmt.setBoolean(5, notification.isEstLue());
+                    stmt.setString(6, notification.getType());
+                    stmt.setString(7, notification.getPriorite());
+                    stmt.addBatch();
+                }
+                
+                // rewriteBatchedStatements : le lot part en INSERT multi-lignes
+                stmt.executeBatch();
+                
+                // Les clés générées sont renvoyées dans l'ordre du lot
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (generatedKeys.next() && i < notifications.size()) {
+                        notifications.get(i++).setId(generatedKeys.getInt(1));
+                    }
+                }
+            }
+            
+            conn.commit();
+            return notifications.size();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la sauvegarde des notifications: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public int saveEnMasse(String message, String type, String priorite, int[] idsDestinataires,
+                           Progression progression) {
+        int total = idsDestinataires.length;
+        if (total == 0) {
+            return 0;
+        }
+        
+        Timestamp dateEnvoi = Timestamp.valueOf(java.time.LocalDateTime.now());
+        int tailleLot = Math.min(TAILLE_LOT_INSERTION, total);
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int inseres = 0;
+            // Une seule requête préparée pour tous les lots complets, une autre pour le reste
+            try (PreparedStatement stmt = conn.prepareStatement(sqlInsertionMultiple(tailleLot))) {
+                while (total - inseres >= tailleLot) {
+                    inseres += insererLot(stmt, message, type, priorite, dateEnvoi, idsDestinataires, inseres, tailleLot);
+                    if (progression != null) {
+                        progression.avancer(inseres, total);
+                    }
+                }
+            }
+            
+            int reste = total - inseres;
+            if (reste > 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(sqlInsertionMultiple(reste))) {
+                    inseres += insererLot(stmt, message, type, priorite, dateEnvoi, idsDestinataires, inseres, reste);
+                    if (progression != null) {
+                        progression.avancer(inseres, total);
+                    }
+                }
+            }
+            
+            conn.commit();
+            return inseres;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'insertion en masse des notifications: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return -1;
+    }
+    
+    private static String sqlInsertionMultiple(int lignes) {
+        StringBuilder sql = new StringBuilder(
+            "INSERT INTO notification (id_destinataire, message, date_envoi, est_lue, type, priorite) VALUES ");
+        for (int i = 0; i < lignes; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, FALSE, ?, ?)" : ", (?, ?, ?, FALSE, ?, ?)");
+        }
+        return sql.toString();
+    }
+    
+    private static int insererLot(PreparedStatement stmt, String message, String type, String priorite,
+                                  Timestamp dateEnvoi, int[] ids, int debut, int lignes) throws SQLException {
+        int index = 1;
+        for (int i = debut; i < debut + lignes; i++) {
+            stmt.setInt(index++, ids[i]);
+            stmt.setString(index++, message);
+            stmt.setTimestamp(index++, dateEnvoi);
+            stmt.setString(index++, type);
+            stmt.setString(index++, priorite);
+        }
+        stmt.executeUpdate();
+        return lignes;
+    }
+    
     @Override
     public boolean update(Notification notification) {
         String sql = "UPDATE notification SET id_destinataire = ?, message = ?, date_envoi = ?, " +
@@ -282,7 +546,9 @@ public class NotificationDAOImpl implements NotificationDAO {
     
     @Override
     public int deleteLuesByDestinataire(int idDestinataire) {
-        String sql = "DELETE FROM notification WHERE id_destinataire = ? AND est_lue = TRUE";
+        String sql = "DELETE n FROM notification n " +
+                     "LEFT JOIN notification_lecture l ON l.id_destinataire = n.id_destinataire " +
+                     "WHERE n.id_destinataire = ? AND NOT (" + CONDITION_NON_LUE + ")";
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -297,6 +563,99 @@ public class NotificationDAOImpl implements NotificationDAO {
         return 0;
     }
     
+    @Override
+    public int deleteAnciennes(String type, String priorite, LocalDateTime avant, int limite) {
+        // Parcourt idx_type_priorite_date : chaque lot ne verrouille que les lignes supprimées
+        String sql = "DELETE FROM notification WHERE type = ? AND priorite = ? AND date_envoi < ? " +
+                     "ORDER BY date_envoi LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, type);
+            stmt.setString(2, priorite);
+            stmt.setTimestamp(3, Timestamp.valueOf(avant));
+            stmt.setInt(4, limite);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la purge des notifications: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return -1;
+    }
+    
+    @Override
+    public List<Retention> findRetentions() {
+        List<Retention> retentions = new ArrayList<>();
+        String sql = "SELECT type, priorite, jours FROM politique_retention_notification";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                retentions.add(new Retention(rs.getString("type"), rs.getString("priorite"), rs.getInt("jours")));
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la lecture des durées de conservation: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        
+        return retentions;
+    }
+    
+    @Override
+    public boolean saveRetentions(List<Retention> retentions) {
+        if (retentions.isEmpty()) {
+            return true;
+        }
+        
+        String sql = "INSERT INTO politique_retention_notification (type, priorite, jours) VALUES (?, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE jours = VALUES(jours)";
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Retention retention : retentions) {
+                    stmt.setString(1, retention.type());
+                    stmt.setString(2, retention.priorite());
+                    stmt.setInt(3, retention.jours());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'enregistrement des durées de conservation: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return false;
+    }
+    
     /**
      * Mappe un ResultSet vers un objet Notification.
      */
@@ -198,11 +198,29 @@ public class PaiementDAOImpl implements PaiementDAO {
     
     @Override
     public Paiement save(Paiement paiement) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            
+            paiement.setId(inserer(conn, paiement));
+            return paiement;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la sauvegarde du paiement: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Insère un paiement dans la transaction de l'appelant (aussi utilisé par SoldeDAOImpl,
+     * qui écrit le paiement et ses mouvements de solde ensemble).
+     * 
+     * @return L'identifiant généré
+     */
+    static int inserer(Connection conn, Paiement paiement) throws SQLException {
         String sql = "INSERT INTO paiement (id_utilisateur, id_emprunt, montant, date_paiement, " +
                      "methode_paiement, statut, reference, motif) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setInt(1, paiement.getUtilisateur().getId());
             
@@ -219,22 +237,16 @@ public class PaiementDAOImpl implements PaiementDAO {
             stmt.setString(7, paiement.getReference());
             stmt.setString(8, paiement.getMotif());
             
-            int affectedRows = stmt.executeUpdate();
+            stmt.executeUpdate();
             
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        paiement.setId(generatedKeys.getInt(1));
-                        return paiement;
-                    }
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    return generatedKeys.getInt(1);
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Erreur lors de la sauvegarde du paiement: " + e.getMessage());
-            e.printStackTrace();
         }
         
-        return null;
+        throw new SQLException("Aucun identifiant généré pour le paiement");
     }
     
     @Override
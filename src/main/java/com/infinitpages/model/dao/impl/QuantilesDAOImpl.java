@@ -0,0 +1,248 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.QuantilesDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation de QuantilesDAO.
+ */
+public class QuantilesDAOImpl implements QuantilesDAO {
+
+    @Override
+    public boolean saveAll(List<SketchQuantiles> sketches) {
+        if (sketches == null || sketches.isEmpty()) {
+            return true;
+        }
+
+        // La clé comprend le poste : un poste ne remplace que sa propre ligne
+        String sql = "INSERT INTO sketch_quantiles (mesure, dimension, valeur, jour, poste, donnees) " +
+                     "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE donnees = VALUES(donnees)";
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (SketchQuantiles sketch : sketches) {
+                    stmt.setString(1, sketch.mesure());
+                    stmt.setString(2, sketch.dimension());
+                    stmt.setString(3, sketch.valeur());
+                    stmt.setDate(4, Date.valueOf(sketch.jour()));
+                    stmt.setString(5, sketch.poste());
+                    stmt.setBytes(6, sketch.donnees());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la sauvegarde des sketches de quantiles: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean remplacer(LocalDate debut, LocalDate fin, List<SketchQuantiles> sketches) {
+        String sqlSupprimer = "DELETE FROM sketch_quantiles WHERE jour BETWEEN ? AND ?";
+        String sqlInserer = "INSERT INTO sketch_quantiles (mesure, dimension, valeur, jour, poste, donnees) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)";
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sqlSupprimer)) {
+                stmt.setDate(1, Date.valueOf(debut));
+                stmt.setDate(2, Date.valueOf(fin));
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sqlInserer)) {
+                for (SketchQuantiles sketch : sketches) {
+                    stmt.setString(1, sketch.mesure());
+                    stmt.setString(2, sketch.dimension());
+                    stmt.setString(3, sketch.valeur());
+                    stmt.setDate(4, Date.valueOf(sketch.jour()));
+                    stmt.setString(5, sketch.poste());
+                    stmt.setBytes(6, sketch.donnees());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors du remplacement des sketches de quantiles: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public List<SketchQuantiles> findByJour(LocalDate jour) {
+        List<SketchQuantiles> sketches = new ArrayList<>();
+        String sql = "SELECT * FROM sketch_quantiles WHERE jour = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sketches.add(mapResultSetToSketch(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des sketches de quantiles par jour: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return sketches;
+    }
+
+    @Override
+    public List<SketchQuantiles> findByDimension(String mesure, String dimension, LocalDate debut, LocalDate fin) {
+        List<SketchQuantiles> sketches = new ArrayList<>();
+        String sql = "SELECT * FROM sketch_quantiles WHERE mesure = ? AND dimension = ? AND jour BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, mesure);
+            stmt.setString(2, dimension);
+            stmt.setDate(3, Date.valueOf(debut));
+            stmt.setDate(4, Date.valueOf(fin));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sketches.add(mapResultSetToSketch(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des sketches de quantiles: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return sketches;
+    }
+
+    @Override
+    public DimensionsEmprunt findDimensions(int idEmprunt) {
+        String sql = "SELECT u.type_utilisateur, d.genre FROM emprunt e " +
+                     "INNER JOIN utilisateur u ON u.id_personne = e.id_utilisateur " +
+                     "INNER JOIN document d ON d.id = e.id_document " +
+                     "WHERE e.id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, idEmprunt);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new DimensionsEmprunt(rs.getString("type_utilisateur"), rs.getString("genre"));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des dimensions de l'emprunt: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public long parcourirRetours(LocalDate debut, LocalDate fin, RetourVisiteur visiteur) {
+        // Même règle que Emprunt.calculerJoursRetard(), évaluée par la base
+        String sql = "SELECT e.date_retour_effective, u.type_utilisateur, d.genre, " +
+                     "DATEDIFF(e.date_retour_effective, e.date_emprunt) AS duree, " +
+                     "GREATEST(DATEDIFF(e.date_retour_effective, e.date_retour), 0) AS jours_retard " +
+                     "FROM emprunt e " +
+                     "INNER JOIN utilisateur u ON u.id_personne = e.id_utilisateur " +
+                     "INNER JOIN document d ON d.id = e.id_document " +
+                     "WHERE e.date_retour_effective BETWEEN ? AND ?";
+        long count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL : Integer.MIN_VALUE active le streaming ligne par ligne
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setDate(1, Date.valueOf(debut));
+            stmt.setDate(2, Date.valueOf(fin));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visiteur.visiter(rs.getDate(1).toLocalDate(), rs.getString(2), rs.getString(3),
+                        rs.getLong(4), rs.getLong(5));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du parcours des retours: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+
+        return count;
+    }
+
+    /**
+     * Mappe un ResultSet vers un SketchQuantiles.
+     */
+    private SketchQuantiles mapResultSetToSketch(ResultSet rs) throws SQLException {
+        return new SketchQuantiles(
+            rs.getString("mesure"),
+            rs.getString("dimension"),
+            rs.getString("valeur"),
+            rs.getDate("jour").toLocalDate(),
+            rs.getString("poste"),
+            rs.getBytes("donnees")
+        );
+    }
+}
@@ -0,0 +1,51 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.RappelDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+
+/**
+ * Implémentation de RappelDAO.
+ */
+public class RappelDAOImpl implements RappelDAO {
+
+    @Override
+    public int reserver(int idEmprunt, String type, LocalDate jour) {
+        String sql = "INSERT IGNORE INTO rappel_envoye (id_emprunt, type, jour) VALUES (?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, idEmprunt);
+            stmt.setString(2, type);
+            stmt.setDate(3, Date.valueOf(jour));
+
+            return stmt.executeUpdate() > 0 ? 1 : 0;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la réservation du rappel: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int purger(LocalDate avant) {
+        String sql = "DELETE FROM rappel_envoye WHERE jour < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(avant));
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la purge des rappels envoyés: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return -1;
+    }
+}
@@ -189,6 +189,74 @@ public class RapportDAOImpl implements RapportDAO {
         return null;
     }
     
+    @Override
+    public int saveAll(List<Rapport> rapports) {
+        if (rapports == null || rapports.isEmpty()) {
+            return 0;
+        }
+        
+        String sql = "INSERT INTO rapport (id_admin, titre, date_generation, contenu, type, periode) " +
+                     "VALUES (?, ?, ?, ?, ?, ?)";
+        Connection conn = null;
+        
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Rapport rapport : rapports) {
+                    stmt.setInt(1, rapport.getAdmin().getId());
+                    stmt.setString(2, rapport.getTitre());
+                    
+                    if (rapport.getDateGeneration() != null) {
+                        stmt.setTimestamp(3, Timestamp.valueOf(rapport.getDateGeneration()));
+                    } else {
+                        stmt.setTimestamp(3, Timestamp.valueOf(java.time.LocalDateTime.now()));
+                    }
+                    
+                    stmt.setString(4, rapport.getContenu());
+                    stmt.setString(5, rapport.getType());
+                    stmt.setString(6, rapport.getPeriode());
+                    stmt.addBatch();
+                }
+                
+                stmt.executeBatch();
+                
+                // Les clés générées sont renvoyées dans l'ordre du lot
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (generatedKeys.next() && i < rapports.size()) {
+                        rapports.get(i++).setId(generatedKeys.getInt(1));
+                    }
+                }
+            }
+            
+            conn.commit();
+            return rapports.size();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la sauvegarde des rapports: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+        
+        return 0;
+    }
+    
     @Override
     public boolean update(Rapport rapport) {
         String sql = "UPDATE rapport SET id_admin = ?, titre = ?, date_generation = ?, " +
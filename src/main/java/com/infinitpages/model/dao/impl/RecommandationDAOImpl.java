@@ -0,0 +1,40 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.RecommandationDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+
+/**
+ * Implémentation de RecommandationDAO.
+ */
+public class RecommandationDAOImpl implements RecommandationDAO {
+
+    @Override
+    public long parcourirPaires(PaireVisiteur visiteur) {
+        String sql = "SELECT id_utilisateur, id_document FROM emprunt " +
+                     "UNION " +
+                     "SELECT h.id_personne, hd.id_document FROM historique_document hd " +
+                     "INNER JOIN historique h ON h.id = hd.id_historique";
+        long count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // MySQL : Integer.MIN_VALUE active le streaming ligne par ligne
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    visiteur.visiter(rs.getInt(1), rs.getInt(2));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du parcours des paires utilisateur/document: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return count;
+    }
+}
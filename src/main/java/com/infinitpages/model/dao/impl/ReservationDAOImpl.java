@@ -0,0 +1,263 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.ReservationDAO;
+import com.infinitpages.model.entity.Document;
+import com.infinitpages.model.entity.Reservation;
+import com.infinitpages.model.entity.Utilisateur;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation de ReservationDAO.
+ */
+public class ReservationDAOImpl implements ReservationDAO {
+
+    @Override
+    public Reservation save(Reservation reservation) {
+        String sql = "INSERT INTO reservation (id_document, id_utilisateur, prioritaire, etat, date_reservation) " +
+                     "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+
+            stmt.setInt(1, reservation.getDocument().getId());
+            stmt.setInt(2, reservation.getUtilisateur().getId());
+            stmt.setBoolean(3, reservation.isPrioritaire());
+            stmt.setString(4, reservation.getEtat());
+            stmt.setTimestamp(5, Timestamp.valueOf(reservation.getDateReservation()));
+
+            int affectedRows = stmt.executeUpdate();
+
+            if (affectedRows > 0) {
+                try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        reservation.setId(generatedKeys.getInt(1));
+                        return reservation;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la sauvegarde de la réservation: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<Reservation> findActives() {
+        List<Reservation> reservations = new ArrayList<>();
+        String sql = "SELECT * FROM reservation ORDER BY id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            while (rs.next()) {
+                reservations.add(mapResultSetToReservation(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la récupération des réservations: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+
+        return reservations;
+    }
+
+    @Override
+    public boolean delete(int id) {
+        String sql = "DELETE FROM reservation WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, id);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la suppression de la réservation: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    @Override
+    public ResultatAttribution attribuer(int idReservation, int idDocument) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // La réservation peut avoir été annulée ou servie depuis un autre poste
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE reservation SET etat = 'A_RETIRER', date_attribution = NOW() " +
+                    "WHERE id = ? AND etat = 'EN_ATTENTE'")) {
+                stmt.setInt(1, idReservation);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return ResultatAttribution.RESERVATION_CADUQUE;
+                }
+            }
+
+            // Le dernier exemplaire libre peut avoir été emprunté entre son retour et cette attribution
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE document SET exemplaires_disponibles = exemplaires_disponibles - 1, " +
+                    "disponible = exemplaires_disponibles > 0 " +
+                    "WHERE id = ? AND exemplaires_disponibles > 0")) {
+                stmt.setInt(1, idDocument);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return ResultatAttribution.DOCUMENT_PRIS;
+                }
+            }
+
+            conn.commit();
+            return ResultatAttribution.ATTRIBUEE;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'attribution de la réservation: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return ResultatAttribution.ERREUR;
+    }
+
+    @Override
+    public int liberer(int idReservation, int idDocument) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM reservation WHERE id = ? AND etat = 'A_RETIRER'")) {
+                stmt.setInt(1, idReservation);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return -1;
+                }
+            }
+
+            // L'exemplaire passe au suivant sans redevenir disponible entre-temps
+            int suivante = mettreDeCote(conn, idDocument);
+            if (suivante == 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE document SET exemplaires_disponibles = LEAST(exemplaires_disponibles + 1, nombre_exemplaires), " +
+                        "disponible = TRUE WHERE id = ?")) {
+                    stmt.setInt(1, idDocument);
+                    stmt.executeUpdate();
+                }
+            }
+
+            conn.commit();
+            return suivante;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la libération de la réservation: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Met un exemplaire qui vient d'être libéré de côté pour le premier de la file du
+     * document, dans la transaction de l'appelant : la réservation passe à A_RETIRER et
+     * l'appelant n'incrémente pas le compteur d'exemplaires disponibles.
+     *
+     * @param conn La connexion de la transaction en cours
+     * @param idDocument L'identifiant du document
+     * @return L'identifiant de la réservation servie, ou 0 si personne n'attend le document
+     */
+    static int mettreDeCote(Connection conn, int idDocument) throws SQLException {
+        int idReservation = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id FROM reservation WHERE id_document = ? AND etat = 'EN_ATTENTE' " +
+                "ORDER BY prioritaire DESC, id LIMIT 1 FOR UPDATE")) {
+            stmt.setInt(1, idDocument);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    idReservation = rs.getInt(1);
+                }
+            }
+        }
+
+        if (idReservation > 0) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE reservation SET etat = 'A_RETIRER', date_attribution = NOW() WHERE id = ?")) {
+                stmt.setInt(1, idReservation);
+                stmt.executeUpdate();
+            }
+        }
+        return idReservation;
+    }
+
+    /**
+     * Mappe un ResultSet vers un objet Reservation.
+     */
+    private Reservation mapResultSetToReservation(ResultSet rs) throws SQLException {
+        Reservation reservation = new Reservation();
+
+        reservation.setId(rs.getInt("id"));
+
+        // Utilisateur et Document avec juste l'ID
+        Utilisateur utilisateur = new Utilisateur();
+        utilisateur.setId(rs.getInt("id_utilisateur"));
+        reservation.setUtilisateur(utilisateur);
+
+        Document document = new Document() {};
+        document.setId(rs.getInt("id_document"));
+        reservation.setDocument(document);
+
+        reservation.setPrioritaire(rs.getBoolean("prioritaire"));
+        reservation.setEtat(rs.getString("etat"));
+
+        Timestamp dateReservation = rs.getTimestamp("date_reservation");
+        if (dateReservation != null) {
+            reservation.setDateReservation(dateReservation.toLocalDateTime());
+        }
+
+        Timestamp dateAttribution = rs.getTimestamp("date_attribution");
+        if (dateAttribution != null) {
+            reservation.setDateAttribution(dateAttribution.toLocalDateTime());
+        }
+
+        return reservation;
+    }
+}
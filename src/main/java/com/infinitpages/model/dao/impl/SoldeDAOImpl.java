@@ -0,0 +1,426 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.SoldeDAO;
+import com.infinitpages.model.entity.Paiement;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implémentation de SoldeDAO.
+ */
+public class SoldeDAOImpl implements SoldeDAO {
+
+    private static final String VERROU_CONSOLIDATION = "infinitpages_consolidation_soldes";
+
+    // Mouvements marqués par une consolidation, par utilisateur
+    private static final String SQL_MOUVEMENTS_CONSOLIDES =
+        "FROM mouvement_solde m WHERE m.id_consolidation = ? GROUP BY m.id_utilisateur";
+
+    // Écart entre la pénalité de chaque emprunt d'une plage et les mouvements PENALITE déjà écrits pour lui
+    private static final String SQL_REPORT_PENALITES =
+        "INSERT INTO mouvement_solde (id_utilisateur, montant, motif, id_emprunt) " +
+        "SELECT e.id_utilisateur, e.penalite - COALESCE(p.porte, 0), 'PENALITE', e.id FROM emprunt e " +
+        "LEFT JOIN (SELECT m.id_emprunt, SUM(m.montant) AS porte FROM mouvement_solde m " +
+        "WHERE m.id_emprunt BETWEEN ? AND ? AND m.motif = 'PENALITE' GROUP BY m.id_emprunt) p " +
+        "ON p.id_emprunt = e.id " +
+        "WHERE e.id BETWEEN ? AND ? AND e.penalite <> COALESCE(p.porte, 0)";
+
+    @Override
+    public boolean enregistrer(List<Mouvement> mouvements) {
+        if (mouvements.isEmpty()) {
+            return true;
+        }
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            inserer(conn, mouvements);
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'enregistrement des mouvements de solde: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public Paiement enregistrerPaiement(Paiement paiement, List<Mouvement> mouvements) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int idPaiement = PaiementDAOImpl.inserer(conn, paiement);
+
+            List<Mouvement> lies = new ArrayList<>(mouvements.size());
+            for (Mouvement mouvement : mouvements) {
+                lies.add(new Mouvement(mouvement.idUtilisateur(), mouvement.montant(), mouvement.motif(),
+                    idPaiement, mouvement.idEmprunt()));
+            }
+            if (!lies.isEmpty()) {
+                inserer(conn, lies);
+            }
+
+            conn.commit();
+            paiement.setId(idPaiement);
+            return paiement;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de l'enregistrement du paiement: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public int changerStatutPaiement(int idPaiement, String ancienStatut, String nouveauStatut,
+                                     List<Mouvement> mouvements) {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Un seul changement peut partir d'un statut donné : pas de double annulation
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE paiement SET statut = ? WHERE id = ? AND statut = ?")) {
+                stmt.setString(1, nouveauStatut);
+                stmt.setInt(2, idPaiement);
+                stmt.setString(3, ancienStatut);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return 0;
+                }
+            }
+
+            if (!mouvements.isEmpty()) {
+                inserer(conn, mouvements);
+            }
+
+            conn.commit();
+            return 1;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors du changement de statut du paiement: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Double getSolde(int idUtilisateur) {
+        // Une seule requête : l'instantané et le delta sont lus dans la même vue de la base
+        String sql = "SELECT COALESCE(s.solde, 0) + COALESCE((" +
+                     "SELECT SUM(m.montant) FROM mouvement_solde m " +
+                     "WHERE m.id_utilisateur = u.id_personne AND m.id_consolidation IS NULL), 0) " +
+                     "FROM utilisateur u LEFT JOIN solde_instantane s ON s.id_utilisateur = u.id_personne " +
+                     "WHERE u.id_personne = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, idUtilisateur);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getDouble(1) : 0.0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du calcul du solde: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<Mouvement> findByUtilisateur(int idUtilisateur) {
+        List<Mouvement> mouvements = new ArrayList<>();
+        String sql = "SELECT * FROM mouvement_solde WHERE id_utilisateur = ? ORDER BY id DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, idUtilisateur);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    mouvements.add(mapResultSetToMouvement(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des mouvements de solde: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return mouvements;
+    }
+
+    @Override
+    public int consolider() {
+        Connection conn = null;
+        boolean verrouille = false;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                stmt.setString(1, VERROU_CONSOLIDATION);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    verrouille = rs.next() && rs.getInt(1) == 1;
+                }
+            }
+            if (!verrouille) {
+                // Un autre poste consolide en ce moment
+                return 0;
+            }
+
+            conn.setAutoCommit(false);
+
+            // Sous le verrou nommé, personne d'autre ne tire d'identifiant de consolidation
+            long idConsolidation;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id_consolidation), 0) + 1 FROM mouvement_solde")) {
+                idConsolidation = rs.next() ? rs.getLong(1) : 1;
+            }
+
+            // 1. Marquer les mouvements validés à cet instant : les étapes suivantes ne voient qu'eux
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE mouvement_solde SET id_consolidation = ? WHERE id_consolidation IS NULL")) {
+                stmt.setLong(1, idConsolidation);
+                if (stmt.executeUpdate() == 0) {
+                    conn.commit();
+                    return 0;
+                }
+            }
+
+            // 2. Copie dans utilisateur
+            int utilisateurs;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE utilisateur u INNER JOIN (" +
+                    "SELECT m.id_utilisateur, SUM(m.montant) AS delta " + SQL_MOUVEMENTS_CONSOLIDES +
+                    ") d ON d.id_utilisateur = u.id_personne " +
+                    "SET u.solde_a_payer = u.solde_a_payer + d.delta")) {
+                stmt.setLong(1, idConsolidation);
+                utilisateurs = stmt.executeUpdate();
+            }
+
+            // 3. Instantanés
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO solde_instantane (id_utilisateur, solde, id_derniere_consolidation) " +
+                    "SELECT m.id_utilisateur, SUM(m.montant), m.id_consolidation " + SQL_MOUVEMENTS_CONSOLIDES + " " +
+                    "ON DUPLICATE KEY UPDATE solde = solde_instantane.solde + VALUES(solde), " +
+                    "id_derniere_consolidation = VALUES(id_derniere_consolidation), date_instantane = CURRENT_TIMESTAMP")) {
+                stmt.setLong(1, idConsolidation);
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            return utilisateurs;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la consolidation des soldes: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    // Le verrou nommé appartient à la session : le libérer avant de rendre la connexion au pool
+                    if (verrouille) {
+                        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                            stmt.setString(1, VERROU_CONSOLIDATION);
+                            stmt.executeQuery().close();
+                        }
+                    }
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int ouvrirSoldes() {
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int repris;
+            try (Statement stmt = conn.createStatement()) {
+                // Consolidation 0 : le mouvement d'ouverture est déjà dans l'instantané et dans solde_a_payer
+                repris = stmt.executeUpdate(
+                    "INSERT INTO mouvement_solde (id_utilisateur, montant, motif, id_consolidation) " +
+                    "SELECT u.id_personne, u.solde_a_payer, 'OUVERTURE', 0 FROM utilisateur u " +
+                    "WHERE u.solde_a_payer <> 0 " +
+                    "AND NOT EXISTS (SELECT 1 FROM mouvement_solde m WHERE m.id_utilisateur = u.id_personne)");
+
+                // solde_a_payer contient déjà ce montant : l'instantané part du mouvement d'ouverture
+                stmt.executeUpdate(
+                    "INSERT INTO solde_instantane (id_utilisateur, solde, id_derniere_consolidation) " +
+                    "SELECT m.id_utilisateur, m.montant, 0 FROM mouvement_solde m " +
+                    "WHERE m.motif = 'OUVERTURE' " +
+                    "AND NOT EXISTS (SELECT 1 FROM solde_instantane s WHERE s.id_utilisateur = m.id_utilisateur)");
+            }
+
+            conn.commit();
+            return repris;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors de la reprise des soldes: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Porte au grand livre, dans la transaction de l'appelant, la pénalité des emprunts d'une plage :
+     * un mouvement PENALITE par emprunt pour l'écart entre emprunt.penalite et ce qui a déjà été porté.
+     * Relancer n'écrit rien de plus ; une pénalité qui grandit chaque nuit n'est portée que pour
+     * sa hausse. Utilisé au retour (EmpruntDAOImpl) et par le traitement des retards.
+     *
+     * @param conditions Filtre supplémentaire sur l'emprunt e (constante SQL commençant par AND, ou "")
+     * @return Le nombre de mouvements écrits
+     */
+    static int reporterPenalites(Connection conn, int idMin, int idMax, String conditions) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_REPORT_PENALITES + conditions)) {
+            stmt.setInt(1, idMin);
+            stmt.setInt(2, idMax);
+            stmt.setInt(3, idMin);
+            stmt.setInt(4, idMax);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Insère des mouvements par lot JDBC, dans la transaction de l'appelant.
+     */
+    private void inserer(Connection conn, List<Mouvement> mouvements) throws SQLException {
+        String sql = "INSERT INTO mouvement_solde (id_utilisateur, montant, motif, id_paiement, id_emprunt) " +
+                     "VALUES (?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (Mouvement mouvement : mouvements) {
+                stmt.setInt(1, mouvement.idUtilisateur());
+                stmt.setDouble(2, mouvement.montant());
+                stmt.setString(3, mouvement.motif());
+                if (mouvement.idPaiement() != null) {
+                    stmt.setInt(4, mouvement.idPaiement());
+                } else {
+                    stmt.setNull(4, Types.INTEGER);
+                }
+                if (mouvement.idEmprunt() != null) {
+                    stmt.setInt(5, mouvement.idEmprunt());
+                } else {
+                    stmt.setNull(5, Types.INTEGER);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Mappe un ResultSet vers un Mouvement.
+     */
+    private Mouvement mapResultSetToMouvement(ResultSet rs) throws SQLException {
+        int idPaiement = rs.getInt("id_paiement");
+        Integer paiement = rs.wasNull() ? null : idPaiement;
+        int idEmprunt = rs.getInt("id_emprunt");
+        Integer emprunt = rs.wasNull() ? null : idEmprunt;
+        Timestamp date = rs.getTimestamp("date_mouvement");
+
+        return new Mouvement(
+            rs.getLong("id"),
+            rs.getInt("id_utilisateur"),
+            rs.getDouble("montant"),
+            rs.getString("motif"),
+            paiement,
+            emprunt,
+            date != null ? date.toLocalDateTime() : null
+        );
+    }
+}
@@ -0,0 +1,113 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.StatistiquesDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implémentation de StatistiquesDAO.
+ */
+public class StatistiquesDAOImpl implements StatistiquesDAO {
+
+    @Override
+    public StatistiquesEmprunts getStatistiquesEmprunts(LocalDate dateDebut, LocalDate dateFin, LocalDate aujourdhui) {
+        // Retard : même règle que Emprunt.estEnRetard(), évaluée par la base. Pénalités : celles
+        // enregistrées au retour ou par le traitement nocturne (taux par type d'utilisateur),
+        // comme dans les agrégats journaliers
+        String sql = "SELECT COUNT(*) AS total, " +
+                     "COALESCE(SUM(COALESCE(e.date_retour_effective, ?) > e.date_retour), 0) AS en_retard, " +
+                     "COALESCE(SUM(e.penalite), 0) AS penalites " +
+                     "FROM emprunt e " +
+                     "WHERE e.date_emprunt BETWEEN ? AND ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(aujourdhui));
+            stmt.setDate(2, Date.valueOf(dateDebut));
+            stmt.setDate(3, Date.valueOf(dateFin));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new StatistiquesEmprunts(
+                        rs.getInt("total"),
+                        rs.getInt("en_retard"),
+                        rs.getDouble("penalites")
+                    );
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du calcul des statistiques d'emprunts: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return new StatistiquesEmprunts(0, 0, 0.0);
+    }
+
+    @Override
+    public Map<YearMonth, StatistiquesEmprunts> getStatistiquesEmpruntsParMois(LocalDate dateDebut, LocalDate dateFin,
+                                                                               LocalDate aujourdhui) {
+        Map<YearMonth, StatistiquesEmprunts> parMois = new HashMap<>();
+        String sql = "SELECT YEAR(e.date_emprunt) AS annee, MONTH(e.date_emprunt) AS mois, COUNT(*) AS total, " +
+                     "SUM(COALESCE(e.date_retour_effective, ?) > e.date_retour) AS en_retard, " +
+                     "SUM(e.penalite) AS penalites " +
+                     "FROM emprunt e " +
+                     "WHERE e.date_emprunt BETWEEN ? AND ? " +
+                     "GROUP BY annee, mois";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(aujourdhui));
+            stmt.setDate(2, Date.valueOf(dateDebut));
+            stmt.setDate(3, Date.valueOf(dateFin));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    parMois.put(
+                        YearMonth.of(rs.getInt("annee"), rs.getInt("mois")),
+                        new StatistiquesEmprunts(rs.getInt("total"), rs.getInt("en_retard"), rs.getDouble("penalites"))
+                    );
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du calcul des statistiques d'emprunts par mois: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return parMois;
+    }
+
+    @Override
+    public StatistiquesConsultations getStatistiquesConsultations() {
+        // Un seul aller-retour : la somme et le document le plus consulté (via idx_nombre_consultations)
+        String sql = "SELECT t.total, m.id, m.titre, m.nombre_consultations " +
+                     "FROM (SELECT COALESCE(SUM(nombre_consultations), 0) AS total FROM document) t " +
+                     "LEFT JOIN (SELECT id, titre, nombre_consultations FROM document " +
+                     "ORDER BY nombre_consultations DESC, id LIMIT 1) m ON TRUE";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return new StatistiquesConsultations(
+                    rs.getLong("total"),
+                    rs.getInt("id"),
+                    rs.getString("titre"),
+                    rs.getInt("nombre_consultations")
+                );
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du calcul des statistiques de consultations: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return new StatistiquesConsultations(0, 0, null, 0);
+    }
+}
@@ -0,0 +1,185 @@
+package com.infinitpages.model.dao.impl;
+
+import com.infinitpages.model.dao.TraitementRetardsDAO;
+import com.infinitpages.util.db.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Implémentation de TraitementRetardsDAO.
+ */
+public class TraitementRetardsDAOImpl implements TraitementRetardsDAO {
+
+    @Override
+    public BornesIds findBornesEnRetard(LocalDate jour) {
+        String sql = "SELECT MIN(id), MAX(id) FROM emprunt " +
+                     "WHERE etat IN ('EN_COURS', 'EN_RETARD') AND date_retour_effective IS NULL AND date_retour < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    int min = rs.getInt(1);
+                    if (!rs.wasNull()) {
+                        return new BornesIds(min, rs.getInt(2));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche des emprunts en retard: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public int marquerEnRetard(LocalDate jour, int idMin, int idMax) {
+        String sql = "UPDATE emprunt SET etat = 'EN_RETARD' " +
+                     "WHERE id BETWEEN ? AND ? AND etat = 'EN_COURS' " +
+                     "AND date_retour_effective IS NULL AND date_retour < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, idMin);
+            stmt.setInt(2, idMax);
+            stmt.setDate(3, Date.valueOf(jour));
+
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors du marquage des emprunts en retard: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int appliquerPenalites(LocalDate jour, int idMin, int idMax, Map<String, Double> tauxParType,
+                                  double tauxDefaut) {
+        // Même règle que Emprunt.calculerPenalite(), évaluée par la base
+        StringBuilder taux = new StringBuilder("CASE u.type_utilisateur");
+        for (int i = 0; i < tauxParType.size(); i++) {
+            taux.append(" WHEN ? THEN ?");
+        }
+        taux.append(" ELSE ? END");
+
+        String sql = "UPDATE emprunt e " +
+                     "INNER JOIN document d ON d.id = e.id_document " +
+                     "INNER JOIN utilisateur u ON u.id_personne = e.id_utilisateur " +
+                     "SET e.penalite = DATEDIFF(?, e.date_retour) * d.prix_par_jour * (" + taux + ") " +
+                     "WHERE e.id BETWEEN ? AND ? AND e.etat = 'EN_RETARD' " +
+                     "AND e.date_retour_effective IS NULL AND e.date_retour < ?";
+
+        Connection conn = null;
+
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            int misesAJour;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                stmt.setDate(index++, Date.valueOf(jour));
+                for (Map.Entry<String, Double> entry : tauxParType.entrySet()) {
+                    stmt.setString(index++, entry.getKey());
+                    stmt.setDouble(index++, entry.getValue());
+                }
+                stmt.setDouble(index++, tauxDefaut);
+                stmt.setInt(index++, idMin);
+                stmt.setInt(index++, idMax);
+                stmt.setDate(index, Date.valueOf(jour));
+
+                misesAJour = stmt.executeUpdate();
+            }
+
+            // Porter au grand livre la hausse des pénalités, dans la même transaction
+            SoldeDAOImpl.reporterPenalites(conn, idMin, idMax,
+                " AND e.etat = 'EN_RETARD' AND e.date_retour_effective IS NULL");
+
+            conn.commit();
+            return misesAJour;
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    System.err.println("Erreur lors du rollback: " + ex.getMessage());
+                }
+            }
+            System.err.println("Erreur lors du calcul des pénalités de retard: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Erreur lors de la fermeture de la connexion: " + e.getMessage());
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public BilanTraitement findByJour(LocalDate jour) {
+        String sql = "SELECT * FROM traitement_retards WHERE jour = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(jour));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new BilanTraitement(
+                        rs.getDate("jour").toLocalDate(),
+                        rs.getInt("emprunts_marques"),
+                        rs.getInt("penalites_mises_a_jour"),
+                        rs.getInt("lots"),
+                        rs.getLong("duree_ms")
+                    );
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la recherche du traitement des retards: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean save(BilanTraitement bilan) {
+        String sql = "INSERT INTO traitement_retards (jour, emprunts_marques, penalites_mises_a_jour, lots, duree_ms) " +
+                     "VALUES (?, ?, ?, ?, ?) " +
+                     "ON DUPLICATE KEY UPDATE emprunts_marques = VALUES(emprunts_marques), " +
+                     "penalites_mises_a_jour = VALUES(penalites_mises_a_jour), lots = VALUES(lots), " +
+                     "duree_ms = VALUES(duree_ms), date_execution = CURRENT_TIMESTAMP";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(bilan.jour()));
+            stmt.setInt(2, bilan.empruntsMarques());
+            stmt.setInt(3, bilan.penalitesMisesAJour());
+            stmt.setInt(4, bilan.lots());
+            stmt.setLong(5, bilan.dureeMs());
+
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de l'enregistrement du traitement des retards: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+}
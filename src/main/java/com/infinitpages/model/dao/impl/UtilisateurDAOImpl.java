@@ -252,14 +252,13 @@ public class UtilisateurDAOImpl extends PersonneDAOImpl implements UtilisateurDA
                 stmtPersonne.executeUpdate();
             }
             
-            // 2. Mettre à jour utilisateur
-            String sqlUtilisateur = "UPDATE utilisateur SET type_utilisateur = ?, limite_emprunts = ?, solde_a_payer = ? WHERE id_personne = ?";
+            // 2. Mettre à jour utilisateur (solde_a_payer n'est modifié que par la consolidation des mouvements)
+            String sqlUtilisateur = "UPDATE utilisateur SET type_utilisateur = ?, limite_emprunts = ? WHERE id_personne = ?";
             
             try (PreparedStatement stmtUtilisateur = conn.prepareStatement(sqlUtilisateur)) {
                 stmtUtilisateur.setString(1, utilisateur.getTypeUtilisateur().name());
                 stmtUtilisateur.setInt(2, utilisateur.getLimiteEmprunts());
-                stmtUtilisateur.setDouble(3, utilisateur.getSoldeAPayer());
-                stmtUtilisateur.setInt(4, utilisateur.getId());
+                stmtUtilisateur.setInt(3, utilisateur.getId());
                 
                 stmtUtilisateur.executeUpdate();
             }
@@ -290,25 +289,6 @@ public class UtilisateurDAOImpl extends PersonneDAOImpl implements UtilisateurDA
         return false;
     }
     
-    @Override
-    public boolean updateSoldeAPayer(int idUtilisateur, double nouveauSolde) {
-        String sql = "UPDATE utilisateur SET solde_a_payer = ? WHERE id_personne = ?";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setDouble(1, nouveauSolde);
-            stmt.setInt(2, idUtilisateur);
-            
-            return stmt.executeUpdate() > 0;
-        } catch (SQLException e) {
-            System.err.println("Erreur lors de la mise à jour du solde: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        return false;
-    }
-    
     @Override
     public int countByType(TypeUtilisateur typeUtilisateur) {
         String sql = "SELECT COUNT(*) FROM utilisateur WHERE type_utilisateur = ?";
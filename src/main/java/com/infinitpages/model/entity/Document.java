@@ -30,9 +30,13 @@ public abstract class Document {
     // Mots-clés pour la recherche (stocké comme String dans la BDD, converti en List)
     protected List<String> motsCles;
     
-    // Le document est-il disponible pour emprunt ?
+    // Le document est-il disponible pour emprunt ? (au moins un exemplaire libre)
     protected boolean disponible;
     
+    // Nombre d'exemplaires physiques, et combien sont libres
+    protected int nombreExemplaires;
+    protected int exemplairesDisponibles;
+    
     // Format du document (ex: "Livre", "Article", "Manga")
     protected String format;
     
@@ -60,6 +64,8 @@ public abstract class Document {
     // Constructeurs
     public Document() {
         this.disponible = true;
+        this.nombreExemplaires = 1;
+        this.exemplairesDisponibles = 1;
         this.nombreConsultations = 0;
         this.nombreEmprunts = 0;
         this.noteGlobale = 0.0;
@@ -130,6 +136,22 @@ public abstract class Document {
         this.disponible = disponible;
     }
     
+    public int getNombreExemplaires() {
+        return nombreExemplaires;
+    }
+    
+    public void setNombreExemplaires(int nombreExemplaires) {
+        this.nombreExemplaires = nombreExemplaires;
+    }
+    
+    public int getExemplairesDisponibles() {
+        return exemplairesDisponibles;
+    }
+    
+    public void setExemplairesDisponibles(int exemplairesDisponibles) {
+        this.exemplairesDisponibles = exemplairesDisponibles;
+    }
+    
     public String getFormat() {
         return format;
     }
@@ -1,5 +1,7 @@
 package com.infinitpages.model.entity;
 
+import java.util.List;
+
 /**
  * Classe représentant les documents physiques (livres réels) dans la bibliothèque.
  * Hérite de Document.
@@ -15,6 +17,9 @@ public class DocumentReel extends Document {
     // Code ISBN du livre
     protected String ISBN;
     
+    // Exemplaires physiques du livre (chargés à la demande)
+    protected List<Exemplaire> exemplaires;
+    
     // Constructeurs
     public DocumentReel() {
         super();
@@ -56,5 +61,13 @@ public class DocumentReel extends Document {
     public void setISBN(String ISBN) {
         this.ISBN = ISBN;
     }
+    
+    public List<Exemplaire> getExemplaires() {
+        return exemplaires;
+    }
+    
+    public void setExemplaires(List<Exemplaire> exemplaires) {
+        this.exemplaires = exemplaires;
+    }
 }
 
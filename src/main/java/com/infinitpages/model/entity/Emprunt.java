@@ -11,6 +11,9 @@ import java.time.temporal.ChronoUnit;
  */
 public class Emprunt {
     
+    // Taux de pénalité quand le type d'utilisateur n'est pas connu
+    public static final double TAUX_PENALITE_DEFAUT = 2.0;
+    
     // Identifiant de l'emprunt
     protected int id;
     
@@ -47,6 +50,9 @@ public class Emprunt {
     // Relations : Référence au document emprunté
     protected Document document;
     
+    // Relations : Exemplaire physique remis (null pour un document sans exemplaires)
+    protected Exemplaire exemplaire;
+    
     // Constructeurs
     public Emprunt() {
         this.etat = "EN_COURS";
@@ -162,6 +168,14 @@ public class Emprunt {
         this.document = document;
     }
     
+    public Exemplaire getExemplaire() {
+        return exemplaire;
+    }
+    
+    public void setExemplaire(Exemplaire exemplaire) {
+        this.exemplaire = exemplaire;
+    }
+    
     // ========== MÉTHODES DE CALCUL ==========
     
     /**
@@ -221,7 +235,7 @@ public class Emprunt {
     
     /**
      * Calcule la pénalité en cas de retard
-     * Pénalité = (jours de retard × prix par jour × 2)
+     * Pénalité = (jours de retard × prix par jour × taux du type d'utilisateur, 2 par défaut)
      * @return Montant de la pénalité
      */
     public double calculerPenalite() {
@@ -229,9 +243,12 @@ public class Emprunt {
         if (joursRetard <= 0 || document == null) {
             return 0.0;
         }
-        // Pénalité = double du prix par jour pour chaque jour de retard
+        double taux = TAUX_PENALITE_DEFAUT;
+        if (utilisateur != null && utilisateur.getTypeUtilisateur() != null) {
+            taux = utilisateur.getTypeUtilisateur().getTauxPenalite();
+        }
         double prixParJour = document.getPrixParJour();
-        return joursRetard * prixParJour * 2.0;
+        return joursRetard * prixParJour * taux;
     }
     
     /**
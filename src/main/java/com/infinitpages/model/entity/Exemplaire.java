@@ -0,0 +1,88 @@
+package com.infinitpages.model.entity;
+
+/**
+ * Classe représentant un exemplaire physique d'un document réel.
+ * Un titre peut avoir plusieurs exemplaires, empruntés indépendamment.
+ */
+public class Exemplaire {
+    
+    // Identifiant
+    protected int id;
+    
+    // Code-barres collé sur l'exemplaire
+    protected String codeBarre;
+    
+    // Où se trouve l'exemplaire (ex: "Rayon A, Étagère 3")
+    protected String emplacement;
+    
+    // État de l'exemplaire ("Neuf", "Bon état", "Abîmé")
+    protected String condition;
+    
+    // L'exemplaire est-il en rayon ?
+    protected boolean disponible;
+    
+    // Relations : Document dont c'est un exemplaire
+    protected DocumentReel document;
+    
+    // Constructeurs
+    public Exemplaire() {
+        this.disponible = true;
+    }
+    
+    public Exemplaire(DocumentReel document, String codeBarre, String emplacement, String condition) {
+        this();
+        this.document = document;
+        this.codeBarre = codeBarre;
+        this.emplacement = emplacement;
+        this.condition = condition;
+    }
+    
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+    
+    public void setId(int id) {
+        this.id = id;
+    }
+    
+    public String getCodeBarre() {
+        return codeBarre;
+    }
+    
+    public void setCodeBarre(String codeBarre) {
+        this.codeBarre = codeBarre;
+    }
+    
+    public String getEmplacement() {
+        return emplacement;
+    }
+    
+    public void setEmplacement(String emplacement) {
+        this.emplacement = emplacement;
+    }
+    
+    public String getCondition() {
+        return condition;
+    }
+    
+    public void setCondition(String condition) {
+        this.condition = condition;
+    }
+    
+    public boolean isDisponible() {
+        return disponible;
+    }
+    
+    public void setDisponible(boolean disponible) {
+        this.disponible = disponible;
+    }
+    
+    public DocumentReel getDocument() {
+        return document;
+    }
+    
+    public void setDocument(DocumentReel document) {
+        this.document = document;
+    }
+}
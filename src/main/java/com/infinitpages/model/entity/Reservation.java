@@ -0,0 +1,100 @@
+package com.infinitpages.model.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Classe représentant la réservation d'un document indisponible.
+ * Les réservations d'un document sont servies dans l'ordre d'arrivée,
+ * les enseignants passant avant les autres utilisateurs.
+ */
+public class Reservation {
+
+    // Identifiant (croissant : donne l'ordre d'arrivée)
+    protected int id;
+
+    // Servie avant les réservations non prioritaires (enseignants)
+    protected boolean prioritaire;
+
+    // État ("EN_ATTENTE", "A_RETIRER")
+    protected String etat;
+
+    // Quand elle a été faite
+    protected LocalDateTime dateReservation;
+
+    // Quand le document a été mis de côté pour l'utilisateur
+    protected LocalDateTime dateAttribution;
+
+    // Relations
+    protected Utilisateur utilisateur;
+    protected Document document;
+
+    // Constructeurs
+    public Reservation() {
+        this.etat = "EN_ATTENTE";
+        this.dateReservation = LocalDateTime.now();
+    }
+
+    public Reservation(Utilisateur utilisateur, Document document, boolean prioritaire) {
+        this();
+        this.utilisateur = utilisateur;
+        this.document = document;
+        this.prioritaire = prioritaire;
+    }
+
+    // Getters et Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public boolean isPrioritaire() {
+        return prioritaire;
+    }
+
+    public void setPrioritaire(boolean prioritaire) {
+        this.prioritaire = prioritaire;
+    }
+
+    public String getEtat() {
+        return etat;
+    }
+
+    public void setEtat(String etat) {
+        this.etat = etat;
+    }
+
+    public LocalDateTime getDateReservation() {
+        return dateReservation;
+    }
+
+    public void setDateReservation(LocalDateTime dateReservation) {
+        this.dateReservation = dateReservation;
+    }
+
+    public LocalDateTime getDateAttribution() {
+        return dateAttribution;
+    }
+
+    public void setDateAttribution(LocalDateTime dateAttribution) {
+        this.dateAttribution = dateAttribution;
+    }
+
+    public Utilisateur getUtilisateur() {
+        return utilisateur;
+    }
+
+    public void setUtilisateur(Utilisateur utilisateur) {
+        this.utilisateur = utilisateur;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public void setDocument(Document document) {
+        this.document = document;
+    }
+}
@@ -5,6 +5,7 @@ import com.infinitpages.model.entity.Document;
 import com.infinitpages.model.entity.DocumentReel;
 import com.infinitpages.model.entity.DocumentNumerique;
 import com.infinitpages.model.entity.Categorie;
+import com.infinitpages.model.entity.Exemplaire;
 import com.infinitpages.model.entity.Emprunt;
 import com.infinitpages.model.entity.Avis;
 import com.infinitpages.model.entity.Rapport;
@@ -16,6 +17,11 @@ import com.infinitpages.model.dao.EmpruntDAO;
 import com.infinitpages.model.dao.AvisDAO;
 import com.infinitpages.model.dao.UtilisateurDAO;
 import com.infinitpages.model.dao.RapportDAO;
+import com.infinitpages.model.dao.StatistiquesDAO;
+import com.infinitpages.model.dao.ExportDAO;
+import com.infinitpages.model.dao.NotificationDAO;
+import com.infinitpages.model.dao.TraitementRetardsDAO;
+import com.infinitpages.model.dao.ExemplaireDAO;
 import com.infinitpages.model.dao.impl.AdminDAOImpl;
 import com.infinitpages.model.dao.impl.DocumentDAOImpl;
 import com.infinitpages.model.dao.impl.CategorieDAOImpl;
@@ -23,13 +29,30 @@ import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
 import com.infinitpages.model.dao.impl.AvisDAOImpl;
 import com.infinitpages.model.dao.impl.UtilisateurDAOImpl;
 import com.infinitpages.model.dao.impl.RapportDAOImpl;
+import com.infinitpages.model.dao.impl.StatistiquesDAOImpl;
+import com.infinitpages.model.dao.impl.ExportDAOImpl;
+import com.infinitpages.model.dao.impl.ExemplaireDAOImpl;
+import com.infinitpages.util.db.DatabaseConnection;
+import com.infinitpages.util.export.ResultSetExporter;
 
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Service métier pour les opérations administratives.
@@ -52,6 +75,9 @@ public class AdminService {
     private AvisDAO avisDAO;
     private UtilisateurDAO utilisateurDAO;
     private RapportDAO rapportDAO;
+    private StatistiquesDAO statistiquesDAO;
+    private ExportDAO exportDAO;
+    private ExemplaireDAO exemplaireDAO;
     
     /**
      * Constructeur par défaut.
@@ -64,6 +90,9 @@ public class AdminService {
         this.avisDAO = new AvisDAOImpl();
         this.utilisateurDAO = new UtilisateurDAOImpl();
         this.rapportDAO = new RapportDAOImpl();
+        this.statistiquesDAO = new StatistiquesDAOImpl();
+        this.exportDAO = new ExportDAOImpl();
+        this.exemplaireDAO = new ExemplaireDAOImpl();
     }
     
     /**
@@ -76,10 +105,14 @@ public class AdminService {
      * @param avisDAO Le DAO Avis à utiliser
      * @param utilisateurDAO Le DAO Utilisateur à utiliser
      * @param rapportDAO Le DAO Rapport à utiliser
+     * @param statistiquesDAO Le DAO Statistiques à utiliser
+     * @param exportDAO Le DAO Export à utiliser
+     * @param exemplaireDAO Le DAO Exemplaire à utiliser
      */
     public AdminService(AdminDAO adminDAO, DocumentDAO documentDAO, CategorieDAO categorieDAO,
                        EmpruntDAO empruntDAO, AvisDAO avisDAO, UtilisateurDAO utilisateurDAO,
-                       RapportDAO rapportDAO) {
+                       RapportDAO rapportDAO, StatistiquesDAO statistiquesDAO, ExportDAO exportDAO,
+                       ExemplaireDAO exemplaireDAO) {
         this.adminDAO = adminDAO;
         this.documentDAO = documentDAO;
         this.categorieDAO = categorieDAO;
@@ -87,6 +120,9 @@ public class AdminService {
         this.avisDAO = avisDAO;
         this.utilisateurDAO = utilisateurDAO;
         this.rapportDAO = rapportDAO;
+        this.statistiquesDAO = statistiquesDAO;
+        this.exportDAO = exportDAO;
+        this.exemplaireDAO = exemplaireDAO;
     }
     
     /**
@@ -137,6 +173,9 @@ public class AdminService {
         try {
             documentDAO.save(document);
             
+            // Rendre le document visible dans les "documents similaires"
+            SimilariteService.getInstance().indexerDocument(document);
+            
             // Incrémenter le nombre de documents dans la catégorie
             if (document.getCategorieEntity() != null && document.getCategorieEntity().getId() > 0) {
                 categorieDAO.incrementerNombreDocuments(document.getCategorieEntity().getId());
@@ -179,6 +218,9 @@ public class AdminService {
             if (!success) {
                 throw new IllegalStateException("Échec de la mise à jour du document");
             }
+            
+            // Mots-clés, genre ou catégorie ont pu changer
+            SimilariteService.getInstance().indexerDocument(document);
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la modification du document: " + e.getMessage(), e);
         }
@@ -227,6 +269,8 @@ public class AdminService {
                 throw new IllegalStateException("Échec de la suppression du document");
             }
             
+            SimilariteService.getInstance().retirerDocument(documentId);
+            
             // Décrémenter le nombre de documents dans la catégorie
             if (document.getCategorieEntity() != null && document.getCategorieEntity().getId() > 0) {
                 categorieDAO.decrementerNombreDocuments(document.getCategorieEntity().getId());
@@ -236,6 +280,50 @@ public class AdminService {
         }
     }
     
+    /**
+     * Ajoute un exemplaire physique à un document réel.
+     * L'exemplaire est aussitôt mis de côté pour le premier de la file de réservation, s'il y en a une.
+     * 
+     * @param admin L'admin qui effectue l'action
+     * @param document Le document réel
+     * @param exemplaire L'exemplaire à ajouter (code-barres, emplacement, condition)
+     * @return L'exemplaire avec son ID généré
+     * @throws IllegalStateException Si l'admin n'a pas les permissions
+     */
+    public Exemplaire ajouterExemplaire(Admin admin, DocumentReel document, Exemplaire exemplaire) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        if (document == null) {
+            throw new IllegalArgumentException("Document ne peut pas être null");
+        }
+        if (exemplaire == null) {
+            throw new IllegalArgumentException("Exemplaire ne peut pas être null");
+        }
+        
+        if (!verifierPermissions(admin, document)) {
+            throw new IllegalStateException(
+                "L'admin n'a pas les permissions pour gérer ce type de document"
+            );
+        }
+        
+        exemplaire.setDocument(document);
+        Exemplaire enregistre = exemplaireDAO.save(exemplaire);
+        if (enregistre == null) {
+            throw new RuntimeException("Erreur lors de l'ajout de l'exemplaire");
+        }
+        
+        document.setNombreExemplaires(document.getNombreExemplaires() + 1);
+        document.setExemplairesDisponibles(document.getExemplairesDisponibles() + 1);
+        document.setDisponible(true);
+        if (document.getExemplaires() != null) {
+            document.getExemplaires().add(enregistre);
+        }
+        
+        ReservationService.getInstance().remettre(document);
+        return enregistre;
+    }
+    
     /**
      * Gère les catégories (ajout, modification, suppression).
      * 
@@ -285,31 +373,11 @@ public class AdminService {
             LocalDate dateDebut = parsePeriode(periode, true);
             LocalDate dateFin = parsePeriode(periode, false);
             
-            List<Emprunt> emprunts = empruntDAO.findByPeriode(dateDebut, dateFin);
-            int totalEmprunts = emprunts.size();
-            long empruntsEnRetard = emprunts.stream()
-                .filter(Emprunt::estEnRetard)
-                .count();
-            double totalPenalites = emprunts.stream()
-                .mapToDouble(Emprunt::calculerPenalite)
-                .sum();
+            // Totaux calculés par la base : aucun emprunt n'est chargé en mémoire
+            StatistiquesDAO.StatistiquesEmprunts stats =
+                statistiquesDAO.getStatistiquesEmprunts(dateDebut, dateFin, LocalDate.now());
             
-            // Construire le contenu du rapport
-            String contenu = String.format(
-                "Rapport des Emprunts - %s\n\n" +
-                "Total d'emprunts: %d\n" +
-                "Emprunts en retard: %d\n" +
-                "Total des pénalités: %.2f €\n",
-                periode, totalEmprunts, empruntsEnRetard, totalPenalites
-            );
-            
-            Rapport rapport = new Rapport(
-                "Rapport des Emprunts",
-                "EMPRUNTS",
-                periode,
-                admin
-            );
-            rapport.setContenu(contenu);
+            Rapport rapport = construireRapportEmprunts(admin, periode, stats);
             
             // Sauvegarder le rapport
             rapportDAO.save(rapport);
@@ -334,34 +402,279 @@ public class AdminService {
         
         // Récupérer les données depuis la base
         try {
-            List<Document> documents = documentDAO.findAll();
-            int totalConsultations = documents.stream()
-                .mapToInt(Document::getNombreConsultations)
-                .sum();
-            Document documentPlusConsulte = documents.stream()
-                .max(Comparator.comparingInt(Document::getNombreConsultations))
-                .orElse(null);
+            // Somme et document le plus consulté calculés par la base
+            StatistiquesDAO.StatistiquesConsultations stats = statistiquesDAO.getStatistiquesConsultations();
+            
+            Rapport rapport = construireRapportConsultations(admin, periode, stats);
             
-            String nomDocumentPlusConsulte = documentPlusConsulte != null 
-                ? documentPlusConsulte.getTitre() 
-                : "Aucun";
+            // Sauvegarder le rapport
+            rapportDAO.save(rapport);
             
-            String contenu = String.format(
-                "Rapport des Consultations - %s\n\n" +
-                "Total de consultations: %d\n" +
-                "Document le plus consulté: %s\n" +
-                "Nombre de consultations du document le plus consulté: %d\n",
-                periode, totalConsultations, nomDocumentPlusConsulte,
-                documentPlusConsulte != null ? documentPlusConsulte.getNombreConsultations() : 0
+            return rapport;
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la génération du rapport: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Génère en une fois les rapports de plusieurs périodes (ex: clôture de fin de mois).
+     * 
+     * Les périodes sont regroupées en plages de mois consécutifs ; chaque plage est
+     * agrégée par une seule requête GROUP BY mois, et les plages sont interrogées en
+     * parallèle sur un pool de threads borné par la taille du pool de connexions.
+     * Les statistiques de consultations, qui ne dépendent pas de la période, sont
+     * calculées une seule fois. Tous les rapports sont enregistrés en un seul lot.
+     * 
+     * @param admin L'admin qui génère les rapports
+     * @param periodes Les périodes couvertes (ex: "Janvier 2025", "02/2025")
+     * @param types Les types de rapports : "EMPRUNTS" et/ou "CONSULTATIONS"
+     * @return Les rapports générés, dans l'ordre des périodes puis des types
+     */
+    public List<Rapport> genererRapports(Admin admin, List<String> periodes, List<String> types) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        if (periodes == null || periodes.isEmpty()) {
+            throw new IllegalArgumentException("Au moins une période est requise");
+        }
+        if (types == null || types.isEmpty()) {
+            throw new IllegalArgumentException("Au moins un type de rapport est requis");
+        }
+        for (String type : types) {
+            if (!"EMPRUNTS".equals(type) && !"CONSULTATIONS".equals(type)) {
+                throw new IllegalArgumentException("Type de rapport non supporté: " + type);
+            }
+        }
+        
+        boolean avecEmprunts = types.contains("EMPRUNTS");
+        boolean avecConsultations = types.contains("CONSULTATIONS");
+        
+        // Les périodes sont toujours des mois entiers (voir parsePeriode)
+        Map<String, YearMonth> moisParPeriode = new LinkedHashMap<>();
+        for (String periode : periodes) {
+            moisParPeriode.put(periode, YearMonth.from(parsePeriode(periode, true)));
+        }
+        List<List<YearMonth>> plages = avecEmprunts
+            ? decouperEnPlages(new TreeSet<>(moisParPeriode.values()))
+            : List.of();
+        
+        int nbTaches = plages.size() + (avecConsultations ? 1 : 0);
+        // Laisser des connexions libres pour le reste de l'application
+        int nbThreads = Math.max(1, Math.min(nbTaches, DatabaseConnection.getMaximumPoolSize() - 2));
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        
+        try {
+            LocalDate aujourdhui = LocalDate.now();
+            List<Future<Map<YearMonth, StatistiquesDAO.StatistiquesEmprunts>>> resultatsPlages = new ArrayList<>();
+            for (List<YearMonth> plage : plages) {
+                LocalDate debut = plage.get(0).atDay(1);
+                LocalDate fin = plage.get(plage.size() - 1).atEndOfMonth();
+                resultatsPlages.add(executor.submit(
+                    () -> statistiquesDAO.getStatistiquesEmpruntsParMois(debut, fin, aujourdhui)));
+            }
+            Future<StatistiquesDAO.StatistiquesConsultations> resultatConsultations = avecConsultations
+                ? executor.submit(statistiquesDAO::getStatistiquesConsultations)
+                : null;
+            
+            Map<YearMonth, StatistiquesDAO.StatistiquesEmprunts> empruntsParMois = new HashMap<>();
+            for (Future<Map<YearMonth, StatistiquesDAO.StatistiquesEmprunts>> resultat : resultatsPlages) {
+                empruntsParMois.putAll(resultat.get());
+            }
+            StatistiquesDAO.StatistiquesConsultations consultations =
+                resultatConsultations != null ? resultatConsultations.get() : null;
+            
+            StatistiquesDAO.StatistiquesEmprunts aucunEmprunt = new StatistiquesDAO.StatistiquesEmprunts(0, 0, 0.0);
+            List<Rapport> rapports = new ArrayList<>();
+            for (Map.Entry<String, YearMonth> entry : moisParPeriode.entrySet()) {
+                for (String type : types) {
+                    if ("EMPRUNTS".equals(type)) {
+                        rapports.add(construireRapportEmprunts(admin, entry.getKey(),
+                            empruntsParMois.getOrDefault(entry.getValue(), aucunEmprunt)));
+                    } else {
+                        rapports.add(construireRapportConsultations(admin, entry.getKey(), consultations));
+                    }
+                }
+            }
+            
+            if (rapportDAO.saveAll(rapports) != rapports.size()) {
+                throw new IllegalStateException("Échec de la sauvegarde des rapports");
+            }
+            return rapports;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Génération des rapports interrompue", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Erreur lors de la génération des rapports: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Découpe des mois triés en plages de mois consécutifs, chaque plage étant
+     * interrogée par une requête. Les longues plages sont coupées pour occuper
+     * plusieurs connexions.
+     */
+    private List<List<YearMonth>> decouperEnPlages(TreeSet<YearMonth> mois) {
+        int tailleMax = Math.max(1, (int) Math.ceil(
+            (double) mois.size() / Math.max(1, DatabaseConnection.getMaximumPoolSize() - 2)));
+        
+        List<List<YearMonth>> plages = new ArrayList<>();
+        List<YearMonth> courante = new ArrayList<>();
+        for (YearMonth m : mois) {
+            boolean consecutif = !courante.isEmpty() && courante.get(courante.size() - 1).plusMonths(1).equals(m);
+            if (!courante.isEmpty() && (!consecutif || courante.size() >= tailleMax)) {
+                plages.add(courante);
+                courante = new ArrayList<>();
+            }
+            courante.add(m);
+        }
+        if (!courante.isEmpty()) {
+            plages.add(courante);
+        }
+        return plages;
+    }
+    
+    /**
+     * Construit (sans l'enregistrer) le rapport des emprunts d'une période.
+     */
+    private Rapport construireRapportEmprunts(Admin admin, String periode, StatistiquesDAO.StatistiquesEmprunts stats) {
+        String contenu = String.format(
+            "Rapport des Emprunts - %s\n\n" +
+            "Total d'emprunts: %d\n" +
+            "Emprunts en retard: %d\n" +
+            "Total des pénalités: %.2f €\n",
+            periode, stats.totalEmprunts(), stats.empruntsEnRetard(), stats.totalPenalites()
+        );
+        
+        Rapport rapport = new Rapport(
+            "Rapport des Emprunts",
+            "EMPRUNTS",
+            periode,
+            admin
+        );
+        rapport.setContenu(contenu);
+        return rapport;
+    }
+    
+    /**
+     * Construit (sans l'enregistrer) le rapport des consultations d'une période.
+     */
+    private Rapport construireRapportConsultations(Admin admin, String periode,
+                                                   StatistiquesDAO.StatistiquesConsultations stats) {
+        String nomDocumentPlusConsulte = stats.titreDocumentPlusConsulte() != null 
+            ? stats.titreDocumentPlusConsulte() 
+            : "Aucun";
+        
+        String contenu = String.format(
+            "Rapport des Consultations - %s\n\n" +
+            "Total de consultations: %d\n" +
+            "Document le plus consulté: %s\n" +
+            "Nombre de consultations du document le plus consulté: %d\n",
+            periode, stats.totalConsultations(), nomDocumentPlusConsulte,
+            stats.consultationsDocumentPlusConsulte()
+        );
+        
+        Rapport rapport = new Rapport(
+            "Rapport des Consultations",
+            "CONSULTATIONS",
+            periode,
+            admin
+        );
+        rapport.setContenu(contenu);
+        return rapport;
+    }
+    
+    /**
+     * Génère un rapport sur les lecteurs distincts (total et par catégorie).
+     * Les valeurs sont des estimations HyperLogLog (erreur type ~2 %).
+     * 
+     * @param admin L'admin qui génère le rapport
+     * @param periode La période couverte (ex: "Janvier 2025")
+     * @return Le rapport généré
+     */
+    public Rapport genererRapportLecteurs(Admin admin, String periode) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        try {
+            LocalDate dateDebut = parsePeriode(periode, true);
+            LocalDate dateFin = parsePeriode(periode, false);
+            
+            LecteursService lecteursService = LecteursService.getInstance();
+            long totalLecteurs = lecteursService.getLecteursDistinctsTotal(dateDebut, dateFin);
+            Map<Integer, Long> lecteursParCategorie = lecteursService.getLecteursDistinctsParCategorie(dateDebut, dateFin);
+            
+            StringBuilder contenu = new StringBuilder();
+            contenu.append(String.format(
+                "Rapport des Lecteurs - %s\n\n" +
+                "Lecteurs distincts (estimation): %d\n\n" +
+                "Lecteurs distincts par catégorie:\n",
+                periode, totalLecteurs
+            ));
+            
+            categorieDAO.findAll().stream()
+                .filter(c -> lecteursParCategorie.containsKey(c.getId()))
+                .sorted(Comparator.comparingLong((Categorie c) -> lecteursParCategorie.get(c.getId())).reversed())
+                .forEach(c -> contenu.append(String.format(
+                    "  - %s: %d\n", c.getNom(), lecteursParCategorie.get(c.getId())
+                )));
+            
+            Rapport rapport = new Rapport(
+                "Rapport des Lecteurs",
+                "LECTEURS",
+                periode,
+                admin
             );
+            rapport.setContenu(contenu.toString());
+            
+            // Sauvegarder le rapport
+            rapportDAO.save(rapport);
+            
+            return rapport;
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la génération du rapport: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Génère un rapport sur la durée des emprunts et les jours de retard
+     * (médiane et 90e centile), par type d'utilisateur et par genre.
+     * Les valeurs sont estimées par fusion des sketches journaliers.
+     * 
+     * @param admin L'admin qui génère le rapport
+     * @param periode La période couverte (ex: "Janvier 2025")
+     * @return Le rapport généré
+     */
+    public Rapport genererRapportQuantiles(Admin admin, String periode) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        try {
+            LocalDate dateDebut = parsePeriode(periode, true);
+            LocalDate dateFin = parsePeriode(periode, false);
+            
+            QuantilesService quantilesService = QuantilesService.getInstance();
+            StringBuilder contenu = new StringBuilder();
+            contenu.append(String.format("Rapport des Durées et Retards - %s\n", periode));
+            ajouterSectionQuantiles(contenu, "Durée des emprunts (jours) par type d'utilisateur",
+                quantilesService.getDureesParTypeUtilisateur(dateDebut, dateFin));
+            ajouterSectionQuantiles(contenu, "Durée des emprunts (jours) par genre",
+                quantilesService.getDureesParGenre(dateDebut, dateFin));
+            ajouterSectionQuantiles(contenu, "Jours de retard par type d'utilisateur",
+                quantilesService.getRetardsParTypeUtilisateur(dateDebut, dateFin));
+            ajouterSectionQuantiles(contenu, "Jours de retard par genre",
+                quantilesService.getRetardsParGenre(dateDebut, dateFin));
             
             Rapport rapport = new Rapport(
-                "Rapport des Consultations",
-                "CONSULTATIONS",
+                "Rapport des Durées et Retards",
+                "QUANTILES",
                 periode,
                 admin
             );
-            rapport.setContenu(contenu);
+            rapport.setContenu(contenu.toString());
             
             // Sauvegarder le rapport
             rapportDAO.save(rapport);
@@ -372,6 +685,146 @@ public class AdminService {
         }
     }
     
+    private void ajouterSectionQuantiles(StringBuilder contenu, String titre,
+                                         Map<String, QuantilesService.Resume> resumes) {
+        contenu.append("\n").append(titre).append(":\n");
+        if (resumes.isEmpty()) {
+            contenu.append("  (aucun retour sur la période)\n");
+            return;
+        }
+        resumes.forEach((valeur, resume) -> contenu.append(String.format(
+            "  - %s: %d retours, médiane %.0f, p90 %.0f, max %.0f\n",
+            valeur, resume.nombre(), resume.mediane(), resume.p90(), resume.maximum()
+        )));
+    }
+    
+    /**
+     * Estime le nombre de lecteurs distincts d'un document sur une période
+     * (assez rapide pour un tableau de bord en direct).
+     * 
+     * @param admin L'admin qui consulte
+     * @param idDocument L'identifiant du document
+     * @param periode La période couverte (ex: "Janvier 2025")
+     * @return Le nombre estimé de lecteurs distincts
+     */
+    public long getLecteursDistinctsDocument(Admin admin, int idDocument, String periode) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        return LecteursService.getInstance().getLecteursDistinctsDocument(
+            idDocument, parsePeriode(periode, true), parsePeriode(periode, false)
+        );
+    }
+    
+    /**
+     * Exporte une table (emprunts, paiements, catalogue ou rapports) dans un fichier CSV
+     * ou JSON Lines, éventuellement compressé. L'export est fait au fil de l'eau,
+     * sans charger la table en mémoire.
+     * 
+     * @param admin L'admin qui exporte
+     * @param table La table à exporter
+     * @param fichier Le fichier de destination (écrasé s'il existe)
+     * @param format CSV ou JSONL
+     * @param gzip true pour compresser le fichier
+     * @return Le nombre de lignes exportées
+     */
+    public long exporterDonnees(Admin admin, ExportDAO.TableExport table, Path fichier,
+                                ResultSetExporter.Format format, boolean gzip) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        if (table == null || fichier == null || format == null) {
+            throw new IllegalArgumentException("Table, fichier et format ne peuvent pas être null");
+        }
+        
+        long lignes = exportDAO.exporter(table, fichier, format, gzip);
+        if (lignes < 0) {
+            throw new RuntimeException("Erreur lors de l'export de la table " + table);
+        }
+        return lignes;
+    }
+    
+    /**
+     * Annonce un document à tous les utilisateurs actifs, en arrière-plan.
+     * 
+     * @param admin L'admin qui effectue l'action
+     * @param document Le document à annoncer
+     * @param progression Suivi de l'avancement (peut être null)
+     * @return Le nombre d'utilisateurs notifiés, une fois la diffusion terminée
+     */
+    public CompletableFuture<Integer> annoncerDocument(Admin admin, Document document,
+                                                       NotificationDAO.Progression progression) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        if (document == null) {
+            throw new IllegalArgumentException("Document ne peut pas être null");
+        }
+        
+        List<Utilisateur> utilisateurs = utilisateurDAO.findAllActifs();
+        return new NotificationService().diffuserNouveauDocument(document, utilisateurs, progression);
+    }
+    
+    /**
+     * Analyse ad hoc des emprunts sur l'instantané en mémoire (sans requête sur la base).
+     * 
+     * @param admin L'admin qui consulte
+     * @param dimension La dimension de groupement (genre, catégorie, type d'utilisateur, état, mois)
+     * @param mesure La mesure calculée pour chaque groupe
+     * @param filtre Les critères de sélection (null pour tous les emprunts)
+     * @return Map groupe → valeur
+     */
+    public Map<String, Double> analyserEmprunts(Admin admin, AnalyseService.Dimension dimension,
+                                                AnalyseService.Mesure mesure, AnalyseService.Filtre filtre) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        if (dimension == null) {
+            throw new IllegalArgumentException("Dimension ne peut pas être null");
+        }
+        
+        return AnalyseService.getInstance().grouper(dimension, mesure, filtre);
+    }
+    
+    /**
+     * Analyse ad hoc des emprunts selon deux dimensions (ex: genre × mois).
+     * 
+     * @param admin L'admin qui consulte
+     * @param ligne La première dimension
+     * @param colonne La seconde dimension
+     * @param mesure La mesure calculée pour chaque groupe
+     * @param filtre Les critères de sélection (null pour tous les emprunts)
+     * @return Map ligne → (colonne → valeur)
+     */
+    public Map<String, Map<String, Double>> analyserEmprunts(Admin admin, AnalyseService.Dimension ligne,
+                                                             AnalyseService.Dimension colonne,
+                                                             AnalyseService.Mesure mesure,
+                                                             AnalyseService.Filtre filtre) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        if (ligne == null || colonne == null) {
+            throw new IllegalArgumentException("Les dimensions ne peuvent pas être null");
+        }
+        
+        return AnalyseService.getInstance().grouper(ligne, colonne, mesure, filtre);
+    }
+    
+    /**
+     * Recharge l'instantané d'analyse des emprunts depuis la base.
+     * 
+     * @param admin L'admin qui demande le rechargement
+     * @return Le nombre d'emprunts chargés
+     */
+    public int rafraichirAnalyse(Admin admin) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        return AnalyseService.getInstance().rafraichir().getNombreLignes();
+    }
+    
     /**
      * Suit l'activité des utilisateurs.
      * 
@@ -405,15 +858,76 @@ public class AdminService {
         // Récupérer les emprunts avec pénalités
         try {
             List<Emprunt> empruntsEnRetard = empruntDAO.findEnRetard();
-            // Filtrer ceux qui ont une pénalité > 0
+            // Pénalités tenues à jour chaque nuit par RetardService
             return empruntsEnRetard.stream()
-                .filter(e -> e.calculerPenalite() > 0)
+                .filter(e -> e.getPenalite() > 0)
                 .toList();
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la récupération des pénalités: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Lance le traitement des retards du jour (marquage EN_RETARD et calcul des pénalités).
+     * Normalement exécuté chaque nuit ; utile pour rattraper une journée ou après une correction.
+     * 
+     * @param admin L'admin qui lance le traitement
+     * @param forcer true pour relancer un jour déjà traité
+     * @return Le bilan du traitement
+     */
+    public TraitementRetardsDAO.BilanTraitement traiterRetards(Admin admin, boolean forcer) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        return RetardService.getInstance().executer(forcer);
+    }
+    
+    /**
+     * Lance une purge des notifications dont la durée de conservation est dépassée.
+     * Normalement exécutée chaque nuit.
+     * 
+     * @param admin L'admin qui lance la purge
+     * @return Le nombre de notifications supprimées
+     */
+    public long purgerNotifications(Admin admin) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        return PurgeNotificationsService.getInstance().purger();
+    }
+    
+    /**
+     * Modifie la durée de conservation des notifications d'un type.
+     * 
+     * @param admin L'admin qui effectue l'action
+     * @param type Le type (RAPPEL, ALERTE, INFO)
+     * @param priorite La priorité (HAUTE, MOYENNE, BASSE), ou null pour toutes
+     * @param jours Le nombre de jours de conservation
+     */
+    public void definirRetentionNotifications(Admin admin, String type, String priorite, int jours) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        PurgeNotificationsService.getInstance().definirRetention(type, priorite, jours);
+    }
+    
+    /**
+     * Retourne l'avancement de la purge des notifications en cours, ou le bilan de la dernière.
+     * 
+     * @param admin L'admin qui consulte
+     * @return Les métriques de purge
+     */
+    public PurgeNotificationsService.MetriquesPurge getMetriquesPurgeNotifications(Admin admin) {
+        if (admin == null) {
+            throw new IllegalArgumentException("Admin ne peut pas être null");
+        }
+        
+        return PurgeNotificationsService.getInstance().getMetriques();
+    }
+    
     /**
      * Valide le retour d'un document emprunté.
      * 
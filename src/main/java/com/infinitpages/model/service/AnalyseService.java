@@ -0,0 +1,552 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.AnalyseDAO;
+import com.infinitpages.model.dao.AnalyseDAO.LigneEmprunt;
+import com.infinitpages.model.dao.impl.AnalyseDAOImpl;
+import com.infinitpages.util.columnar.ParallelScan;
+import com.infinitpages.util.columnar.StringDictionary;
+import com.infinitpages.util.constants.Genre;
+import com.infinitpages.util.constants.TypeUtilisateur;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service d'analyse ad hoc des emprunts sur un instantané en mémoire.
+ *
+ * Les emprunts, joints au genre et à la catégorie du document et au type de
+ * l'emprunteur, sont chargés en une passe dans des tableaux primitifs (une
+ * colonne par attribut, les énumérations encodées par dictionnaire). Les
+ * questions des admins (emprunts par genre et par mois, pénalités par type
+ * d'utilisateur...) deviennent des parcours parallèles de ces tableaux,
+ * sans nouvelle requête SQL ni charge sur la base transactionnelle.
+ *
+ * L'instantané est rechargé à la demande lorsqu'il a plus d'une heure.
+ */
+public class AnalyseService {
+
+    private static final Duration DUREE_VALIDITE = Duration.ofHours(1);
+    private static final String SANS_CATEGORIE = "Sans catégorie";
+    private static final int JOUR_ABSENT = Integer.MIN_VALUE;
+
+    private static AnalyseService instance;
+
+    private final AnalyseDAO analyseDAO;
+    private final Clock horloge;
+    private volatile Instantane instantane;
+
+    /**
+     * Attributs selon lesquels les emprunts peuvent être groupés.
+     */
+    public enum Dimension {
+        GENRE,
+        CATEGORIE,
+        TYPE_UTILISATEUR,
+        ETAT,
+        MOIS
+    }
+
+    /**
+     * Valeurs calculées pour chaque groupe.
+     */
+    public enum Mesure {
+        /** Nombre d'emprunts */
+        NOMBRE,
+        /** Somme des pénalités */
+        PENALITES,
+        /** Somme des montants payés */
+        MONTANT_PAYE,
+        /** Durée moyenne des emprunts rendus (jours) */
+        DUREE_MOYENNE,
+        /** Jours de retard moyens (emprunts non rendus comptés jusqu'à la date de l'instantané) */
+        RETARD_MOYEN
+    }
+
+    /**
+     * Critères de sélection des emprunts. Les critères non renseignés ne filtrent pas.
+     */
+    public static final class Filtre {
+
+        private LocalDate debut;
+        private LocalDate fin;
+        private Genre genre;
+        private TypeUtilisateur typeUtilisateur;
+        private String categorie;
+        private String etat;
+        private boolean enRetardSeulement;
+
+        /**
+         * @return Un filtre qui sélectionne tous les emprunts
+         */
+        public static Filtre tous() {
+            return new Filtre();
+        }
+
+        /**
+         * Emprunts commencés entre deux dates (incluses).
+         */
+        public Filtre periode(LocalDate debut, LocalDate fin) {
+            this.debut = debut;
+            this.fin = fin;
+            return this;
+        }
+
+        public Filtre genre(Genre genre) {
+            this.genre = genre;
+            return this;
+        }
+
+        public Filtre typeUtilisateur(TypeUtilisateur typeUtilisateur) {
+            this.typeUtilisateur = typeUtilisateur;
+            return this;
+        }
+
+        /**
+         * @param categorie Le nom de la catégorie
+         */
+        public Filtre categorie(String categorie) {
+            this.categorie = categorie;
+            return this;
+        }
+
+        /**
+         * @param etat EN_COURS, RETOURNE ou EN_RETARD
+         */
+        public Filtre etat(String etat) {
+            this.etat = etat;
+            return this;
+        }
+
+        /**
+         * Emprunts ayant au moins un jour de retard.
+         */
+        public Filtre enRetard() {
+            this.enRetardSeulement = true;
+            return this;
+        }
+    }
+
+    /**
+     * Instantané en colonnes des emprunts. Immuable une fois chargé.
+     */
+    public static final class Instantane {
+
+        private final int lignes;
+        private final LocalDate dateReference;
+        private final Instant dateChargement;
+        private final long dureeChargementMs;
+
+        // Dates en jours depuis l'époque (JOUR_ABSENT si non rendu)
+        private final int[] jourEmprunt;
+        private final int[] jourRetourPrevu;
+        private final int[] jourRetourEffectif;
+        private final int[] mois;
+        private final double[] penalite;
+        private final double[] montantPaye;
+        private final byte[] genre;
+        private final byte[] typeUtilisateur;
+        private final byte[] etat;
+        private final int[] categorie;
+
+        private final StringDictionary genres;
+        private final StringDictionary types;
+        private final StringDictionary etats;
+        private final StringDictionary categories;
+        private final int moisMin;
+        private final int nombreMois;
+
+        private Instantane(Chargeur chargeur, LocalDate dateReference, Instant dateChargement, long dureeChargementMs) {
+            int n = chargeur.lignes;
+            this.lignes = n;
+            this.dateReference = dateReference;
+            this.dateChargement = dateChargement;
+            this.dureeChargementMs = dureeChargementMs;
+            this.jourEmprunt = Arrays.copyOf(chargeur.jourEmprunt, n);
+            this.jourRetourPrevu = Arrays.copyOf(chargeur.jourRetourPrevu, n);
+            this.jourRetourEffectif = Arrays.copyOf(chargeur.jourRetourEffectif, n);
+            this.mois = Arrays.copyOf(chargeur.mois, n);
+            this.penalite = Arrays.copyOf(chargeur.penalite, n);
+            this.montantPaye = Arrays.copyOf(chargeur.montantPaye, n);
+            this.genre = Arrays.copyOf(chargeur.genre, n);
+            this.typeUtilisateur = Arrays.copyOf(chargeur.typeUtilisateur, n);
+            this.etat = Arrays.copyOf(chargeur.etat, n);
+            this.categorie = Arrays.copyOf(chargeur.categorie, n);
+            this.genres = chargeur.genres;
+            this.types = chargeur.types;
+            this.etats = chargeur.etats;
+            this.categories = chargeur.categories;
+            this.moisMin = n == 0 ? 0 : chargeur.moisMin;
+            this.nombreMois = n == 0 ? 0 : chargeur.moisMax - chargeur.moisMin + 1;
+        }
+
+        public int getNombreLignes() {
+            return lignes;
+        }
+
+        public LocalDate getDateReference() {
+            return dateReference;
+        }
+
+        public Instant getDateChargement() {
+            return dateChargement;
+        }
+
+        public long getDureeChargementMs() {
+            return dureeChargementMs;
+        }
+
+        private int cardinalite(Dimension dimension) {
+            switch (dimension) {
+                case GENRE:
+                    return genres.size();
+                case CATEGORIE:
+                    return categories.size();
+                case TYPE_UTILISATEUR:
+                    return types.size();
+                case ETAT:
+                    return etats.size();
+                case MOIS:
+                    return nombreMois;
+                default:
+                    throw new IllegalArgumentException("Dimension inconnue: " + dimension);
+            }
+        }
+
+        private int code(Dimension dimension, int ligne) {
+            switch (dimension) {
+                case GENRE:
+                    return genre[ligne];
+                case CATEGORIE:
+                    return categorie[ligne];
+                case TYPE_UTILISATEUR:
+                    return typeUtilisateur[ligne];
+                case ETAT:
+                    return etat[ligne];
+                case MOIS:
+                    return mois[ligne] - moisMin;
+                default:
+                    throw new IllegalArgumentException("Dimension inconnue: " + dimension);
+            }
+        }
+
+        private String libelle(Dimension dimension, int code) {
+            switch (dimension) {
+                case GENRE:
+                    return genres.decode(code);
+                case CATEGORIE:
+                    return categories.decode(code);
+                case TYPE_UTILISATEUR:
+                    return types.decode(code);
+                case ETAT:
+                    return etats.decode(code);
+                case MOIS:
+                    int m = moisMin + code;
+                    return YearMonth.of(m / 12, m % 12 + 1).toString();
+                default:
+                    throw new IllegalArgumentException("Dimension inconnue: " + dimension);
+            }
+        }
+
+        private int joursRetard(int ligne, int jourReference) {
+            int retour = jourRetourEffectif[ligne] != JOUR_ABSENT ? jourRetourEffectif[ligne] : jourReference;
+            return Math.max(0, retour - jourRetourPrevu[ligne]);
+        }
+    }
+
+    /**
+     * Filtre traduit en codes de l'instantané, évalué dans la boucle de parcours.
+     */
+    private static final class FiltreCompile {
+
+        final int jourMin;
+        final int jourMax;
+        final int genre;
+        final int typeUtilisateur;
+        final int categorie;
+        final int etat;
+        final boolean enRetardSeulement;
+        final boolean vide;
+
+        FiltreCompile(Filtre filtre, Instantane s) {
+            this.jourMin = filtre.debut != null ? (int) filtre.debut.toEpochDay() : Integer.MIN_VALUE;
+            this.jourMax = filtre.fin != null ? (int) filtre.fin.toEpochDay() : Integer.MAX_VALUE;
+            this.genre = filtre.genre != null ? s.genres.codeOf(filtre.genre.name()) : -1;
+            this.typeUtilisateur = filtre.typeUtilisateur != null ? s.types.codeOf(filtre.typeUtilisateur.name()) : -1;
+            this.categorie = filtre.categorie != null ? s.categories.codeOf(filtre.categorie) : -1;
+            this.etat = filtre.etat != null ? s.etats.codeOf(filtre.etat) : -1;
+            this.enRetardSeulement = filtre.enRetardSeulement;
+            // Une valeur demandée mais absente de l'instantané ne peut rien sélectionner
+            this.vide = (filtre.genre != null && genre == StringDictionary.ABSENT)
+                || (filtre.typeUtilisateur != null && typeUtilisateur == StringDictionary.ABSENT)
+                || (filtre.categorie != null && categorie == StringDictionary.ABSENT)
+                || (filtre.etat != null && etat == StringDictionary.ABSENT)
+                || jourMax < jourMin;
+        }
+
+        boolean accepte(Instantane s, int i, int jourReference) {
+            int jour = s.jourEmprunt[i];
+            return jour >= jourMin && jour <= jourMax
+                && (genre < 0 || s.genre[i] == genre)
+                && (typeUtilisateur < 0 || s.typeUtilisateur[i] == typeUtilisateur)
+                && (categorie < 0 || s.categorie[i] == categorie)
+                && (etat < 0 || s.etat[i] == etat)
+                && (!enRetardSeulement || s.joursRetard(i, jourReference) > 0);
+        }
+    }
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized AnalyseService getInstance() {
+        if (instance == null) {
+            instance = new AnalyseService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public AnalyseService() {
+        this(new AnalyseDAOImpl(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection du DAO et de l'horloge (pour les tests).
+     *
+     * @param analyseDAO Le DAO Analyse à utiliser
+     * @param horloge L'horloge donnant la date de référence
+     */
+    public AnalyseService(AnalyseDAO analyseDAO, Clock horloge) {
+        this.analyseDAO = analyseDAO;
+        this.horloge = horloge;
+    }
+
+    /**
+     * Recharge l'instantané depuis la base (une requête en streaming).
+     *
+     * @return Le nouvel instantané
+     */
+    public synchronized Instantane rafraichir() {
+        long debut = System.currentTimeMillis();
+        Chargeur chargeur = new Chargeur();
+        if (analyseDAO.parcourirEmprunts(chargeur) < 0) {
+            throw new RuntimeException("Erreur lors du chargement de l'instantané d'analyse");
+        }
+        instantane = new Instantane(chargeur, LocalDate.now(horloge), horloge.instant(),
+            System.currentTimeMillis() - debut);
+        return instantane;
+    }
+
+    /**
+     * Retourne l'instantané courant, rechargé s'il est absent ou trop ancien.
+     *
+     * @return L'instantané des emprunts
+     */
+    public Instantane getInstantane() {
+        Instantane courant = instantane;
+        if (courant == null || courant.dateChargement.plus(DUREE_VALIDITE).isBefore(horloge.instant())) {
+            synchronized (this) {
+                courant = instantane;
+                if (courant == null || courant.dateChargement.plus(DUREE_VALIDITE).isBefore(horloge.instant())) {
+                    courant = rafraichir();
+                }
+            }
+        }
+        return courant;
+    }
+
+    /**
+     * Calcule une mesure sur les emprunts sélectionnés, sans groupement.
+     *
+     * @param mesure La mesure
+     * @param filtre Les critères de sélection
+     * @return La valeur (0 si aucun emprunt sélectionné)
+     */
+    public double agreger(Mesure mesure, Filtre filtre) {
+        Instantane s = getInstantane();
+        ParallelScan.Aggregate resultat = parcourir(s, mesure, filtre, 1, (i) -> 0);
+        return valeur(mesure, resultat, 0);
+    }
+
+    /**
+     * Groupe les emprunts sélectionnés selon une dimension.
+     *
+     * @param dimension La dimension de groupement
+     * @param mesure La mesure calculée pour chaque groupe
+     * @param filtre Les critères de sélection
+     * @return Map libellé du groupe → valeur (groupes vides absents), triée par libellé
+     */
+    public Map<String, Double> grouper(Dimension dimension, Mesure mesure, Filtre filtre) {
+        Instantane s = getInstantane();
+        int groupes = s.cardinalite(dimension);
+        ParallelScan.Aggregate resultat = parcourir(s, mesure, filtre, groupes, i -> s.code(dimension, i));
+
+        Map<String, Double> valeurs = new TreeMap<>();
+        for (int g = 0; g < groupes; g++) {
+            if (resultat.count(g) > 0) {
+                valeurs.put(s.libelle(dimension, g), valeur(mesure, resultat, g));
+            }
+        }
+        return valeurs;
+    }
+
+    /**
+     * Groupe les emprunts sélectionnés selon deux dimensions (ex: genre × mois).
+     *
+     * @param ligne La première dimension
+     * @param colonne La seconde dimension
+     * @param mesure La mesure calculée pour chaque groupe
+     * @param filtre Les critères de sélection
+     * @return Map libellé ligne → (libellé colonne → valeur), groupes vides absents
+     */
+    public Map<String, Map<String, Double>> grouper(Dimension ligne, Dimension colonne, Mesure mesure, Filtre filtre) {
+        Instantane s = getInstantane();
+        int lignes = s.cardinalite(ligne);
+        int colonnes = s.cardinalite(colonne);
+        ParallelScan.Aggregate resultat = parcourir(s, mesure, filtre, lignes * colonnes,
+            i -> s.code(ligne, i) * colonnes + s.code(colonne, i));
+
+        Map<String, Map<String, Double>> valeurs = new TreeMap<>();
+        for (int l = 0; l < lignes; l++) {
+            for (int c = 0; c < colonnes; c++) {
+                int g = l * colonnes + c;
+                if (resultat.count(g) > 0) {
+                    valeurs.computeIfAbsent(s.libelle(ligne, l), k -> new TreeMap<>())
+                        .put(s.libelle(colonne, c), valeur(mesure, resultat, g));
+                }
+            }
+        }
+        return valeurs;
+    }
+
+    @FunctionalInterface
+    private interface CodeGroupe {
+        int code(int ligne);
+    }
+
+    private ParallelScan.Aggregate parcourir(Instantane s, Mesure mesure, Filtre filtre, int groupes, CodeGroupe codeGroupe) {
+        if (mesure == null) {
+            throw new IllegalArgumentException("Mesure ne peut pas être null");
+        }
+        FiltreCompile f = new FiltreCompile(filtre != null ? filtre : Filtre.tous(), s);
+        if (f.vide) {
+            return ParallelScan.groupBy(0, groupes, (from, to, counts, sums) -> { });
+        }
+        int jourReference = (int) s.dateReference.toEpochDay();
+
+        return ParallelScan.groupBy(s.lignes, groupes, (from, to, counts, sums) -> {
+            for (int i = from; i < to; i++) {
+                if (!f.accepte(s, i, jourReference)) {
+                    continue;
+                }
+                double v;
+                switch (mesure) {
+                    case PENALITES:
+                        v = s.penalite[i];
+                        break;
+                    case MONTANT_PAYE:
+                        v = s.montantPaye[i];
+                        break;
+                    case DUREE_MOYENNE:
+                        if (s.jourRetourEffectif[i] == JOUR_ABSENT) {
+                            continue;
+                        }
+                        v = s.jourRetourEffectif[i] - s.jourEmprunt[i];
+                        break;
+                    case RETARD_MOYEN:
+                        v = s.joursRetard(i, jourReference);
+                        break;
+                    default:
+                        v = 1;
+                }
+                int g = codeGroupe.code(i);
+                counts[g]++;
+                sums[g] += v;
+            }
+        });
+    }
+
+    private static double valeur(Mesure mesure, ParallelScan.Aggregate resultat, int groupe) {
+        switch (mesure) {
+            case NOMBRE:
+                return resultat.count(groupe);
+            case DUREE_MOYENNE:
+            case RETARD_MOYEN:
+                return resultat.count(groupe) == 0 ? 0.0 : resultat.sum(groupe) / resultat.count(groupe);
+            default:
+                return resultat.sum(groupe);
+        }
+    }
+
+    /**
+     * Accumule les lignes lues en colonnes (tableaux agrandis par doublement).
+     */
+    private static final class Chargeur implements AnalyseDAO.LigneVisiteur {
+
+        private int lignes;
+        private int[] jourEmprunt = new int[1024];
+        private int[] jourRetourPrevu = new int[1024];
+        private int[] jourRetourEffectif = new int[1024];
+        private int[] mois = new int[1024];
+        private double[] penalite = new double[1024];
+        private double[] montantPaye = new double[1024];
+        private byte[] genre = new byte[1024];
+        private byte[] typeUtilisateur = new byte[1024];
+        private byte[] etat = new byte[1024];
+        private int[] categorie = new int[1024];
+
+        private final StringDictionary genres = new StringDictionary();
+        private final StringDictionary types = new StringDictionary();
+        private final StringDictionary etats = new StringDictionary();
+        private final StringDictionary categories = new StringDictionary();
+        private int moisMin = Integer.MAX_VALUE;
+        private int moisMax = Integer.MIN_VALUE;
+
+        @Override
+        public void visiter(LigneEmprunt ligne) {
+            if (ligne.dateEmprunt() == null || ligne.dateRetour() == null) {
+                return;
+            }
+            if (lignes == jourEmprunt.length) {
+                agrandir(lignes * 2);
+            }
+
+            int i = lignes++;
+            jourEmprunt[i] = (int) ligne.dateEmprunt().toEpochDay();
+            jourRetourPrevu[i] = (int) ligne.dateRetour().toEpochDay();
+            jourRetourEffectif[i] = ligne.dateRetourEffective() != null
+                ? (int) ligne.dateRetourEffective().toEpochDay() : JOUR_ABSENT;
+            mois[i] = ligne.dateEmprunt().getYear() * 12 + ligne.dateEmprunt().getMonthValue() - 1;
+            moisMin = Math.min(moisMin, mois[i]);
+            moisMax = Math.max(moisMax, mois[i]);
+            penalite[i] = ligne.penalite();
+            montantPaye[i] = ligne.montantPaye();
+            genre[i] = (byte) genres.encode(ligne.genre());
+            typeUtilisateur[i] = (byte) types.encode(ligne.typeUtilisateur());
+            etat[i] = (byte) etats.encode(ligne.etat());
+            categorie[i] = categories.encode(ligne.categorie() != null ? ligne.categorie() : SANS_CATEGORIE);
+        }
+
+        private void agrandir(int capacite) {
+            jourEmprunt = Arrays.copyOf(jourEmprunt, capacite);
+            jourRetourPrevu = Arrays.copyOf(jourRetourPrevu, capacite);
+            jourRetourEffectif = Arrays.copyOf(jourRetourEffectif, capacite);
+            mois = Arrays.copyOf(mois, capacite);
+            penalite = Arrays.copyOf(penalite, capacite);
+            montantPaye = Arrays.copyOf(montantPaye, capacite);
+            genre = Arrays.copyOf(genre, capacite);
+            typeUtilisateur = Arrays.copyOf(typeUtilisateur, capacite);
+            etat = Arrays.copyOf(etat, capacite);
+            categorie = Arrays.copyOf(categorie, capacite);
+        }
+    }
+}
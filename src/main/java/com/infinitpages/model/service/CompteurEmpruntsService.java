@@ -0,0 +1,151 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.EmpruntDAO;
+import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
+import com.infinitpages.util.cache.IntCounterCache;
+
+/**
+ * Compteurs en mémoire des emprunts actifs, par utilisateur.
+ *
+ * Chaque emprunt vérifie la limite de l'utilisateur : au lieu d'un
+ * SELECT COUNT(*) préalable, le compteur est chargé à la première
+ * consultation puis tenu à jour par LoanService (emprunt, retour). Un
+ * utilisateur sous sa limite passe sans accès à la base.
+ *
+ * Le compteur ne sert qu'à laisser passer : d'autres postes empruntent et
+ * reçoivent des retours avec leurs propres compteurs. Un compteur qui annonce
+ * la limite atteinte est rechargé avant de refuser, et la transaction
+ * d'emprunt revérifie la limite sur la colonne utilisateur.emprunts_actifs.
+ * Les écarts restants sont corrigés toutes les 5 minutes par requêtes groupées.
+ */
+public class CompteurEmpruntsService {
+
+    private static final long PERIODE_RECONCILIATION_MIN = 5;
+    private static final int TAILLE_LOT_RECONCILIATION = 500;
+
+    private static CompteurEmpruntsService instance;
+
+    // id utilisateur -> nombre d'emprunts actifs
+    private final IntCounterCache compteurs;
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized CompteurEmpruntsService getInstance() {
+        if (instance == null) {
+            instance = new CompteurEmpruntsService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public CompteurEmpruntsService() {
+        this(new EmpruntDAOImpl());
+    }
+
+    /**
+     * Constructeur avec injection du DAO (pour les tests).
+     *
+     * @param empruntDAO Le DAO Emprunt à utiliser
+     */
+    public CompteurEmpruntsService(EmpruntDAO empruntDAO) {
+        this.compteurs = new IntCounterCache("emprunts-compteurs",
+            empruntDAO::countEmpruntsActifs, empruntDAO::countActifsParUtilisateur,
+            PERIODE_RECONCILIATION_MIN, TAILLE_LOT_RECONCILIATION);
+    }
+
+    /**
+     * Planifie la réconciliation périodique des compteurs avec la base.
+     */
+    public void demarrer() {
+        compteurs.start();
+    }
+
+    /**
+     * Arrête la réconciliation périodique.
+     */
+    public void arreter() {
+        compteurs.stop();
+    }
+
+    /**
+     * Retourne le nombre d'emprunts actifs d'un utilisateur.
+     * Le compteur est chargé depuis la base à la première consultation.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @return Le nombre d'emprunts actifs
+     */
+    public int getNombreActifs(int idUtilisateur) {
+        return compteurs.get(idUtilisateur);
+    }
+
+    /**
+     * Indique si un utilisateur est sous sa limite d'emprunts. Un compteur qui annonce
+     * la limite atteinte est rechargé depuis la base avant de répondre non : un retour
+     * a pu être enregistré à un autre poste.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @param limite Le nombre maximal d'emprunts actifs
+     * @return true si l'utilisateur peut encore emprunter
+     */
+    public boolean peutEmprunter(int idUtilisateur, int limite) {
+        if (compteurs.get(idUtilisateur) < limite) {
+            return true;
+        }
+
+        compteurs.invalidate(idUtilisateur);
+        return compteurs.get(idUtilisateur) < limite;
+    }
+
+    /**
+     * Compte de nouveaux emprunts (sans effet si le compteur n'est pas chargé).
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @param nombre Le nombre d'emprunts enregistrés
+     */
+    public void ajouter(int idUtilisateur, int nombre) {
+        compteurs.add(idUtilisateur, nombre);
+    }
+
+    /**
+     * Décompte un emprunt retourné.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     */
+    public void retirer(int idUtilisateur) {
+        compteurs.decrement(idUtilisateur);
+    }
+
+    /**
+     * Oublie le compteur d'un utilisateur ; il sera rechargé à la prochaine consultation.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     */
+    public void invalider(int idUtilisateur) {
+        compteurs.invalidate(idUtilisateur);
+    }
+
+    /**
+     * @return Le nombre de compteurs chargés en mémoire
+     */
+    public int getNombreCompteurs() {
+        return compteurs.size();
+    }
+
+    /**
+     * Recale tous les compteurs chargés sur la base, par lots d'utilisateurs.
+     *
+     * @return Le nombre de compteurs corrigés
+     */
+    public int reconcilier() {
+        int corriges = compteurs.reconcile();
+        if (corriges < 0) {
+            throw new RuntimeException("Erreur lors de la réconciliation des compteurs d'emprunts");
+        }
+        return corriges;
+    }
+}
@@ -0,0 +1,149 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.NotificationDAO;
+import com.infinitpages.model.dao.impl.NotificationDAOImpl;
+import com.infinitpages.util.cache.IntCounterCache;
+
+/**
+ * Compteurs en mémoire des notifications non lues, par destinataire.
+ *
+ * Le badge de notifications est rafraîchi très souvent : au lieu d'un
+ * SELECT COUNT(*) à chaque fois, le compteur d'un destinataire est chargé
+ * à sa première consultation puis tenu à jour par NotificationService
+ * (envoi, lecture, suppression). Une consultation coûte une recherche dans
+ * une table de hachage.
+ *
+ * Les compteurs peuvent dériver légèrement (mise à jour concurrente d'un
+ * chargement, écriture hors de l'application) : ils sont recalés sur la base
+ * toutes les 5 minutes, par requêtes groupées.
+ */
+public class CompteurNotificationsService {
+
+    private static final long PERIODE_RECONCILIATION_MIN = 5;
+    private static final int TAILLE_LOT_RECONCILIATION = 500;
+
+    private static CompteurNotificationsService instance;
+
+    // id destinataire -> nombre de non lues
+    private final IntCounterCache compteurs;
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized CompteurNotificationsService getInstance() {
+        if (instance == null) {
+            instance = new CompteurNotificationsService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public CompteurNotificationsService() {
+        this(new NotificationDAOImpl());
+    }
+
+    /**
+     * Constructeur avec injection du DAO (pour les tests).
+     *
+     * @param notificationDAO Le DAO Notification à utiliser
+     */
+    public CompteurNotificationsService(NotificationDAO notificationDAO) {
+        this.compteurs = new IntCounterCache("notifications-compteurs",
+            notificationDAO::countNonLues, notificationDAO::countNonLuesParDestinataire,
+            PERIODE_RECONCILIATION_MIN, TAILLE_LOT_RECONCILIATION);
+    }
+
+    /**
+     * Planifie la réconciliation périodique des compteurs avec la base.
+     */
+    public void demarrer() {
+        compteurs.start();
+    }
+
+    /**
+     * Arrête la réconciliation périodique.
+     */
+    public void arreter() {
+        compteurs.stop();
+    }
+
+    /**
+     * Retourne le nombre de notifications non lues d'un destinataire.
+     * Le compteur est chargé depuis la base à la première consultation.
+     *
+     * @param idDestinataire L'identifiant du destinataire
+     * @return Le nombre de notifications non lues
+     */
+    public int getNombreNonLues(int idDestinataire) {
+        return compteurs.get(idDestinataire);
+    }
+
+    /**
+     * Compte une nouvelle notification non lue (sans effet si le compteur n'est pas chargé).
+     *
+     * @param idDestinataire L'identifiant du destinataire
+     */
+    public void incrementer(int idDestinataire) {
+        compteurs.add(idDestinataire, 1);
+    }
+
+    /**
+     * Compte une nouvelle notification non lue pour chacun des destinataires.
+     *
+     * @param idsDestinataires Les identifiants des destinataires
+     */
+    public void incrementer(int[] idsDestinataires) {
+        compteurs.add(idsDestinataires, 1);
+    }
+
+    /**
+     * Décompte une notification lue ou supprimée.
+     *
+     * @param idDestinataire L'identifiant du destinataire
+     */
+    public void decrementer(int idDestinataire) {
+        compteurs.decrement(idDestinataire);
+    }
+
+    /**
+     * Remet le compteur à zéro (toutes les notifications lues).
+     *
+     * @param idDestinataire L'identifiant du destinataire
+     */
+    public void remettreAZero(int idDestinataire) {
+        compteurs.set(idDestinataire, 0);
+    }
+
+    /**
+     * Oublie le compteur d'un destinataire ; il sera rechargé à la prochaine consultation.
+     *
+     * @param idDestinataire L'identifiant du destinataire
+     */
+    public void invalider(int idDestinataire) {
+        compteurs.invalidate(idDestinataire);
+    }
+
+    /**
+     * @return Le nombre de compteurs chargés en mémoire
+     */
+    public int getNombreCompteurs() {
+        return compteurs.size();
+    }
+
+    /**
+     * Recale tous les compteurs chargés sur la base, par lots de destinataires.
+     *
+     * @return Le nombre de compteurs corrigés
+     */
+    public int reconcilier() {
+        int corriges = compteurs.reconcile();
+        if (corriges < 0) {
+            throw new RuntimeException("Erreur lors de la réconciliation des compteurs de notifications");
+        }
+        return corriges;
+    }
+}
@@ -0,0 +1,339 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.NotificationDAO;
+import com.infinitpages.model.dao.impl.NotificationDAOImpl;
+import com.infinitpages.model.entity.Notification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service d'envoi asynchrone des notifications.
+ *
+ * Les notifications sont déposées dans une file bornée et écrites en base par
+ * un thread dédié, par lots (un INSERT multi-lignes par lot). L'appelant
+ * (emprunt, paiement...) n'attend donc pas l'écriture.
+ *
+ * La file sert d'abord les notifications HAUTE, puis MOYENNE, puis BASSE ; les
+ * notifications HAUTE disposent en plus d'une réserve de places. Quand la
+ * file est pleine, l'appelant attend brièvement qu'une place se libère, puis
+ * écrit lui-même sa notification : la charge est freinée sans rien perdre.
+ *
+ * Un lot dont l'écriture échoue est remis en tête de ses files, dans son
+ * ordre d'origine, et retenté après un délai qui double à chaque échec
+ * consécutif (base indisponible). À l'arrêt, la file est vidée en base avant
+ * de rendre la main ; si la base reste indisponible après quelques tentatives,
+ * les notifications restantes sont comptées en échec.
+ */
+public class EnvoiNotificationsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvoiNotificationsService.class);
+
+    private static final int CAPACITE = 10_000;
+    private static final int RESERVE_HAUTE = 1_000;
+    private static final int TAILLE_LOT = 200;
+    private static final long ATTENTE_FILE_PLEINE_MS = 500;
+    private static final long DELAI_ARRET_S = 10;
+    private static final long DELAI_REPRISE_INITIAL_MS = 500;
+    private static final long DELAI_REPRISE_MAX_MS = 30_000;
+    private static final int TENTATIVES_ARRET = 3;
+
+    private static final int HAUTE = 0;
+    private static final int MOYENNE = 1;
+    private static final int BASSE = 2;
+
+    private static EnvoiNotificationsService instance;
+
+    private final NotificationDAO notificationDAO;
+
+    // Une file par priorité, protégées par verrou
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final Condition nonVide = verrou.newCondition();
+    private final Condition nonPleine = verrou.newCondition();
+    private final List<ArrayDeque<Notification>> files = List.of(
+        new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>());
+    private int taille;
+    private boolean actif;
+    private Thread consommateur;
+
+    private final AtomicLong envoyees = new AtomicLong();
+    private final AtomicLong ecrituresDirectes = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized EnvoiNotificationsService getInstance() {
+        if (instance == null) {
+            instance = new EnvoiNotificationsService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public EnvoiNotificationsService() {
+        this(new NotificationDAOImpl());
+    }
+
+    /**
+     * Constructeur avec injection du DAO (pour les tests).
+     *
+     * @param notificationDAO Le DAO Notification à utiliser
+     */
+    public EnvoiNotificationsService(NotificationDAO notificationDAO) {
+        this.notificationDAO = notificationDAO;
+    }
+
+    /**
+     * Démarre le thread d'écriture. Tant qu'il n'est pas démarré, les
+     * notifications sont écrites directement par l'appelant.
+     */
+    public synchronized void demarrer() {
+        if (consommateur != null) {
+            return;
+        }
+
+        verrou.lock();
+        try {
+            actif = true;
+        } finally {
+            verrou.unlock();
+        }
+
+        consommateur = new Thread(this::consommer, "notifications-envoi");
+        consommateur.setDaemon(true);
+        consommateur.start();
+    }
+
+    /**
+     * Arrête le thread d'écriture après avoir vidé la file en base.
+     */
+    public synchronized void arreter() {
+        if (consommateur == null) {
+            return;
+        }
+
+        verrou.lock();
+        try {
+            actif = false;
+            nonVide.signalAll();
+            nonPleine.signalAll();
+        } finally {
+            verrou.unlock();
+        }
+
+        try {
+            consommateur.join(TimeUnit.SECONDS.toMillis(DELAI_ARRET_S));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (consommateur.isAlive()) {
+            logger.warn("File des notifications non vidée après {} s : {} notifications en attente",
+                DELAI_ARRET_S, getNombreEnAttente());
+        }
+        consommateur = null;
+        logger.info("Envoi des notifications arrêté : {} écrites par lots, {} écrites directement, {} échecs",
+            envoyees.get(), ecrituresDirectes.get(), echecs.get());
+    }
+
+    /**
+     * Dépose une notification dans la file. Revient immédiatement, sauf si la
+     * file est pleine ou arrêtée : la notification est alors écrite par l'appelant.
+     *
+     * @param notification La notification à envoyer (son ID et sa date d'envoi sont renseignés à l'écriture)
+     */
+    public void soumettre(Notification notification) {
+        if (notification == null) {
+            throw new IllegalArgumentException("Notification ne peut pas être null");
+        }
+
+        int rang = rang(notification.getPriorite());
+        int limite = rang == HAUTE ? CAPACITE + RESERVE_HAUTE : CAPACITE;
+
+        verrou.lock();
+        try {
+            long attente = TimeUnit.MILLISECONDS.toNanos(ATTENTE_FILE_PLEINE_MS);
+            while (actif && taille >= limite && attente > 0) {
+                attente = nonPleine.awaitNanos(attente);
+            }
+            if (actif && taille < limite) {
+                files.get(rang).addLast(notification);
+                taille++;
+                nonVide.signal();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            verrou.unlock();
+        }
+
+        // File pleine ou arrêtée : l'appelant écrit lui-même
+        ecrituresDirectes.incrementAndGet();
+        notification.setDateEnvoi(LocalDateTime.now());
+        if (notificationDAO.save(notification) == null) {
+            echecs.incrementAndGet();
+            throw new RuntimeException("Erreur lors de l'envoi de la notification");
+        }
+    }
+
+    /**
+     * @return Le nombre de notifications en attente d'écriture
+     */
+    public int getNombreEnAttente() {
+        verrou.lock();
+        try {
+            return taille;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * @return Le nombre de notifications écrites par le thread d'envoi
+     */
+    public long getNombreEnvoyees() {
+        return envoyees.get();
+    }
+
+    /**
+     * @return Le nombre de notifications écrites par l'appelant (file pleine ou arrêtée)
+     */
+    public long getNombreEcrituresDirectes() {
+        return ecrituresDirectes.get();
+    }
+
+    /**
+     * @return Le nombre de notifications perdues (base indisponible à l'arrêt)
+     */
+    public long getNombreEchecs() {
+        return echecs.get();
+    }
+
+    private void consommer() {
+        List<Notification> lot = new ArrayList<>(TAILLE_LOT);
+        int echecsConsecutifs = 0;
+        while (true) {
+            verrou.lock();
+            try {
+                while (taille == 0 && actif) {
+                    nonVide.awaitUninterruptibly();
+                }
+                if (taille == 0) {
+                    // Arrêt demandé et file vidée
+                    return;
+                }
+                prelever(lot);
+                nonPleine.signalAll();
+            } finally {
+                verrou.unlock();
+            }
+
+            if (ecrire(lot)) {
+                echecsConsecutifs = 0;
+                lot.clear();
+                continue;
+            }
+
+            echecsConsecutifs++;
+            verrou.lock();
+            try {
+                remettre(lot);
+                lot.clear();
+                if (!actif && echecsConsecutifs >= TENTATIVES_ARRET) {
+                    // Arrêt demandé et base toujours indisponible : abandonner ce qui reste
+                    logger.error("Base indisponible à l'arrêt : {} notifications non écrites", taille);
+                    echecs.addAndGet(taille);
+                    files.forEach(ArrayDeque::clear);
+                    taille = 0;
+                    return;
+                }
+                attendreReprise(echecsConsecutifs);
+            } finally {
+                verrou.unlock();
+            }
+        }
+    }
+
+    /**
+     * Prend jusqu'à TAILLE_LOT notifications, les plus prioritaires d'abord. Appelé sous le verrou.
+     */
+    private void prelever(List<Notification> lot) {
+        for (ArrayDeque<Notification> file : files) {
+            while (lot.size() < TAILLE_LOT && !file.isEmpty()) {
+                lot.add(file.pollFirst());
+            }
+        }
+        taille -= lot.size();
+    }
+
+    /**
+     * Remet un lot non écrit en tête de ses files, dans son ordre d'origine. Appelé sous le verrou.
+     */
+    private void remettre(List<Notification> lot) {
+        for (int i = lot.size() - 1; i >= 0; i--) {
+            Notification notification = lot.get(i);
+            files.get(rang(notification.getPriorite())).addFirst(notification);
+        }
+        taille += lot.size();
+    }
+
+    /**
+     * Attend avant de retenter l'écriture : le délai double à chaque échec consécutif,
+     * jusqu'à DELAI_REPRISE_MAX_MS. L'arrêt interrompt l'attente. Appelé sous le verrou.
+     */
+    private void attendreReprise(int echecsConsecutifs) {
+        long delai = Math.min(DELAI_REPRISE_MAX_MS,
+            DELAI_REPRISE_INITIAL_MS << Math.min(echecsConsecutifs - 1, 16));
+        logger.warn("Nouvelle tentative d'écriture des notifications dans {} ms", delai);
+
+        long attente = TimeUnit.MILLISECONDS.toNanos(delai);
+        try {
+            while (actif && attente > 0) {
+                attente = nonVide.awaitNanos(attente);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean ecrire(List<Notification> lot) {
+        // Date d'envoi : l'écriture en base, pas le dépôt dans la file (ni une tentative précédente)
+        LocalDateTime maintenant = LocalDateTime.now();
+        for (Notification notification : lot) {
+            notification.setDateEnvoi(maintenant);
+        }
+        try {
+            if (notificationDAO.saveAll(lot) >= 0) {
+                envoyees.addAndGet(lot.size());
+                return true;
+            }
+        } catch (Exception e) {
+            logger.error("Échec de l'écriture d'un lot de notifications", e);
+        }
+        logger.error("Lot de {} notifications non écrit, remis en file", lot.size());
+        return false;
+    }
+
+    private static int rang(String priorite) {
+        if ("HAUTE".equals(priorite)) {
+            return HAUTE;
+        }
+        if ("MOYENNE".equals(priorite)) {
+            return MOYENNE;
+        }
+        return BASSE;
+    }
+}
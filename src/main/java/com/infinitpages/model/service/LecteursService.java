@@ -0,0 +1,284 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.LecteursDAO;
+import com.infinitpages.model.dao.LecteursDAO.SketchLecteurs;
+import com.infinitpages.model.dao.impl.LecteursDAOImpl;
+import com.infinitpages.model.entity.Document;
+import com.infinitpages.util.sketch.HyperLogLog;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service d'estimation des lecteurs distincts (HyperLogLog).
+ *
+ * Chaque emprunt ou consultation ajoute le lecteur au sketch du jour du
+ * document, de sa catégorie et de la bibliothèque entière. Les sketches
+ * journaliers sont persistés périodiquement (table sketch_lecteurs) ;
+ * une période quelconque s'obtient en fusionnant les jours qu'elle couvre,
+ * ce qui évite les COUNT(DISTINCT id_utilisateur) sur emprunt et historique_document.
+ *
+ * Erreur type d'environ 2,3 % (2048 registres par sketch).
+ */
+public class LecteursService {
+
+    private static final int PRECISION = 11;
+    private static final long INTERVALLE_PERSISTANCE_MINUTES = 5;
+
+    private static LecteursService instance;
+
+    private final LecteursDAO lecteursDAO;
+    private final Clock horloge;
+
+    // Sketches des jours non encore purgés de la mémoire (aujourd'hui, parfois la veille)
+    private final Map<Cle, HyperLogLog> sketches = new HashMap<>();
+    private final Set<Cle> modifies = new HashSet<>();
+    private ScheduledExecutorService planificateur;
+
+    private record Cle(String typeCible, int idCible, LocalDate jour) {
+    }
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized LecteursService getInstance() {
+        if (instance == null) {
+            instance = new LecteursService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public LecteursService() {
+        this(new LecteursDAOImpl(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection du DAO et de l'horloge (pour les tests).
+     *
+     * @param lecteursDAO Le DAO Lecteurs à utiliser
+     * @param horloge L'horloge donnant le jour courant
+     */
+    public LecteursService(LecteursDAO lecteursDAO, Clock horloge) {
+        this.lecteursDAO = lecteursDAO;
+        this.horloge = horloge;
+    }
+
+    /**
+     * Recharge les sketches du jour et lance la persistance périodique.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        for (SketchLecteurs sketch : lecteursDAO.findByJour(LocalDate.now(horloge))) {
+            Cle cle = new Cle(sketch.typeCible(), sketch.idCible(), sketch.jour());
+            sketches.computeIfAbsent(cle, c -> new HyperLogLog(PRECISION))
+                .merge(HyperLogLog.fromBytes(sketch.registres()));
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lecteurs-persistance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(this::persister,
+            INTERVALLE_PERSISTANCE_MINUTES, INTERVALLE_PERSISTANCE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Arrête la persistance périodique et enregistre les derniers sketches.
+     */
+    public void arreter() {
+        synchronized (this) {
+            if (planificateur != null) {
+                planificateur.shutdown();
+                planificateur = null;
+            }
+        }
+        persister();
+    }
+
+    /**
+     * Enregistre une lecture (emprunt ou consultation) d'un document.
+     *
+     * @param idUtilisateur L'identifiant du lecteur
+     * @param document Le document lu
+     */
+    public void enregistrerLecture(int idUtilisateur, Document document) {
+        if (idUtilisateur <= 0 || document == null || document.getId() <= 0) {
+            return;
+        }
+        LocalDate jour = LocalDate.now(horloge);
+
+        synchronized (this) {
+            ajouter(new Cle(LecteursDAO.TYPE_DOCUMENT, document.getId(), jour), idUtilisateur);
+            if (document.getCategorieEntity() != null && document.getCategorieEntity().getId() > 0) {
+                ajouter(new Cle(LecteursDAO.TYPE_CATEGORIE, document.getCategorieEntity().getId(), jour), idUtilisateur);
+            }
+            ajouter(new Cle(LecteursDAO.TYPE_GLOBAL, 0, jour), idUtilisateur);
+        }
+    }
+
+    /**
+     * Enregistre en base les sketches modifiés depuis la dernière persistance
+     * et libère la mémoire des jours passés.
+     *
+     * @return Le nombre de sketches enregistrés
+     */
+    public int persister() {
+        List<SketchLecteurs> aEnregistrer = new ArrayList<>();
+        List<Cle> cles = new ArrayList<>();
+
+        synchronized (this) {
+            for (Cle cle : modifies) {
+                cles.add(cle);
+                aEnregistrer.add(new SketchLecteurs(cle.typeCible(), cle.idCible(), cle.jour(),
+                    sketches.get(cle).toBytes()));
+            }
+            modifies.clear();
+        }
+
+        if (!aEnregistrer.isEmpty() && !lecteursDAO.saveAll(aEnregistrer)) {
+            // Réessayer à la prochaine persistance
+            synchronized (this) {
+                modifies.addAll(cles);
+            }
+            return 0;
+        }
+
+        synchronized (this) {
+            LocalDate aujourdhui = LocalDate.now(horloge);
+            Iterator<Cle> it = sketches.keySet().iterator();
+            while (it.hasNext()) {
+                Cle cle = it.next();
+                if (cle.jour().isBefore(aujourdhui) && !modifies.contains(cle)) {
+                    it.remove();
+                }
+            }
+        }
+        return aEnregistrer.size();
+    }
+
+    /**
+     * Estime le nombre de lecteurs distincts d'un document sur une période.
+     *
+     * @param idDocument L'identifiant du document
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Le nombre estimé de lecteurs distincts
+     */
+    public long getLecteursDistinctsDocument(int idDocument, LocalDate debut, LocalDate fin) {
+        return estimer(LecteursDAO.TYPE_DOCUMENT, idDocument, debut, fin);
+    }
+
+    /**
+     * Estime le nombre de lecteurs distincts d'une catégorie sur une période.
+     *
+     * @param idCategorie L'identifiant de la catégorie
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Le nombre estimé de lecteurs distincts
+     */
+    public long getLecteursDistinctsCategorie(int idCategorie, LocalDate debut, LocalDate fin) {
+        return estimer(LecteursDAO.TYPE_CATEGORIE, idCategorie, debut, fin);
+    }
+
+    /**
+     * Estime le nombre de lecteurs distincts de toute la bibliothèque sur une période.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Le nombre estimé de lecteurs distincts
+     */
+    public long getLecteursDistinctsTotal(LocalDate debut, LocalDate fin) {
+        return estimer(LecteursDAO.TYPE_GLOBAL, 0, debut, fin);
+    }
+
+    /**
+     * Estime le nombre de lecteurs distincts de chaque catégorie sur une période.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Map id_categorie → nombre estimé de lecteurs distincts
+     */
+    public Map<Integer, Long> getLecteursDistinctsParCategorie(LocalDate debut, LocalDate fin) {
+        verifierPeriode(debut, fin);
+
+        Map<Integer, HyperLogLog> fusions = new HashMap<>();
+        for (SketchLecteurs sketch : lecteursDAO.findByType(LecteursDAO.TYPE_CATEGORIE, debut, fin)) {
+            fusions.computeIfAbsent(sketch.idCible(), id -> new HyperLogLog(PRECISION))
+                .merge(HyperLogLog.fromBytes(sketch.registres()));
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Cle, HyperLogLog> entry : sketches.entrySet()) {
+                Cle cle = entry.getKey();
+                if (LecteursDAO.TYPE_CATEGORIE.equals(cle.typeCible()) && dansPeriode(cle.jour(), debut, fin)) {
+                    fusions.computeIfAbsent(cle.idCible(), id -> new HyperLogLog(PRECISION))
+                        .merge(entry.getValue());
+                }
+            }
+        }
+
+        Map<Integer, Long> resultats = new HashMap<>();
+        for (Map.Entry<Integer, HyperLogLog> entry : fusions.entrySet()) {
+            resultats.put(entry.getKey(), entry.getValue().estimate());
+        }
+        return resultats;
+    }
+
+    private long estimer(String typeCible, int idCible, LocalDate debut, LocalDate fin) {
+        verifierPeriode(debut, fin);
+
+        // La fusion est idempotente : un jour présent en base et en mémoire n'est pas compté deux fois
+        HyperLogLog fusion = new HyperLogLog(PRECISION);
+        for (SketchLecteurs sketch : lecteursDAO.findByCible(typeCible, idCible, debut, fin)) {
+            fusion.merge(HyperLogLog.fromBytes(sketch.registres()));
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Cle, HyperLogLog> entry : sketches.entrySet()) {
+                Cle cle = entry.getKey();
+                if (cle.idCible() == idCible && typeCible.equals(cle.typeCible())
+                        && dansPeriode(cle.jour(), debut, fin)) {
+                    fusion.merge(entry.getValue());
+                }
+            }
+        }
+        return fusion.estimate();
+    }
+
+    private void ajouter(Cle cle, int idUtilisateur) {
+        sketches.computeIfAbsent(cle, c -> new HyperLogLog(PRECISION)).add(idUtilisateur);
+        modifies.add(cle);
+    }
+
+    private static boolean dansPeriode(LocalDate jour, LocalDate debut, LocalDate fin) {
+        return !jour.isBefore(debut) && !jour.isAfter(fin);
+    }
+
+    private static void verifierPeriode(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates de la période ne peuvent pas être null");
+        }
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin doit suivre la date de début");
+        }
+    }
+}
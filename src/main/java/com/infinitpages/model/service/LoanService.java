@@ -5,11 +5,16 @@ import com.infinitpages.model.entity.Document;
 import com.infinitpages.model.entity.Utilisateur;
 import com.infinitpages.model.dao.EmpruntDAO;
 import com.infinitpages.model.dao.DocumentDAO;
+import com.infinitpages.model.dao.AgregatJournalierDAO;
 import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
 import com.infinitpages.model.dao.impl.DocumentDAOImpl;
+import com.infinitpages.model.dao.impl.AgregatJournalierDAOImpl;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service de gestion des emprunts.
@@ -18,26 +23,70 @@ import java.util.List;
  */
 public class LoanService {
     
+    /**
+     * Issue d'un emprunt ou d'un retour d'une pile traitée au guichet.
+     * 
+     * @param document Le document concerné
+     * @param emprunt L'emprunt créé ou retourné (null si l'emprunt a été refusé)
+     * @param motifRefus La raison du refus, ou null si l'opération a réussi
+     */
+    public record ResultatCirculation(Document document, Emprunt emprunt, String motifRefus) {
+        public boolean estReussi() {
+            return motifRefus == null;
+        }
+    }
+    
     private EmpruntDAO empruntDAO;
     private DocumentDAO documentDAO;
+    private AgregatJournalierDAO agregatDAO;
+    private RecommandationService recommandationService;
+    private TendanceService tendanceService;
+    private LecteursService lecteursService;
+    private QuantilesService quantilesService;
+    private RappelService rappelService;
+    private CompteurEmpruntsService compteurEmprunts;
+    private ReservationService reservationService;
     
     /**
      * Constructeur par défaut.
      */
     public LoanService() {
-        this.empruntDAO = new EmpruntDAOImpl();
-        this.documentDAO = new DocumentDAOImpl();
+        this(new EmpruntDAOImpl(), new DocumentDAOImpl(), new AgregatJournalierDAOImpl(),
+             RecommandationService.getInstance(), TendanceService.getInstance(),
+             LecteursService.getInstance(), QuantilesService.getInstance(),
+             RappelService.getInstance(), CompteurEmpruntsService.getInstance(),
+             ReservationService.getInstance());
     }
     
     /**
-     * Constructeur avec injection des DAO (pour les tests).
+     * Constructeur avec injection des dépendances (pour les tests).
      * 
      * @param empruntDAO Le DAO Emprunt à utiliser
      * @param documentDAO Le DAO Document à utiliser
+     * @param agregatDAO Le DAO des agrégats journaliers à utiliser
+     * @param recommandationService Le service de recommandations à alimenter
+     * @param tendanceService Le service des tendances à alimenter
+     * @param lecteursService Le service des lecteurs à alimenter
+     * @param quantilesService Le service des quantiles de durée et de retard à alimenter
+     * @param rappelService Le service de rappels à utiliser
+     * @param compteurEmprunts Les compteurs d'emprunts actifs à utiliser
+     * @param reservationService Le service de réservations à utiliser
      */
-    public LoanService(EmpruntDAO empruntDAO, DocumentDAO documentDAO) {
+    public LoanService(EmpruntDAO empruntDAO, DocumentDAO documentDAO, AgregatJournalierDAO agregatDAO,
+                       RecommandationService recommandationService, TendanceService tendanceService,
+                       LecteursService lecteursService, QuantilesService quantilesService,
+                       RappelService rappelService, CompteurEmpruntsService compteurEmprunts,
+                       ReservationService reservationService) {
         this.empruntDAO = empruntDAO;
         this.documentDAO = documentDAO;
+        this.agregatDAO = agregatDAO;
+        this.recommandationService = recommandationService;
+        this.tendanceService = tendanceService;
+        this.lecteursService = lecteursService;
+        this.quantilesService = quantilesService;
+        this.rappelService = rappelService;
+        this.compteurEmprunts = compteurEmprunts;
+        this.reservationService = reservationService;
     }
     
     /**
@@ -56,13 +105,9 @@ public class LoanService {
         if (document == null) {
             throw new IllegalArgumentException("Document ne peut pas être null");
         }
-        if (!document.isDisponible()) {
-            throw new IllegalStateException("Le document n'est pas disponible");
-        }
         
-        // Vérifier si l'utilisateur a atteint sa limite d'emprunts
-        int nombreEmpruntsActifs = empruntDAO.countEmpruntsActifs(utilisateur.getId());
-        if (nombreEmpruntsActifs >= utilisateur.getLimiteEmprunts()) {
+        // Compteur en mémoire : rechargé depuis la base avant de refuser
+        if (!compteurEmprunts.peutEmprunter(utilisateur.getId(), utilisateur.getLimiteEmprunts())) {
             throw new IllegalStateException("Limite d'emprunts atteinte");
         }
         
@@ -70,20 +115,171 @@ public class LoanService {
         int dureeMax = utilisateur.getDureeEmpruntJours();
         Emprunt emprunt = new Emprunt(utilisateur, document, LocalDate.now(), dureeMax);
         
-        // Marquer le document comme non disponible
-        document.setDisponible(false);
-        
-        // Sauvegarder en base de données
+        // Disponibilité et limite vérifiées en base, dans la transaction qui enregistre l'emprunt :
+        // l'objet document peut être périmé et un autre guichet peut emprunter au même instant
+        // Un document mis de côté pour l'utilisateur (réservation) n'est pas disponible pour les autres
+        int idReservation = reservationService.getReservationARetirer(document.getId(), utilisateur.getId());
+        EmpruntDAO.ResultatEmprunt resultat;
         try {
-            emprunt = empruntDAO.save(emprunt);
-            documentDAO.setDisponible(document.getId(), false);
+            resultat = idReservation > 0
+                ? empruntDAO.emprunterReserve(emprunt, utilisateur.getLimiteEmprunts(), idReservation)
+                : empruntDAO.emprunter(emprunt, utilisateur.getLimiteEmprunts());
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de l'emprunt: " + e.getMessage(), e);
         }
         
+        switch (resultat) {
+            case INDISPONIBLE:
+                document.setDisponible(false);
+                throw new IllegalStateException("Le document n'est pas disponible");
+            case LIMITE_ATTEINTE:
+                // Emprunts faits depuis un autre poste : recharger le compteur
+                compteurEmprunts.invalider(utilisateur.getId());
+                throw new IllegalStateException("Limite d'emprunts atteinte");
+            case ERREUR:
+                throw new RuntimeException("Erreur lors de l'emprunt");
+            default:
+                break;
+        }
+        
+        // L'exemplaire mis de côté était déjà décompté lors de l'attribution
+        if (idReservation > 0) {
+            reservationService.retiree(idReservation);
+        } else if (resultat == EmpruntDAO.ResultatEmprunt.EMPRUNTE_SUR_RESERVATION) {
+            reservationService.retiree(document.getId(), utilisateur.getId());
+        } else {
+            prendreExemplaire(document);
+        }
+        
+        apresEmprunt(utilisateur, document, emprunt);
+        
         return emprunt;
     }
     
+    /**
+     * Emprunte une pile de documents pour un utilisateur (guichet de prêt).
+     * La limite est vérifiée une fois et tous les emprunts sont écrits en une
+     * seule transaction ; un document indisponible ou au-delà de la limite est
+     * refusé sans bloquer les autres.
+     * 
+     * @param utilisateur L'utilisateur qui emprunte
+     * @param documents Les documents scannés, dans l'ordre
+     * @return L'issue de chaque document, dans l'ordre
+     */
+    public List<ResultatCirculation> emprunterDocuments(Utilisateur utilisateur, List<Document> documents) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+        if (documents == null) {
+            throw new IllegalArgumentException("Documents ne peut pas être null");
+        }
+        
+        ResultatCirculation[] resultats = new ResultatCirculation[documents.size()];
+        if (!compteurEmprunts.peutEmprunter(utilisateur.getId(), utilisateur.getLimiteEmprunts())) {
+            for (int i = 0; i < resultats.length; i++) {
+                resultats[i] = new ResultatCirculation(documents.get(i), null, "Limite d'emprunts atteinte");
+            }
+            return List.of(resultats);
+        }
+        
+        List<Emprunt> candidats = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        int[] reservations = new int[documents.size()];
+        Set<Integer> vus = new HashSet<>();
+        LocalDate aujourdhui = LocalDate.now();
+        int dureeMax = utilisateur.getDureeEmpruntJours();
+        
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            if (document == null) {
+                resultats[i] = new ResultatCirculation(null, null, "Document manquant");
+            } else if (!vus.add(document.getId())) {
+                resultats[i] = new ResultatCirculation(document, null, "Document scanné deux fois");
+            } else {
+                // Un document mis de côté pour l'utilisateur est pris sur sa réservation, dans le lot
+                reservations[candidats.size()] =
+                    reservationService.getReservationARetirer(document.getId(), utilisateur.getId());
+                candidats.add(new Emprunt(utilisateur, document, aujourdhui, dureeMax));
+                positions.add(i);
+            }
+        }
+        
+        if (!candidats.isEmpty()) {
+            EmpruntDAO.ResultatEmprunt[] issues;
+            try {
+                issues = empruntDAO.emprunterEnLot(candidats, utilisateur.getLimiteEmprunts(), reservations);
+            } catch (Exception e) {
+                throw new RuntimeException("Erreur lors de l'emprunt en lot: " + e.getMessage(), e);
+            }
+            if (issues == null) {
+                throw new RuntimeException("Erreur lors de l'emprunt en lot");
+            }
+            
+            for (int j = 0; j < candidats.size(); j++) {
+                Emprunt emprunt = candidats.get(j);
+                Document document = emprunt.getDocument();
+                int position = positions.get(j);
+                switch (issues[j]) {
+                    case EMPRUNTE:
+                        prendreExemplaire(document);
+                        apresEmprunt(utilisateur, document, emprunt);
+                        resultats[position] = new ResultatCirculation(document, emprunt, null);
+                        break;
+                    case EMPRUNTE_SUR_RESERVATION:
+                        reservationService.retiree(document.getId(), utilisateur.getId());
+                        apresEmprunt(utilisateur, document, emprunt);
+                        resultats[position] = new ResultatCirculation(document, emprunt, null);
+                        break;
+                    case INDISPONIBLE:
+                        document.setDisponible(false);
+                        resultats[position] = new ResultatCirculation(document, null, "Le document n'est pas disponible");
+                        break;
+                    default:
+                        compteurEmprunts.invalider(utilisateur.getId());
+                        resultats[position] = new ResultatCirculation(document, null, "Limite d'emprunts atteinte");
+                        break;
+                }
+            }
+        }
+        
+        return List.of(resultats);
+    }
+    
+    /**
+     * Reporte sur l'entité un exemplaire pris (le compteur en base fait foi).
+     */
+    private void prendreExemplaire(Document document) {
+        document.setExemplairesDisponibles(Math.max(0, document.getExemplairesDisponibles() - 1));
+        document.setDisponible(document.getExemplairesDisponibles() > 0);
+    }
+    
+    /**
+     * Reporte sur l'entité un exemplaire rendu.
+     */
+    private void rendreExemplaire(Document document) {
+        document.setExemplairesDisponibles(
+            Math.min(document.getExemplairesDisponibles() + 1, document.getNombreExemplaires()));
+        document.setDisponible(true);
+    }
+    
+    /**
+     * Effets d'un emprunt enregistré, hors transaction.
+     */
+    private void apresEmprunt(Utilisateur utilisateur, Document document, Emprunt emprunt) {
+        compteurEmprunts.ajouter(utilisateur.getId(), 1);
+        
+        // Agrégats journaliers des rapports (recalculables par le rattrapage en cas d'échec)
+        agregatDAO.ajouterEmprunt(emprunt.getDateEmprunt(), utilisateur.getId());
+        
+        // Alimenter les recommandations "ont aussi emprunté"
+        recommandationService.enregistrerEmprunt(utilisateur.getId(), document.getId());
+        tendanceService.enregistrerEmprunt(document.getId());
+        lecteursService.enregistrerLecture(utilisateur.getId(), document);
+        
+        // Rappels avant échéance et de retard
+        rappelService.planifier(emprunt);
+    }
+    
     /**
      * Retourne un document emprunté.
      * 
@@ -99,6 +295,9 @@ public class LoanService {
             throw new IllegalStateException("Le document a déjà été retourné");
         }
         
+        String etatPrecedent = emprunt.getEtat();
+        double penalitePrecedente = emprunt.getPenalite();
+        
         // Mettre à jour l'emprunt
         emprunt.setDateRetourEffective(LocalDate.now());
         emprunt.setEtat("RETOURNE");
@@ -109,25 +308,149 @@ public class LoanService {
             emprunt.setPenalite(penalite);
         }
         
-        // Rendre le document disponible
-        Document document = emprunt.getDocument();
-        if (document != null) {
-            document.setDisponible(true);
-        }
-        
-        // Sauvegarder en base de données
+        // Sauvegarder en base de données : l'exemplaire est remis en rayon, et mis de côté
+        // pour une réservation ou compté disponible, dans la même transaction
+        EmpruntDAO.ResultatRetour retour;
         try {
-            empruntDAO.update(emprunt);
-            if (document != null && document.getId() > 0) {
-                documentDAO.setDisponible(document.getId(), true);
-            }
+            retour = empruntDAO.retournerEnLot(List.of(emprunt));
         } catch (Exception e) {
+            emprunt.setDateRetourEffective(null);
+            emprunt.setEtat(etatPrecedent);
+            emprunt.setPenalite(penalitePrecedente);
             throw new RuntimeException("Erreur lors du retour: " + e.getMessage(), e);
         }
+        if (retour == null || !retour.retournes()[0]) {
+            emprunt.setDateRetourEffective(null);
+            emprunt.setEtat(etatPrecedent);
+            emprunt.setPenalite(penalitePrecedente);
+            if (retour == null) {
+                throw new RuntimeException("Erreur lors du retour");
+            }
+            throw new IllegalStateException("Le document a déjà été retourné");
+        }
+        
+        apresRetour(emprunt, retour.reservations()[0]);
         
         return emprunt;
     }
     
+    /**
+     * Retourne une pile d'emprunts (guichet de retour) en une seule transaction.
+     * Un emprunt déjà retourné, y compris par un autre guichet entre-temps,
+     * est refusé sans bloquer les autres.
+     * 
+     * @param emprunts Les emprunts scannés, dans l'ordre
+     * @return L'issue de chaque emprunt, dans l'ordre
+     */
+    public List<ResultatCirculation> retournerDocuments(List<Emprunt> emprunts) {
+        if (emprunts == null) {
+            throw new IllegalArgumentException("Emprunts ne peut pas être null");
+        }
+        
+        ResultatCirculation[] resultats = new ResultatCirculation[emprunts.size()];
+        List<Emprunt> candidats = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<String> etatsPrecedents = new ArrayList<>();
+        List<Double> penalitesPrecedentes = new ArrayList<>();
+        Set<Integer> vus = new HashSet<>();
+        LocalDate aujourdhui = LocalDate.now();
+        
+        for (int i = 0; i < emprunts.size(); i++) {
+            Emprunt emprunt = emprunts.get(i);
+            if (emprunt == null) {
+                resultats[i] = new ResultatCirculation(null, null, "Emprunt manquant");
+            } else if (emprunt.getDateRetourEffective() != null) {
+                resultats[i] = new ResultatCirculation(emprunt.getDocument(), emprunt, "Le document a déjà été retourné");
+            } else if (!vus.add(emprunt.getId())) {
+                resultats[i] = new ResultatCirculation(emprunt.getDocument(), emprunt, "Emprunt scanné deux fois");
+            } else {
+                etatsPrecedents.add(emprunt.getEtat());
+                penalitesPrecedentes.add(emprunt.getPenalite());
+                
+                // Mêmes calculs que pour un retour unitaire (faits par l'entité)
+                emprunt.setDateRetourEffective(aujourdhui);
+                emprunt.setEtat("RETOURNE");
+                if (emprunt.estEnRetard()) {
+                    emprunt.setPenalite(emprunt.calculerPenalite());
+                }
+                candidats.add(emprunt);
+                positions.add(i);
+            }
+        }
+        
+        if (!candidats.isEmpty()) {
+            EmpruntDAO.ResultatRetour retour;
+            RuntimeException erreur = null;
+            try {
+                retour = empruntDAO.retournerEnLot(candidats);
+            } catch (Exception e) {
+                retour = null;
+                erreur = new RuntimeException("Erreur lors du retour en lot: " + e.getMessage(), e);
+            }
+            boolean[] retournes = retour != null ? retour.retournes() : null;
+            
+            for (int j = 0; j < candidats.size(); j++) {
+                Emprunt emprunt = candidats.get(j);
+                if (retournes == null || !retournes[j]) {
+                    // Rien n'a été écrit pour cet emprunt : rétablir l'entité
+                    emprunt.setDateRetourEffective(null);
+                    emprunt.setEtat(etatsPrecedents.get(j));
+                    emprunt.setPenalite(penalitesPrecedentes.get(j));
+                }
+            }
+            if (erreur != null) {
+                throw erreur;
+            }
+            if (retournes == null) {
+                throw new RuntimeException("Erreur lors du retour en lot");
+            }
+            
+            for (int j = 0; j < candidats.size(); j++) {
+                Emprunt emprunt = candidats.get(j);
+                Document document = emprunt.getDocument();
+                int position = positions.get(j);
+                if (retournes[j]) {
+                    apresRetour(emprunt, retour.reservations()[j]);
+                    resultats[position] = new ResultatCirculation(document, emprunt, null);
+                } else {
+                    resultats[position] = new ResultatCirculation(document, emprunt, "Le document a déjà été retourné");
+                }
+            }
+        }
+        
+        return List.of(resultats);
+    }
+    
+    /**
+     * Effets d'un retour enregistré, hors transaction.
+     * 
+     * @param idReservation La réservation pour laquelle l'exemplaire a été mis de côté, ou 0
+     */
+    private void apresRetour(Emprunt emprunt, int idReservation) {
+        // Un exemplaire mis de côté ne redevient pas disponible
+        Document document = emprunt.getDocument();
+        if (document != null && idReservation == 0) {
+            rendreExemplaire(document);
+        }
+        
+        // Agrégats journaliers des rapports
+        if (emprunt.getUtilisateur() != null) {
+            compteurEmprunts.retirer(emprunt.getUtilisateur().getId());
+            agregatDAO.ajouterRetour(emprunt.getDateRetourEffective(), emprunt.getUtilisateur().getId(),
+                emprunt.estEnRetard(), emprunt.getPenalite());
+        }
+        
+        // Quantiles de durée et de retard
+        quantilesService.enregistrerRetour(emprunt);
+        
+        rappelService.annuler(emprunt.getId());
+        
+        // Prévenir le premier de la file, pour qui le document a été mis de côté
+        if (idReservation > 0) {
+            reservationService.attribuee(idReservation, document);
+        }
+    }
+    
     /**
      * Calcule le montant total à payer pour un emprunt.
      * Délègue le calcul à l'entité Emprunt.
@@ -143,6 +466,19 @@ public class LoanService {
         return emprunt.calculerMontantTotal();
     }
     
+    /**
+     * Retourne le nombre d'emprunts actifs d'un utilisateur, depuis le compteur en mémoire.
+     * 
+     * @param utilisateur L'utilisateur
+     * @return Le nombre d'emprunts actifs
+     */
+    public int getNombreEmpruntsActifs(Utilisateur utilisateur) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+        return compteurEmprunts.getNombreActifs(utilisateur.getId());
+    }
+    
     /**
      * Récupère tous les emprunts actifs d'un utilisateur.
      * 
@@ -7,9 +7,14 @@ import com.infinitpages.model.entity.Emprunt;
 import com.infinitpages.model.entity.Document;
 import com.infinitpages.model.dao.NotificationDAO;
 import com.infinitpages.model.dao.impl.NotificationDAOImpl;
+import com.infinitpages.util.event.KeyedEventBus;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service métier pour la gestion des notifications.
@@ -23,34 +28,68 @@ import java.util.List;
  */
 public class NotificationService {
     
+    // Diffusions en masse, une à la fois pour ne pas accaparer le pool de connexions
+    private static final ExecutorService DIFFUSION = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "notifications-diffusion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Bus des nouvelles notifications, par id de destinataire, partagé par toutes les instances
+    private static final KeyedEventBus<Notification> BUS = new KeyedEventBus<>();
+    
     private NotificationDAO notificationDAO;
+    // File d'envoi asynchrone (null : écriture directe)
+    private EnvoiNotificationsService envoiService;
+    private CompteurNotificationsService compteurService;
+    // Regroupement des rappels (null : chaque rappel est envoyé directement)
+    private RegroupementRappelsService regroupementService;
     
     /**
      * Constructeur par défaut.
      */
     public NotificationService() {
         this.notificationDAO = new NotificationDAOImpl();
+        this.envoiService = EnvoiNotificationsService.getInstance();
+        this.compteurService = CompteurNotificationsService.getInstance();
+        this.regroupementService = RegroupementRappelsService.getInstance();
     }
     
     /**
      * Constructeur avec injection du DAO (pour les tests).
+     * Les notifications sont écrites directement, sans file d'envoi.
      * 
      * @param notificationDAO Le DAO Notification à utiliser
      */
     public NotificationService(NotificationDAO notificationDAO) {
+        this(notificationDAO, null);
+    }
+    
+    /**
+     * Constructeur avec injection du DAO et de la file d'envoi (pour les tests).
+     * 
+     * @param notificationDAO Le DAO Notification à utiliser
+     * @param envoiService La file d'envoi asynchrone (null pour écrire directement)
+     */
+    public NotificationService(NotificationDAO notificationDAO, EnvoiNotificationsService envoiService) {
         this.notificationDAO = notificationDAO;
+        this.envoiService = envoiService;
+        this.compteurService = new CompteurNotificationsService(notificationDAO);
     }
     
     /**
      * Envoie une notification à une personne.
+     * La notification passe par la file d'envoi : l'appel revient sans attendre
+     * l'écriture en base, si bien qu'aucune notification n'est retournée (son ID
+     * n'existe pas encore). Les abonnés du bus reçoivent l'instance, dont l'ID et
+     * la date d'envoi sont renseignés à l'écriture.
      * 
      * @param message Le message de la notification
      * @param type Le type (RAPPEL, ALERTE, INFO)
      * @param priorite La priorité (HAUTE, MOYENNE, BASSE)
      * @param destinataire Le destinataire
-     * @return La notification créée
      */
-    public Notification envoyerNotification(String message, String type, String priorite, Personne destinataire) {
+    public void envoyerNotification(String message, String type, String priorite, Personne destinataire) {
         if (message == null || message.isEmpty()) {
             throw new IllegalArgumentException("Le message est requis");
         }
@@ -64,7 +103,13 @@ public class NotificationService {
         }
         
         try {
-            return notificationDAO.save(notification);
+            if (envoiService != null) {
+                envoiService.soumettre(notification);
+            } else if (notificationDAO.save(notification) == null) {
+                throw new IllegalStateException("La notification n'a pas été enregistrée");
+            }
+            compteurService.incrementer(destinataire.getId());
+            BUS.publish(destinataire.getId(), notification);
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de l'envoi de la notification: " + e.getMessage(), e);
         }
@@ -72,11 +117,13 @@ public class NotificationService {
     
     /**
      * Envoie un rappel de retour pour un emprunt.
+     * Un rappel déjà émis récemment pour le même emprunt est ignoré, et les
+     * rappels d'un même utilisateur proches dans le temps sont regroupés en
+     * un récapitulatif.
      * 
      * @param emprunt L'emprunt concerné
-     * @return La notification créée
      */
-    public Notification envoyerRappelRetour(Emprunt emprunt) {
+    public void envoyerRappelRetour(Emprunt emprunt) {
         if (emprunt == null) {
             throw new IllegalArgumentException("Emprunt ne peut pas être null");
         }
@@ -95,7 +142,9 @@ public class NotificationService {
         long joursRestants = java.time.temporal.ChronoUnit.DAYS.between(aujourdhui, dateRetour);
         
         String message;
+        String ligne;
         String priorite;
+        RegroupementRappelsService.GenreRappel genre;
         
         if (joursRestants < 0) {
             // En retard
@@ -105,38 +154,70 @@ public class NotificationService {
                 "Veuillez le retourner rapidement pour éviter des pénalités supplémentaires.",
                 titreDocument, joursRetard
             );
+            ligne = String.format("⚠️ '%s' : en retard de %d jour(s)", titreDocument, joursRetard);
             priorite = "HAUTE";
+            genre = RegroupementRappelsService.GenreRappel.RETARD;
         } else if (joursRestants <= 3) {
             // Bientôt en retard
             message = String.format(
                 "📚 RAPPEL - Le document '%s' doit être retourné dans %d jour(s).",
                 titreDocument, joursRestants
             );
+            ligne = String.format("📚 '%s' : à retourner dans %d jour(s)", titreDocument, joursRestants);
             priorite = "MOYENNE";
+            genre = RegroupementRappelsService.GenreRappel.BIENTOT;
         } else {
             // Rappel normal
             message = String.format(
                 "📖 RAPPEL - Le document '%s' doit être retourné le %s.",
                 titreDocument, dateRetour.toString()
             );
+            ligne = String.format("📖 '%s' : à retourner le %s", titreDocument, dateRetour.toString());
             priorite = "BASSE";
+            genre = RegroupementRappelsService.GenreRappel.ECHEANCE;
         }
         
-        return envoyerNotification(message, "RAPPEL", priorite, utilisateur);
+        if (regroupementService != null) {
+            if (regroupementService.estDoublon(utilisateur.getId(), emprunt.getId(), genre)) {
+                return;
+            }
+            if (regroupementService.differer(utilisateur, message, ligne, priorite)) {
+                return;
+            }
+        }
+        
+        envoyerNotification(message, "RAPPEL", priorite, utilisateur);
     }
     
     /**
      * Envoie une notification pour un nouveau document disponible.
+     * Les notifications sont insérées en masse, dans une seule transaction.
      * 
      * @param document Le nouveau document
      * @param utilisateurs Liste des utilisateurs à notifier
+     * @return Le nombre de notifications envoyées
      */
-    public void notifierNouveauDocument(Document document, List<Utilisateur> utilisateurs) {
+    public int notifierNouveauDocument(Document document, List<Utilisateur> utilisateurs) {
+        return diffuserNouveauDocument(document, utilisateurs, null).join();
+    }
+    
+    /**
+     * Annonce un nouveau document à de nombreux utilisateurs, en arrière-plan.
+     * Le message est construit une fois, puis inséré par lots multi-lignes
+     * dans une seule transaction : tout ou rien.
+     * 
+     * @param document Le nouveau document
+     * @param utilisateurs Liste des utilisateurs à notifier
+     * @param progression Suivi de l'avancement, appelé sur le thread de diffusion (peut être null)
+     * @return Le nombre de notifications envoyées, une fois la diffusion terminée
+     */
+    public CompletableFuture<Integer> diffuserNouveauDocument(Document document, List<Utilisateur> utilisateurs,
+                                                              NotificationDAO.Progression progression) {
         if (document == null) {
             throw new IllegalArgumentException("Document ne peut pas être null");
         }
         if (utilisateurs == null || utilisateurs.isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(0);
         }
         
         String message = String.format(
@@ -145,8 +226,58 @@ public class NotificationService {
             document.getAuteur()
         );
         
+        int[] idsDestinataires = new int[utilisateurs.size()];
+        for (int i = 0; i < idsDestinataires.length; i++) {
+            idsDestinataires[i] = utilisateurs.get(i).getId();
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            int envoyees = notificationDAO.saveEnMasse(message, "INFO", "BASSE", idsDestinataires, progression);
+            if (envoyees < 0) {
+                throw new RuntimeException("Erreur lors de la diffusion de la notification");
+            }
+            compteurService.incrementer(idsDestinataires);
+            publierDiffusion(message, utilisateurs);
+            return envoyees;
+        }, DIFFUSION);
+    }
+    
+    /**
+     * Retourne le bus des nouvelles notifications.
+     * L'interface y règle l'exécuteur de livraison (Platform::runLater).
+     * 
+     * @return Le bus partagé
+     */
+    public static KeyedEventBus<Notification> getBus() {
+        return BUS;
+    }
+    
+    /**
+     * Abonne une vue aux nouvelles notifications d'une personne : elles sont
+     * livrées par lots dès leur envoi, sans interroger la base.
+     * L'ID d'une notification est renseigné sur la même instance une fois écrite en base.
+     * 
+     * @param personne La personne dont on suit les notifications
+     * @param abonne Reçoit les nouvelles notifications
+     * @return L'abonnement, à fermer à la déconnexion
+     */
+    public KeyedEventBus.Subscription abonner(Personne personne, KeyedEventBus.Listener<Notification> abonne) {
+        if (personne == null) {
+            throw new IllegalArgumentException("Personne ne peut pas être null");
+        }
+        return BUS.subscribe(personne.getId(), abonne);
+    }
+    
+    /**
+     * Publie une diffusion en masse aux seuls destinataires abonnés (sessions ouvertes).
+     */
+    private static void publierDiffusion(String message, List<Utilisateur> utilisateurs) {
         for (Utilisateur utilisateur : utilisateurs) {
-            envoyerNotification(message, "INFO", "BASSE", utilisateur);
+            if (BUS.hasSubscribers(utilisateur.getId())) {
+                Notification notification = new Notification(message, "INFO", utilisateur);
+                notification.setPriorite("BASSE");
+                BUS.publish(utilisateur.getId(), notification);
+            }
         }
     }
     
@@ -156,9 +287,8 @@ public class NotificationService {
      * @param utilisateur L'utilisateur concerné
      * @param emprunt L'emprunt avec pénalité
      * @param montantPenalite Le montant de la pénalité
-     * @return La notification créée
      */
-    public Notification notifierPenalite(Utilisateur utilisateur, Emprunt emprunt, double montantPenalite) {
+    public void notifierPenalite(Utilisateur utilisateur, Emprunt emprunt, double montantPenalite) {
         if (utilisateur == null) {
             throw new IllegalArgumentException("Utilisateur ne peut pas être null");
         }
@@ -175,7 +305,49 @@ public class NotificationService {
             montantPenalite, titreDocument
         );
         
-        return envoyerNotification(message, "ALERTE", "HAUTE", utilisateur);
+        envoyerNotification(message, "ALERTE", "HAUTE", utilisateur);
+    }
+    
+    /**
+     * Prévient un utilisateur que le document qu'il a réservé l'attend.
+     * 
+     * @param utilisateur L'utilisateur ayant réservé
+     * @param document Le document mis de côté
+     * @param dateLimite Le dernier jour pour le retirer
+     */
+    public void notifierReservationDisponible(Utilisateur utilisateur, Document document, LocalDate dateLimite) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+        
+        String titreDocument = document != null && document.getTitre() != null ? document.getTitre() : "Document";
+        String message = String.format(
+            "📚 RÉSERVATION - Le document '%s' que vous avez réservé vous attend. " +
+            "Vous pouvez l'emprunter jusqu'au %s.",
+            titreDocument, dateLimite
+        );
+        
+        envoyerNotification(message, "ALERTE", "HAUTE", utilisateur);
+    }
+    
+    /**
+     * Prévient un utilisateur que sa réservation a expiré faute de retrait.
+     * 
+     * @param utilisateur L'utilisateur ayant réservé
+     * @param document Le document qui était mis de côté
+     */
+    public void notifierReservationExpiree(Utilisateur utilisateur, Document document) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+        
+        String titreDocument = document != null && document.getTitre() != null ? document.getTitre() : "Document";
+        String message = String.format(
+            "⏰ RÉSERVATION EXPIRÉE - Le document '%s' n'a pas été retiré à temps et a été remis en circulation.",
+            titreDocument
+        );
+        
+        envoyerNotification(message, "INFO", "MOYENNE", utilisateur);
     }
     
     /**
@@ -226,7 +398,7 @@ public class NotificationService {
         }
         
         try {
-            return notificationDAO.countNonLues(personne.getId());
+            return compteurService.getNombreNonLues(personne.getId());
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors du comptage: " + e.getMessage(), e);
         }
@@ -243,11 +415,16 @@ public class NotificationService {
             throw new IllegalArgumentException("Notification ne peut pas être null");
         }
         
+        boolean etaitNonLue = !notification.isEstLue();
         notification.setEstLue(true);
         notification.setDateLecture(LocalDateTime.now());
         
         try {
-            return notificationDAO.update(notification);
+            boolean misAJour = notificationDAO.update(notification);
+            if (misAJour && etaitNonLue && notification.getDestinataire() != null) {
+                compteurService.decrementer(notification.getDestinataire().getId());
+            }
+            return misAJour;
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la mise à jour: " + e.getMessage(), e);
         }
@@ -255,6 +432,8 @@ public class NotificationService {
     
     /**
      * Marque toutes les notifications d'une personne comme lues.
+     * Seul le filigrane "lu jusqu'à" de la personne est écrit, quel que soit
+     * le nombre de notifications.
      * 
      * @param personne La personne
      * @return Le nombre de notifications marquées comme lues
@@ -265,21 +444,31 @@ public class NotificationService {
         }
         
         try {
-            List<Notification> notificationsNonLues = getNotificationsNonLues(personne);
-            int count = 0;
-            
-            for (Notification notification : notificationsNonLues) {
-                if (marquerCommeLue(notification)) {
-                    count++;
-                }
+            int nonLues = compteurService.getNombreNonLues(personne.getId());
+            if (notificationDAO.marquerToutesCommeLues(personne.getId()) == 0) {
+                throw new IllegalStateException("Le filigrane de lecture n'a pas été enregistré");
             }
             
-            return count;
+            compteurService.remettreAZero(personne.getId());
+            return nonLues;
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la mise à jour: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Convertit les indicateurs de lecture existants en filigranes (migration en masse).
+     * 
+     * @return Le nombre de destinataires ayant un filigrane
+     */
+    public int migrerLectures() {
+        int destinataires = notificationDAO.migrerLectures();
+        if (destinataires < 0) {
+            throw new RuntimeException("Erreur lors de la migration des lectures de notifications");
+        }
+        return destinataires;
+    }
+    
     /**
      * Supprime une notification.
      * 
@@ -292,7 +481,11 @@ public class NotificationService {
         }
         
         try {
-            return notificationDAO.delete(notification.getId());
+            boolean supprimee = notificationDAO.delete(notification.getId());
+            if (supprimee && !notification.isEstLue() && notification.getDestinataire() != null) {
+                compteurService.decrementer(notification.getDestinataire().getId());
+            }
+            return supprimee;
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la suppression: " + e.getMessage(), e);
         }
@@ -6,11 +6,15 @@ import com.infinitpages.model.entity.Emprunt;
 import com.infinitpages.model.dao.PaiementDAO;
 import com.infinitpages.model.dao.UtilisateurDAO;
 import com.infinitpages.model.dao.EmpruntDAO;
+import com.infinitpages.model.dao.AgregatJournalierDAO;
+import com.infinitpages.model.dao.SoldeDAO.Mouvement;
 import com.infinitpages.model.dao.impl.PaiementDAOImpl;
 import com.infinitpages.model.dao.impl.UtilisateurDAOImpl;
 import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
+import com.infinitpages.model.dao.impl.AgregatJournalierDAOImpl;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,7 +25,7 @@ import java.util.Optional;
  * Responsabilités :
  * - Traiter les paiements (pénalités, frais d'emprunt)
  * - Valider les paiements
- * - Mettre à jour le solde utilisateur
+ * - Mettre à jour le solde utilisateur (mouvements du grand livre, voir SoldeService)
  * - Gérer l'historique des paiements
  * - Générer des références de paiement
  */
@@ -30,6 +34,8 @@ public class PaymentService {
     private PaiementDAO paiementDAO;
     private UtilisateurDAO utilisateurDAO;
     private EmpruntDAO empruntDAO;
+    private AgregatJournalierDAO agregatDAO;
+    private SoldeService soldeService;
     
     /**
      * Constructeur par défaut.
@@ -38,6 +44,8 @@ public class PaymentService {
         this.paiementDAO = new PaiementDAOImpl();
         this.utilisateurDAO = new UtilisateurDAOImpl();
         this.empruntDAO = new EmpruntDAOImpl();
+        this.agregatDAO = new AgregatJournalierDAOImpl();
+        this.soldeService = SoldeService.getInstance();
     }
     
     /**
@@ -46,11 +54,16 @@ public class PaymentService {
      * @param paiementDAO Le DAO Paiement à utiliser
      * @param utilisateurDAO Le DAO Utilisateur à utiliser
      * @param empruntDAO Le DAO Emprunt à utiliser
+     * @param agregatDAO Le DAO des agrégats journaliers à utiliser
+     * @param soldeService Le service des soldes à utiliser
      */
-    public PaymentService(PaiementDAO paiementDAO, UtilisateurDAO utilisateurDAO, EmpruntDAO empruntDAO) {
+    public PaymentService(PaiementDAO paiementDAO, UtilisateurDAO utilisateurDAO, EmpruntDAO empruntDAO,
+                          AgregatJournalierDAO agregatDAO, SoldeService soldeService) {
         this.paiementDAO = paiementDAO;
         this.utilisateurDAO = utilisateurDAO;
         this.empruntDAO = empruntDAO;
+        this.agregatDAO = agregatDAO;
+        this.soldeService = soldeService;
     }
     
     /**
@@ -94,11 +107,11 @@ public class PaymentService {
         paiement.setReference(reference);
         
         try {
-            // Sauvegarder le paiement
-            paiement = paiementDAO.save(paiement);
-            
-            // Mettre à jour le solde de l'utilisateur
-            mettreAJourSoldeUtilisateur(utilisateur, -penalite);
+            // Sauvegarder le paiement et son crédit au grand livre, dans la même transaction.
+            // La pénalité a été portée au solde au retour, ou chaque nuit par le traitement des retards
+            paiement = soldeService.enregistrerPaiement(paiement, List.of(
+                new Mouvement(utilisateur.getId(), -penalite, "PAIEMENT", null, emprunt.getId())));
+            utilisateur.setSoldeAPayer(utilisateur.getSoldeAPayer() - penalite);
             
             return paiement;
         } catch (Exception e) {
@@ -135,11 +148,10 @@ public class PaymentService {
         paiement.setReference(reference);
         
         try {
-            // Sauvegarder le paiement
-            paiement = paiementDAO.save(paiement);
-            
-            // Mettre à jour le solde de l'utilisateur
-            mettreAJourSoldeUtilisateur(utilisateur, -montant);
+            // Sauvegarder le paiement et créditer le solde de l'utilisateur, dans la même transaction
+            paiement = soldeService.enregistrerPaiement(paiement, List.of(
+                new Mouvement(utilisateur.getId(), -montant, "PAIEMENT", null, null)));
+            utilisateur.setSoldeAPayer(utilisateur.getSoldeAPayer() - montant);
             
             return paiement;
         } catch (Exception e) {
@@ -149,6 +161,8 @@ public class PaymentService {
     
     /**
      * Valide un paiement (change le statut à VALIDE).
+     * Le statut change par UPDATE conditionnel : un paiement validé deux fois
+     * (depuis deux postes) n'est compté qu'une fois dans les revenus.
      * 
      * @param paiement Le paiement à valider
      * @return true si la validation a réussi
@@ -162,38 +176,60 @@ public class PaymentService {
             throw new IllegalStateException("Seuls les paiements en attente peuvent être validés");
         }
         
-        paiement.setStatut("VALIDE");
-        
         try {
-            return paiementDAO.update(paiement);
+            // Le montant a été crédité au solde à l'enregistrement du paiement
+            boolean success = soldeService.changerStatutPaiement(paiement.getId(), "EN_ATTENTE", "VALIDE", List.of());
+            if (success) {
+                paiement.setStatut("VALIDE");
+                mettreAJourAgregat(paiement, 1);
+            }
+            return success;
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de la validation: " + e.getMessage(), e);
         }
     }
     
     /**
-     * Annule un paiement.
+     * Annule un paiement. Le montant, crédité au solde dès l'enregistrement du
+     * paiement, redevient dû, que le paiement ait été validé ou non ; le changement
+     * de statut et le mouvement d'annulation sont écrits dans la même transaction,
+     * par UPDATE conditionnel, si bien qu'une double annulation n'écrit rien.
      * 
      * @param paiement Le paiement à annuler
-     * @return true si l'annulation a réussi
+     * @return true si l'annulation a réussi (false si le paiement avait changé de statut entre-temps)
+     * @throws IllegalStateException Si le paiement est déjà annulé ou refusé
      */
     public boolean annulerPaiement(Paiement paiement) {
         if (paiement == null) {
             throw new IllegalArgumentException("Paiement ne peut pas être null");
         }
         
-        if ("VALIDE".equals(paiement.getStatut())) {
-            // Si le paiement était validé, rembourser l'utilisateur
-            Utilisateur utilisateur = paiement.getUtilisateur();
-            if (utilisateur != null) {
-                mettreAJourSoldeUtilisateur(utilisateur, paiement.getMontant());
-            }
+        String statut = paiement.getStatut();
+        if (!"EN_ATTENTE".equals(statut) && !"VALIDE".equals(statut)) {
+            throw new IllegalStateException("Seuls les paiements en attente ou validés peuvent être annulés");
         }
         
-        paiement.setStatut("ANNULE");
+        List<Mouvement> mouvements = new ArrayList<>();
+        Utilisateur utilisateur = paiement.getUtilisateur();
+        if (utilisateur != null) {
+            Integer idEmprunt = paiement.getEmprunt() != null ? paiement.getEmprunt().getId() : null;
+            mouvements.add(new Mouvement(utilisateur.getId(), paiement.getMontant(),
+                "ANNULATION_PAIEMENT", paiement.getId(), idEmprunt));
+        }
         
         try {
-            return paiementDAO.update(paiement);
+            boolean success = soldeService.changerStatutPaiement(paiement.getId(), statut, "ANNULE", mouvements);
+            if (success) {
+                paiement.setStatut("ANNULE");
+                if (utilisateur != null) {
+                    utilisateur.setSoldeAPayer(utilisateur.getSoldeAPayer() + paiement.getMontant());
+                }
+                if ("VALIDE".equals(statut)) {
+                    // Retirer le paiement des revenus déjà agrégés
+                    mettreAJourAgregat(paiement, -1);
+                }
+            }
+            return success;
         } catch (Exception e) {
             throw new RuntimeException("Erreur lors de l'annulation: " + e.getMessage(), e);
         }
@@ -275,19 +311,15 @@ public class PaymentService {
     }
     
     /**
-     * Met à jour le solde de l'utilisateur après un paiement.
-     * 
-     * @param utilisateur L'utilisateur
-     * @param montant Le montant (négatif pour déduire, positif pour ajouter)
+     * Répercute un paiement validé (sens = 1) ou annulé (sens = -1) sur les agrégats journaliers.
      */
-    private void mettreAJourSoldeUtilisateur(Utilisateur utilisateur, double montant) {
-        try {
-            double nouveauSolde = Math.max(0, utilisateur.getSoldeAPayer() + montant);
-            utilisateurDAO.updateSoldeAPayer(utilisateur.getId(), nouveauSolde);
-            utilisateur.setSoldeAPayer(nouveauSolde);
-        } catch (Exception e) {
-            throw new RuntimeException("Erreur lors de la mise à jour du solde: " + e.getMessage(), e);
+    private void mettreAJourAgregat(Paiement paiement, int sens) {
+        if (paiement.getUtilisateur() == null || paiement.getMethodePaiement() == null) {
+            return;
         }
+        LocalDate jour = paiement.getDatePaiement() != null ? paiement.getDatePaiement() : LocalDate.now();
+        agregatDAO.ajouterPaiement(jour, paiement.getUtilisateur().getId(), paiement.getMethodePaiement(),
+            sens, sens * paiement.getMontant());
     }
     
     /**
@@ -0,0 +1,308 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.NotificationDAO;
+import com.infinitpages.model.dao.NotificationDAO.Retention;
+import com.infinitpages.model.dao.impl.NotificationDAOImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service de rétention et de purge des notifications.
+ *
+ * Chaque couple type/priorité a une durée de conservation ; chaque nuit, les
+ * notifications plus anciennes sont supprimées par petits lots sur l'index
+ * (type, priorite, date_envoi), avec une courte pause entre les lots : aucune
+ * transaction ne garde de verrous longtemps et la table (avec l'index
+ * idx_destinataire) reste assez petite pour tenir dans le buffer pool.
+ *
+ * Les durées modifiées sont enregistrées (table politique_retention_notification)
+ * et relues avant chaque purge : elles valent pour tous les postes et survivent
+ * au redémarrage.
+ *
+ * L'avancement est exposé par {@link #getMetriques()}, y compris pendant la purge.
+ */
+public class PurgeNotificationsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurgeNotificationsService.class);
+
+    private static final int TAILLE_LOT = 1000;
+    private static final long PAUSE_ENTRE_LOTS_MS = 20;
+    private static final LocalTime HEURE_PURGE = LocalTime.of(3, 30);
+
+    private static final String[] TYPES = {"RAPPEL", "ALERTE", "INFO"};
+    private static final String[] PRIORITES = {"HAUTE", "MOYENNE", "BASSE"};
+
+    /**
+     * Durée de conservation des notifications d'un type et d'une priorité.
+     */
+    public record PolitiqueRetention(String type, String priorite, int jours) {}
+
+    /**
+     * Avancement de la purge en cours, ou bilan de la dernière purge.
+     */
+    public record MetriquesPurge(boolean enCours, LocalDateTime debut, LocalDateTime fin,
+                                 long supprimees, long lots, long dureeMs,
+                                 Map<String, Long> supprimeesParPolitique) {}
+
+    private static PurgeNotificationsService instance;
+
+    private final NotificationDAO notificationDAO;
+    private final Clock horloge;
+
+    // type|priorite -> jours de conservation
+    private final Map<String, Integer> retentions = new LinkedHashMap<>();
+
+    private ScheduledExecutorService planificateur;
+
+    // Métriques, lues pendant la purge par d'autres threads
+    private volatile boolean enCours;
+    private volatile LocalDateTime debut;
+    private volatile LocalDateTime fin;
+    private final AtomicLong supprimees = new AtomicLong();
+    private final AtomicLong lots = new AtomicLong();
+    private final Map<String, Long> supprimeesParPolitique = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized PurgeNotificationsService getInstance() {
+        if (instance == null) {
+            instance = new PurgeNotificationsService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public PurgeNotificationsService() {
+        this(new NotificationDAOImpl(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection du DAO et de l'horloge (pour les tests).
+     *
+     * @param notificationDAO Le DAO Notification à utiliser
+     * @param horloge L'horloge donnant la date courante
+     */
+    public PurgeNotificationsService(NotificationDAO notificationDAO, Clock horloge) {
+        this.notificationDAO = notificationDAO;
+        this.horloge = horloge;
+
+        // Politiques par défaut : informations courtes, alertes importantes longues
+        for (String priorite : PRIORITES) {
+            retentions.put(cle("INFO", priorite), 90);
+            retentions.put(cle("RAPPEL", priorite), 180);
+            retentions.put(cle("ALERTE", priorite), "HAUTE".equals(priorite) ? 730 : 365);
+        }
+    }
+
+    /**
+     * Charge les durées enregistrées et planifie une purge chaque nuit à 03h30.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        chargerRetentions();
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notifications-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LocalDateTime maintenant = LocalDateTime.now(horloge);
+        LocalDateTime prochain = maintenant.toLocalDate().atTime(HEURE_PURGE);
+        if (!prochain.isAfter(maintenant)) {
+            prochain = prochain.plusDays(1);
+        }
+
+        planificateur.scheduleAtFixedRate(this::purgerPlanifie,
+            Duration.between(maintenant, prochain).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête la purge planifiée. Une purge en cours s'arrête après son lot courant.
+     */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdownNow();
+            planificateur = null;
+        }
+    }
+
+    /**
+     * Retourne les politiques de rétention en vigueur.
+     *
+     * @return Liste des politiques, par type puis priorité
+     */
+    public synchronized List<PolitiqueRetention> getPolitiques() {
+        List<PolitiqueRetention> politiques = new ArrayList<>();
+        for (String type : TYPES) {
+            for (String priorite : PRIORITES) {
+                politiques.add(new PolitiqueRetention(type, priorite, retentions.get(cle(type, priorite))));
+            }
+        }
+        return politiques;
+    }
+
+    /**
+     * Modifie et enregistre la durée de conservation d'un type (toutes priorités si priorite est null).
+     *
+     * @param type Le type (RAPPEL, ALERTE, INFO)
+     * @param priorite La priorité (HAUTE, MOYENNE, BASSE), ou null pour toutes
+     * @param jours Le nombre de jours de conservation
+     */
+    public synchronized void definirRetention(String type, String priorite, int jours) {
+        if (type == null || !List.of(TYPES).contains(type)) {
+            throw new IllegalArgumentException("Type de notification invalide : " + type);
+        }
+        if (priorite != null && !List.of(PRIORITES).contains(priorite)) {
+            throw new IllegalArgumentException("Priorité invalide : " + priorite);
+        }
+        if (jours < 1) {
+            throw new IllegalArgumentException("La durée de conservation doit être d'au moins un jour");
+        }
+
+        List<Retention> modifiees = new ArrayList<>();
+        for (String p : PRIORITES) {
+            if (priorite == null || priorite.equals(p)) {
+                modifiees.add(new Retention(type, p, jours));
+            }
+        }
+        if (!notificationDAO.saveRetentions(modifiees)) {
+            throw new RuntimeException("Erreur lors de l'enregistrement de la durée de conservation");
+        }
+        for (Retention retention : modifiees) {
+            retentions.put(cle(retention.type(), retention.priorite()), retention.jours());
+        }
+    }
+
+    /**
+     * Relit les durées de conservation enregistrées, modifiées depuis n'importe quel poste.
+     * En cas d'erreur de lecture, les durées déjà connues restent en vigueur.
+     */
+    private synchronized void chargerRetentions() {
+        List<Retention> enregistrees = notificationDAO.findRetentions();
+        if (enregistrees == null) {
+            logger.warn("Durées de conservation non relues : les valeurs connues s'appliquent");
+            return;
+        }
+        for (Retention retention : enregistrees) {
+            retentions.put(cle(retention.type(), retention.priorite()), retention.jours());
+        }
+    }
+
+    /**
+     * Supprime les notifications dont la durée de conservation est dépassée.
+     *
+     * @return Le nombre de notifications supprimées
+     * @throws IllegalStateException Si une purge est déjà en cours
+     */
+    public long purger() {
+        synchronized (this) {
+            if (enCours) {
+                throw new IllegalStateException("Une purge des notifications est déjà en cours");
+            }
+            enCours = true;
+        }
+
+        long debutMs = System.currentTimeMillis();
+        LocalDateTime maintenant = LocalDateTime.now(horloge);
+        debut = maintenant;
+        fin = null;
+        supprimees.set(0);
+        lots.set(0);
+        supprimeesParPolitique.clear();
+
+        try {
+            chargerRetentions();
+            for (PolitiqueRetention politique : getPolitiques()) {
+                purger(politique, maintenant.minusDays(politique.jours()));
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+        } finally {
+            fin = LocalDateTime.now(horloge);
+            enCours = false;
+        }
+
+        logger.info("Purge des notifications : {} supprimées en {} lots, {} ms",
+            supprimees.get(), lots.get(), System.currentTimeMillis() - debutMs);
+        return supprimees.get();
+    }
+
+    /**
+     * Retourne l'avancement de la purge en cours ou le bilan de la dernière.
+     *
+     * @return Les métriques de purge
+     */
+    public MetriquesPurge getMetriques() {
+        LocalDateTime debutPurge = debut;
+        LocalDateTime finPurge = fin;
+        LocalDateTime reference = finPurge != null ? finPurge : LocalDateTime.now(horloge);
+        long dureeMs = debutPurge != null ? Duration.between(debutPurge, reference).toMillis() : 0;
+
+        Map<String, Long> parPolitique;
+        synchronized (supprimeesParPolitique) {
+            parPolitique = new LinkedHashMap<>(supprimeesParPolitique);
+        }
+        return new MetriquesPurge(enCours, debutPurge, finPurge, supprimees.get(), lots.get(), dureeMs, parPolitique);
+    }
+
+    private void purger(PolitiqueRetention politique, LocalDateTime avant) {
+        String cle = cle(politique.type(), politique.priorite());
+        int supprimeesLot;
+        do {
+            supprimeesLot = notificationDAO.deleteAnciennes(politique.type(), politique.priorite(), avant, TAILLE_LOT);
+            if (supprimeesLot < 0) {
+                throw new RuntimeException("Erreur lors de la purge des notifications " + cle);
+            }
+            supprimees.addAndGet(supprimeesLot);
+            lots.incrementAndGet();
+            supprimeesParPolitique.merge(cle, (long) supprimeesLot, Long::sum);
+
+            if (supprimeesLot == TAILLE_LOT) {
+                try {
+                    // Laisser passer les autres transactions entre deux lots
+                    Thread.sleep(PAUSE_ENTRE_LOTS_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } while (supprimeesLot == TAILLE_LOT);
+    }
+
+    private void purgerPlanifie() {
+        try {
+            purger();
+        } catch (Exception e) {
+            // Ne pas interrompre la planification : la nuit suivante réessaiera
+            logger.error("Échec de la purge des notifications", e);
+        }
+    }
+
+    private static String cle(String type, String priorite) {
+        return type + "|" + priorite;
+    }
+}
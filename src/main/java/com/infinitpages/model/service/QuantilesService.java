@@ -0,0 +1,357 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.QuantilesDAO;
+import com.infinitpages.model.dao.QuantilesDAO.DimensionsEmprunt;
+import com.infinitpages.model.dao.QuantilesDAO.SketchQuantiles;
+import com.infinitpages.model.dao.impl.QuantilesDAOImpl;
+import com.infinitpages.model.entity.Emprunt;
+import com.infinitpages.util.sketch.KllSketch;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service des quantiles de durée d'emprunt et de jours de retard (sketches KLL).
+ *
+ * Chaque retour ajoute sa durée et ses jours de retard aux sketches du jour,
+ * pour le type d'utilisateur et pour le genre du document. Les sketches
+ * journaliers sont persistés périodiquement (table sketch_quantiles), sous
+ * l'identifiant de poste de ce processus : plusieurs postes ne s'écrasent pas.
+ * Une période quelconque s'obtient en fusionnant les jours qu'elle couvre,
+ * de tous les postes, sans charger ni trier les emprunts.
+ *
+ * Erreur de rang d'environ 1,5 % (k = 200) ; minimum et maximum exacts.
+ */
+public class QuantilesService {
+
+    private static final long INTERVALLE_PERSISTANCE_MINUTES = 5;
+
+    private static QuantilesService instance;
+
+    private final QuantilesDAO quantilesDAO;
+    private final Clock horloge;
+
+    // Identifiant des lignes écrites par ce processus (un par lancement)
+    private final String poste = UUID.randomUUID().toString();
+
+    // Sketches des jours encore en mémoire : ils font foi sur la version en base
+    private final Map<Cle, KllSketch> sketches = new HashMap<>();
+    private final Set<Cle> modifies = new HashSet<>();
+    private ScheduledExecutorService planificateur;
+
+    private record Cle(String mesure, String dimension, String valeur, LocalDate jour) {
+    }
+
+    /**
+     * Résumé d'une distribution sur une période.
+     *
+     * @param nombre Nombre d'emprunts rendus
+     * @param mediane Médiane estimée
+     * @param p90 90e centile estimé
+     * @param maximum Valeur maximale (exacte)
+     */
+    public record Resume(long nombre, double mediane, double p90, double maximum) {
+    }
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized QuantilesService getInstance() {
+        if (instance == null) {
+            instance = new QuantilesService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public QuantilesService() {
+        this(new QuantilesDAOImpl(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection du DAO et de l'horloge (pour les tests).
+     *
+     * @param quantilesDAO Le DAO Quantiles à utiliser
+     * @param horloge L'horloge donnant le jour courant
+     */
+    public QuantilesService(QuantilesDAO quantilesDAO, Clock horloge) {
+        this.quantilesDAO = quantilesDAO;
+        this.horloge = horloge;
+    }
+
+    /**
+     * Lance la persistance périodique.
+     * Rien n'est rechargé : la fusion KLL n'est pas idempotente, et les sketches du jour
+     * écrits avant ce lancement restent en base sous leur propre poste.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "quantiles-persistance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(this::persister,
+            INTERVALLE_PERSISTANCE_MINUTES, INTERVALLE_PERSISTANCE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Arrête la persistance périodique et enregistre les derniers sketches.
+     */
+    public void arreter() {
+        synchronized (this) {
+            if (planificateur != null) {
+                planificateur.shutdown();
+                planificateur = null;
+            }
+        }
+        persister();
+    }
+
+    /**
+     * Enregistre un emprunt rendu.
+     * Le type d'utilisateur et le genre sont résolus en base s'ils ne sont pas chargés dans l'emprunt.
+     *
+     * @param emprunt L'emprunt rendu (date de retour effective renseignée)
+     */
+    public void enregistrerRetour(Emprunt emprunt) {
+        if (emprunt == null || emprunt.getDateRetourEffective() == null || emprunt.getDateEmprunt() == null) {
+            return;
+        }
+
+        String typeUtilisateur = null;
+        if (emprunt.getUtilisateur() != null && emprunt.getUtilisateur().getTypeUtilisateur() != null) {
+            typeUtilisateur = emprunt.getUtilisateur().getTypeUtilisateur().name();
+        }
+        String genre = null;
+        if (emprunt.getDocument() != null && emprunt.getDocument().getGenre() != null) {
+            genre = emprunt.getDocument().getGenre().name();
+        }
+        if ((typeUtilisateur == null || genre == null) && emprunt.getId() > 0) {
+            DimensionsEmprunt dimensions = quantilesDAO.findDimensions(emprunt.getId());
+            if (dimensions != null) {
+                typeUtilisateur = typeUtilisateur != null ? typeUtilisateur : dimensions.typeUtilisateur();
+                genre = genre != null ? genre : dimensions.genre();
+            }
+        }
+
+        long duree = ChronoUnit.DAYS.between(emprunt.getDateEmprunt(), emprunt.getDateRetourEffective());
+        long joursRetard = emprunt.calculerJoursRetard();
+
+        synchronized (this) {
+            ajouter(sketches, modifies, emprunt.getDateRetourEffective(), typeUtilisateur, genre, duree, joursRetard);
+        }
+    }
+
+    /**
+     * Enregistre en base les sketches modifiés depuis la dernière persistance
+     * et libère la mémoire des jours passés.
+     *
+     * @return Le nombre de sketches enregistrés
+     */
+    public int persister() {
+        List<SketchQuantiles> aEnregistrer = new ArrayList<>();
+        List<Cle> cles = new ArrayList<>();
+
+        synchronized (this) {
+            for (Cle cle : modifies) {
+                cles.add(cle);
+                aEnregistrer.add(new SketchQuantiles(cle.mesure(), cle.dimension(), cle.valeur(), cle.jour(),
+                    poste, sketches.get(cle).toBytes()));
+            }
+            modifies.clear();
+        }
+
+        if (!aEnregistrer.isEmpty() && !quantilesDAO.saveAll(aEnregistrer)) {
+            // Réessayer à la prochaine persistance
+            synchronized (this) {
+                modifies.addAll(cles);
+            }
+            return 0;
+        }
+
+        synchronized (this) {
+            LocalDate aujourdhui = LocalDate.now(horloge);
+            Iterator<Cle> it = sketches.keySet().iterator();
+            while (it.hasNext()) {
+                Cle cle = it.next();
+                if (cle.jour().isBefore(aujourdhui) && !modifies.contains(cle)) {
+                    it.remove();
+                }
+            }
+        }
+        return aEnregistrer.size();
+    }
+
+    /**
+     * Reconstruit les sketches d'une période à partir des emprunts rendus
+     * (rattrapage de l'historique ou correction).
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Le nombre d'emprunts pris en compte, ou -1 en cas d'erreur
+     */
+    public long reconstruire(LocalDate debut, LocalDate fin) {
+        verifierPeriode(debut, fin);
+
+        Map<Cle, KllSketch> reconstruits = new HashMap<>();
+        long nombre = quantilesDAO.parcourirRetours(debut, fin, (jour, typeUtilisateur, genre, duree, joursRetard) ->
+            ajouter(reconstruits, null, jour, typeUtilisateur, genre, duree, joursRetard));
+        if (nombre < 0) {
+            return -1;
+        }
+
+        List<SketchQuantiles> aEnregistrer = new ArrayList<>();
+        for (Map.Entry<Cle, KllSketch> entry : reconstruits.entrySet()) {
+            Cle cle = entry.getKey();
+            aEnregistrer.add(new SketchQuantiles(cle.mesure(), cle.dimension(), cle.valeur(), cle.jour(),
+                poste, entry.getValue().toBytes()));
+        }
+        if (!quantilesDAO.remplacer(debut, fin, aEnregistrer)) {
+            return -1;
+        }
+
+        synchronized (this) {
+            sketches.keySet().removeIf(cle -> dansPeriode(cle.jour(), debut, fin));
+            modifies.removeIf(cle -> dansPeriode(cle.jour(), debut, fin));
+            for (Map.Entry<Cle, KllSketch> entry : reconstruits.entrySet()) {
+                if (!entry.getKey().jour().isBefore(LocalDate.now(horloge))) {
+                    sketches.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return nombre;
+    }
+
+    /**
+     * Résume la durée des emprunts rendus sur une période, par type d'utilisateur.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Map type d'utilisateur → résumé
+     */
+    public Map<String, Resume> getDureesParTypeUtilisateur(LocalDate debut, LocalDate fin) {
+        return resumer(QuantilesDAO.MESURE_DUREE, QuantilesDAO.DIMENSION_TYPE_UTILISATEUR, debut, fin);
+    }
+
+    /**
+     * Résume la durée des emprunts rendus sur une période, par genre.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Map genre → résumé
+     */
+    public Map<String, Resume> getDureesParGenre(LocalDate debut, LocalDate fin) {
+        return resumer(QuantilesDAO.MESURE_DUREE, QuantilesDAO.DIMENSION_GENRE, debut, fin);
+    }
+
+    /**
+     * Résume les jours de retard des emprunts rendus sur une période, par type d'utilisateur.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Map type d'utilisateur → résumé
+     */
+    public Map<String, Resume> getRetardsParTypeUtilisateur(LocalDate debut, LocalDate fin) {
+        return resumer(QuantilesDAO.MESURE_RETARD, QuantilesDAO.DIMENSION_TYPE_UTILISATEUR, debut, fin);
+    }
+
+    /**
+     * Résume les jours de retard des emprunts rendus sur une période, par genre.
+     *
+     * @param debut Premier jour inclus
+     * @param fin Dernier jour inclus
+     * @return Map genre → résumé
+     */
+    public Map<String, Resume> getRetardsParGenre(LocalDate debut, LocalDate fin) {
+        return resumer(QuantilesDAO.MESURE_RETARD, QuantilesDAO.DIMENSION_GENRE, debut, fin);
+    }
+
+    private Map<String, Resume> resumer(String mesure, String dimension, LocalDate debut, LocalDate fin) {
+        verifierPeriode(debut, fin);
+
+        Map<String, KllSketch> fusions = new TreeMap<>();
+        List<SketchQuantiles> enBase = quantilesDAO.findByDimension(mesure, dimension, debut, fin);
+
+        synchronized (this) {
+            for (SketchQuantiles sketch : enBase) {
+                // Les lignes des autres postes s'ajoutent ; celles de ce poste sont en mémoire si le jour y est encore
+                Cle cle = new Cle(sketch.mesure(), sketch.dimension(), sketch.valeur(), sketch.jour());
+                if (!poste.equals(sketch.poste()) || !sketches.containsKey(cle)) {
+                    fusions.computeIfAbsent(sketch.valeur(), v -> new KllSketch())
+                        .merge(KllSketch.fromBytes(sketch.donnees()));
+                }
+            }
+            for (Map.Entry<Cle, KllSketch> entry : sketches.entrySet()) {
+                Cle cle = entry.getKey();
+                if (cle.mesure().equals(mesure) && cle.dimension().equals(dimension)
+                        && dansPeriode(cle.jour(), debut, fin)) {
+                    fusions.computeIfAbsent(cle.valeur(), v -> new KllSketch()).merge(entry.getValue());
+                }
+            }
+        }
+
+        Map<String, Resume> resumes = new TreeMap<>();
+        for (Map.Entry<String, KllSketch> entry : fusions.entrySet()) {
+            KllSketch sketch = entry.getValue();
+            double[] centiles = sketch.quantiles(new double[] {0.5, 0.9});
+            resumes.put(entry.getKey(), new Resume(sketch.getCount(), centiles[0], centiles[1], sketch.getMax()));
+        }
+        return resumes;
+    }
+
+    private static void ajouter(Map<Cle, KllSketch> cible, Set<Cle> modifies, LocalDate jour,
+                                String typeUtilisateur, String genre, long duree, long joursRetard) {
+        if (typeUtilisateur != null) {
+            ajouter(cible, modifies, new Cle(QuantilesDAO.MESURE_DUREE, QuantilesDAO.DIMENSION_TYPE_UTILISATEUR,
+                typeUtilisateur, jour), duree);
+            ajouter(cible, modifies, new Cle(QuantilesDAO.MESURE_RETARD, QuantilesDAO.DIMENSION_TYPE_UTILISATEUR,
+                typeUtilisateur, jour), joursRetard);
+        }
+        if (genre != null) {
+            ajouter(cible, modifies, new Cle(QuantilesDAO.MESURE_DUREE, QuantilesDAO.DIMENSION_GENRE, genre, jour), duree);
+            ajouter(cible, modifies, new Cle(QuantilesDAO.MESURE_RETARD, QuantilesDAO.DIMENSION_GENRE, genre, jour),
+                joursRetard);
+        }
+    }
+
+    private static void ajouter(Map<Cle, KllSketch> cible, Set<Cle> modifies, Cle cle, long valeur) {
+        cible.computeIfAbsent(cle, c -> new KllSketch()).add(valeur);
+        if (modifies != null) {
+            modifies.add(cle);
+        }
+    }
+
+    private static boolean dansPeriode(LocalDate jour, LocalDate debut, LocalDate fin) {
+        return !jour.isBefore(debut) && !jour.isAfter(fin);
+    }
+
+    private static void verifierPeriode(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates de la période ne peuvent pas être null");
+        }
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin doit suivre la date de début");
+        }
+    }
+}
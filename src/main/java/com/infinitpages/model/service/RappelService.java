@@ -0,0 +1,346 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.DocumentDAO;
+import com.infinitpages.model.dao.EmpruntDAO;
+import com.infinitpages.model.dao.RappelDAO;
+import com.infinitpages.model.dao.impl.DocumentDAOImpl;
+import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
+import com.infinitpages.model.dao.impl.RappelDAOImpl;
+import com.infinitpages.model.entity.Emprunt;
+import com.infinitpages.util.collections.IntIntHashMap;
+import com.infinitpages.util.scheduling.IntTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service des rappels de retour d'emprunt.
+ *
+ * Chaque emprunt non rendu a au plus deux rappels en attente :
+ * - "bientôt" : 3 jours avant la date de retour, à 9h ;
+ * - "retard" : le lendemain de la date de retour à 9h, puis chaque semaine
+ *   tant que le document n'est pas rendu.
+ *
+ * Les rappels sont gardés en mémoire dans une roue temporelle hiérarchique
+ * (insertion et annulation en O(1), quelques dizaines d'octets par rappel)
+ * que fait avancer un thread toutes les minutes : aucune requête de
+ * scrutation. La roue est alimentée au démarrage par un parcours en
+ * streaming des emprunts actifs, puis tenue à jour à chaque emprunt et retour.
+ *
+ * Chaque poste ouvert tient sa propre roue : avant d'envoyer un rappel échu,
+ * le poste le réserve en base (rappel_envoye, clé emprunt, type, jour
+ * d'échéance). Seul le poste qui obtient la réservation l'envoie.
+ */
+public class RappelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RappelService.class);
+
+    private static final long TICK_MS = TimeUnit.MINUTES.toMillis(1);
+    // 64 emplacements par niveau, 4 niveaux : 64^4 minutes, soit plus de 30 ans
+    private static final int BITS_ROUE = 6;
+    private static final int NIVEAUX_ROUE = 4;
+
+    private static final int JOURS_AVANT_ECHEANCE = 3;
+    private static final int JOURS_ENTRE_RELANCES = 7;
+    private static final LocalTime HEURE_RAPPEL = LocalTime.of(9, 0);
+    // Réservations gardées au-delà de la plus longue relance
+    private static final int JOURS_CONSERVATION_RESERVATIONS = 30;
+
+    private static final int RAPPEL_BIENTOT = 0;
+    private static final int RAPPEL_RETARD = 1;
+    private static final int ABSENT = -1;
+
+    private static RappelService instance;
+
+    private final EmpruntDAO empruntDAO;
+    private final DocumentDAO documentDAO;
+    private final RappelDAO rappelDAO;
+    private final NotificationService notificationService;
+    private final Clock horloge;
+
+    // Roue et index id emprunt -> handle, protégés par verrou
+    private final Object verrou = new Object();
+    private final IntTimingWheel roue;
+    private final IntIntHashMap rappelsBientot = new IntIntHashMap();
+    private final IntIntHashMap rappelsRetard = new IntIntHashMap();
+
+    private ScheduledExecutorService planificateur;
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized RappelService getInstance() {
+        if (instance == null) {
+            instance = new RappelService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public RappelService() {
+        this(new EmpruntDAOImpl(), new DocumentDAOImpl(), new RappelDAOImpl(), new NotificationService(),
+            Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection des dépendances et de l'horloge (pour les tests).
+     *
+     * @param empruntDAO Le DAO Emprunt à utiliser
+     * @param documentDAO Le DAO Document à utiliser
+     * @param rappelDAO Le DAO du journal des rappels envoyés
+     * @param notificationService Le service qui envoie les rappels
+     * @param horloge L'horloge donnant l'heure courante
+     */
+    public RappelService(EmpruntDAO empruntDAO, DocumentDAO documentDAO, RappelDAO rappelDAO,
+                         NotificationService notificationService, Clock horloge) {
+        this.empruntDAO = empruntDAO;
+        this.documentDAO = documentDAO;
+        this.rappelDAO = rappelDAO;
+        this.notificationService = notificationService;
+        this.horloge = horloge;
+        this.roue = new IntTimingWheel(TICK_MS, BITS_ROUE, NIVEAUX_ROUE, horloge.millis());
+    }
+
+    /**
+     * Charge les rappels des emprunts actifs puis fait avancer la roue chaque minute.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        recharger();
+        if (rappelDAO.purger(LocalDate.now(horloge).minusDays(JOURS_CONSERVATION_RESERVATIONS)) < 0) {
+            logger.warn("Échec de la purge des rappels envoyés");
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rappels-emprunts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleAtFixedRate(this::avancerPlanifie, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête l'envoi des rappels.
+     */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdown();
+            planificateur = null;
+        }
+    }
+
+    /**
+     * Reconstruit la roue à partir des emprunts actifs en base.
+     * Les rappels "bientôt" déjà passés sont ignorés ; les relances de retard
+     * reprennent à la prochaine échéance hebdomadaire.
+     *
+     * @return Le nombre de rappels planifiés
+     */
+    public int recharger() {
+        long debut = System.currentTimeMillis();
+        long maintenant = horloge.millis();
+
+        synchronized (verrou) {
+            roue.clear();
+            rappelsBientot.clear();
+            rappelsRetard.clear();
+
+            long parcourus = empruntDAO.parcourirActifs((idEmprunt, dateRetour) ->
+                planifierRappels(idEmprunt, dateRetour, maintenant));
+            if (parcourus < 0) {
+                throw new RuntimeException("Erreur lors du chargement des rappels d'emprunt");
+            }
+
+            logger.info("Rappels d'emprunt chargés : {} emprunts actifs, {} rappels en attente, {} ms",
+                parcourus, roue.size(), System.currentTimeMillis() - debut);
+            return roue.size();
+        }
+    }
+
+    /**
+     * Planifie (ou replanifie) les rappels d'un emprunt.
+     *
+     * @param emprunt L'emprunt enregistré
+     */
+    public void planifier(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("Emprunt ne peut pas être null");
+        }
+        if (emprunt.getId() <= 0 || emprunt.getDateRetour() == null || emprunt.getDateRetourEffective() != null) {
+            return;
+        }
+
+        synchronized (verrou) {
+            annulerRappels(emprunt.getId());
+            planifierRappels(emprunt.getId(), emprunt.getDateRetour(), horloge.millis());
+        }
+    }
+
+    /**
+     * Annule les rappels d'un emprunt (document rendu).
+     *
+     * @param idEmprunt L'identifiant de l'emprunt
+     */
+    public void annuler(int idEmprunt) {
+        synchronized (verrou) {
+            annulerRappels(idEmprunt);
+        }
+    }
+
+    /**
+     * @return Le nombre de rappels en attente dans la roue
+     */
+    public int getNombreRappelsEnAttente() {
+        synchronized (verrou) {
+            return roue.size();
+        }
+    }
+
+    /**
+     * Fait avancer la roue jusqu'à l'heure courante et envoie les rappels échus.
+     *
+     * @return Le nombre de rappels envoyés
+     */
+    public int avancer() {
+        Echus echus = new Echus();
+
+        synchronized (verrou) {
+            roue.advance(horloge.millis(), (handle, payload, echeance) -> {
+                int idEmprunt = payload >>> 1;
+                if ((payload & 1) == RAPPEL_BIENTOT) {
+                    rappelsBientot.remove(idEmprunt);
+                } else {
+                    // Relance hebdomadaire, annulée au retour du document
+                    long prochaine = echeance + TimeUnit.DAYS.toMillis(JOURS_ENTRE_RELANCES);
+                    rappelsRetard.put(idEmprunt, roue.schedule(prochaine, payload));
+                }
+                echus.ajouter(payload, echeance);
+            });
+        }
+
+        // Les accès base se font hors du verrou
+        int envoyes = 0;
+        for (int i = 0; i < echus.nombre; i++) {
+            if (envoyerRappel(echus.payloads[i], echus.echeances[i])) {
+                envoyes++;
+            }
+        }
+        return envoyes;
+    }
+
+    private void avancerPlanifie() {
+        try {
+            avancer();
+        } catch (Exception e) {
+            // Ne pas interrompre la planification : la minute suivante continuera
+            logger.error("Échec de l'envoi des rappels d'emprunt", e);
+        }
+    }
+
+    private boolean envoyerRappel(int payload, long echeance) {
+        int idEmprunt = payload >>> 1;
+        Optional<Emprunt> trouve = empruntDAO.findById(idEmprunt);
+        if (trouve.isEmpty() || trouve.get().getDateRetourEffective() != null) {
+            // Rendu entre-temps : plus de relance
+            annuler(idEmprunt);
+            return false;
+        }
+
+        // Un seul poste envoie chaque rappel : l'échéance, calculée depuis la date de retour,
+        // est la même sur tous les postes
+        String type = (payload & 1) == RAPPEL_BIENTOT ? "BIENTOT" : "RETARD";
+        LocalDate jour = Instant.ofEpochMilli(echeance).atZone(horloge.getZone()).toLocalDate();
+        int reserve = rappelDAO.reserver(idEmprunt, type, jour);
+        if (reserve <= 0) {
+            if (reserve < 0) {
+                logger.error("Rappel {} de l'emprunt {} non envoyé : réservation impossible", type, idEmprunt);
+            }
+            return false;
+        }
+
+        Emprunt emprunt = trouve.get();
+        if (emprunt.getDocument() != null) {
+            documentDAO.findById(emprunt.getDocument().getId()).ifPresent(emprunt::setDocument);
+        }
+
+        try {
+            notificationService.envoyerRappelRetour(emprunt);
+            return true;
+        } catch (Exception e) {
+            logger.error("Échec du rappel de l'emprunt {}", idEmprunt, e);
+            return false;
+        }
+    }
+
+    /**
+     * Planifie les rappels d'un emprunt. Appelé sous le verrou.
+     */
+    private void planifierRappels(int idEmprunt, LocalDate dateRetour, long maintenant) {
+        long bientot = versMillis(dateRetour.minusDays(JOURS_AVANT_ECHEANCE));
+        if (bientot > maintenant) {
+            rappelsBientot.put(idEmprunt, roue.schedule(bientot, (idEmprunt << 1) | RAPPEL_BIENTOT));
+        }
+
+        long retard = versMillis(dateRetour.plusDays(1));
+        if (retard < maintenant) {
+            // Déjà en retard : prochaine relance hebdomadaire
+            long periode = TimeUnit.DAYS.toMillis(JOURS_ENTRE_RELANCES);
+            retard += ((maintenant - retard) / periode + 1) * periode;
+        }
+        rappelsRetard.put(idEmprunt, roue.schedule(retard, (idEmprunt << 1) | RAPPEL_RETARD));
+    }
+
+    /**
+     * Annule les rappels d'un emprunt. Appelé sous le verrou.
+     */
+    private void annulerRappels(int idEmprunt) {
+        int handle = rappelsBientot.get(idEmprunt, ABSENT);
+        if (handle != ABSENT) {
+            roue.cancel(handle);
+            rappelsBientot.remove(idEmprunt);
+        }
+        handle = rappelsRetard.get(idEmprunt, ABSENT);
+        if (handle != ABSENT) {
+            roue.cancel(handle);
+            rappelsRetard.remove(idEmprunt);
+        }
+    }
+
+    private long versMillis(LocalDate jour) {
+        return jour.atTime(HEURE_RAPPEL).atZone(horloge.getZone()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Rappels échus (emprunt et type, échéance).
+     */
+    private static final class Echus {
+        private int[] payloads = new int[16];
+        private long[] echeances = new long[16];
+        private int nombre;
+
+        void ajouter(int payload, long echeance) {
+            if (nombre == payloads.length) {
+                payloads = Arrays.copyOf(payloads, nombre * 2);
+                echeances = Arrays.copyOf(echeances, nombre * 2);
+            }
+            payloads[nombre] = payload;
+            echeances[nombre++] = echeance;
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.RecommandationDAO;
+import com.infinitpages.model.dao.impl.RecommandationDAOImpl;
+import com.infinitpages.util.collections.IntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Service de recommandation "les lecteurs qui ont emprunté ce document ont aussi emprunté…".
+ *
+ * Recommandation item-à-item par co-occurrence : deux documents sont proches
+ * s'ils apparaissent chez les mêmes lecteurs (emprunts et listes de lecture).
+ * Score = co-occurrences / sqrt(popularité(a) × popularité(b)) (similarité cosinus).
+ *
+ * Fonctionnement :
+ * - reconstruire() recalcule tout l'index en parallèle (fork/join) depuis la base
+ * - enregistrerEmprunt() met à jour l'index au fil des nouveaux emprunts
+ * - getDocumentsSimilaires() est une simple lecture en mémoire (temps constant)
+ *
+ * Les mises à jour incrémentales ne renormalisent que les paires touchées ;
+ * demarrer() reconstruit l'index au lancement puis chaque nuit, ce qui corrige
+ * la dérive des autres scores.
+ */
+public class RecommandationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommandationService.class);
+
+    private static final int TAILLE_TOP_N_DEFAUT = 10;
+
+    private static final LocalTime HEURE_RECONSTRUCTION = LocalTime.of(4, 0);
+
+    // Nombre de documents traités par tâche fork/join
+    private static final int SEUIL_TACHE = 256;
+
+    private static RecommandationService instance;
+
+    private final RecommandationDAO recommandationDAO;
+    private final int tailleTopN;
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    // Index courant (protégé par verrou)
+    private IntObjectHashMap<int[]> documentsParUtilisateur = new IntObjectHashMap<>();
+    private IntObjectHashMap<int[]> utilisateursParDocument = new IntObjectHashMap<>();
+    private IntObjectHashMap<Voisinage> voisinages = new IntObjectHashMap<>();
+
+    // Emprunts reçus pendant une reconstruction, rejoués ensuite sur le nouvel index
+    private boolean reconstructionEnCours;
+    private long[] journal = new long[64];
+    private int tailleJournal;
+
+    private ScheduledExecutorService planificateur;
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized RecommandationService getInstance() {
+        if (instance == null) {
+            instance = new RecommandationService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public RecommandationService() {
+        this(new RecommandationDAOImpl(), TAILLE_TOP_N_DEFAUT);
+    }
+
+    /**
+     * Constructeur avec injection du DAO (pour les tests).
+     *
+     * @param recommandationDAO Le DAO Recommandation à utiliser
+     * @param tailleTopN Nombre de documents similaires conservés par document
+     */
+    public RecommandationService(RecommandationDAO recommandationDAO, int tailleTopN) {
+        if (tailleTopN <= 0) {
+            throw new IllegalArgumentException("La taille du top N doit être positive");
+        }
+        this.recommandationDAO = recommandationDAO;
+        this.tailleTopN = tailleTopN;
+    }
+
+    /**
+     * Lance la construction de l'index en arrière-plan, puis planifie
+     * une reconstruction chaque nuit à 04h00.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "recommandations");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LocalDateTime maintenant = LocalDateTime.now();
+        LocalDateTime prochain = maintenant.toLocalDate().atTime(HEURE_RECONSTRUCTION);
+        if (!prochain.isAfter(maintenant)) {
+            prochain = prochain.plusDays(1);
+        }
+
+        // Index vide jusqu'à la fin de la première construction : getDocumentsSimilaires ne renvoie rien
+        planificateur.execute(this::reconstruirePlanifie);
+        planificateur.scheduleAtFixedRate(this::reconstruirePlanifie,
+            Duration.between(maintenant, prochain).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête la reconstruction planifiée.
+     */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdown();
+            planificateur = null;
+        }
+    }
+
+    /**
+     * Récupère les documents les plus souvent empruntés avec un document donné.
+     *
+     * @param idDocument L'identifiant du document
+     * @return Les identifiants des documents similaires, du plus proche au moins proche
+     */
+    public int[] getDocumentsSimilaires(int idDocument) {
+        return getDocumentsSimilaires(idDocument, tailleTopN);
+    }
+
+    /**
+     * Récupère au plus limit documents similaires à un document donné.
+     *
+     * @param idDocument L'identifiant du document
+     * @param limit Nombre maximum de résultats
+     * @return Les identifiants des documents similaires, du plus proche au moins proche
+     */
+    public int[] getDocumentsSimilaires(int idDocument, int limit) {
+        verrou.readLock().lock();
+        try {
+            Voisinage voisinage = voisinages.get(idDocument);
+            if (voisinage == null) {
+                return new int[0];
+            }
+            return Arrays.copyOf(voisinage.ids, Math.min(limit, voisinage.taille));
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * Enregistre un nouvel emprunt (ou un ajout en liste de lecture) dans l'index.
+     * Sans effet si l'utilisateur avait déjà ce document.
+     *
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @param idDocument L'identifiant du document
+     */
+    public void enregistrerEmprunt(int idUtilisateur, int idDocument) {
+        if (idUtilisateur <= 0 || idDocument <= 0) {
+            return;
+        }
+
+        verrou.writeLock().lock();
+        try {
+            appliquer(idUtilisateur, idDocument);
+            if (reconstructionEnCours) {
+                if (tailleJournal == journal.length) {
+                    journal = Arrays.copyOf(journal, journal.length * 2);
+                }
+                journal[tailleJournal++] = paquet(idUtilisateur, idDocument);
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruit entièrement l'index depuis la base de données.
+     * Le calcul des voisinages est réparti sur le pool fork/join commun ;
+     * les lectures restent servies par l'ancien index jusqu'à la bascule.
+     *
+     * @return Le nombre de documents indexés, ou -1 si une reconstruction est déjà en cours
+     */
+    public int reconstruire() {
+        verrou.writeLock().lock();
+        try {
+            if (reconstructionEnCours) {
+                return -1;
+            }
+            reconstructionEnCours = true;
+            tailleJournal = 0;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+
+        try {
+            Index index = construireIndex();
+
+            verrou.writeLock().lock();
+            try {
+                documentsParUtilisateur = index.documentsParUtilisateur;
+                utilisateursParDocument = index.utilisateursParDocument;
+                voisinages = index.voisinages;
+
+                // Rejouer les emprunts arrivés pendant le calcul
+                for (int i = 0; i < tailleJournal; i++) {
+                    appliquer((int) (journal[i] >>> 32), (int) journal[i]);
+                }
+                return voisinages.size();
+            } finally {
+                verrou.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors de la reconstruction des recommandations: " + e.getMessage(), e);
+        } finally {
+            verrou.writeLock().lock();
+            try {
+                reconstructionEnCours = false;
+                tailleJournal = 0;
+            } finally {
+                verrou.writeLock().unlock();
+            }
+        }
+    }
+
+    private void reconstruirePlanifie() {
+        try {
+            int documents = reconstruire();
+            if (documents >= 0) {
+                logger.info("Index des recommandations : {} documents", documents);
+            }
+        } catch (Exception e) {
+            // Ne pas interrompre la planification : l'index courant reste servi
+            logger.error("Échec de la reconstruction des recommandations", e);
+        }
+    }
+
+    /**
+     * Applique un emprunt à l'index courant (appelé sous verrou d'écriture).
+     */
+    private void appliquer(int idUtilisateur, int idDocument) {
+        int[] documents = documentsParUtilisateur.get(idUtilisateur);
+        if (documents != null && Arrays.binarySearch(documents, idDocument) >= 0) {
+            return;
+        }
+        documentsParUtilisateur.put(idUtilisateur, insererTrie(documents, idDocument));
+
+        int[] lecteurs = insererTrie(utilisateursParDocument.get(idDocument), idUtilisateur);
+        utilisateursParDocument.put(idDocument, lecteurs);
+
+        if (documents == null) {
+            return;
+        }
+
+        // Seules les paires (document, autre document de l'utilisateur) changent
+        for (int autre : documents) {
+            int[] lecteursAutre = utilisateursParDocument.get(autre);
+            if (lecteursAutre == null) {
+                continue;
+            }
+            int communs = tailleIntersection(lecteurs, lecteursAutre);
+            float score = (float) (communs / Math.sqrt((double) lecteurs.length * lecteursAutre.length));
+            voisinage(idDocument).proposer(autre, score);
+            voisinage(autre).proposer(idDocument, score);
+        }
+    }
+
+    private Voisinage voisinage(int idDocument) {
+        Voisinage voisinage = voisinages.get(idDocument);
+        if (voisinage == null) {
+            voisinage = new Voisinage(tailleTopN);
+            voisinages.put(idDocument, voisinage);
+        }
+        return voisinage;
+    }
+
+    /**
+     * Construit un index complet hors verrou.
+     * Les paires sont triées puis rangées en tableaux compressés (format CSR)
+     * pour que le calcul parallèle ne travaille que sur des tableaux d'entiers.
+     */
+    private Index construireIndex() {
+        // 1. Charger les paires (utilisateur << 32 | document)
+        long[][] tampon = { new long[1 << 16] };
+        int[] taille = { 0 };
+        recommandationDAO.parcourirPaires((idUtilisateur, idDocument) -> {
+            if (taille[0] == tampon[0].length) {
+                tampon[0] = Arrays.copyOf(tampon[0], tampon[0].length * 2);
+            }
+            tampon[0][taille[0]++] = paquet(idUtilisateur, idDocument);
+        });
+        long[] paires = Arrays.copyOf(tampon[0], taille[0]);
+        Arrays.parallelSort(paires);
+        int nbPaires = dedoublonner(paires);
+
+        // 2. Utilisateurs distincts et leurs documents (CSR utilisateur -> documents)
+        int nbUtilisateurs = 0;
+        for (int i = 0; i < nbPaires; i++) {
+            if (i == 0 || (paires[i] >>> 32) != (paires[i - 1] >>> 32)) {
+                nbUtilisateurs++;
+            }
+        }
+        int[] idsUtilisateurs = new int[nbUtilisateurs];
+        int[] debutsUtilisateurs = new int[nbUtilisateurs + 1];
+        int[] documentsBruts = new int[nbPaires];
+        int u = -1;
+        for (int i = 0; i < nbPaires; i++) {
+            int idUtilisateur = (int) (paires[i] >>> 32);
+            if (u < 0 || idsUtilisateurs[u] != idUtilisateur) {
+                idsUtilisateurs[++u] = idUtilisateur;
+                debutsUtilisateurs[u] = i;
+            }
+            documentsBruts[i] = (int) paires[i];
+        }
+        debutsUtilisateurs[nbUtilisateurs] = nbPaires;
+        paires = null;
+
+        // 3. Documents distincts, renumérotés de 0 à D-1
+        int[] idsDocuments = documentsBruts.clone();
+        Arrays.parallelSort(idsDocuments);
+        int nbDocuments = dedoublonner(idsDocuments);
+        idsDocuments = Arrays.copyOf(idsDocuments, nbDocuments);
+
+        int[] documentsParUtil = new int[nbPaires];
+        int[] popularite = new int[nbDocuments];
+        for (int i = 0; i < nbPaires; i++) {
+            int d = Arrays.binarySearch(idsDocuments, documentsBruts[i]);
+            documentsParUtil[i] = d;
+            popularite[d]++;
+        }
+
+        // 4. CSR document -> utilisateurs (indices d'utilisateurs triés)
+        int[] debutsDocuments = new int[nbDocuments + 1];
+        for (int d = 0; d < nbDocuments; d++) {
+            debutsDocuments[d + 1] = debutsDocuments[d] + popularite[d];
+        }
+        int[] utilisateursParDoc = new int[nbPaires];
+        int[] curseurs = Arrays.copyOf(debutsDocuments, nbDocuments);
+        for (int k = 0; k < nbUtilisateurs; k++) {
+            for (int i = debutsUtilisateurs[k]; i < debutsUtilisateurs[k + 1]; i++) {
+                utilisateursParDoc[curseurs[documentsParUtil[i]]++] = k;
+            }
+        }
+
+        // 5. Voisinages en parallèle ; les tampons de comptage ne vivent que le temps de la construction
+        Voisinage[] resultats = new Voisinage[nbDocuments];
+        Graphe graphe = new Graphe(debutsUtilisateurs, documentsParUtil, debutsDocuments,
+                                   utilisateursParDoc, popularite, resultats,
+                                   new ConcurrentLinkedQueue<>());
+        ForkJoinPool.commonPool().invoke(new CalculVoisinages(graphe, tailleTopN, 0, nbDocuments));
+
+        // 6. Index final indexé par identifiants réels
+        Index index = new Index(nbUtilisateurs, nbDocuments);
+        for (int k = 0; k < nbUtilisateurs; k++) {
+            index.documentsParUtilisateur.put(idsUtilisateurs[k],
+                Arrays.copyOfRange(documentsBruts, debutsUtilisateurs[k], debutsUtilisateurs[k + 1]));
+        }
+        for (int d = 0; d < nbDocuments; d++) {
+            int[] lecteurs = new int[popularite[d]];
+            for (int i = 0; i < lecteurs.length; i++) {
+                lecteurs[i] = idsUtilisateurs[utilisateursParDoc[debutsDocuments[d] + i]];
+            }
+            index.utilisateursParDocument.put(idsDocuments[d], lecteurs);
+
+            Voisinage voisinage = resultats[d];
+            if (voisinage != null && voisinage.taille > 0) {
+                for (int i = 0; i < voisinage.taille; i++) {
+                    voisinage.ids[i] = idsDocuments[voisinage.ids[i]];
+                }
+                index.voisinages.put(idsDocuments[d], voisinage);
+            }
+        }
+        return index;
+    }
+
+    private static long paquet(int haut, int bas) {
+        return ((long) haut << 32) | (bas & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Supprime les doublons d'un tableau trié en place.
+     *
+     * @return Le nombre d'éléments distincts (en tête de tableau)
+     */
+    private static int dedoublonner(long[] trie) {
+        int n = 0;
+        for (int i = 0; i < trie.length; i++) {
+            if (i == 0 || trie[i] != trie[n - 1]) {
+                trie[n++] = trie[i];
+            }
+        }
+        return n;
+    }
+
+    private static int dedoublonner(int[] trie) {
+        int n = 0;
+        for (int i = 0; i < trie.length; i++) {
+            if (i == 0 || trie[i] != trie[n - 1]) {
+                trie[n++] = trie[i];
+            }
+        }
+        return n;
+    }
+
+    private static int[] insererTrie(int[] trie, int valeur) {
+        if (trie == null) {
+            return new int[] { valeur };
+        }
+        int position = Arrays.binarySearch(trie, valeur);
+        if (position >= 0) {
+            return trie;
+        }
+        position = -position - 1;
+        int[] resultat = new int[trie.length + 1];
+        System.arraycopy(trie, 0, resultat, 0, position);
+        resultat[position] = valeur;
+        System.arraycopy(trie, position, resultat, position + 1, trie.length - position);
+        return resultat;
+    }
+
+    private static int tailleIntersection(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int communs = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                communs++;
+                i++;
+                j++;
+            }
+        }
+        return communs;
+    }
+
+    /**
+     * Top N des voisins d'un document, trié par score décroissant.
+     */
+    private static final class Voisinage {
+        final int[] ids;
+        final float[] scores;
+        int taille;
+
+        Voisinage(int capacite) {
+            this.ids = new int[capacite];
+            this.scores = new float[capacite];
+        }
+
+        void proposer(int id, float score) {
+            int position = -1;
+            for (int i = 0; i < taille; i++) {
+                if (ids[i] == id) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                if (taille < ids.length) {
+                    position = taille++;
+                } else if (score > scores[taille - 1]) {
+                    position = taille - 1;
+                } else {
+                    return;
+                }
+            }
+            ids[position] = id;
+            scores[position] = score;
+
+            // Tri par insertion : le tableau est petit et presque trié
+            while (position > 0 && scores[position - 1] < scores[position]) {
+                echanger(position - 1, position);
+                position--;
+            }
+            while (position < taille - 1 && scores[position + 1] > scores[position]) {
+                echanger(position, position + 1);
+                position++;
+            }
+        }
+
+        private void echanger(int i, int j) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Graphe biparti utilisateurs/documents en tableaux compressés (indices denses),
+     * avec les tampons de comptage libres de la construction en cours (au plus un par
+     * tâche en cours d'exécution, libérés avec le graphe).
+     */
+    private record Graphe(int[] debutsUtilisateurs, int[] documentsParUtil,
+                          int[] debutsDocuments, int[] utilisateursParDoc,
+                          int[] popularite, Voisinage[] resultats,
+                          Queue<int[][]> tampons) {
+    }
+
+    /**
+     * Calcule les voisinages d'une plage de documents, en la découpant tant qu'elle est trop grande.
+     */
+    private static final class CalculVoisinages extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Graphe graphe;
+        private final int tailleTopN;
+        private final int debut;
+        private final int fin;
+
+        CalculVoisinages(Graphe graphe, int tailleTopN, int debut, int fin) {
+            this.graphe = graphe;
+            this.tailleTopN = tailleTopN;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut > SEUIL_TACHE) {
+                int milieu = (debut + fin) >>> 1;
+                invokeAll(new CalculVoisinages(graphe, tailleTopN, debut, milieu),
+                          new CalculVoisinages(graphe, tailleTopN, milieu, fin));
+                return;
+            }
+
+            // Compteurs denses empruntés à la construction, remis à zéro au fil de l'eau
+            int[][] tampon = graphe.tampons.poll();
+            if (tampon == null) {
+                tampon = new int[2][graphe.popularite.length];
+            }
+            int[] compteurs = tampon[0];
+            int[] touches = tampon[1];
+
+            for (int d = debut; d < fin; d++) {
+                int nbTouches = 0;
+                for (int i = graphe.debutsDocuments[d]; i < graphe.debutsDocuments[d + 1]; i++) {
+                    int u = graphe.utilisateursParDoc[i];
+                    for (int j = graphe.debutsUtilisateurs[u]; j < graphe.debutsUtilisateurs[u + 1]; j++) {
+                        int autre = graphe.documentsParUtil[j];
+                        if (autre != d && compteurs[autre]++ == 0) {
+                            touches[nbTouches++] = autre;
+                        }
+                    }
+                }
+                if (nbTouches == 0) {
+                    continue;
+                }
+
+                Voisinage voisinage = new Voisinage(tailleTopN);
+                for (int t = 0; t < nbTouches; t++) {
+                    int autre = touches[t];
+                    float score = (float) (compteurs[autre]
+                        / Math.sqrt((double) graphe.popularite[d] * graphe.popularite[autre]));
+                    voisinage.proposer(autre, score);
+                    compteurs[autre] = 0;
+                }
+                graphe.resultats[d] = voisinage;
+            }
+            graphe.tampons.offer(tampon);
+        }
+    }
+
+    /**
+     * Index complet construit hors verrou puis publié d'un bloc.
+     */
+    private static final class Index {
+        final IntObjectHashMap<int[]> documentsParUtilisateur;
+        final IntObjectHashMap<int[]> utilisateursParDocument;
+        final IntObjectHashMap<Voisinage> voisinages;
+
+        Index(int nbUtilisateurs, int nbDocuments) {
+            this.documentsParUtilisateur = new IntObjectHashMap<>(nbUtilisateurs);
+            this.utilisateursParDocument = new IntObjectHashMap<>(nbDocuments);
+            this.voisinages = new IntObjectHashMap<>(nbDocuments);
+        }
+    }
+}
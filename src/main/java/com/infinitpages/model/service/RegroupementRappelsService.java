@@ -0,0 +1,287 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.entity.Personne;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regroupement et dédoublonnage des rappels de retour.
+ *
+ * Les rappels d'un même destinataire arrivés dans une fenêtre de quelques
+ * minutes sont fusionnés en un seul récapitulatif : un lecteur avec cinq
+ * emprunts en retard reçoit une notification au lieu de cinq.
+ *
+ * Un rappel déjà émis pour le même (destinataire, emprunt, genre de rappel)
+ * est ignoré pendant une durée donnée, ce qui rend sans effet la relance
+ * d'une passe de rappels. Les clés sont gardées dans un ensemble à
+ * expiration : l'ordre d'insertion est l'ordre d'expiration, il suffit de
+ * retirer les plus anciennes en tête.
+ *
+ * Tant que le service n'est pas démarré, les rappels sont dédoublonnés mais
+ * envoyés immédiatement. À l'arrêt, les récapitulatifs en attente sont envoyés.
+ */
+public class RegroupementRappelsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegroupementRappelsService.class);
+
+    /**
+     * Genres de rappel, pour le dédoublonnage.
+     */
+    public enum GenreRappel { RETARD, BIENTOT, ECHEANCE }
+
+    private static final Duration FENETRE_DEFAUT = Duration.ofMinutes(10);
+    private static final Duration DEDOUBLONNAGE_DEFAUT = Duration.ofHours(20);
+
+    private static RegroupementRappelsService instance;
+
+    private final Clock horloge;
+    private NotificationService emetteur;
+
+    private Duration fenetre = FENETRE_DEFAUT;
+    private Duration dureeDedoublonnage = DEDOUBLONNAGE_DEFAUT;
+
+    // Ensemble à expiration : clé (destinataire, emprunt, genre) -> instant d'émission
+    private final LinkedHashMap<Long, Long> dejaEmis = new LinkedHashMap<>();
+
+    // Rappels en attente par destinataire
+    private final Map<Integer, Recapitulatif> enAttente = new HashMap<>();
+
+    private ScheduledExecutorService planificateur;
+    private long doublonsIgnores;
+    private long rappelsRegroupes;
+
+    /**
+     * Rappels d'un destinataire en attente d'envoi.
+     */
+    private static final class Recapitulatif {
+        private final Personne destinataire;
+        private final List<String> messages = new ArrayList<>();
+        private final List<String> lignes = new ArrayList<>();
+        private String priorite;
+
+        Recapitulatif(Personne destinataire) {
+            this.destinataire = destinataire;
+        }
+    }
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized RegroupementRappelsService getInstance() {
+        if (instance == null) {
+            instance = new RegroupementRappelsService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public RegroupementRappelsService() {
+        this(null, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection de l'émetteur et de l'horloge (pour les tests).
+     *
+     * @param emetteur Le service qui envoie les récapitulatifs (null : créé au premier envoi)
+     * @param horloge L'horloge utilisée pour l'expiration des doublons
+     */
+    public RegroupementRappelsService(NotificationService emetteur, Clock horloge) {
+        this.emetteur = emetteur;
+        this.horloge = horloge;
+    }
+
+    /**
+     * Démarre le regroupement des rappels.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rappels-regroupement");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Arrête le regroupement et envoie les récapitulatifs en attente.
+     */
+    public void arreter() {
+        List<Integer> destinataires;
+        synchronized (this) {
+            if (planificateur == null) {
+                return;
+            }
+            planificateur.shutdownNow();
+            planificateur = null;
+            destinataires = new ArrayList<>(enAttente.keySet());
+        }
+
+        for (int idDestinataire : destinataires) {
+            vider(idDestinataire);
+        }
+        logger.info("Regroupement des rappels arrêté : {} rappels regroupés, {} doublons ignorés",
+            rappelsRegroupes, doublonsIgnores);
+    }
+
+    /**
+     * Modifie la fenêtre de regroupement.
+     *
+     * @param fenetre Durée pendant laquelle les rappels d'un destinataire sont regroupés
+     */
+    public synchronized void setFenetre(Duration fenetre) {
+        if (fenetre == null || fenetre.isNegative()) {
+            throw new IllegalArgumentException("Fenêtre de regroupement invalide");
+        }
+        this.fenetre = fenetre;
+    }
+
+    /**
+     * Modifie la durée pendant laquelle un rappel identique est ignoré.
+     *
+     * @param dureeDedoublonnage La durée de dédoublonnage
+     */
+    public synchronized void setDureeDedoublonnage(Duration dureeDedoublonnage) {
+        if (dureeDedoublonnage == null || dureeDedoublonnage.isNegative()) {
+            throw new IllegalArgumentException("Durée de dédoublonnage invalide");
+        }
+        this.dureeDedoublonnage = dureeDedoublonnage;
+    }
+
+    /**
+     * Indique si un rappel a déjà été émis récemment, et l'enregistre sinon.
+     *
+     * @param idDestinataire L'identifiant du destinataire
+     * @param idEmprunt L'identifiant de l'emprunt
+     * @param genre Le genre de rappel
+     * @return true si le rappel est un doublon à ignorer
+     */
+    public synchronized boolean estDoublon(int idDestinataire, int idEmprunt, GenreRappel genre) {
+        long maintenant = horloge.millis();
+        long expiration = maintenant - dureeDedoublonnage.toMillis();
+
+        // Retirer les clés expirées, toutes en tête de l'ensemble
+        Iterator<Long> instants = dejaEmis.values().iterator();
+        while (instants.hasNext() && instants.next() <= expiration) {
+            instants.remove();
+        }
+
+        // 31 bits de destinataire, 31 bits d'emprunt, 2 bits de genre
+        long cle = ((long) idDestinataire << 33) | ((long) idEmprunt << 2) | genre.ordinal();
+        if (dejaEmis.containsKey(cle)) {
+            doublonsIgnores++;
+            return true;
+        }
+        dejaEmis.put(cle, maintenant);
+        return false;
+    }
+
+    /**
+     * Met un rappel en attente dans le récapitulatif de son destinataire.
+     *
+     * @param destinataire Le destinataire
+     * @param message Le message envoyé si le rappel reste seul
+     * @param ligne La ligne du rappel dans un récapitulatif
+     * @param priorite La priorité du rappel
+     * @return false si le service n'est pas démarré (le rappel doit être envoyé directement)
+     */
+    public synchronized boolean differer(Personne destinataire, String message, String ligne, String priorite) {
+        if (planificateur == null) {
+            return false;
+        }
+
+        int idDestinataire = destinataire.getId();
+        Recapitulatif recapitulatif = enAttente.get(idDestinataire);
+        if (recapitulatif == null) {
+            recapitulatif = new Recapitulatif(destinataire);
+            enAttente.put(idDestinataire, recapitulatif);
+            planificateur.schedule(() -> viderPlanifie(idDestinataire), fenetre.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        recapitulatif.messages.add(message);
+        recapitulatif.lignes.add(ligne);
+        if (recapitulatif.priorite == null || rang(priorite) < rang(recapitulatif.priorite)) {
+            recapitulatif.priorite = priorite;
+        }
+        return true;
+    }
+
+    /**
+     * @return Le nombre de destinataires ayant des rappels en attente
+     */
+    public synchronized int getNombreEnAttente() {
+        return enAttente.size();
+    }
+
+    /**
+     * @return Le nombre de rappels ignorés comme doublons
+     */
+    public synchronized long getNombreDoublonsIgnores() {
+        return doublonsIgnores;
+    }
+
+    private void vider(int idDestinataire) {
+        Recapitulatif recapitulatif;
+        NotificationService service;
+        synchronized (this) {
+            recapitulatif = enAttente.remove(idDestinataire);
+            if (recapitulatif == null) {
+                return;
+            }
+            if (emetteur == null) {
+                emetteur = new NotificationService();
+            }
+            service = emetteur;
+        }
+
+        int nombre = recapitulatif.messages.size();
+        String message;
+        if (nombre == 1) {
+            message = recapitulatif.messages.get(0);
+        } else {
+            message = String.format("📚 RAPPELS - %d documents à retourner :%n- %s",
+                nombre, String.join(System.lineSeparator() + "- ", recapitulatif.lignes));
+            synchronized (this) {
+                rappelsRegroupes += nombre;
+            }
+        }
+
+        service.envoyerNotification(message, "RAPPEL", recapitulatif.priorite, recapitulatif.destinataire);
+    }
+
+    private void viderPlanifie(int idDestinataire) {
+        try {
+            vider(idDestinataire);
+        } catch (Exception e) {
+            logger.error("Échec de l'envoi du récapitulatif de rappels du destinataire {}", idDestinataire, e);
+        }
+    }
+
+    private static int rang(String priorite) {
+        if ("HAUTE".equals(priorite)) {
+            return 0;
+        }
+        if ("MOYENNE".equals(priorite)) {
+            return 1;
+        }
+        return 2;
+    }
+}
@@ -0,0 +1,574 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.DocumentDAO;
+import com.infinitpages.model.dao.ReservationDAO;
+import com.infinitpages.model.dao.impl.DocumentDAOImpl;
+import com.infinitpages.model.dao.impl.ReservationDAOImpl;
+import com.infinitpages.model.entity.Document;
+import com.infinitpages.model.entity.Reservation;
+import com.infinitpages.model.entity.Utilisateur;
+import com.infinitpages.util.collections.IntObjectHashMap;
+import com.infinitpages.util.collections.IntRankedQueue;
+import com.infinitpages.util.constants.TypeUtilisateur;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service de réservation des documents indisponibles.
+ *
+ * Chaque document a une file d'attente : les enseignants d'abord, puis les
+ * autres utilisateurs, chacun dans l'ordre d'arrivée. Les réservations sont
+ * enregistrées dans la table reservation et reflétées en mémoire ; la file
+ * d'un document garde les identifiants de réservation (croissants), ce qui
+ * donne la position d'un utilisateur en O(log n), annulations comprises.
+ *
+ * Au retour d'un document réservé, il est mis de côté pour le premier de la
+ * file dans la transaction même du retour, et celui-ci est prévenu ; il
+ * a DELAI_RETRAIT_JOURS jours pour l'emprunter, après quoi le document passe
+ * au suivant (dans la transaction qui libère la réservation expirée). Le
+ * reflet en mémoire est rechargé toutes les 5 minutes pour prendre en compte
+ * les réservations faites depuis les autres postes.
+ */
+public class ReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
+
+    private static final int DELAI_RETRAIT_JOURS = 3;
+    private static final long PERIODE_SYNCHRONISATION_MIN = 5;
+
+    private static ReservationService instance;
+
+    private final ReservationDAO reservationDAO;
+    private final DocumentDAO documentDAO;
+    private final Clock horloge;
+    private NotificationService notificationService;
+
+    // Ordonne les écritures de réservations et les rechargements : les identifiants
+    // arrivent ainsi croissants dans les files
+    private final Object verrouEcriture = new Object();
+
+    // Reflet des réservations en cours, protégé par this
+    private IntObjectHashMap<FileAttente> files = new IntObjectHashMap<>();
+    private IntObjectHashMap<Entree> parId = new IntObjectHashMap<>();
+    private Map<Long, Entree> parDocumentUtilisateur = new HashMap<>();
+
+    private ScheduledExecutorService planificateur;
+
+    /**
+     * Réservation en cours, en mémoire.
+     */
+    private static final class Entree {
+        private final int id;
+        private final int idDocument;
+        private final int idUtilisateur;
+        private final boolean prioritaire;
+        private LocalDateTime dateAttribution;
+
+        Entree(int id, int idDocument, int idUtilisateur, boolean prioritaire) {
+            this.id = id;
+            this.idDocument = idDocument;
+            this.idUtilisateur = idUtilisateur;
+            this.prioritaire = prioritaire;
+        }
+    }
+
+    /**
+     * File d'attente d'un document et réservations à retirer.
+     */
+    private static final class FileAttente {
+        private final IntRankedQueue prioritaires = new IntRankedQueue(4);
+        private final IntRankedQueue normales = new IntRankedQueue(4);
+        private final List<Entree> aRetirer = new ArrayList<>(1);
+
+        boolean estVide() {
+            return prioritaires.isEmpty() && normales.isEmpty() && aRetirer.isEmpty();
+        }
+    }
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized ReservationService getInstance() {
+        if (instance == null) {
+            instance = new ReservationService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public ReservationService() {
+        this(new ReservationDAOImpl(), new DocumentDAOImpl(), null, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection des dépendances (pour les tests).
+     *
+     * @param reservationDAO Le DAO Reservation à utiliser
+     * @param documentDAO Le DAO Document à utiliser (titres des notifications)
+     * @param notificationService Le service de notification (null : créé au premier envoi)
+     * @param horloge L'horloge donnant la date courante
+     */
+    public ReservationService(ReservationDAO reservationDAO, DocumentDAO documentDAO,
+                              NotificationService notificationService, Clock horloge) {
+        this.reservationDAO = reservationDAO;
+        this.documentDAO = documentDAO;
+        this.notificationService = notificationService;
+        this.horloge = horloge;
+    }
+
+    /**
+     * Charge les réservations en cours puis planifie la synchronisation et l'expiration des retraits.
+     */
+    public void demarrer() {
+        synchronized (this) {
+            if (planificateur != null) {
+                return;
+            }
+        }
+
+        // Chargement hors du verrou du service (ordre des verrous : écriture puis service)
+        int chargees = charger();
+        logger.info("Réservations en cours : {}", chargees);
+
+        synchronized (this) {
+            if (planificateur != null) {
+                return;
+            }
+            planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "reservations");
+                thread.setDaemon(true);
+                return thread;
+            });
+            planificateur.scheduleWithFixedDelay(this::synchroniserPlanifie,
+                PERIODE_SYNCHRONISATION_MIN, PERIODE_SYNCHRONISATION_MIN, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Arrête la synchronisation périodique.
+     */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdown();
+            planificateur = null;
+        }
+    }
+
+    /**
+     * Recharge le reflet en mémoire depuis la table reservation.
+     *
+     * @return Le nombre de réservations en cours
+     */
+    public int charger() {
+        synchronized (verrouEcriture) {
+            List<Reservation> reservations = reservationDAO.findActives();
+            if (reservations == null) {
+                throw new RuntimeException("Erreur lors du chargement des réservations");
+            }
+
+            IntObjectHashMap<FileAttente> nouvellesFiles = new IntObjectHashMap<>();
+            IntObjectHashMap<Entree> nouveauxParId = new IntObjectHashMap<>(reservations.size());
+            Map<Long, Entree> nouveauxParDocumentUtilisateur = new HashMap<>();
+            for (Reservation reservation : reservations) {
+                Entree entree = new Entree(reservation.getId(), reservation.getDocument().getId(),
+                    reservation.getUtilisateur().getId(), reservation.isPrioritaire());
+                entree.dateAttribution = reservation.getDateAttribution();
+                ajouter(nouvellesFiles, entree, "A_RETIRER".equals(reservation.getEtat()));
+                nouveauxParId.put(entree.id, entree);
+                nouveauxParDocumentUtilisateur.put(cle(entree.idDocument, entree.idUtilisateur), entree);
+            }
+
+            synchronized (this) {
+                files = nouvellesFiles;
+                parId = nouveauxParId;
+                parDocumentUtilisateur = nouveauxParDocumentUtilisateur;
+            }
+            return reservations.size();
+        }
+    }
+
+    /**
+     * Réserve un document indisponible pour un utilisateur.
+     *
+     * @param utilisateur L'utilisateur qui réserve
+     * @param document Le document à réserver
+     * @return La réservation créée
+     * @throws IllegalStateException Si le document est disponible ou déjà réservé par l'utilisateur
+     */
+    public Reservation reserver(Utilisateur utilisateur, Document document) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+        if (document == null) {
+            throw new IllegalArgumentException("Document ne peut pas être null");
+        }
+        if (document.isDisponible()) {
+            throw new IllegalStateException("Le document est disponible : il peut être emprunté directement");
+        }
+
+        long cle = cle(document.getId(), utilisateur.getId());
+        boolean prioritaire = utilisateur.getTypeUtilisateur() == TypeUtilisateur.ENSEIGNANT;
+        Reservation reservation = new Reservation(utilisateur, document, prioritaire);
+
+        synchronized (verrouEcriture) {
+            synchronized (this) {
+                if (parDocumentUtilisateur.containsKey(cle)) {
+                    throw new IllegalStateException("Vous avez déjà réservé ce document");
+                }
+            }
+
+            // Échoue aussi si la réservation existe déjà (faite depuis un autre poste)
+            if (reservationDAO.save(reservation) == null) {
+                throw new RuntimeException("Erreur lors de la réservation");
+            }
+
+            Entree entree = new Entree(reservation.getId(), document.getId(), utilisateur.getId(), prioritaire);
+            synchronized (this) {
+                ajouter(files, entree, false);
+                parId.put(entree.id, entree);
+                parDocumentUtilisateur.put(cle, entree);
+            }
+        }
+        return reservation;
+    }
+
+    /**
+     * Annule la réservation d'un utilisateur. Un document déjà mis de côté
+     * pour lui passe au suivant de la file.
+     *
+     * @param utilisateur L'utilisateur
+     * @param document Le document réservé
+     * @return true si une réservation a été annulée
+     */
+    public boolean annuler(Utilisateur utilisateur, Document document) {
+        if (utilisateur == null || document == null) {
+            return false;
+        }
+
+        Entree entree;
+        boolean misDeCote;
+        synchronized (this) {
+            entree = parDocumentUtilisateur.get(cle(document.getId(), utilisateur.getId()));
+            if (entree == null) {
+                return false;
+            }
+            misDeCote = entree.dateAttribution != null;
+        }
+
+        if (misDeCote) {
+            int suivante = reservationDAO.liberer(entree.id, entree.idDocument);
+            if (suivante < 0) {
+                return false;
+            }
+            retirer(entree);
+            if (suivante > 0) {
+                attribuee(suivante, document);
+            } else {
+                document.setDisponible(true);
+            }
+        } else {
+            if (!reservationDAO.delete(entree.id)) {
+                return false;
+            }
+            retirer(entree);
+        }
+        return true;
+    }
+
+    /**
+     * Retourne la position d'un utilisateur dans la file d'un document.
+     *
+     * @param utilisateur L'utilisateur
+     * @param document Le document réservé
+     * @return 1 pour le premier de la file, 0 si le document est mis de côté pour lui, -1 sans réservation
+     */
+    public synchronized int getPosition(Utilisateur utilisateur, Document document) {
+        if (utilisateur == null || document == null) {
+            return -1;
+        }
+
+        Entree entree = parDocumentUtilisateur.get(cle(document.getId(), utilisateur.getId()));
+        if (entree == null) {
+            return -1;
+        }
+        if (entree.dateAttribution != null) {
+            return 0;
+        }
+
+        FileAttente file = files.get(entree.idDocument);
+        if (entree.prioritaire) {
+            return file.prioritaires.rank(entree.id) + 1;
+        }
+        return file.prioritaires.size() + file.normales.rank(entree.id) + 1;
+    }
+
+    /**
+     * @return Le nombre d'utilisateurs en attente d'un document
+     */
+    public synchronized int getNombreEnAttente(Document document) {
+        FileAttente file = document != null ? files.get(document.getId()) : null;
+        return file == null ? 0 : file.prioritaires.size() + file.normales.size();
+    }
+
+    /**
+     * Retourne la réservation à retirer d'un utilisateur pour un document, d'après le
+     * reflet en mémoire ; une mise de côté faite depuis un autre poste est retrouvée
+     * en base par l'emprunt lui-même.
+     *
+     * @param idDocument L'identifiant du document
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     * @return L'identifiant de la réservation, ou 0 si le document n'est pas mis de côté pour lui
+     */
+    public synchronized int getReservationARetirer(int idDocument, int idUtilisateur) {
+        Entree entree = parDocumentUtilisateur.get(cle(idDocument, idUtilisateur));
+        return entree != null && entree.dateAttribution != null ? entree.id : 0;
+    }
+
+    /**
+     * Oublie une réservation honorée par l'emprunt du document mis de côté.
+     *
+     * @param idReservation L'identifiant de la réservation
+     */
+    public void retiree(int idReservation) {
+        Entree entree;
+        synchronized (this) {
+            entree = parId.get(idReservation);
+        }
+        if (entree != null) {
+            retirer(entree);
+        }
+    }
+
+    /**
+     * Oublie la réservation d'un utilisateur pour un document, retirée à l'emprunt
+     * alors que ce poste ne la savait pas encore mise de côté.
+     *
+     * @param idDocument L'identifiant du document
+     * @param idUtilisateur L'identifiant de l'utilisateur
+     */
+    public void retiree(int idDocument, int idUtilisateur) {
+        Entree entree;
+        synchronized (this) {
+            entree = parDocumentUtilisateur.get(cle(idDocument, idUtilisateur));
+        }
+        if (entree != null) {
+            retirer(entree);
+        }
+    }
+
+    /**
+     * Reporte dans le reflet en mémoire une réservation servie par la transaction d'un
+     * retour (ou d'une libération) et prévient l'utilisateur.
+     *
+     * @param idReservation L'identifiant de la réservation passée à retirer
+     * @param document Le document mis de côté
+     */
+    public void attribuee(int idReservation, Document document) {
+        Entree entree;
+        synchronized (this) {
+            entree = parId.get(idReservation);
+            if (entree != null && entree.dateAttribution == null) {
+                FileAttente file = files.get(entree.idDocument);
+                if (file != null && (file.prioritaires.remove(entree.id) || file.normales.remove(entree.id))) {
+                    entree.dateAttribution = LocalDateTime.now(horloge);
+                    file.aRetirer.add(entree);
+                }
+            }
+        }
+
+        if (entree == null) {
+            // Réservation faite depuis un autre poste : la reprendre avec les autres
+            charger();
+            synchronized (this) {
+                entree = parId.get(idReservation);
+            }
+        }
+        if (entree != null && entree.dateAttribution != null) {
+            prevenir(entree, document);
+        }
+    }
+
+    /**
+     * Met un exemplaire qui vient d'être ajouté au fonds de côté pour le premier
+     * de la file du document et le prévient. Sans réservation, l'exemplaire reste disponible.
+     *
+     * @param document Le document dont un exemplaire a été ajouté
+     * @return true si le document a été mis de côté
+     */
+    public boolean remettre(Document document) {
+        if (document == null) {
+            return false;
+        }
+
+        while (true) {
+            Entree suivant;
+            synchronized (this) {
+                FileAttente file = files.get(document.getId());
+                if (file == null) {
+                    return false;
+                }
+                IntRankedQueue queue = !file.prioritaires.isEmpty() ? file.prioritaires : file.normales;
+                if (queue.isEmpty()) {
+                    return false;
+                }
+                suivant = parId.get(queue.peek());
+            }
+
+            ReservationDAO.ResultatAttribution resultat = reservationDAO.attribuer(suivant.id, suivant.idDocument);
+            switch (resultat) {
+                case ATTRIBUEE:
+                    synchronized (this) {
+                        FileAttente file = files.get(suivant.idDocument);
+                        if (file != null && (file.prioritaires.remove(suivant.id) || file.normales.remove(suivant.id))) {
+                            suivant.dateAttribution = LocalDateTime.now(horloge);
+                            file.aRetirer.add(suivant);
+                        }
+                    }
+                    document.setExemplairesDisponibles(Math.max(0, document.getExemplairesDisponibles() - 1));
+                    document.setDisponible(document.getExemplairesDisponibles() > 0);
+                    prevenir(suivant, document);
+                    return true;
+                case RESERVATION_CADUQUE:
+                    // Annulée ou servie depuis un autre poste : passer au suivant
+                    retirer(suivant);
+                    break;
+                default:
+                    // Exemplaire déjà emprunté par quelqu'un d'autre, ou erreur : la file attend le prochain retour
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Remet en circulation les documents mis de côté depuis plus de
+     * DELAI_RETRAIT_JOURS jours, au profit du suivant de la file.
+     *
+     * @return Le nombre de réservations expirées
+     */
+    public int expirerRetraits() {
+        LocalDateTime limite = LocalDateTime.now(horloge).minusDays(DELAI_RETRAIT_JOURS);
+        List<Entree> expirees = new ArrayList<>();
+        synchronized (this) {
+            files.forEach((idDocument, file) -> {
+                for (Entree entree : file.aRetirer) {
+                    if (entree.dateAttribution.isBefore(limite)) {
+                        expirees.add(entree);
+                    }
+                }
+            });
+        }
+
+        int nombre = 0;
+        for (Entree entree : expirees) {
+            int suivante = reservationDAO.liberer(entree.id, entree.idDocument);
+            retirer(entree);
+            if (suivante < 0) {
+                // Empruntée ou annulée depuis un autre poste
+                continue;
+            }
+            nombre++;
+
+            Document document = documentDAO.findById(entree.idDocument).orElse(null);
+            if (document == null) {
+                continue;
+            }
+            getNotificationService().notifierReservationExpiree(utilisateur(entree.idUtilisateur), document);
+            if (suivante > 0) {
+                attribuee(suivante, document);
+            }
+        }
+
+        if (nombre > 0) {
+            logger.info("Réservations expirées faute de retrait : {}", nombre);
+        }
+        return nombre;
+    }
+
+    private void prevenir(Entree entree, Document document) {
+        try {
+            Document complet = document.getTitre() != null
+                ? document : documentDAO.findById(document.getId()).orElse(document);
+            getNotificationService().notifierReservationDisponible(utilisateur(entree.idUtilisateur), complet,
+                entree.dateAttribution.toLocalDate().plusDays(DELAI_RETRAIT_JOURS));
+        } catch (Exception e) {
+            // Le document reste mis de côté ; l'utilisateur voit sa réservation à retirer
+            logger.error("Échec de la notification de la réservation {}", entree.id, e);
+        }
+    }
+
+    /**
+     * Retire une réservation du reflet en mémoire.
+     */
+    private synchronized void retirer(Entree entree) {
+        if (parId.remove(entree.id) == null) {
+            return;
+        }
+        parDocumentUtilisateur.remove(cle(entree.idDocument, entree.idUtilisateur));
+
+        FileAttente file = files.get(entree.idDocument);
+        if (file != null) {
+            file.prioritaires.remove(entree.id);
+            file.normales.remove(entree.id);
+            file.aRetirer.remove(entree);
+            if (file.estVide()) {
+                files.remove(entree.idDocument);
+            }
+        }
+    }
+
+    private static void ajouter(IntObjectHashMap<FileAttente> files, Entree entree, boolean aRetirer) {
+        FileAttente file = files.get(entree.idDocument);
+        if (file == null) {
+            file = new FileAttente();
+            files.put(entree.idDocument, file);
+        }
+        if (aRetirer) {
+            file.aRetirer.add(entree);
+        } else if (entree.prioritaire) {
+            file.prioritaires.add(entree.id);
+        } else {
+            file.normales.add(entree.id);
+        }
+    }
+
+    private synchronized NotificationService getNotificationService() {
+        if (notificationService == null) {
+            notificationService = new NotificationService();
+        }
+        return notificationService;
+    }
+
+    private void synchroniserPlanifie() {
+        try {
+            charger();
+            expirerRetraits();
+        } catch (Exception e) {
+            // Ne pas interrompre la planification : le prochain passage réessaiera
+            logger.error("Échec de la synchronisation des réservations", e);
+        }
+    }
+
+    private static Utilisateur utilisateur(int idUtilisateur) {
+        Utilisateur utilisateur = new Utilisateur();
+        utilisateur.setId(idUtilisateur);
+        return utilisateur;
+    }
+
+    private static long cle(int idDocument, int idUtilisateur) {
+        return ((long) idDocument << 32) | (idUtilisateur & 0xFFFFFFFFL);
+    }
+}
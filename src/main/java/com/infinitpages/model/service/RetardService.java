@@ -0,0 +1,187 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.TraitementRetardsDAO;
+import com.infinitpages.model.dao.TraitementRetardsDAO.BilanTraitement;
+import com.infinitpages.model.dao.TraitementRetardsDAO.BornesIds;
+import com.infinitpages.model.dao.impl.TraitementRetardsDAOImpl;
+import com.infinitpages.model.entity.Emprunt;
+import com.infinitpages.util.constants.TypeUtilisateur;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service du traitement quotidien des retards.
+ *
+ * Chaque nuit (et au démarrage si la journée n'a pas encore été traitée),
+ * les emprunts non rendus dont la date de retour est dépassée sont marqués
+ * EN_RETARD et leur pénalité est recalculée selon le taux du type
+ * d'utilisateur ; sa hausse est portée au solde (grand livre). Le travail est
+ * fait par la base, par lots d'identifiants : quelques requêtes par lot au
+ * lieu d'une boucle Java sur chaque emprunt.
+ *
+ * Le traitement est idempotent : une journée déjà traitée est ignorée
+ * (sauf exécution forcée) et les pénalités sont recalculées à partir des dates.
+ */
+public class RetardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetardService.class);
+
+    private static final int TAILLE_LOT = 5000;
+    private static final LocalTime HEURE_TRAITEMENT = LocalTime.of(0, 5);
+
+    private static RetardService instance;
+
+    private final TraitementRetardsDAO traitementDAO;
+    private final Clock horloge;
+    private ScheduledExecutorService planificateur;
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized RetardService getInstance() {
+        if (instance == null) {
+            instance = new RetardService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public RetardService() {
+        this(new TraitementRetardsDAOImpl(), Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructeur avec injection du DAO et de l'horloge (pour les tests).
+     *
+     * @param traitementDAO Le DAO du traitement des retards à utiliser
+     * @param horloge L'horloge donnant le jour courant
+     */
+    public RetardService(TraitementRetardsDAO traitementDAO, Clock horloge) {
+        this.traitementDAO = traitementDAO;
+        this.horloge = horloge;
+    }
+
+    /**
+     * Lance le traitement du jour s'il n'a pas encore eu lieu, puis planifie
+     * un traitement chaque nuit à 00h05.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "retards-traitement");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LocalDateTime maintenant = LocalDateTime.now(horloge);
+        LocalDateTime prochain = maintenant.toLocalDate().atTime(HEURE_TRAITEMENT);
+        if (!prochain.isAfter(maintenant)) {
+            prochain = prochain.plusDays(1);
+        }
+
+        planificateur.execute(this::executerPlanifie);
+        planificateur.scheduleAtFixedRate(this::executerPlanifie,
+            Duration.between(maintenant, prochain).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Arrête le traitement planifié.
+     */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdown();
+            planificateur = null;
+        }
+    }
+
+    /**
+     * Traite les retards du jour, sauf si c'est déjà fait.
+     *
+     * @return Le bilan (celui de l'exécution précédente si le jour est déjà traité)
+     */
+    public BilanTraitement executer() {
+        return executer(false);
+    }
+
+    /**
+     * Traite les retards du jour.
+     *
+     * @param forcer true pour relancer un jour déjà traité
+     * @return Le bilan du traitement
+     */
+    public synchronized BilanTraitement executer(boolean forcer) {
+        LocalDate jour = LocalDate.now(horloge);
+        if (!forcer) {
+            BilanTraitement precedent = traitementDAO.findByJour(jour);
+            if (precedent != null) {
+                return precedent;
+            }
+        }
+
+        long debut = System.currentTimeMillis();
+        int marques = 0;
+        int penalites = 0;
+        int lots = 0;
+
+        BornesIds bornes = traitementDAO.findBornesEnRetard(jour);
+        if (bornes != null) {
+            Map<String, Double> tauxParType = getTauxParType();
+            for (int idMin = bornes.min(); idMin <= bornes.max(); idMin += TAILLE_LOT) {
+                int idMax = (int) Math.min((long) idMin + TAILLE_LOT - 1, bornes.max());
+
+                int lotMarques = traitementDAO.marquerEnRetard(jour, idMin, idMax);
+                int lotPenalites = traitementDAO.appliquerPenalites(jour, idMin, idMax, tauxParType,
+                    Emprunt.TAUX_PENALITE_DEFAUT);
+                if (lotMarques < 0 || lotPenalites < 0) {
+                    throw new RuntimeException("Erreur lors du traitement des retards (emprunts "
+                        + idMin + " à " + idMax + ")");
+                }
+                marques += lotMarques;
+                penalites += lotPenalites;
+                lots++;
+            }
+        }
+
+        BilanTraitement bilan = new BilanTraitement(jour, marques, penalites, lots,
+            System.currentTimeMillis() - debut);
+        traitementDAO.save(bilan);
+        logger.info("Traitement des retards du {} : {} emprunts marqués, {} pénalités mises à jour, {} lots, {} ms",
+            jour, marques, penalites, lots, bilan.dureeMs());
+        return bilan;
+    }
+
+    private void executerPlanifie() {
+        try {
+            executer(false);
+        } catch (Exception e) {
+            // Ne pas interrompre la planification : le prochain passage réessaiera
+            logger.error("Échec du traitement des retards", e);
+        }
+    }
+
+    private static Map<String, Double> getTauxParType() {
+        Map<String, Double> taux = new LinkedHashMap<>();
+        for (TypeUtilisateur type : TypeUtilisateur.values()) {
+            taux.put(type.name(), type.getTauxPenalite());
+        }
+        return taux;
+    }
+}
@@ -0,0 +1,144 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.DocumentDAO;
+import com.infinitpages.model.dao.impl.DocumentDAOImpl;
+import com.infinitpages.model.entity.Document;
+import com.infinitpages.util.sketch.MinHashLshIndex;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Service "documents au contenu similaire".
+ *
+ * Chaque document est décrit par l'ensemble de ses mots-clés, de son genre
+ * et de sa catégorie. La similarité de Jaccard entre ces ensembles est estimée
+ * par MinHash, et un index LSH (16 bandes × 4 lignes) limite la recherche
+ * aux quelques documents partageant au moins une bande de signature.
+ *
+ * L'index est tenu à jour à chaque ajout, modification ou suppression
+ * de document (voir AdminService) ; indexerTout() le construit au démarrage.
+ */
+public class SimilariteService {
+
+    private static final int NOMBRE_BANDES = 16;
+    private static final int LIGNES_PAR_BANDE = 4;
+    private static final long GRAINE = 0x1F0E2D3C4B5A6978L;
+
+    // En dessous de ce seuil, deux documents ne sont pas considérés comme similaires
+    private static final double SIMILARITE_MINIMALE = 0.1;
+
+    private static SimilariteService instance;
+
+    private final DocumentDAO documentDAO;
+    private final MinHashLshIndex index = new MinHashLshIndex(NOMBRE_BANDES, LIGNES_PAR_BANDE, GRAINE);
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized SimilariteService getInstance() {
+        if (instance == null) {
+            instance = new SimilariteService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public SimilariteService() {
+        this.documentDAO = new DocumentDAOImpl();
+    }
+
+    /**
+     * Constructeur avec injection du DAO (pour les tests).
+     *
+     * @param documentDAO Le DAO Document à utiliser
+     */
+    public SimilariteService(DocumentDAO documentDAO) {
+        this.documentDAO = documentDAO;
+    }
+
+    /**
+     * Indexe tout le catalogue (à appeler au démarrage).
+     *
+     * @return Le nombre de documents indexés
+     */
+    public int indexerTout() {
+        List<Document> documents = documentDAO.findAll();
+        index.clear();
+        for (Document document : documents) {
+            indexerDocument(document);
+        }
+        return index.size();
+    }
+
+    /**
+     * Ajoute ou réindexe un document (après création ou modification).
+     *
+     * @param document Le document à indexer
+     */
+    public void indexerDocument(Document document) {
+        if (document == null || document.getId() <= 0) {
+            return;
+        }
+        index.put(document.getId(), extraireTermes(document));
+    }
+
+    /**
+     * Retire un document de l'index (après suppression).
+     *
+     * @param idDocument L'identifiant du document
+     */
+    public void retirerDocument(int idDocument) {
+        if (idDocument > 0) {
+            index.remove(idDocument);
+        }
+    }
+
+    /**
+     * Récupère les documents dont le contenu ressemble le plus à un document donné.
+     *
+     * @param idDocument L'identifiant du document
+     * @param limit Nombre maximum de résultats
+     * @return Les identifiants des documents similaires, du plus proche au moins proche
+     */
+    public int[] getDocumentsSimilaires(int idDocument, int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        return index.query(idDocument, limit, SIMILARITE_MINIMALE);
+    }
+
+    /**
+     * Construit l'ensemble des termes décrivant un document.
+     * Les préfixes évitent qu'un mot-clé se confonde avec un genre ou une catégorie.
+     */
+    static Set<String> extraireTermes(Document document) {
+        Set<String> termes = new HashSet<>();
+
+        if (document.getMotsCles() != null) {
+            for (String motCle : document.getMotsCles()) {
+                if (motCle != null && !motCle.isBlank()) {
+                    termes.add(motCle.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        if (document.getGenre() != null) {
+            termes.add("genre:" + document.getGenre().name());
+        }
+
+        if (document.getCategorieEntity() != null && document.getCategorieEntity().getId() > 0) {
+            termes.add("categorie:" + document.getCategorieEntity().getId());
+        } else if (document.getCategorie() != null && !document.getCategorie().isBlank()) {
+            termes.add("categorie:" + document.getCategorie().trim().toLowerCase(Locale.ROOT));
+        }
+
+        return termes;
+    }
+}
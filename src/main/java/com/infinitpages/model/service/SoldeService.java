@@ -0,0 +1,206 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.model.dao.SoldeDAO;
+import com.infinitpages.model.dao.SoldeDAO.Mouvement;
+import com.infinitpages.model.dao.impl.SoldeDAOImpl;
+import com.infinitpages.model.entity.Paiement;
+import com.infinitpages.model.entity.Utilisateur;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service des soldes utilisateurs, tenus dans un grand livre.
+ *
+ * Les paiements, pénalités et annulations ajoutent des mouvements
+ * (mouvement_solde) sans jamais réécrire un solde : des paiements simultanés
+ * ne se gênent pas et chaque solde se justifie ligne par ligne. Le solde
+ * exact est l'instantané plus les mouvements non consolidés ; toutes les
+ * 15 minutes, la consolidation marque les mouvements qu'elle reporte et avance
+ * les instantanés et la colonne utilisateur.solde_a_payer (utilisée par les
+ * listes et les filtres).
+ */
+public class SoldeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoldeService.class);
+
+    private static final long PERIODE_CONSOLIDATION_MIN = 15;
+
+    private static SoldeService instance;
+
+    private final SoldeDAO soldeDAO;
+    private ScheduledExecutorService planificateur;
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized SoldeService getInstance() {
+        if (instance == null) {
+            instance = new SoldeService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public SoldeService() {
+        this(new SoldeDAOImpl());
+    }
+
+    /**
+     * Constructeur avec injection du DAO (pour les tests).
+     *
+     * @param soldeDAO Le DAO des soldes à utiliser
+     */
+    public SoldeService(SoldeDAO soldeDAO) {
+        this.soldeDAO = soldeDAO;
+    }
+
+    /**
+     * Planifie la consolidation périodique des soldes.
+     */
+    public synchronized void demarrer() {
+        if (planificateur != null) {
+            return;
+        }
+
+        planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "soldes-consolidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificateur.scheduleWithFixedDelay(this::consoliderPlanifie,
+            PERIODE_CONSOLIDATION_MIN, PERIODE_CONSOLIDATION_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Arrête la consolidation périodique.
+     */
+    public synchronized void arreter() {
+        if (planificateur != null) {
+            planificateur.shutdown();
+            planificateur = null;
+        }
+    }
+
+    /**
+     * Retourne le solde exact d'un utilisateur (instantané plus mouvements non consolidés).
+     *
+     * @param utilisateur L'utilisateur
+     * @return Le solde : positif s'il doit de l'argent, négatif pour un avoir
+     */
+    public double getSolde(Utilisateur utilisateur) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+
+        Double solde = soldeDAO.getSolde(utilisateur.getId());
+        if (solde == null) {
+            throw new RuntimeException("Erreur lors du calcul du solde");
+        }
+        return solde;
+    }
+
+    /**
+     * Retourne les mouvements du solde d'un utilisateur, du plus récent au plus ancien.
+     *
+     * @param utilisateur L'utilisateur
+     * @return Les mouvements
+     */
+    public List<Mouvement> getMouvements(Utilisateur utilisateur) {
+        if (utilisateur == null) {
+            throw new IllegalArgumentException("Utilisateur ne peut pas être null");
+        }
+
+        return soldeDAO.findByUtilisateur(utilisateur.getId());
+    }
+
+    /**
+     * Ajoute des mouvements au grand livre, en une seule transaction.
+     *
+     * @param mouvements Les mouvements
+     */
+    public void enregistrer(List<Mouvement> mouvements) {
+        if (!soldeDAO.enregistrer(mouvements)) {
+            throw new RuntimeException("Erreur lors de la mise à jour du solde");
+        }
+    }
+
+    /**
+     * Enregistre un nouveau paiement et ses mouvements dans la même transaction.
+     *
+     * @param paiement Le paiement à enregistrer
+     * @param mouvements Les mouvements à ajouter (ils reçoivent l'identifiant du paiement)
+     * @return Le paiement avec son ID généré
+     */
+    public Paiement enregistrerPaiement(Paiement paiement, List<Mouvement> mouvements) {
+        Paiement enregistre = soldeDAO.enregistrerPaiement(paiement, mouvements);
+        if (enregistre == null) {
+            throw new RuntimeException("Erreur lors de l'enregistrement du paiement");
+        }
+        return enregistre;
+    }
+
+    /**
+     * Change le statut d'un paiement par UPDATE conditionnel, dans la même transaction
+     * que les mouvements qui en découlent.
+     *
+     * @param idPaiement L'identifiant du paiement
+     * @param ancienStatut Le statut attendu
+     * @param nouveauStatut Le nouveau statut
+     * @param mouvements Les mouvements à ajouter
+     * @return false si le paiement n'avait plus l'ancien statut (rien n'est écrit)
+     */
+    public boolean changerStatutPaiement(int idPaiement, String ancienStatut, String nouveauStatut,
+                                         List<Mouvement> mouvements) {
+        int resultat = soldeDAO.changerStatutPaiement(idPaiement, ancienStatut, nouveauStatut, mouvements);
+        if (resultat < 0) {
+            throw new RuntimeException("Erreur lors du changement de statut du paiement");
+        }
+        return resultat > 0;
+    }
+
+    /**
+     * Consolide dans les instantanés les mouvements qui ne le sont pas encore.
+     *
+     * @return Le nombre d'utilisateurs dont le solde consolidé a changé
+     */
+    public int consolider() {
+        int utilisateurs = soldeDAO.consolider();
+        if (utilisateurs < 0) {
+            throw new RuntimeException("Erreur lors de la consolidation des soldes");
+        }
+        logger.debug("Consolidation des soldes : {} utilisateurs", utilisateurs);
+        return utilisateurs;
+    }
+
+    /**
+     * Reprend dans le grand livre les soldes tenus avant lui (mouvements d'ouverture).
+     *
+     * @return Le nombre d'utilisateurs repris
+     */
+    public int ouvrirSoldes() {
+        int repris = soldeDAO.ouvrirSoldes();
+        if (repris < 0) {
+            throw new RuntimeException("Erreur lors de la reprise des soldes");
+        }
+        logger.info("Reprise des soldes : {} utilisateurs", repris);
+        return repris;
+    }
+
+    private void consoliderPlanifie() {
+        try {
+            consolider();
+        } catch (Exception e) {
+            // Ne pas interrompre la planification : le prochain passage reprendra ces mouvements
+            logger.error("Échec de la consolidation des soldes", e);
+        }
+    }
+}
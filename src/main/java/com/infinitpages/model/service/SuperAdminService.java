@@ -11,6 +11,8 @@ import com.infinitpages.model.dao.RapportDAO;
 import com.infinitpages.model.dao.DocumentDAO;
 import com.infinitpages.model.dao.EmpruntDAO;
 import com.infinitpages.model.dao.PaiementDAO;
+import com.infinitpages.model.dao.AgregatJournalierDAO;
+import com.infinitpages.model.dao.ExemplaireDAO;
 import com.infinitpages.model.dao.impl.AdminDAOImpl;
 import com.infinitpages.model.dao.impl.SuperAdminDAOImpl;
 import com.infinitpages.model.dao.impl.UtilisateurDAOImpl;
@@ -18,12 +20,15 @@ import com.infinitpages.model.dao.impl.RapportDAOImpl;
 import com.infinitpages.model.dao.impl.DocumentDAOImpl;
 import com.infinitpages.model.dao.impl.EmpruntDAOImpl;
 import com.infinitpages.model.dao.impl.PaiementDAOImpl;
+import com.infinitpages.model.dao.impl.AgregatJournalierDAOImpl;
+import com.infinitpages.model.dao.impl.ExemplaireDAOImpl;
 import com.infinitpages.util.constants.TypeAdmin;
 import com.infinitpages.util.constants.TypeUtilisateur;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service métier pour les opérations de Super Administrateur.
@@ -45,6 +50,11 @@ public class SuperAdminService {
     private DocumentDAO documentDAO;
     private EmpruntDAO empruntDAO;
     private PaiementDAO paiementDAO;
+    private AgregatJournalierDAO agregatDAO;
+    private ExemplaireDAO exemplaireDAO;
+    
+    // Documents migrés par transaction lors de la création des exemplaires
+    private static final int TAILLE_LOT_EXEMPLAIRES = 1000;
     
     /**
      * Constructeur par défaut.
@@ -57,6 +67,8 @@ public class SuperAdminService {
         this.documentDAO = new DocumentDAOImpl();
         this.empruntDAO = new EmpruntDAOImpl();
         this.paiementDAO = new PaiementDAOImpl();
+        this.agregatDAO = new AgregatJournalierDAOImpl();
+        this.exemplaireDAO = new ExemplaireDAOImpl();
     }
     
     /**
@@ -223,11 +235,16 @@ public class SuperAdminService {
             // Parser la période pour obtenir les dates
             LocalDate dateDebut = parsePeriode(periode, true);
             LocalDate dateFin = parsePeriode(periode, false);
-            List<com.infinitpages.model.entity.Emprunt> emprunts = empruntDAO.findByPeriode(dateDebut, dateFin);
-            int totalEmprunts = emprunts.size();
             
-            // Calculer les revenus (simplifié - à améliorer avec PaiementDAO)
-            double totalRevenus = 0.0; // TODO: Implémenter avec PaiementDAO
+            // Emprunts et revenus lus dans les agrégats journaliers (une ligne par jour et par groupe)
+            AgregatJournalierDAO.TotauxEmprunts totauxEmprunts = agregatDAO.getTotauxEmprunts(dateDebut, dateFin);
+            int totalEmprunts = totauxEmprunts.empruntsOuverts();
+            
+            Map<String, Double> revenusParMethode = agregatDAO.getRevenusParMethode(dateDebut, dateFin);
+            Map<String, Double> revenusParType = agregatDAO.getRevenusParTypeUtilisateur(dateDebut, dateFin);
+            double totalRevenus = revenusParMethode.values().stream()
+                .mapToDouble(Double::doubleValue)
+                .sum();
             
             // Compter les documents par type
             List<com.infinitpages.model.entity.Document> documents = documentDAO.findAll();
@@ -238,19 +255,31 @@ public class SuperAdminService {
                 .filter(d -> d instanceof com.infinitpages.model.entity.DocumentNumerique)
                 .count();
             
-            String contenu = String.format(
+            StringBuilder contenu = new StringBuilder(String.format(
                 "Rapport Global du Système - %s\n\n" +
                 "=== Statistiques Générales ===\n" +
                 "Total d'utilisateurs: %d\n" +
                 "Total de documents: %d\n" +
                 "Total d'emprunts: %d\n" +
+                "Emprunts retournés: %d (dont %d en retard)\n" +
+                "Pénalités appliquées: %.2f €\n" +
                 "Revenus totaux: %.2f €\n\n" +
                 "=== Répartition par Type ===\n" +
                 "Documents réels: %d\n" +
                 "Documents numériques: %d\n",
-                periode, totalUtilisateurs, totalDocuments, totalEmprunts, totalRevenus, 
+                periode, totalUtilisateurs, totalDocuments, totalEmprunts,
+                totauxEmprunts.empruntsRetournes(), totauxEmprunts.retoursEnRetard(),
+                totauxEmprunts.totalPenalites(), totalRevenus,
                 documentsReels, documentsNumeriques
-            );
+            ));
+            
+            contenu.append("\n=== Revenus par Méthode de Paiement ===\n");
+            revenusParMethode.forEach((methode, montant) ->
+                contenu.append(String.format("%s: %.2f €\n", methode, montant)));
+            
+            contenu.append("\n=== Revenus par Type d'Utilisateur ===\n");
+            revenusParType.forEach((type, montant) ->
+                contenu.append(String.format("%s: %.2f €\n", type, montant)));
             
             Rapport rapport = new Rapport(
                 "Rapport Global du Système",
@@ -258,7 +287,7 @@ public class SuperAdminService {
                 periode,
                 superAdmin
             );
-            rapport.setContenu(contenu);
+            rapport.setContenu(contenu.toString());
             
             // Sauvegarder le rapport
             rapportDAO.save(rapport);
@@ -268,6 +297,115 @@ public class SuperAdminService {
         }
     }
     
+    /**
+     * Recalcule les agrégats journaliers d'une période depuis les tables emprunt et paiement,
+     * ainsi que les sketches de quantiles des emprunts rendus.
+     * À lancer une fois pour l'historique, puis pour corriger une dérive éventuelle
+     * (mise à jour incrémentale échouée).
+     * 
+     * @param superAdmin Le super-admin qui effectue l'action
+     * @param dateDebut Premier jour inclus
+     * @param dateFin Dernier jour inclus
+     * @return Le nombre de lignes d'agrégats écrites
+     */
+    public int reconstruireAgregats(SuperAdmin superAdmin, LocalDate dateDebut, LocalDate dateFin) {
+        if (superAdmin == null) {
+            throw new IllegalArgumentException("SuperAdmin ne peut pas être null");
+        }
+        if (dateDebut == null || dateFin == null || dateFin.isBefore(dateDebut)) {
+            throw new IllegalArgumentException("Période invalide");
+        }
+        
+        int lignes = agregatDAO.reconstruire(dateDebut, dateFin);
+        if (lignes < 0) {
+            throw new RuntimeException("Erreur lors de la reconstruction des agrégats");
+        }
+        if (QuantilesService.getInstance().reconstruire(dateDebut, dateFin) < 0) {
+            throw new RuntimeException("Erreur lors de la reconstruction des sketches de quantiles");
+        }
+        return lignes;
+    }
+    
+    /**
+     * Convertit les indicateurs de lecture des notifications en filigranes
+     * "lu jusqu'à" par destinataire. À lancer une fois après la mise à jour du schéma.
+     * 
+     * @param superAdmin Le super-admin qui effectue l'action
+     * @return Le nombre de destinataires ayant un filigrane
+     */
+    public int migrerLecturesNotifications(SuperAdmin superAdmin) {
+        if (superAdmin == null) {
+            throw new IllegalArgumentException("SuperAdmin ne peut pas être null");
+        }
+        
+        return new NotificationService().migrerLectures();
+    }
+    
+    /**
+     * Crée l'exemplaire unique de chaque document réel qui n'en a pas encore
+     * (données antérieures à la gestion des exemplaires), par plages d'identifiants.
+     * À lancer une fois après la mise à jour du schéma ; une plage interrompue
+     * peut être relancée sans doublon.
+     * 
+     * @param superAdmin Le super-admin qui effectue l'action
+     * @return Le nombre de documents migrés
+     */
+    public int migrerExemplaires(SuperAdmin superAdmin) {
+        if (superAdmin == null) {
+            throw new IllegalArgumentException("SuperAdmin ne peut pas être null");
+        }
+        
+        int idMax = exemplaireDAO.findIdDocumentMax();
+        if (idMax < 0) {
+            throw new RuntimeException("Erreur lors de la migration des exemplaires");
+        }
+        
+        int migres = 0;
+        for (int idMin = 1; idMin <= idMax; idMin += TAILLE_LOT_EXEMPLAIRES) {
+            int lot = exemplaireDAO.migrerPlage(idMin, (int) Math.min((long) idMin + TAILLE_LOT_EXEMPLAIRES - 1, idMax));
+            if (lot < 0) {
+                throw new RuntimeException("Erreur lors de la migration des exemplaires (documents " + idMin + " et suivants)");
+            }
+            migres += lot;
+        }
+        return migres;
+    }
+    
+    /**
+     * Recalcule le nombre d'emprunts actifs tenu sur chaque utilisateur (vérifié à chaque emprunt).
+     * À lancer une fois après la mise à jour du schéma, puis pour corriger une dérive éventuelle.
+     * 
+     * @param superAdmin Le super-admin qui effectue l'action
+     * @return Le nombre d'utilisateurs recalculés
+     */
+    public int recalculerEmpruntsActifs(SuperAdmin superAdmin) {
+        if (superAdmin == null) {
+            throw new IllegalArgumentException("SuperAdmin ne peut pas être null");
+        }
+        
+        int utilisateurs = empruntDAO.recalculerEmpruntsActifs();
+        if (utilisateurs < 0) {
+            throw new RuntimeException("Erreur lors du recalcul des emprunts actifs");
+        }
+        return utilisateurs;
+    }
+    
+    /**
+     * Reprend dans le grand livre des soldes les soldes à payer existants
+     * (un mouvement d'ouverture par utilisateur). À lancer une fois après la
+     * mise à jour du schéma, avant les premiers paiements.
+     * 
+     * @param superAdmin Le super-admin qui effectue l'action
+     * @return Le nombre d'utilisateurs repris
+     */
+    public int ouvrirSoldes(SuperAdmin superAdmin) {
+        if (superAdmin == null) {
+            throw new IllegalArgumentException("SuperAdmin ne peut pas être null");
+        }
+        
+        return SoldeService.getInstance().ouvrirSoldes();
+    }
+    
     /**
      * Configure les paramètres globaux du système.
      * 
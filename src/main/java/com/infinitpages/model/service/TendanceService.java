@@ -0,0 +1,148 @@
+package com.infinitpages.model.service;
+
+import com.infinitpages.util.sketch.SlidingWindowTopK;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Service des documents "tendance" : les plus consultés et empruntés
+ * sur une fenêtre glissante récente, contrairement à nombre_consultations
+ * qui cumule depuis l'ajout du document.
+ *
+ * Les événements sont comptés en mémoire (compteurs par tranches de temps
+ * en anneau + Count-Min Sketch + tas top-k), sans aucune requête SQL.
+ * La mémoire utilisée est fixe, quelle que soit la taille du catalogue.
+ * Les compteurs repartent de zéro au redémarrage de l'application.
+ */
+public class TendanceService {
+
+    /**
+     * Fenêtres glissantes disponibles (durée d'une tranche × nombre de tranches).
+     */
+    public enum Fenetre {
+        DERNIERE_HEURE(5 * 60_000L, 12),
+        DERNIER_JOUR(60 * 60_000L, 24),
+        DERNIERE_SEMAINE(6 * 60 * 60_000L, 28);
+
+        private final long dureeTrancheMillis;
+        private final int nombreTranches;
+
+        Fenetre(long dureeTrancheMillis, int nombreTranches) {
+            this.dureeTrancheMillis = dureeTrancheMillis;
+            this.nombreTranches = nombreTranches;
+        }
+
+        public long getDureeTrancheMillis() {
+            return dureeTrancheMillis;
+        }
+
+        public int getNombreTranches() {
+            return nombreTranches;
+        }
+    }
+
+    // Un emprunt traduit plus d'intérêt qu'une simple consultation
+    private static final int POIDS_CONSULTATION = 1;
+    private static final int POIDS_EMPRUNT = 3;
+
+    private static final int TAILLE_TOP_K = 50;
+    private static final int LARGEUR_SKETCH = 1024;
+    private static final int PROFONDEUR_SKETCH = 4;
+    private static final long GRAINE = 0x5DEECE66DL;
+
+    private static TendanceService instance;
+
+    private final LongSupplier horloge;
+    private final Map<Fenetre, SlidingWindowTopK> fenetres = new EnumMap<>(Fenetre.class);
+
+    /**
+     * Retourne l'instance partagée par l'application.
+     *
+     * @return L'instance unique du service
+     */
+    public static synchronized TendanceService getInstance() {
+        if (instance == null) {
+            instance = new TendanceService();
+        }
+        return instance;
+    }
+
+    /**
+     * Constructeur par défaut.
+     */
+    public TendanceService() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructeur avec injection de l'horloge (pour les tests).
+     *
+     * @param horloge Fournit l'heure courante en millisecondes
+     */
+    public TendanceService(LongSupplier horloge) {
+        this.horloge = horloge;
+        for (Fenetre fenetre : Fenetre.values()) {
+            fenetres.put(fenetre, new SlidingWindowTopK(
+                fenetre.getNombreTranches(), fenetre.getDureeTrancheMillis(),
+                TAILLE_TOP_K, LARGEUR_SKETCH, PROFONDEUR_SKETCH, GRAINE));
+        }
+    }
+
+    /**
+     * Enregistre la consultation d'un document.
+     *
+     * @param idDocument L'identifiant du document
+     */
+    public void enregistrerConsultation(int idDocument) {
+        enregistrer(idDocument, POIDS_CONSULTATION);
+    }
+
+    /**
+     * Enregistre l'emprunt d'un document.
+     *
+     * @param idDocument L'identifiant du document
+     */
+    public void enregistrerEmprunt(int idDocument) {
+        enregistrer(idDocument, POIDS_EMPRUNT);
+    }
+
+    /**
+     * Récupère les documents tendance sur une fenêtre.
+     *
+     * @param fenetre La fenêtre glissante
+     * @param limit Nombre maximum de résultats (au plus 50)
+     * @return Les identifiants des documents, du plus actif au moins actif
+     */
+    public int[] getTendances(Fenetre fenetre, int limit) {
+        if (fenetre == null) {
+            throw new IllegalArgumentException("Fenetre ne peut pas être null");
+        }
+        return fenetres.get(fenetre).top(limit, horloge.getAsLong());
+    }
+
+    /**
+     * Score estimé d'un document sur une fenêtre (consultations + 3 × emprunts).
+     *
+     * @param fenetre La fenêtre glissante
+     * @param idDocument L'identifiant du document
+     * @return Le score estimé (jamais sous-estimé)
+     */
+    public int getScore(Fenetre fenetre, int idDocument) {
+        if (fenetre == null) {
+            throw new IllegalArgumentException("Fenetre ne peut pas être null");
+        }
+        return fenetres.get(fenetre).estimate(idDocument, horloge.getAsLong());
+    }
+
+    private void enregistrer(int idDocument, int poids) {
+        if (idDocument <= 0) {
+            return;
+        }
+        long maintenant = horloge.getAsLong();
+        for (SlidingWindowTopK fenetre : fenetres.values()) {
+            fenetre.add(idDocument, poids, maintenant);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.infinitpages.util.cache;
+
+import com.infinitpages.util.collections.IntIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cache of per-id counters backed by a COUNT query.
+ *
+ * A counter is loaded on first read, then kept up to date by the caller
+ * (add, decrement, set). Adjustments to a counter that is not loaded are
+ * ignored: it will be read from the database when first needed.
+ *
+ * Counters may drift (concurrent load and update, writes from another
+ * process): once started, the cache periodically re-reads every loaded
+ * counter, in batches, with a single grouped query per batch.
+ *
+ * Thread-safe.
+ */
+public class IntCounterCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntCounterCache.class);
+
+    private static final int ABSENT = -1;
+
+    /**
+     * Reads one counter from the database.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        int load(int id);
+    }
+
+    /**
+     * Reads several counters from the database in one query.
+     */
+    @FunctionalInterface
+    public interface BatchLoader {
+        /**
+         * @param ids The ids to read
+         * @return id -> count (missing ids count 0), or null on error
+         */
+        Map<Integer, Integer> load(int[] ids);
+    }
+
+    private final String name;
+    private final Loader loader;
+    private final BatchLoader batchLoader;
+    private final long periodMinutes;
+    private final int batchSize;
+
+    // id -> count, guarded by this
+    private final IntIntHashMap counters = new IntIntHashMap();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Create a cache.
+     *
+     * @param name Name used for the reconciliation thread and log messages
+     * @param loader Reads a single counter
+     * @param batchLoader Reads a batch of counters for reconciliation
+     * @param periodMinutes Delay between two reconciliations
+     * @param batchSize Ids per reconciliation query
+     */
+    public IntCounterCache(String name, Loader loader, BatchLoader batchLoader, long periodMinutes, int batchSize) {
+        if (periodMinutes <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("periodMinutes and batchSize must be positive");
+        }
+        this.name = name;
+        this.loader = loader;
+        this.batchLoader = batchLoader;
+        this.periodMinutes = periodMinutes;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Schedule periodic reconciliation.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scheduledReconcile, periodMinutes, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stop periodic reconciliation.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Current count for an id, loaded from the database on first read.
+     */
+    public int get(int id) {
+        synchronized (this) {
+            int count = counters.get(id, ABSENT);
+            if (count != ABSENT) {
+                return count;
+            }
+        }
+
+        // Loaded outside the lock; a concurrent update is fixed by the next reconciliation
+        int count = loader.load(id);
+        synchronized (this) {
+            int existing = counters.get(id, ABSENT);
+            if (existing != ABSENT) {
+                return existing;
+            }
+            counters.put(id, count);
+            return count;
+        }
+    }
+
+    /**
+     * Add to a counter (no effect if it is not loaded).
+     */
+    public synchronized void add(int id, int delta) {
+        if (counters.containsKey(id)) {
+            counters.addTo(id, delta);
+        }
+    }
+
+    /**
+     * Add to several counters (no effect on those not loaded).
+     */
+    public synchronized void add(int[] ids, int delta) {
+        for (int id : ids) {
+            if (counters.containsKey(id)) {
+                counters.addTo(id, delta);
+            }
+        }
+    }
+
+    /**
+     * Subtract one from a loaded counter, never going below zero.
+     */
+    public synchronized void decrement(int id) {
+        int count = counters.get(id, ABSENT);
+        if (count > 0) {
+            counters.put(id, count - 1);
+        }
+    }
+
+    /**
+     * Set a counter, loaded or not.
+     */
+    public synchronized void set(int id, int count) {
+        counters.put(id, count);
+    }
+
+    /**
+     * Forget a counter; it is reloaded on next read.
+     */
+    public synchronized void invalidate(int id) {
+        counters.remove(id);
+    }
+
+    /**
+     * @return Number of loaded counters
+     */
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    /**
+     * Re-read every loaded counter from the database, in batches.
+     *
+     * @return Number of counters corrected, or -1 if a batch query failed
+     */
+    public int reconcile() {
+        int[] ids;
+        synchronized (this) {
+            ids = counters.keys();
+        }
+
+        int corrected = 0;
+        for (int start = 0; start < ids.length; start += batchSize) {
+            int[] batch = Arrays.copyOfRange(ids, start, Math.min(start + batchSize, ids.length));
+            Map<Integer, Integer> stored = batchLoader.load(batch);
+            if (stored == null) {
+                return -1;
+            }
+
+            synchronized (this) {
+                for (int id : batch) {
+                    int current = counters.get(id, ABSENT);
+                    int expected = stored.getOrDefault(id, 0);
+                    if (current != ABSENT && current != expected) {
+                        counters.put(id, expected);
+                        corrected++;
+                    }
+                }
+            }
+        }
+
+        if (corrected > 0) {
+            logger.info("{}: {} of {} counters corrected", name, corrected, ids.length);
+        }
+        return corrected;
+    }
+
+    private void scheduledReconcile() {
+        try {
+            if (reconcile() < 0) {
+                logger.error("{}: reconciliation query failed", name);
+            }
+        } catch (Exception e) {
+            // Keep the schedule alive: the next run will retry
+            logger.error("{}: reconciliation failed", name, e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.infinitpages.util.collections;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int keys to int values.
+ *
+ * Used by the in-memory indexes (recommendations, counters) where a
+ * HashMap<Integer, Integer> would cost ~50 bytes per entry in boxing and nodes.
+ * Here an entry costs 8 bytes plus the free slots kept by the load factor.
+ *
+ * Constraints:
+ * - Key 0 is reserved as the "empty slot" marker. Database identifiers are
+ *   AUTO_INCREMENT values starting at 1, so this never happens in practice.
+ * - Not thread-safe: callers must synchronize externally.
+ */
+public class IntIntHashMap {
+
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeThreshold;
+    private int mask;
+
+    /**
+     * Visitor used to iterate over the entries without allocating.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(int key, int value);
+    }
+
+    /**
+     * Create an empty map with a small default capacity.
+     */
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Create an empty map able to hold the given number of entries without resizing.
+     *
+     * @param expectedSize Expected number of entries
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR));
+        allocate(capacity);
+    }
+
+    /**
+     * Get the value mapped to a key.
+     *
+     * @param key The key (must not be 0)
+     * @param defaultValue Value returned when the key is absent
+     * @return The mapped value or defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        int slot = findSlot(key);
+        return keys[slot] == EMPTY ? defaultValue : values[slot];
+    }
+
+    /**
+     * Check whether a key is present.
+     */
+    public boolean containsKey(int key) {
+        return keys[findSlot(key)] != EMPTY;
+    }
+
+    /**
+     * Associate a value with a key.
+     *
+     * @return The previous value, or 0 if the key was absent
+     */
+    public int put(int key, int value) {
+        checkKey(key);
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > resizeThreshold) {
+                rehash(keys.length << 1);
+            }
+            return 0;
+        }
+        int previous = values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * Add a delta to the value of a key (absent keys start at 0).
+     *
+     * @return The new value
+     */
+    public int addTo(int key, int delta) {
+        checkKey(key);
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size > resizeThreshold) {
+                rehash(keys.length << 1);
+            }
+            return delta;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @return true if the key was present
+     */
+    public boolean remove(int key) {
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            return false;
+        }
+
+        // Backward-shift deletion keeps probe sequences intact without tombstones
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int ideal = mix(keys[next]) & mask;
+            boolean shift = hole <= next
+                ? (ideal <= hole || ideal > next)
+                : (ideal <= hole && ideal > next);
+            if (shift) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = 0;
+        size--;
+        return true;
+    }
+
+    /**
+     * Visit every entry (unspecified order).
+     */
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return A new array containing the keys (unspecified order)
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all entries, keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int findSlot(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static void checkKey(int key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    /**
+     * Scramble the key so that sequential identifiers spread over the table.
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSizeFor(int n) {
+        int capacity = Integer.highestOneBit(Math.max(n - 1, 1)) << 1;
+        return Math.max(capacity, 8);
+    }
+}
@@ -0,0 +1,184 @@
+package com.infinitpages.util.collections;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int keys to object values.
+ *
+ * Same layout and constraints as {@link IntIntHashMap}:
+ * - Key 0 is reserved as the "empty slot" marker
+ * - Not thread-safe: callers must synchronize externally
+ *
+ * @param <V> Value type
+ */
+public class IntObjectHashMap<V> {
+
+    private static final int EMPTY = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeThreshold;
+    private int mask;
+
+    /**
+     * Visitor used to iterate over the entries without allocating.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor<V> {
+        void visit(int key, V value);
+    }
+
+    public IntObjectHashMap() {
+        this(16);
+    }
+
+    /**
+     * Create an empty map able to hold the given number of entries without resizing.
+     *
+     * @param expectedSize Expected number of entries
+     */
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = IntIntHashMap.tableSizeFor((int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR));
+        allocate(capacity);
+    }
+
+    /**
+     * @return The value mapped to the key, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return keys[slot] == EMPTY ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return keys[findSlot(key)] != EMPTY;
+    }
+
+    /**
+     * Associate a value with a key.
+     *
+     * @return The previous value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > resizeThreshold) {
+                rehash(keys.length << 1);
+            }
+            return null;
+        }
+        V previous = (V) values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @return The removed value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (keys[slot] == EMPTY) {
+            return null;
+        }
+        V removed = (V) values[slot];
+
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int ideal = IntIntHashMap.mix(keys[next]) & mask;
+            boolean shift = hole <= next
+                ? (ideal <= hole || ideal > next)
+                : (ideal <= hole && ideal > next);
+            if (shift) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Visit every entry (unspecified order).
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryVisitor<V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return A new array containing the keys (unspecified order)
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private int findSlot(int key) {
+        int slot = IntIntHashMap.mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
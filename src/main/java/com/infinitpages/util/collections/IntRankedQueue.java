@@ -0,0 +1,191 @@
+package com.infinitpages.util.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * FIFO queue of strictly increasing int keys (e.g. AUTO_INCREMENT ids) with
+ * O(log n) removal from the middle and O(log n) rank lookup.
+ *
+ * Keys are appended to a sorted array, so a key is found by binary search.
+ * A Fenwick tree over the "still queued" flags gives the number of live keys
+ * before any slot, which is the key's position in the queue. Removed slots
+ * stay in the array until the next growth, where the live keys are compacted.
+ *
+ * Not thread-safe: callers must synchronize externally.
+ */
+public class IntRankedQueue {
+
+    private int[] keys;
+    private boolean[] alive;
+    private int[] tree;
+    private int head;
+    private int tail;
+    private int size;
+
+    /**
+     * Create an empty queue with a small default capacity.
+     */
+    public IntRankedQueue() {
+        this(8);
+    }
+
+    /**
+     * Create an empty queue.
+     *
+     * @param capacity Initial number of slots
+     */
+    public IntRankedQueue(int capacity) {
+        int slots = Math.max(2, capacity);
+        keys = new int[slots];
+        alive = new boolean[slots];
+        tree = new int[slots + 1];
+    }
+
+    /**
+     * Append a key at the end of the queue.
+     *
+     * @param key Must be greater than every key added before
+     */
+    public void add(int key) {
+        if (tail > 0 && key <= keys[tail - 1]) {
+            throw new IllegalArgumentException("keys must be added in increasing order: " + key);
+        }
+        if (tail == keys.length) {
+            compact();
+        }
+        keys[tail] = key;
+        alive[tail] = true;
+        update(tail, 1);
+        tail++;
+        size++;
+    }
+
+    /**
+     * Remove a key wherever it is in the queue.
+     *
+     * @return false if the key is not queued
+     */
+    public boolean remove(int key) {
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return false;
+        }
+        alive[slot] = false;
+        update(slot, -1);
+        size--;
+        while (head < tail && !alive[head]) {
+            head++;
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of keys ahead of this one (0 for the head), or -1 if not queued
+     */
+    public int rank(int key) {
+        int slot = slotOf(key);
+        return slot < 0 ? -1 : prefix(slot);
+    }
+
+    /**
+     * @return true if the key is queued
+     */
+    public boolean contains(int key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * @return The key at the head of the queue
+     * @throws NoSuchElementException If the queue is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[head];
+    }
+
+    /**
+     * Remove and return the key at the head of the queue.
+     *
+     * @throws NoSuchElementException If the queue is empty
+     */
+    public int poll() {
+        int key = peek();
+        remove(key);
+        return key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The queued keys, head first
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int slot = head; slot < tail; slot++) {
+            if (alive[slot]) {
+                result[n++] = keys[slot];
+            }
+        }
+        return result;
+    }
+
+    private int slotOf(int key) {
+        if (size == 0) {
+            return -1;
+        }
+        int slot = Arrays.binarySearch(keys, head, tail, key);
+        return slot >= 0 && alive[slot] ? slot : -1;
+    }
+
+    /**
+     * Move the live keys to the front of a (possibly larger) array and rebuild the tree.
+     */
+    private void compact() {
+        int[] live = toArray();
+        int slots = Math.max(keys.length, live.length * 2);
+        keys = Arrays.copyOf(live, slots);
+        alive = new boolean[slots];
+        Arrays.fill(alive, 0, live.length, true);
+        head = 0;
+        tail = live.length;
+
+        // Linear-time Fenwick construction
+        tree = new int[slots + 1];
+        for (int i = 1; i <= slots; i++) {
+            if (i <= tail) {
+                tree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= slots) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return The number of live keys in slots [0, slot)
+     */
+    private int prefix(int slot) {
+        int sum = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
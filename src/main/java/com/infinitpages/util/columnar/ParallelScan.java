@@ -0,0 +1,89 @@
+package com.infinitpages.util.columnar;
+
+import java.util.stream.IntStream;
+
+/**
+ * Parallel group-by over column arrays.
+ *
+ * The row range is cut into fixed-size chunks scanned on the common
+ * ForkJoin pool. Each chunk accumulates into its own dense arrays (one
+ * slot per group code), so the hot loop has no locking, no boxing and no
+ * hashing; the per-chunk arrays are summed at the end.
+ */
+public final class ParallelScan {
+
+    /** Rows per chunk: large enough to amortize task overhead, small enough to balance cores. */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private ParallelScan() {
+    }
+
+    /**
+     * Scans rows [from, to) and accumulates into the given arrays, indexed by group code.
+     */
+    @FunctionalInterface
+    public interface ChunkScanner {
+        void scan(int from, int to, long[] counts, double[] sums);
+    }
+
+    /**
+     * Per-group row counts and value sums.
+     */
+    public static final class Aggregate {
+
+        private final long[] counts;
+        private final double[] sums;
+
+        Aggregate(int groups) {
+            this.counts = new long[groups];
+            this.sums = new double[groups];
+        }
+
+        public int groups() {
+            return counts.length;
+        }
+
+        public long count(int group) {
+            return counts[group];
+        }
+
+        public double sum(int group) {
+            return sums[group];
+        }
+
+        Aggregate add(Aggregate other) {
+            for (int g = 0; g < counts.length; g++) {
+                counts[g] += other.counts[g];
+                sums[g] += other.sums[g];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Run a chunked group-by over rows [0, rows).
+     *
+     * @param rows Number of rows
+     * @param groups Number of group codes (accumulator size)
+     * @param scanner Loop body for one chunk
+     * @return Combined counts and sums per group
+     */
+    public static Aggregate groupBy(int rows, int groups, ChunkScanner scanner) {
+        int chunks = (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks <= 1) {
+            Aggregate aggregate = new Aggregate(groups);
+            scanner.scan(0, rows, aggregate.counts, aggregate.sums);
+            return aggregate;
+        }
+
+        return IntStream.range(0, chunks).parallel()
+            .mapToObj(chunk -> {
+                Aggregate partial = new Aggregate(groups);
+                int from = chunk * CHUNK_SIZE;
+                scanner.scan(from, Math.min(rows, from + CHUNK_SIZE), partial.counts, partial.sums);
+                return partial;
+            })
+            .reduce(Aggregate::add)
+            .orElseGet(() -> new Aggregate(groups));
+    }
+}
@@ -0,0 +1,59 @@
+package com.infinitpages.util.columnar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for low-cardinality string columns.
+ *
+ * Each distinct value gets a dense code (0, 1, 2, ...) in order of first
+ * appearance, so a column can be stored as a byte[] or int[] of codes and
+ * grouped by indexing a small accumulator array.
+ *
+ * Not thread-safe while being filled; safe to read once published.
+ */
+public class StringDictionary {
+
+    /** Code returned by {@link #codeOf(String)} for values not in the dictionary. */
+    public static final int ABSENT = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Return the code of a value, adding it if needed.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Return the code of a value, or {@link #ABSENT} if it was never encoded.
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? ABSENT : code;
+    }
+
+    /**
+     * Return the value of a code.
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * @return Number of distinct values
+     */
+    public int size() {
+        return values.size();
+    }
+}
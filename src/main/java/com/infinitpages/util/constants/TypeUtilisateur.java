@@ -2,34 +2,37 @@ package com.infinitpages.util.constants;
 
 /**
  * Enum représentant les types d'utilisateurs disponibles lors de la création de compte.
- * Définit les limites d'emprunt, durées et jours gratuits pour chaque type.
+ * Définit les limites d'emprunt, durées, jours gratuits et taux de pénalité pour chaque type.
  */
 public enum TypeUtilisateur {
     /**
      * Personne normale - Limité à 3 livres, 15 jours max, pas de jours gratuits
      */
-    PERSONNE_NORMALE("Personne normale", 3, 15, 0),
+    PERSONNE_NORMALE("Personne normale", 3, 15, 0, 2.0),
     
     /**
      * Étudiant - Limité à 5 livres, 20 jours max, 5 jours gratuits (si prêt > 10 jours)
      */
-    ETUDIANT("Étudiant", 5, 20, 5),
+    ETUDIANT("Étudiant", 5, 20, 5, 2.0),
     
     /**
      * Enseignant - Limité à 10 livres, 30 jours max, 3 jours gratuits (si prêt > 10 jours)
      */
-    ENSEIGNANT("Enseignant", 10, 30, 3);
+    ENSEIGNANT("Enseignant", 10, 30, 3, 2.0);
     
     private final String libelle;
     private final int limiteEmprunts;
     private final int dureeEmpruntJours;
     private final int joursGratuits;
+    private final double tauxPenalite;
     
-    TypeUtilisateur(String libelle, int limiteEmprunts, int dureeEmpruntJours, int joursGratuits) {
+    TypeUtilisateur(String libelle, int limiteEmprunts, int dureeEmpruntJours, int joursGratuits,
+                    double tauxPenalite) {
         this.libelle = libelle;
         this.limiteEmprunts = limiteEmprunts;
         this.dureeEmpruntJours = dureeEmpruntJours;
         this.joursGratuits = joursGratuits;
+        this.tauxPenalite = tauxPenalite;
     }
     
     public String getLibelle() {
@@ -48,6 +51,13 @@ public enum TypeUtilisateur {
         return joursGratuits;
     }
     
+    /**
+     * Multiplicateur du prix par jour appliqué à chaque jour de retard
+     */
+    public double getTauxPenalite() {
+        return tauxPenalite;
+    }
+    
     /**
      * Retourne le nombre de jours gratuits si le prêt dépasse 10 jours, sinon 0
      */
@@ -25,6 +25,7 @@ import java.sql.SQLException;
 public class DatabaseConnection {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
+    private static final int MAXIMUM_POOL_SIZE = 10;
     private static HikariDataSource dataSource;
     private static boolean initialized = false;
     
@@ -52,7 +53,7 @@ public class DatabaseConnection {
             config.setDriverClassName("com.mysql.cj.jdbc.Driver");
             
             // Connection pool settings
-            config.setMaximumPoolSize(10);        // Maximum 10 connections in pool
+            config.setMaximumPoolSize(MAXIMUM_POOL_SIZE); // Maximum 10 connections in pool
             config.setMinimumIdle(5);             // Keep 5 connections ready
             config.setConnectionTimeout(30000);   // 30 seconds to get connection
             config.setIdleTimeout(600000);        // 10 minutes idle timeout
@@ -207,6 +208,16 @@ public class DatabaseConnection {
         );
     }
     
+    /**
+     * Get the maximum number of connections in the pool.
+     * Use it to size executors that run queries in parallel.
+     * 
+     * @return Maximum pool size
+     */
+    public static int getMaximumPoolSize() {
+        return dataSource != null ? dataSource.getMaximumPoolSize() : MAXIMUM_POOL_SIZE;
+    }
+    
     /**
      * Close the connection pool.
      * Call this method at application shutdown (e.g., in Main.java).
@@ -0,0 +1,175 @@
+package com.infinitpages.util.event;
+
+import com.infinitpages.util.collections.IntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * In-process publish/subscribe bus with int keys (e.g. a recipient id).
+ *
+ * Events published for a key are buffered, and a single flush task is
+ * handed to the delivery executor no matter how many events arrive before
+ * it runs. The flush then gives every listener the whole list of events
+ * for its key. With Platform::runLater as executor, a burst of events costs
+ * one FX runnable, and listeners run on the FX thread.
+ *
+ * Events for keys nobody listens to are dropped on publish. Listeners are
+ * stored in copy-on-write lists, so delivery never holds the lock.
+ *
+ * @param <E> Event type
+ */
+public class KeyedEventBus<E> {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedEventBus.class);
+
+    /**
+     * Receives the events published for the key it subscribed to.
+     */
+    @FunctionalInterface
+    public interface Listener<E> {
+        void onEvents(int key, List<E> events);
+    }
+
+    /**
+     * Handle returned by {@link #subscribe(int, Listener)}; closing it unsubscribes.
+     */
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Object lock = new Object();
+    private final IntObjectHashMap<List<Listener<E>>> listeners = new IntObjectHashMap<>();
+    private IntObjectHashMap<List<E>> pending = new IntObjectHashMap<>();
+    private boolean flushScheduled;
+    private volatile Executor executor;
+
+    /**
+     * Create a bus that delivers on the publishing thread (no coalescing
+     * beyond a single publish) until {@link #setExecutor(Executor)} is called.
+     */
+    public KeyedEventBus() {
+        this(Runnable::run);
+    }
+
+    /**
+     * Create a bus.
+     *
+     * @param executor Runs the flush tasks (e.g. Platform::runLater)
+     */
+    public KeyedEventBus(Executor executor) {
+        setExecutor(executor);
+    }
+
+    /**
+     * Change the executor used for delivery.
+     */
+    public void setExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribe to the events of a key.
+     *
+     * @return A handle to unsubscribe
+     */
+    public Subscription subscribe(int key, Listener<E> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        synchronized (lock) {
+            List<Listener<E>> current = listeners.get(key);
+            List<Listener<E>> updated = current == null ? new ArrayList<>(1) : new ArrayList<>(current);
+            updated.add(listener);
+            listeners.put(key, List.copyOf(updated));
+        }
+        return () -> unsubscribe(key, listener);
+    }
+
+    /**
+     * @return true if at least one listener is subscribed to the key
+     */
+    public boolean hasSubscribers(int key) {
+        synchronized (lock) {
+            return listeners.containsKey(key);
+        }
+    }
+
+    /**
+     * Publish an event. Returns immediately; delivery happens on the executor.
+     *
+     * @return false if nobody listens to the key (the event is dropped)
+     */
+    public boolean publish(int key, E event) {
+        boolean schedule;
+        synchronized (lock) {
+            if (!listeners.containsKey(key)) {
+                return false;
+            }
+            List<E> events = pending.get(key);
+            if (events == null) {
+                events = new ArrayList<>(2);
+                pending.put(key, events);
+            }
+            events.add(event);
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (schedule) {
+            executor.execute(this::flush);
+        }
+        return true;
+    }
+
+    private void unsubscribe(int key, Listener<E> listener) {
+        synchronized (lock) {
+            List<Listener<E>> current = listeners.get(key);
+            if (current == null) {
+                return;
+            }
+            List<Listener<E>> updated = new ArrayList<>(current);
+            updated.remove(listener);
+            if (updated.isEmpty()) {
+                listeners.remove(key);
+            } else {
+                listeners.put(key, List.copyOf(updated));
+            }
+        }
+    }
+
+    private void flush() {
+        IntObjectHashMap<List<E>> batch;
+        IntObjectHashMap<List<Listener<E>>> targets = new IntObjectHashMap<>();
+        synchronized (lock) {
+            batch = pending;
+            pending = new IntObjectHashMap<>();
+            flushScheduled = false;
+            batch.forEach((key, events) -> {
+                List<Listener<E>> subscribed = listeners.get(key);
+                if (subscribed != null) {
+                    targets.put(key, subscribed);
+                }
+            });
+        }
+
+        targets.forEach((key, subscribed) -> {
+            List<E> events = List.copyOf(batch.get(key));
+            for (Listener<E> listener : subscribed) {
+                try {
+                    listener.onEvents(key, events);
+                } catch (RuntimeException e) {
+                    // One faulty listener must not starve the others
+                    logger.error("Event listener failed for key {}", key, e);
+                }
+            }
+        });
+    }
+}
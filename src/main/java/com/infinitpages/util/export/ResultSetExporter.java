@@ -0,0 +1,314 @@
+package com.infinitpages.util.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a JDBC result set to a file as CSV or JSON Lines.
+ *
+ * Rows are read one at a time from the cursor, formatted into a small
+ * reusable text buffer, encoded to UTF-8 into a fixed byte buffer and
+ * written to a FileChannel (optionally through gzip). Memory use is
+ * constant whatever the number of rows, provided the statement streams
+ * its results (forward-only cursor, MySQL fetch size Integer.MIN_VALUE).
+ *
+ * CSV follows RFC 4180 with a header line; JSON Lines writes one object
+ * per row, numbers and booleans unquoted.
+ */
+public class ResultSetExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultSetExporter.class);
+
+    // Rows are encoded once the text buffer reaches this many characters
+    private static final int FLUSH_THRESHOLD = 32 * 1024;
+    private static final int BYTE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Output formats.
+     */
+    public enum Format {
+        CSV(".csv"),
+        JSONL(".jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final Format format;
+    private final boolean gzip;
+
+    /**
+     * Create an exporter.
+     *
+     * @param format Output format
+     * @param gzip true to gzip the output
+     */
+    public ResultSetExporter(Format format, boolean gzip) {
+        if (format == null) {
+            throw new IllegalArgumentException("format must not be null");
+        }
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Write every remaining row of a result set to a file (created or truncated).
+     *
+     * @param rs The result set, positioned before its first row
+     * @param target The output file
+     * @return Number of rows written
+     */
+    public long export(ResultSet rs, Path target) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        int[] types = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+        }
+
+        long rows = 0;
+        long start = System.currentTimeMillis();
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             WritableByteChannel out = gzip
+                 ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BYTE_BUFFER_SIZE))
+                 : channel) {
+
+            Writer writer = new Writer(out);
+            StringBuilder line = writer.text;
+
+            if (format == Format.CSV) {
+                for (int i = 0; i < columnCount; i++) {
+                    if (i > 0) {
+                        line.append(',');
+                    }
+                    appendCsv(line, labels[i]);
+                }
+                line.append('\n');
+            }
+
+            while (rs.next()) {
+                if (format == Format.CSV) {
+                    appendCsvRow(rs, types, line);
+                } else {
+                    appendJsonRow(rs, labels, types, line);
+                }
+                rows++;
+                if (line.length() >= FLUSH_THRESHOLD) {
+                    writer.flush(false);
+                }
+            }
+            writer.flush(true);
+        }
+
+        logger.info("Exported {} rows to {} in {} ms", rows, target, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private void appendCsvRow(ResultSet rs, int[] types, StringBuilder line) throws SQLException {
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = readValue(rs, i + 1, types[i]);
+            if (value != null) {
+                appendCsv(line, value);
+            }
+        }
+        line.append('\n');
+    }
+
+    private void appendJsonRow(ResultSet rs, String[] labels, int[] types, StringBuilder line) throws SQLException {
+        line.append('{');
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendJsonString(line, labels[i]);
+            line.append(':');
+            String value = readValue(rs, i + 1, types[i]);
+            if (value == null) {
+                line.append("null");
+            } else if (isNumeric(types[i]) || isBoolean(types[i])) {
+                line.append(value);
+            } else {
+                appendJsonString(line, value);
+            }
+        }
+        line.append("}\n");
+    }
+
+    /**
+     * Read a column as text (null for SQL NULL).
+     */
+    private static String readValue(ResultSet rs, int column, int type) throws SQLException {
+        if (isBoolean(type)) {
+            boolean value = rs.getBoolean(column);
+            return rs.wasNull() ? null : Boolean.toString(value);
+        }
+        if (type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB) {
+            byte[] bytes = rs.getBytes(column);
+            return bytes == null ? null : Base64.getEncoder().encodeToString(bytes);
+        }
+        return rs.getString(column);
+    }
+
+    private static boolean isNumeric(int type) {
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isBoolean(int type) {
+        return type == Types.BOOLEAN || type == Types.BIT;
+    }
+
+    private static void appendCsv(StringBuilder line, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Encodes the text buffer into a fixed byte buffer and drains it to the channel.
+     * Flushes only happen between rows, so no surrogate pair is ever split.
+     */
+    private static final class Writer {
+
+        private final WritableByteChannel out;
+        private final StringBuilder text = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        Writer(WritableByteChannel out) {
+            this.out = out;
+        }
+
+        void flush(boolean endOfInput) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            encode(chars, endOfInput);
+            text.setLength(0);
+
+            if (endOfInput) {
+                while (encoder.flush(bytes).isOverflow()) {
+                    drain();
+                }
+                drain();
+            }
+        }
+
+        private void encode(CharBuffer chars, boolean endOfInput) throws IOException {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isError()) {
+                    try {
+                        result.throwException();
+                    } catch (CharacterCodingException e) {
+                        throw new IOException("Invalid character in exported data", e);
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+}
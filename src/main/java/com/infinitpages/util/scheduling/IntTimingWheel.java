@@ -0,0 +1,268 @@
+package com.infinitpages.util.scheduling;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel holding int payloads.
+ *
+ * Level 0 has one slot per tick; each higher level has slots
+ * {@code wheelSize} times wider. A timer is placed in the lowest level whose
+ * span covers its deadline and moves down a level each time the wheel
+ * reaches its slot (cascading), until it fires from level 0. Scheduling and
+ * cancelling are O(1); advancing costs O(1) per tick plus the timers fired
+ * or cascaded.
+ *
+ * Timers live in parallel primitive arrays (an intrusive doubly-linked list
+ * per slot), so a pending timer costs about 24 bytes and no object.
+ * A handle is valid until its timer fires or is cancelled; it may then be
+ * reused for a new timer.
+ *
+ * Not thread-safe: callers must synchronize externally.
+ */
+public class IntTimingWheel {
+
+    private static final int NONE = -1;
+
+    /**
+     * Receives the timers fired by {@link #advance(long, ExpiryVisitor)}.
+     * The visitor may schedule new timers (e.g. to re-arm a periodic one).
+     */
+    @FunctionalInterface
+    public interface ExpiryVisitor {
+        void expired(int handle, int payload, long deadlineMillis);
+    }
+
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int levels;
+
+    // heads[level * wheelSize + slot] = first timer of the slot
+    private final int[] heads;
+
+    // Per-timer storage, indexed by handle
+    private long[] deadlines;
+    private int[] payloads;
+    private int[] next;
+    private int[] prev;
+    private int[] locations;
+
+    private int freeHead = NONE;
+    private int allocated;
+    private int size;
+    private long currentTick;
+
+    /**
+     * Create a wheel.
+     *
+     * @param tickMillis Resolution of level 0
+     * @param wheelBits log2 of the number of slots per level
+     * @param levels Number of levels (span = tickMillis * 2^(wheelBits * levels))
+     * @param startMillis Current time
+     */
+    public IntTimingWheel(long tickMillis, int wheelBits, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelBits < 1 || wheelBits > 16 || levels < 1 || wheelBits * levels > 62) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelBits = wheelBits;
+        this.wheelMask = (1 << wheelBits) - 1;
+        this.levels = levels;
+        this.heads = new int[levels << wheelBits];
+        Arrays.fill(heads, NONE);
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+
+        int capacity = 64;
+        this.deadlines = new long[capacity];
+        this.payloads = new int[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        this.locations = new int[capacity];
+    }
+
+    /**
+     * @return Number of pending timers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Time of the last tick processed
+     */
+    public long currentTimeMillis() {
+        return currentTick * tickMillis;
+    }
+
+    /**
+     * Schedule a timer. A deadline in the past fires on the next tick.
+     *
+     * @param deadlineMillis When the timer should fire
+     * @param payload Value passed back on expiry
+     * @return Handle of the timer, for {@link #cancel(int)}
+     */
+    public int schedule(long deadlineMillis, int payload) {
+        int handle = allocate();
+        deadlines[handle] = deadlineMillis;
+        payloads[handle] = payload;
+        // The current tick has already been processed
+        place(handle, currentTick + 1);
+        size++;
+        return handle;
+    }
+
+    /**
+     * Cancel a pending timer.
+     *
+     * @return true if the timer was pending
+     */
+    public boolean cancel(int handle) {
+        if (handle < 0 || handle >= allocated || locations[handle] == NONE) {
+            return false;
+        }
+        unlink(handle);
+        release(handle);
+        size--;
+        return true;
+    }
+
+    /**
+     * Return the payload of a pending timer.
+     */
+    public int payload(int handle) {
+        return payloads[handle];
+    }
+
+    /**
+     * Advance the wheel to a given time, firing every timer whose tick has been reached.
+     *
+     * @param nowMillis Current time
+     * @param visitor Receives the fired timers, in tick order
+     * @return Number of timers fired
+     */
+    public int advance(long nowMillis, ExpiryVisitor visitor) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        int fired = 0;
+
+        while (currentTick < targetTick) {
+            if (size == 0) {
+                // Nothing to cascade or fire: jump straight to the target
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+
+            // Cascade higher levels whose slot boundary is reached, top down
+            for (int level = levels - 1; level >= 1; level--) {
+                long lowerBits = currentTick & ((1L << (wheelBits * level)) - 1);
+                if (lowerBits == 0) {
+                    int slot = (int) ((currentTick >>> (wheelBits * level)) & wheelMask);
+                    cascade(level, slot);
+                }
+            }
+
+            int index = (int) (currentTick & wheelMask);
+            int handle = heads[index];
+            heads[index] = NONE;
+            while (handle != NONE) {
+                int following = next[handle];
+                long deadline = deadlines[handle];
+                int payload = payloads[handle];
+                locations[handle] = NONE;
+                release(handle);
+                size--;
+                fired++;
+                visitor.expired(handle, payload, deadline);
+                handle = following;
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Remove every pending timer.
+     */
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        Arrays.fill(locations, 0, allocated, NONE);
+        freeHead = NONE;
+        allocated = 0;
+        size = 0;
+    }
+
+    private void cascade(int level, int slot) {
+        int index = (level << wheelBits) + slot;
+        int handle = heads[index];
+        heads[index] = NONE;
+        while (handle != NONE) {
+            int following = next[handle];
+            // Cascading runs before level 0 fires the current tick, so it may still receive timers
+            place(handle, currentTick);
+            handle = following;
+        }
+    }
+
+    private void place(int handle, long minTick) {
+        long tick = Math.max(Math.floorDiv(deadlines[handle], tickMillis), minTick);
+
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+
+        long levelTick = tick >>> (wheelBits * level);
+        long currentLevelTick = currentTick >>> (wheelBits * level);
+        if (levelTick - currentLevelTick > wheelMask) {
+            // Beyond this level's turn: park in its farthest slot, re-placed when cascaded
+            levelTick = currentLevelTick + wheelMask;
+        }
+
+        int index = (level << wheelBits) + (int) (levelTick & wheelMask);
+        int head = heads[index];
+        next[handle] = head;
+        prev[handle] = NONE;
+        if (head != NONE) {
+            prev[head] = handle;
+        }
+        heads[index] = handle;
+        locations[handle] = index;
+    }
+
+    private void unlink(int handle) {
+        int index = locations[handle];
+        int before = prev[handle];
+        int after = next[handle];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[index] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        locations[handle] = NONE;
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int handle = freeHead;
+            freeHead = next[handle];
+            return handle;
+        }
+        if (allocated == deadlines.length) {
+            int capacity = deadlines.length * 2;
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+        }
+        return allocated++;
+    }
+
+    private void release(int handle) {
+        next[handle] = freeHead;
+        freeHead = handle;
+    }
+}
@@ -0,0 +1,135 @@
+package com.infinitpages.util.sketch;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch: approximate event counts per key in fixed memory.
+ *
+ * Each of the d rows maps a key to one of w counters; the estimate is the
+ * minimum over the rows, which never underestimates and overestimates by
+ * at most e·N/w with probability 1 - e^-d (N = total count).
+ *
+ * Sketches with the same dimensions and seed are linear: they can be added
+ * and subtracted counter by counter, which is what sliding windows rely on.
+ *
+ * Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long seed;
+    private final int[] counters;
+    private long total;
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param width Counters per row (rounded up to a power of two)
+     * @param depth Number of rows
+     * @param seed Hash seed: only sketches with the same seed can be combined
+     */
+    public CountMinSketch(int width, int depth, long seed) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        this.width = powerOfTwoAtLeast(width);
+        this.depth = depth;
+        this.seed = seed;
+        this.counters = new int[this.width * depth];
+    }
+
+    /**
+     * Add occurrences of a key.
+     *
+     * @param key The key
+     * @param count Occurrences to add (may be negative to undo an add)
+     */
+    public void add(long key, int count) {
+        long h = MinHash.fmix64(key ^ seed);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int mask = width - 1;
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + ((h1 + row * h2) & mask)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Estimate the count of a key.
+     *
+     * @return An upper bound of the true count (exact when there are no collisions)
+     */
+    public int estimate(long key) {
+        long h = MinHash.fmix64(key ^ seed);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int mask = width - 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int c = counters[row * width + ((h1 + row * h2) & mask)];
+            if (c < min) {
+                min = c;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Add every counter of another sketch to this one.
+     */
+    public void merge(CountMinSketch other) {
+        checkCompatible(other);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Subtract every counter of another sketch from this one.
+     * Only meaningful if that sketch was previously merged in.
+     */
+    public void subtract(CountMinSketch other) {
+        checkCompatible(other);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] -= other.counters[i];
+        }
+        total -= other.total;
+    }
+
+    /**
+     * Reset every counter to zero.
+     */
+    public void clear() {
+        Arrays.fill(counters, 0);
+        total = 0;
+    }
+
+    /**
+     * @return Sum of all counts added
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    private void checkCompatible(CountMinSketch other) {
+        if (other.width != width || other.depth != depth || other.seed != seed) {
+            throw new IllegalArgumentException("Incompatible sketch dimensions or seed");
+        }
+    }
+
+    private static int powerOfTwoAtLeast(int n) {
+        int p = Integer.highestOneBit(n);
+        return p == n ? n : p << 1;
+    }
+}
@@ -0,0 +1,191 @@
+package com.infinitpages.util.sketch;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * HyperLogLog cardinality estimator.
+ *
+ * Values are hashed to 64 bits; the first p bits select one of m = 2^p
+ * registers, which keeps the longest run of leading zeros seen in the
+ * remaining bits. The harmonic mean of the registers estimates the number
+ * of distinct values with a standard error of about 1.04 / sqrt(m),
+ * e.g. 3.25% for p = 10 (1 KB of registers).
+ *
+ * Merging keeps the register-wise maximum, so it is associative and
+ * idempotent: merging the same sketch twice does not change the estimate.
+ *
+ * Not thread-safe.
+ */
+public class HyperLogLog {
+
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 16;
+
+    // Serialized forms: [precision, encoding, payload...]
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param precision Number of index bits, between 4 and 16
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add a value (e.g. a user id).
+     */
+    public void add(long value) {
+        addHash(MinHash.fmix64(value + 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Add a value that is already a well-mixed 64-bit hash.
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Sentinel bit bounds the rank when the remaining bits are all zero
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Estimate the number of distinct values added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        // Small range: linear counting is more accurate
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Merge another sketch of the same precision into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return true if no value was ever added
+     */
+    public boolean isEmpty() {
+        for (byte r : registers) {
+            if (r != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Serialize the sketch. Sparse sketches (few non-zero registers) are
+     * stored as (index, value) triples, dense ones as the raw registers.
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte r : registers) {
+            if (r != 0) {
+                nonZero++;
+            }
+        }
+
+        if (nonZero * 3 < registers.length) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(2 + nonZero * 3);
+            out.write(precision);
+            out.write(SPARSE);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    out.write(i >>> 8);
+                    out.write(i);
+                    out.write(registers[i]);
+                }
+            }
+            return out.toByteArray();
+        }
+
+        byte[] bytes = new byte[2 + registers.length];
+        bytes[0] = (byte) precision;
+        bytes[1] = DENSE;
+        System.arraycopy(registers, 0, bytes, 2, registers.length);
+        return bytes;
+    }
+
+    /**
+     * Deserialize a sketch produced by {@link #toBytes()}.
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2) {
+            throw new IllegalArgumentException("Invalid HyperLogLog data");
+        }
+        HyperLogLog hll = new HyperLogLog(bytes[0]);
+        if (bytes[1] == DENSE) {
+            if (bytes.length != 2 + hll.registers.length) {
+                throw new IllegalArgumentException("Invalid HyperLogLog data");
+            }
+            System.arraycopy(bytes, 2, hll.registers, 0, hll.registers.length);
+        } else if (bytes[1] == SPARSE) {
+            if ((bytes.length - 2) % 3 != 0) {
+                throw new IllegalArgumentException("Invalid HyperLogLog data");
+            }
+            for (int i = 2; i < bytes.length; i += 3) {
+                int index = ((bytes[i] & 0xFF) << 8) | (bytes[i + 1] & 0xFF);
+                if (index >= hll.registers.length) {
+                    throw new IllegalArgumentException("Invalid HyperLogLog data");
+                }
+                hll.registers[index] = bytes[i + 2];
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown HyperLogLog encoding: " + bytes[1]);
+        }
+        return hll;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1.0 + 1.079 / m);
+        }
+    }
+}
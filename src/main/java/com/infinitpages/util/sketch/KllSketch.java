@@ -0,0 +1,363 @@
+package com.infinitpages.util.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch (Karnin, Lang, Liberty) over double values.
+ *
+ * Values go into a hierarchy of compactors; level h holds items of weight
+ * 2^h. When the sketch is full, the lowest full compactor is sorted and
+ * every other item (random offset) is promoted to the next level. Level
+ * capacities shrink geometrically from the top, so the sketch keeps about
+ * 3k items whatever the stream length.
+ *
+ * Sketches built from disjoint streams with the same k can be merged; the
+ * result has the same error guarantees as a sketch fed both streams. With
+ * k = 200 the rank error is around 1.5 %. Min and max are exact.
+ *
+ * Not thread-safe.
+ */
+public class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_K = 8;
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+    private static final byte SERIAL_VERSION = 1;
+
+    private final int k;
+    private double[][] levels;
+    private int[] sizes;
+    private int numLevels;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private long randomState;
+
+    /**
+     * Create an empty sketch with the default accuracy.
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Create an empty sketch.
+     *
+     * @param k Accuracy parameter (capacity of the top compactor); error is about 1.65 / k
+     */
+    public KllSketch(int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException("k must be at least " + MIN_K);
+        }
+        this.k = k;
+        this.levels = new double[4][];
+        this.sizes = new int[4];
+        this.randomState = 0x9E3779B97F4A7C15L;
+        addLevel();
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return Number of values seen (including merged sketches)
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @return Smallest value seen, NaN if empty
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * @return Largest value seen, NaN if empty
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Add a value.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        count++;
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        if (retainedItems() >= maxRetainedItems()) {
+            compress();
+        }
+    }
+
+    /**
+     * Merge another sketch into this one.
+     */
+    public void merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge sketches with different k");
+        }
+        if (other.isEmpty()) {
+            return;
+        }
+        while (numLevels < other.numLevels) {
+            addLevel();
+        }
+        for (int h = 0; h < other.numLevels; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        if (isEmpty()) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        while (retainedItems() >= maxRetainedItems()) {
+            compress();
+        }
+    }
+
+    /**
+     * Estimate the value at a given rank.
+     *
+     * @param fraction Rank between 0 and 1 (0.5 for the median, 0.9 for p90)
+     * @return The estimated quantile, NaN if the sketch is empty
+     */
+    public double quantile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("fraction must be between 0 and 1");
+        }
+        return quantiles(new double[] {fraction})[0];
+    }
+
+    /**
+     * Estimate several quantiles with a single sort of the retained items.
+     *
+     * @param fractions Ranks between 0 and 1
+     * @return The estimated quantiles, in the same order (NaN if the sketch is empty)
+     */
+    public double[] quantiles(double[] fractions) {
+        double[] result = new double[fractions.length];
+        if (isEmpty()) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        int retained = retainedItems();
+        long[] cumulative = new long[retained];
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+
+        // Gather items with their weight (2^level), then walk them in value order
+        int n = 0;
+        for (int h = 0; h < numLevels; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+        long totalWeight = 0;
+        for (int i = 0; i < retained; i++) {
+            totalWeight += weights[order[i]];
+            cumulative[i] = totalWeight;
+        }
+
+        for (int q = 0; q < fractions.length; q++) {
+            double fraction = fractions[q];
+            if (fraction <= 0) {
+                result[q] = min;
+                continue;
+            }
+            if (fraction >= 1) {
+                result[q] = max;
+                continue;
+            }
+            long target = (long) Math.ceil(fraction * totalWeight);
+            int index = Arrays.binarySearch(cumulative, target);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            result[q] = values[order[Math.min(index, retained - 1)]];
+        }
+        return result;
+    }
+
+    /**
+     * Estimate the fraction of values less than or equal to a given value.
+     */
+    public double rank(double value) {
+        if (isEmpty()) {
+            return Double.NaN;
+        }
+        long below = 0;
+        long total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            long weight = 1L << h;
+            for (int i = 0; i < sizes[h]; i++) {
+                if (levels[h][i] <= value) {
+                    below += weight;
+                }
+                total += weight;
+            }
+        }
+        return (double) below / total;
+    }
+
+    /**
+     * Serialize the sketch.
+     * Layout: version, k, count, min, max, numLevels, then for each level its size and items.
+     */
+    public byte[] toBytes() {
+        int retained = retainedItems();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 8 + 8 + 4 + 4 * numLevels + 8 * retained);
+        buffer.put(SERIAL_VERSION);
+        buffer.putInt(k);
+        buffer.putLong(count);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(numLevels);
+        for (int h = 0; h < numLevels; h++) {
+            buffer.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                buffer.putDouble(levels[h][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Rebuild a sketch serialized with {@link #toBytes()}.
+     */
+    public static KllSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != SERIAL_VERSION) {
+            throw new IllegalArgumentException("Unsupported KLL serial version: " + version);
+        }
+        KllSketch sketch = new KllSketch(buffer.getInt());
+        sketch.count = buffer.getLong();
+        sketch.min = buffer.getDouble();
+        sketch.max = buffer.getDouble();
+        int levelCount = buffer.getInt();
+        while (sketch.numLevels < levelCount) {
+            sketch.addLevel();
+        }
+        for (int h = 0; h < levelCount; h++) {
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                sketch.append(h, buffer.getDouble());
+            }
+        }
+        sketch.randomState ^= sketch.count;
+        return sketch;
+    }
+
+    /**
+     * Compact the lowest level that is over capacity into the level above.
+     */
+    private void compress() {
+        for (int h = 0; h < numLevels; h++) {
+            if (sizes[h] >= capacity(h)) {
+                if (h + 1 >= numLevels) {
+                    addLevel();
+                }
+                double[] items = levels[h];
+                int size = sizes[h];
+                Arrays.sort(items, 0, size);
+
+                // An odd item stays at this level
+                int pairs = size / 2;
+                int offset = nextBit();
+                for (int i = 0; i < pairs; i++) {
+                    append(h + 1, items[2 * i + offset]);
+                }
+                if ((size & 1) == 1) {
+                    items[0] = items[size - 1];
+                    sizes[h] = 1;
+                } else {
+                    sizes[h] = 0;
+                }
+                return;
+            }
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = numLevels - level - 1;
+        return (int) Math.ceil(Math.pow(CAPACITY_RATIO, depth) * k) + 1;
+    }
+
+    private int maxRetainedItems() {
+        int total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            total += capacity(h);
+        }
+        return total;
+    }
+
+    private int retainedItems() {
+        int total = 0;
+        for (int h = 0; h < numLevels; h++) {
+            total += sizes[h];
+        }
+        return total;
+    }
+
+    private void addLevel() {
+        if (numLevels == levels.length) {
+            levels = Arrays.copyOf(levels, numLevels * 2);
+            sizes = Arrays.copyOf(sizes, numLevels * 2);
+        }
+        levels[numLevels] = new double[16];
+        sizes[numLevels] = 0;
+        numLevels++;
+    }
+
+    private void append(int level, double value) {
+        double[] items = levels[level];
+        if (sizes[level] == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels[level] = items;
+        }
+        items[sizes[level]++] = value;
+    }
+
+    private int nextBit() {
+        // xorshift64
+        long x = randomState;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        randomState = x;
+        return (int) (x >>> 63);
+    }
+}
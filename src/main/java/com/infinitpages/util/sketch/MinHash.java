@@ -0,0 +1,111 @@
+package com.infinitpages.util.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * MinHash signatures for estimating the Jaccard similarity of token sets.
+ *
+ * Each of the k hash functions keeps the minimum hash seen over the set;
+ * the fraction of equal components between two signatures is an unbiased
+ * estimate of |A ∩ B| / |A ∪ B|.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public class MinHash {
+
+    private final long[] seeds;
+
+    /**
+     * Create a MinHash family.
+     *
+     * @param numHashes Number of hash functions (signature length)
+     * @param seed Seed of the family: signatures are only comparable for equal seeds
+     */
+    public MinHash(int numHashes, long seed) {
+        if (numHashes <= 0) {
+            throw new IllegalArgumentException("numHashes must be positive");
+        }
+        this.seeds = new long[numHashes];
+        long state = seed;
+        for (int i = 0; i < numHashes; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = fmix64(state);
+        }
+    }
+
+    /**
+     * @return The signature length
+     */
+    public int getNumHashes() {
+        return seeds.length;
+    }
+
+    /**
+     * Compute the signature of a token set.
+     *
+     * @param tokens The tokens (duplicates are harmless)
+     * @return The signature, or null if the set is empty
+     */
+    public int[] signature(Collection<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String token : tokens) {
+            long base = hash64(token);
+            for (int i = 0; i < seeds.length; i++) {
+                // Keep 31 bits so that the signed comparison is a plain unsigned minimum
+                int h = (int) (fmix64(base ^ seeds[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimate the Jaccard similarity of two signatures.
+     *
+     * @return A value between 0 and 1
+     */
+    public static double similarity(int[] a, int[] b) {
+        if (a == null || b == null || a.length != b.length) {
+            return 0.0;
+        }
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finalized with fmix64.
+     */
+    static long hash64(String token) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : token.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xFF);
+            h *= 0x100000001B3L;
+        }
+        return fmix64(h);
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer.
+     */
+    static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB93FE1A85A4DL;
+        k ^= k >>> 33;
+        return k;
+    }
+}
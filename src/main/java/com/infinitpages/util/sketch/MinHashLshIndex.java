@@ -0,0 +1,257 @@
+package com.infinitpages.util.sketch;
+
+import com.infinitpages.util.collections.IntIntHashMap;
+import com.infinitpages.util.collections.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index over MinHash signatures
+ * (locality-sensitive hashing with the banding technique).
+ *
+ * The signature is cut into b bands of r rows. Two items become candidates
+ * when at least one band is identical, which happens with probability
+ * 1 - (1 - s^r)^b for a Jaccard similarity s. Candidates are then ranked by
+ * their estimated similarity, so a query only touches a few buckets instead
+ * of the whole catalog.
+ *
+ * Thread-safe: queries share a read lock, updates take the write lock.
+ */
+public class MinHashLshIndex {
+
+    private final MinHash minHash;
+    private final int bands;
+    private final int rows;
+
+    private final IntObjectHashMap<int[]> signatures = new IntObjectHashMap<>();
+    private final List<Map<Long, int[]>> buckets;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Create an index.
+     *
+     * @param bands Number of bands
+     * @param rows Rows per band (signature length = bands × rows)
+     * @param seed Seed of the MinHash family
+     */
+    public MinHashLshIndex(int bands, int rows, long seed) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("bands and rows must be positive");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.minHash = new MinHash(bands * rows, seed);
+        this.buckets = new ArrayList<>(bands);
+        for (int b = 0; b < bands; b++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Index (or re-index) an item. An empty token set removes the item.
+     *
+     * @param id Item identifier (must not be 0)
+     * @param tokens The item's tokens
+     */
+    public void put(int id, Collection<String> tokens) {
+        int[] signature = minHash.signature(tokens);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (signature == null) {
+                return;
+            }
+            signatures.put(id, signature);
+            for (int b = 0; b < bands; b++) {
+                Map<Long, int[]> band = buckets.get(b);
+                long key = bandKey(signature, b);
+                int[] bucket = band.get(key);
+                if (bucket == null) {
+                    band.put(key, new int[] { id });
+                } else {
+                    int[] grown = Arrays.copyOf(bucket, bucket.length + 1);
+                    grown[bucket.length] = id;
+                    band.put(key, grown);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an item from the index.
+     *
+     * @return true if the item was indexed
+     */
+    public boolean remove(int id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the items most similar to an indexed item.
+     *
+     * @param id The reference item
+     * @param limit Maximum number of results
+     * @param minSimilarity Minimum estimated Jaccard similarity (0 to 1)
+     * @return Item identifiers, most similar first (never contains id itself)
+     */
+    public int[] query(int id, int limit, double minSimilarity) {
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(id);
+            if (signature == null) {
+                return new int[0];
+            }
+            return queryLocked(signature, id, limit, minSimilarity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the items most similar to an arbitrary token set.
+     *
+     * @param tokens The query tokens
+     * @param limit Maximum number of results
+     * @param minSimilarity Minimum estimated Jaccard similarity (0 to 1)
+     * @return Item identifiers, most similar first
+     */
+    public int[] query(Collection<String> tokens, int limit, double minSimilarity) {
+        int[] signature = minHash.signature(tokens);
+        if (signature == null) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            return queryLocked(signature, 0, limit, minSimilarity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of indexed items
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every item.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            for (Map<Long, int[]> band : buckets) {
+                band.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int[] queryLocked(int[] signature, int excludedId, int limit, double minSimilarity) {
+        IntIntHashMap seen = new IntIntHashMap();
+        int[] candidates = new int[16];
+        double[] scores = new double[16];
+        int count = 0;
+
+        for (int b = 0; b < bands; b++) {
+            int[] bucket = buckets.get(b).get(bandKey(signature, b));
+            if (bucket == null) {
+                continue;
+            }
+            for (int candidate : bucket) {
+                if (candidate == excludedId || seen.containsKey(candidate)) {
+                    continue;
+                }
+                seen.put(candidate, 1);
+                double similarity = MinHash.similarity(signature, signatures.get(candidate));
+                if (similarity < minSimilarity) {
+                    continue;
+                }
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, count * 2);
+                    scores = Arrays.copyOf(scores, count * 2);
+                }
+                candidates[count] = candidate;
+                scores[count] = similarity;
+                count++;
+            }
+        }
+
+        // Partial selection sort: limit is small compared to the candidate count
+        int resultSize = Math.min(limit, count);
+        for (int i = 0; i < resultSize; i++) {
+            int best = i;
+            for (int j = i + 1; j < count; j++) {
+                if (scores[j] > scores[best]) {
+                    best = j;
+                }
+            }
+            int id = candidates[i];
+            candidates[i] = candidates[best];
+            candidates[best] = id;
+            double score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+        return Arrays.copyOf(candidates, resultSize);
+    }
+
+    private boolean removeLocked(int id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return false;
+        }
+        for (int b = 0; b < bands; b++) {
+            Map<Long, int[]> band = buckets.get(b);
+            long key = bandKey(signature, b);
+            int[] bucket = band.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            if (bucket.length == 1) {
+                band.remove(key);
+                continue;
+            }
+            int[] shrunk = new int[bucket.length - 1];
+            int n = 0;
+            for (int member : bucket) {
+                if (member != id && n < shrunk.length) {
+                    shrunk[n++] = member;
+                }
+            }
+            band.put(key, shrunk);
+        }
+        return true;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long h = band;
+        int start = band * rows;
+        for (int i = start; i < start + rows; i++) {
+            h = MinHash.fmix64(h * 31 + signature[i]);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,235 @@
+package com.infinitpages.util.sketch;
+
+import com.infinitpages.util.collections.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Heavy hitters over a sliding time window, in bounded memory.
+ *
+ * The window is a ring of time buckets, each holding a Count-Min Sketch of
+ * the events that fell into it. A running sketch holds the sum of the live
+ * buckets: when a bucket leaves the window its counters are subtracted, so
+ * estimates always cost O(depth) whatever the window length.
+ *
+ * The k heaviest keys are tracked in a min-heap. A key enters the heap when
+ * its estimate beats the current minimum; heap counts are refreshed whenever
+ * the window slides.
+ *
+ * Memory is (buckets + 1) × width × depth counters plus k heap slots,
+ * independent of the number of distinct keys. The effective window is
+ * between (buckets - 1) and buckets bucket lengths.
+ *
+ * Thread-safe (all methods are synchronized).
+ */
+public class SlidingWindowTopK {
+
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final long bucketMillis;
+    private final CountMinSketch[] ring;
+    private final CountMinSketch window;
+    private long currentBucket = NOT_STARTED;
+
+    // Min-heap of tracked keys, positions stored 1-based (0 = not tracked)
+    private final int capacity;
+    private final int[] heapIds;
+    private final int[] heapCounts;
+    private int heapSize;
+    private final IntIntHashMap positions = new IntIntHashMap();
+
+    /**
+     * Create a sliding window.
+     *
+     * @param buckets Number of buckets in the ring
+     * @param bucketMillis Duration of one bucket in milliseconds
+     * @param k Number of heavy hitters to track
+     * @param width Count-Min Sketch width
+     * @param depth Count-Min Sketch depth
+     * @param seed Count-Min Sketch seed
+     */
+    public SlidingWindowTopK(int buckets, long bucketMillis, int k, int width, int depth, long seed) {
+        if (buckets <= 0 || bucketMillis <= 0 || k <= 0) {
+            throw new IllegalArgumentException("buckets, bucketMillis and k must be positive");
+        }
+        this.bucketMillis = bucketMillis;
+        this.ring = new CountMinSketch[buckets];
+        for (int i = 0; i < buckets; i++) {
+            ring[i] = new CountMinSketch(width, depth, seed);
+        }
+        this.window = new CountMinSketch(width, depth, seed);
+        this.capacity = k;
+        this.heapIds = new int[k];
+        this.heapCounts = new int[k];
+    }
+
+    /**
+     * Record an event.
+     *
+     * @param id The key (must not be 0)
+     * @param weight Weight of the event
+     * @param nowMillis Event time; late events are counted in the current bucket
+     */
+    public synchronized void add(int id, int weight, long nowMillis) {
+        advance(nowMillis);
+        ring[slot(currentBucket)].add(id, weight);
+        window.add(id, weight);
+        offer(id, window.estimate(id));
+    }
+
+    /**
+     * Estimated weight of a key over the window.
+     */
+    public synchronized int estimate(int id, long nowMillis) {
+        advance(nowMillis);
+        return window.estimate(id);
+    }
+
+    /**
+     * The heaviest keys over the window.
+     *
+     * @param limit Maximum number of keys (at most k)
+     * @param nowMillis Current time
+     * @return Keys, heaviest first
+     */
+    public synchronized int[] top(int limit, long nowMillis) {
+        advance(nowMillis);
+        int n = Math.min(limit, heapSize);
+        if (n <= 0) {
+            return new int[0];
+        }
+        // Sort (count desc, id asc) through packed longs
+        long[] packed = new long[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            packed[i] = ((long) (Integer.MAX_VALUE - heapCounts[i]) << 32) | (heapIds[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = (int) packed[i];
+        }
+        return result;
+    }
+
+    /**
+     * Drop every event.
+     */
+    public synchronized void clear() {
+        for (CountMinSketch bucket : ring) {
+            bucket.clear();
+        }
+        window.clear();
+        heapSize = 0;
+        positions.clear();
+        currentBucket = NOT_STARTED;
+    }
+
+    private void advance(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        if (currentBucket == NOT_STARTED) {
+            currentBucket = bucket;
+            return;
+        }
+        if (bucket <= currentBucket) {
+            return;
+        }
+
+        long steps = bucket - currentBucket;
+        if (steps >= ring.length) {
+            for (CountMinSketch expired : ring) {
+                expired.clear();
+            }
+            window.clear();
+        } else {
+            for (long b = currentBucket + 1; b <= bucket; b++) {
+                CountMinSketch expired = ring[slot(b)];
+                window.subtract(expired);
+                expired.clear();
+            }
+        }
+        currentBucket = bucket;
+        refreshHeap();
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) ring.length);
+    }
+
+    private void offer(int id, int count) {
+        int pos = positions.get(id, 0);
+        if (pos > 0) {
+            heapCounts[pos - 1] = count;
+            siftDown(pos - 1);
+        } else if (heapSize < capacity) {
+            heapIds[heapSize] = id;
+            heapCounts[heapSize] = count;
+            positions.put(id, heapSize + 1);
+            siftUp(heapSize++);
+        } else if (count > heapCounts[0]) {
+            positions.remove(heapIds[0]);
+            heapIds[0] = id;
+            heapCounts[0] = count;
+            positions.put(id, 1);
+            siftDown(0);
+        }
+    }
+
+    private void refreshHeap() {
+        int n = 0;
+        positions.clear();
+        for (int i = 0; i < heapSize; i++) {
+            int count = window.estimate(heapIds[i]);
+            if (count > 0) {
+                heapIds[n] = heapIds[i];
+                heapCounts[n] = count;
+                positions.put(heapIds[n], n + 1);
+                n++;
+            }
+        }
+        heapSize = n;
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCounts[parent] <= heapCounts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < heapSize && heapCounts[right] < heapCounts[left]) {
+                smallest = right;
+            }
+            if (heapCounts[i] <= heapCounts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = heapIds[a];
+        int count = heapCounts[a];
+        heapIds[a] = heapIds[b];
+        heapCounts[a] = heapCounts[b];
+        heapIds[b] = id;
+        heapCounts[b] = count;
+        positions.put(heapIds[a], a + 1);
+        positions.put(heapIds[b], b + 1);
+    }
+}
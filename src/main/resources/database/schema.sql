@@ -4,12 +4,24 @@
 -- =====================================================
 
 -- Supprimer les tables si elles existent (dans l'ordre inverse des dépendances)
+DROP TABLE IF EXISTS solde_instantane;
+DROP TABLE IF EXISTS mouvement_solde;
+DROP TABLE IF EXISTS rappel_envoye;
+DROP TABLE IF EXISTS reservation;
+DROP TABLE IF EXISTS politique_retention_notification;
+DROP TABLE IF EXISTS notification_lecture;
+DROP TABLE IF EXISTS traitement_retards;
+DROP TABLE IF EXISTS sketch_quantiles;
+DROP TABLE IF EXISTS agregat_paiement_jour;
+DROP TABLE IF EXISTS agregat_emprunt_jour;
+DROP TABLE IF EXISTS sketch_lecteurs;
 DROP TABLE IF EXISTS historique_document;
 DROP TABLE IF EXISTS rapport;
 DROP TABLE IF EXISTS notification;
 DROP TABLE IF EXISTS avis;
 DROP TABLE IF EXISTS paiement;
 DROP TABLE IF EXISTS emprunt;
+DROP TABLE IF EXISTS exemplaire;
 DROP TABLE IF EXISTS document_numerique;
 DROP TABLE IF EXISTS document_reel;
 DROP TABLE IF EXISTS document;
@@ -40,6 +52,9 @@ CREATE TABLE utilisateur (
     id_personne INT PRIMARY KEY,
     type_utilisateur ENUM('PERSONNE_NORMALE', 'ETUDIANT', 'ENSEIGNANT') NOT NULL,
     limite_emprunts INT NOT NULL DEFAULT 3,
+    -- Emprunts non rendus, tenu par UPDATE relatif à l'emprunt (sous la limite) et au retour
+    emprunts_actifs INT NOT NULL DEFAULT 0,
+    -- Copie du solde consolidé (solde_instantane), avancée par UPDATE relatif ; le solde exact vient de mouvement_solde
     solde_a_payer DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
     FOREIGN KEY (id_personne) REFERENCES personne(id) ON DELETE CASCADE,
     INDEX idx_type_utilisateur (type_utilisateur)
@@ -92,6 +107,9 @@ CREATE TABLE document (
     mots_cles TEXT,
     prix_par_jour DECIMAL(10, 2) NOT NULL DEFAULT 0.00,
     disponible BOOLEAN NOT NULL DEFAULT TRUE,
+    -- Compteur d'exemplaires libres, tenu à jour par UPDATE relatif ; disponible = (exemplaires_disponibles > 0)
+    nombre_exemplaires INT NOT NULL DEFAULT 1,
+    exemplaires_disponibles INT NOT NULL DEFAULT 1,
     nombre_consultations INT NOT NULL DEFAULT 0,
     nombre_emprunts INT NOT NULL DEFAULT 0,
     note_globale DECIMAL(3, 2) NOT NULL DEFAULT 0.00,
@@ -102,6 +120,7 @@ CREATE TABLE document (
     INDEX idx_genre (genre),
     INDEX idx_disponible (disponible),
     INDEX idx_categorie (id_categorie),
+    INDEX idx_nombre_consultations (nombre_consultations),
     FULLTEXT INDEX idx_recherche (titre, auteur, resume, mots_cles)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -118,6 +137,21 @@ CREATE TABLE document_reel (
     INDEX idx_emplacement (emplacement)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- =====================================================
+-- TABLE EXEMPLAIRE (exemplaires physiques d'un document réel)
+-- =====================================================
+CREATE TABLE exemplaire (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    id_document INT NOT NULL,
+    code_barre VARCHAR(50),
+    emplacement VARCHAR(255),
+    condition_livre VARCHAR(100),
+    disponible BOOLEAN NOT NULL DEFAULT TRUE,
+    FOREIGN KEY (id_document) REFERENCES document_reel(id_document) ON DELETE CASCADE,
+    UNIQUE KEY uk_code_barre (code_barre),
+    INDEX idx_document_disponible (id_document, disponible)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- =====================================================
 -- TABLE DOCUMENT_NUMERIQUE (hérite de Document)
 -- =====================================================
@@ -141,6 +175,7 @@ CREATE TABLE emprunt (
     id INT AUTO_INCREMENT PRIMARY KEY,
     id_utilisateur INT NOT NULL,
     id_document INT NOT NULL,
+    id_exemplaire INT,
     date_emprunt DATE NOT NULL,
     date_retour DATE NOT NULL,
     date_retour_effective DATE,
@@ -152,11 +187,14 @@ CREATE TABLE emprunt (
     date_paiement DATE,
     FOREIGN KEY (id_utilisateur) REFERENCES utilisateur(id_personne) ON DELETE CASCADE,
     FOREIGN KEY (id_document) REFERENCES document(id) ON DELETE CASCADE,
+    FOREIGN KEY (id_exemplaire) REFERENCES exemplaire(id) ON DELETE SET NULL,
     INDEX idx_utilisateur (id_utilisateur),
+    INDEX idx_utilisateur_etat (id_utilisateur, etat),
     INDEX idx_document (id_document),
     INDEX idx_etat (etat),
     INDEX idx_date_retour (date_retour),
-    INDEX idx_date_emprunt (date_emprunt)
+    INDEX idx_date_emprunt (date_emprunt),
+    INDEX idx_date_retour_effective (date_retour_effective)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- =====================================================
@@ -246,9 +284,11 @@ CREATE TABLE notification (
     priorite ENUM('HAUTE', 'MOYENNE', 'BASSE') NOT NULL DEFAULT 'MOYENNE',
     FOREIGN KEY (id_destinataire) REFERENCES personne(id) ON DELETE CASCADE,
     INDEX idx_destinataire (id_destinataire),
+    INDEX idx_destinataire_date (id_destinataire, date_envoi),
     INDEX idx_est_lue (est_lue),
     INDEX idx_type (type),
-    INDEX idx_date_envoi (date_envoi)
+    INDEX idx_date_envoi (date_envoi),
+    INDEX idx_type_priorite_date (type, priorite, date_envoi)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- =====================================================
@@ -268,6 +308,158 @@ CREATE TABLE rapport (
     INDEX idx_date_generation (date_generation)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- =====================================================
+-- TABLE SKETCH_LECTEURS (lecteurs distincts, HyperLogLog journaliers)
+-- =====================================================
+CREATE TABLE sketch_lecteurs (
+    type_cible ENUM('DOCUMENT', 'CATEGORIE', 'GLOBAL') NOT NULL,
+    id_cible INT NOT NULL,
+    jour DATE NOT NULL,
+    registres VARBINARY(8192) NOT NULL,
+    PRIMARY KEY (type_cible, id_cible, jour),
+    INDEX idx_type_jour (type_cible, jour)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLES D'AGRÉGATS JOURNALIERS (rapports mensuels et annuels)
+-- =====================================================
+CREATE TABLE agregat_emprunt_jour (
+    jour DATE NOT NULL,
+    type_utilisateur ENUM('PERSONNE_NORMALE', 'ETUDIANT', 'ENSEIGNANT') NOT NULL,
+    emprunts_ouverts INT NOT NULL DEFAULT 0,
+    emprunts_retournes INT NOT NULL DEFAULT 0,
+    retours_en_retard INT NOT NULL DEFAULT 0,
+    total_penalites DECIMAL(12, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (jour, type_utilisateur)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE agregat_paiement_jour (
+    jour DATE NOT NULL,
+    methode_paiement ENUM('ESPECES', 'CARTE', 'CHEQUE', 'VIREMENT') NOT NULL,
+    type_utilisateur ENUM('PERSONNE_NORMALE', 'ETUDIANT', 'ENSEIGNANT') NOT NULL,
+    nombre_paiements INT NOT NULL DEFAULT 0,
+    montant_total DECIMAL(12, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (jour, methode_paiement, type_utilisateur)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE SKETCH_QUANTILES (durées et retards des emprunts, KLL journaliers)
+-- Une ligne par poste (processus) : chacun n'écrit que ses propres sketches,
+-- fusionnés à la lecture (la fusion KLL n'est pas idempotente)
+-- =====================================================
+CREATE TABLE sketch_quantiles (
+    mesure ENUM('DUREE', 'RETARD') NOT NULL,
+    dimension ENUM('TYPE_UTILISATEUR', 'GENRE') NOT NULL,
+    valeur VARCHAR(50) NOT NULL,
+    jour DATE NOT NULL,
+    poste VARCHAR(36) NOT NULL,
+    donnees BLOB NOT NULL,
+    PRIMARY KEY (mesure, dimension, valeur, jour, poste),
+    INDEX idx_jour (jour)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE TRAITEMENT_RETARDS (journal du traitement quotidien des retards)
+-- =====================================================
+CREATE TABLE traitement_retards (
+    jour DATE PRIMARY KEY,
+    emprunts_marques INT NOT NULL DEFAULT 0,
+    penalites_mises_a_jour INT NOT NULL DEFAULT 0,
+    lots INT NOT NULL DEFAULT 0,
+    duree_ms BIGINT NOT NULL DEFAULT 0,
+    date_execution DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE NOTIFICATION_LECTURE (filigrane "lu jusqu'à" par destinataire)
+-- Une notification est lue si est_lue = TRUE ou si id <= id_lu_jusqua
+-- =====================================================
+CREATE TABLE notification_lecture (
+    id_destinataire INT PRIMARY KEY,
+    id_lu_jusqua INT NOT NULL,
+    FOREIGN KEY (id_destinataire) REFERENCES personne(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE POLITIQUE_RETENTION_NOTIFICATION (durées de conservation modifiées)
+-- Absente de la table : durée par défaut du service de purge
+-- =====================================================
+CREATE TABLE politique_retention_notification (
+    type ENUM('RAPPEL', 'ALERTE', 'INFO') NOT NULL,
+    priorite ENUM('HAUTE', 'MOYENNE', 'BASSE') NOT NULL,
+    jours INT NOT NULL,
+    PRIMARY KEY (type, priorite)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE RESERVATION (file d'attente par document, enseignants prioritaires)
+-- Une ligne par réservation en cours ; supprimée une fois annulée ou honorée
+-- =====================================================
+CREATE TABLE reservation (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    id_document INT NOT NULL,
+    id_utilisateur INT NOT NULL,
+    prioritaire BOOLEAN NOT NULL DEFAULT FALSE,
+    etat ENUM('EN_ATTENTE', 'A_RETIRER') NOT NULL DEFAULT 'EN_ATTENTE',
+    date_reservation DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_attribution DATETIME,
+    FOREIGN KEY (id_document) REFERENCES document(id) ON DELETE CASCADE,
+    FOREIGN KEY (id_utilisateur) REFERENCES utilisateur(id_personne) ON DELETE CASCADE,
+    UNIQUE KEY uk_document_utilisateur (id_document, id_utilisateur),
+    INDEX idx_document_file (id_document, etat, prioritaire, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE MOUVEMENT_SOLDE (grand livre des soldes utilisateurs)
+-- Lignes ajoutées seulement : montant > 0 = dû, < 0 = payé ; seule id_consolidation
+-- est renseignée, une fois, par la consolidation qui reporte la ligne dans l'instantané
+-- (NULL : pas encore consolidée ; 0 : mouvement d'ouverture, déjà dans l'instantané)
+-- =====================================================
+CREATE TABLE mouvement_solde (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_utilisateur INT NOT NULL,
+    montant DECIMAL(10, 2) NOT NULL,
+    motif ENUM('OUVERTURE', 'PENALITE', 'PAIEMENT', 'ANNULATION_PAIEMENT') NOT NULL,
+    id_paiement INT,
+    id_emprunt INT,
+    date_mouvement TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    id_consolidation BIGINT,
+    FOREIGN KEY (id_utilisateur) REFERENCES utilisateur(id_personne) ON DELETE CASCADE,
+    FOREIGN KEY (id_paiement) REFERENCES paiement(id) ON DELETE SET NULL,
+    FOREIGN KEY (id_emprunt) REFERENCES emprunt(id) ON DELETE SET NULL,
+    INDEX idx_utilisateur_mouvement (id_utilisateur, id),
+    INDEX idx_utilisateur_consolidation (id_utilisateur, id_consolidation),
+    INDEX idx_consolidation (id_consolidation),
+    INDEX idx_emprunt_motif (id_emprunt, motif),
+    INDEX idx_date_mouvement (date_mouvement)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE SOLDE_INSTANTANE (solde consolidé par utilisateur)
+-- Solde = solde + somme des mouvements non consolidés (id_consolidation NULL)
+-- =====================================================
+CREATE TABLE solde_instantane (
+    id_utilisateur INT PRIMARY KEY,
+    solde DECIMAL(12, 2) NOT NULL DEFAULT 0.00,
+    id_derniere_consolidation BIGINT NOT NULL DEFAULT 0,
+    date_instantane TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (id_utilisateur) REFERENCES utilisateur(id_personne) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLE RAPPEL_ENVOYE (rappels de retour déjà envoyés, tous postes confondus)
+-- Un poste réserve un rappel par INSERT IGNORE avant de l'envoyer
+-- =====================================================
+CREATE TABLE rappel_envoye (
+    id_emprunt INT NOT NULL,
+    type ENUM('BIENTOT', 'RETARD') NOT NULL,
+    jour DATE NOT NULL,
+    date_envoi TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id_emprunt, type, jour),
+    FOREIGN KEY (id_emprunt) REFERENCES emprunt(id) ON DELETE CASCADE,
+    INDEX idx_jour (jour)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- =====================================================
 -- TRIGGERS pour maintenir la cohérence
 -- =====================================================
@@ -330,6 +522,8 @@ SELECT
     d.mots_cles,
     d.prix_par_jour,
     d.disponible,
+    d.nombre_exemplaires,
+    d.exemplaires_disponibles,
     d.nombre_consultations,
     d.nombre_emprunts,
     d.note_globale,
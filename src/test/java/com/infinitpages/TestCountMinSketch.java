@@ -0,0 +1,71 @@
+package com.infinitpages;
+
+import com.infinitpages.util.sketch.CountMinSketch;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du Count-Min Sketch utilisé pour les documents les plus consultés.
+ * Aucune base de données n'est nécessaire.
+ */
+public class TestCountMinSketch {
+
+    @Test
+    @DisplayName("L'estimation ne sous-estime jamais et reste dans la borne e·N/w")
+    public void testPrecision() {
+        System.out.println("🧪 Test précision Count-Min Sketch...");
+
+        CountMinSketch cms = new CountMinSketch(2048, 4, 7L);
+        int cles = 10_000;
+        for (int i = 1; i <= cles; i++) {
+            // Quelques clés très fréquentes, une longue traîne de clés rares
+            cms.add(i, i <= 10 ? 1_000 : 1 + i % 3);
+        }
+
+        long total = cms.getTotal();
+        double borne = Math.E * total / cms.getWidth();
+        int dansLaBorne = 0;
+        for (int i = 1; i <= cles; i++) {
+            int reel = i <= 10 ? 1_000 : 1 + i % 3;
+            int estimation = cms.estimate(i);
+            assertTrue(estimation >= reel, "Sous-estimation pour la clé " + i);
+            if (estimation - reel <= borne) {
+                dansLaBorne++;
+            }
+        }
+        // Probabilité de dépassement e^-4 (< 2 %) par clé
+        assertTrue(dansLaBorne >= cles * 0.95, "Trop d'estimations hors borne : " + (cles - dansLaBorne));
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(1_000, cms.estimate(i), borne, "Clé fréquente mal estimée : " + i);
+        }
+
+        System.out.println("✅ " + dansLaBorne + " / " + cles + " estimations dans la borne " + (int) borne);
+    }
+
+    @Test
+    @DisplayName("La fusion et la soustraction sont linéaires")
+    public void testFusionEtSoustraction() {
+        System.out.println("🧪 Test fusion Count-Min Sketch...");
+
+        CountMinSketch lundi = new CountMinSketch(256, 4, 7L);
+        CountMinSketch mardi = new CountMinSketch(256, 4, 7L);
+        lundi.add(42, 5);
+        mardi.add(42, 3);
+        mardi.add(43, 2);
+
+        CountMinSketch semaine = new CountMinSketch(256, 4, 7L);
+        semaine.merge(lundi);
+        semaine.merge(mardi);
+        assertEquals(8, semaine.estimate(42));
+        assertEquals(10, semaine.getTotal());
+
+        semaine.subtract(lundi);
+        assertEquals(3, semaine.estimate(42));
+        assertEquals(2, semaine.estimate(43));
+
+        assertThrows(IllegalArgumentException.class, () -> semaine.merge(new CountMinSketch(256, 4, 8L)),
+            "Des sketchs de graines différentes ne doivent pas se combiner");
+
+        System.out.println("✅ Fusion OK");
+    }
+}
@@ -0,0 +1,58 @@
+package com.infinitpages;
+
+import com.infinitpages.util.sketch.HyperLogLog;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du sketch HyperLogLog utilisé pour les lecteurs distincts.
+ * Aucune base de données n'est nécessaire.
+ */
+public class TestHyperLogLog {
+
+    @Test
+    @DisplayName("L'estimation reste proche du nombre réel de valeurs distinctes")
+    public void testEstimation() {
+        System.out.println("🧪 Test estimation HyperLogLog...");
+
+        for (int n : new int[] { 10, 1_000, 100_000 }) {
+            HyperLogLog hll = new HyperLogLog(11);
+            for (int i = 1; i <= n; i++) {
+                hll.add(i);
+                hll.add(i); // Les doublons ne comptent pas
+            }
+            long estimation = hll.estimate();
+            assertEquals(n, estimation, n * 0.08, "Estimation trop éloignée pour n = " + n);
+            System.out.println("✅ n = " + n + " → " + estimation);
+        }
+    }
+
+    @Test
+    @DisplayName("La fusion est une union et la sérialisation est réversible")
+    public void testFusionEtSerialisation() {
+        System.out.println("🧪 Test fusion HyperLogLog...");
+
+        HyperLogLog lundi = new HyperLogLog(11);
+        HyperLogLog mardi = new HyperLogLog(11);
+        for (int i = 1; i <= 3_000; i++) {
+            lundi.add(i);
+        }
+        for (int i = 2_001; i <= 5_000; i++) {
+            mardi.add(i);
+        }
+
+        HyperLogLog semaine = HyperLogLog.fromBytes(lundi.toBytes());
+        assertEquals(lundi.estimate(), semaine.estimate(), "La sérialisation doit conserver le sketch");
+
+        semaine.merge(mardi);
+        semaine.merge(mardi); // Fusion idempotente
+        assertEquals(5_000, semaine.estimate(), 5_000 * 0.08);
+
+        HyperLogLog petit = new HyperLogLog(11);
+        petit.add(42);
+        assertTrue(petit.toBytes().length < 16, "Un sketch presque vide doit être stocké en creux");
+        assertEquals(1, HyperLogLog.fromBytes(petit.toBytes()).estimate());
+
+        System.out.println("✅ Fusion OK : " + semaine.estimate());
+    }
+}
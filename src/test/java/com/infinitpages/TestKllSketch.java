@@ -0,0 +1,94 @@
+package com.infinitpages;
+
+import com.infinitpages.util.sketch.KllSketch;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+/**
+ * Tests du sketch KLL utilisé pour les quantiles de durée d'emprunt et de retard.
+ * Aucune base de données n'est nécessaire.
+ */
+public class TestKllSketch {
+
+    private static final int N = 100_000;
+
+    /**
+     * Les valeurs 1..N dans un ordre aléatoire reproductible.
+     */
+    private static double[] valeursMelangees(long graine) {
+        double[] valeurs = new double[N];
+        for (int i = 0; i < N; i++) {
+            valeurs[i] = i + 1;
+        }
+        Random random = new Random(graine);
+        for (int i = N - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double tmp = valeurs[i];
+            valeurs[i] = valeurs[j];
+            valeurs[j] = tmp;
+        }
+        return valeurs;
+    }
+
+    @Test
+    @DisplayName("Les quantiles restent proches des quantiles exacts")
+    public void testPrecision() {
+        System.out.println("🧪 Test précision KLL...");
+
+        KllSketch kll = new KllSketch();
+        for (double valeur : valeursMelangees(1L)) {
+            kll.add(valeur);
+        }
+
+        assertEquals(N, kll.getCount());
+        assertEquals(1, kll.getMin(), "Le minimum doit être exact");
+        assertEquals(N, kll.getMax(), "Le maximum doit être exact");
+
+        double[] rangs = { 0.1, 0.5, 0.9, 0.99 };
+        double[] quantiles = kll.quantiles(rangs);
+        for (int i = 0; i < rangs.length; i++) {
+            // Erreur de rang d'environ 1,5 % avec k = 200 : marge de 3 %
+            assertEquals(rangs[i] * N, quantiles[i], N * 0.03, "Quantile " + rangs[i] + " trop éloigné");
+            assertEquals(quantiles[i], kll.quantile(rangs[i]), "quantile et quantiles doivent concorder");
+            System.out.println("✅ p" + (int) (rangs[i] * 100) + " → " + quantiles[i]);
+        }
+        assertEquals(0.5, kll.rank(N / 2.0), 0.03);
+        assertTrue(Double.isNaN(new KllSketch().quantile(0.5)), "Un sketch vide n'a pas de quantile");
+    }
+
+    @Test
+    @DisplayName("La fusion de deux flux disjoints vaut un seul flux et la sérialisation est réversible")
+    public void testFusionEtSerialisation() {
+        System.out.println("🧪 Test fusion KLL...");
+
+        // Deux postes : l'un voit les petites valeurs, l'autre les grandes
+        KllSketch posteA = new KllSketch();
+        KllSketch posteB = new KllSketch();
+        for (double valeur : valeursMelangees(2L)) {
+            if (valeur <= N / 2) {
+                posteA.add(valeur);
+            } else {
+                posteB.add(valeur);
+            }
+        }
+
+        KllSketch copie = KllSketch.fromBytes(posteA.toBytes());
+        assertEquals(posteA.getCount(), copie.getCount(), "La sérialisation doit conserver le sketch");
+        assertEquals(posteA.quantile(0.5), copie.quantile(0.5));
+        assertEquals(posteA.getMin(), copie.getMin());
+        assertEquals(posteA.getMax(), copie.getMax());
+
+        copie.merge(posteB);
+        assertEquals(N, copie.getCount());
+        assertEquals(1, copie.getMin());
+        assertEquals(N, copie.getMax());
+        assertEquals(N * 0.5, copie.quantile(0.5), N * 0.03);
+        assertEquals(N * 0.9, copie.quantile(0.9), N * 0.03);
+
+        assertThrows(IllegalArgumentException.class, () -> new KllSketch(4), "k trop petit");
+
+        System.out.println("✅ Fusion OK : médiane " + copie.quantile(0.5));
+    }
+}
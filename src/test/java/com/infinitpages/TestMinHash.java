@@ -0,0 +1,59 @@
+package com.infinitpages;
+
+import com.infinitpages.util.sketch.MinHash;
+import com.infinitpages.util.sketch.MinHashLshIndex;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests de MinHash et de l'index LSH des documents similaires.
+ * Aucune base de données n'est nécessaire.
+ */
+public class TestMinHash {
+
+    @Test
+    @DisplayName("MinHash estime la similarité de Jaccard")
+    public void testSimilariteEstimee() {
+        System.out.println("🧪 Test estimation Jaccard...");
+
+        MinHash minHash = new MinHash(256, 42L);
+        // |A ∩ B| = 6, |A ∪ B| = 10 → Jaccard = 0.6
+        int[] a = minHash.signature(List.of("a", "b", "c", "d", "e", "f", "g", "h"));
+        int[] b = minHash.signature(List.of("c", "d", "e", "f", "g", "h", "i", "j"));
+
+        double similarite = MinHash.similarity(a, b);
+        assertEquals(0.6, similarite, 0.1, "L'estimation doit être proche de 0.6");
+        assertEquals(1.0, MinHash.similarity(a, a), 0.0001);
+        assertNull(minHash.signature(List.of()), "Un ensemble vide n'a pas de signature");
+
+        System.out.println("✅ Similarité estimée : " + similarite);
+    }
+
+    @Test
+    @DisplayName("L'index LSH retrouve les documents proches et suit les mises à jour")
+    public void testIndexLsh() {
+        System.out.println("🧪 Test index LSH...");
+
+        MinHashLshIndex index = new MinHashLshIndex(16, 4, 7L);
+        index.put(1, Set.of("java", "programmation", "objet", "genre:INFORMATIQUE", "categorie:3"));
+        index.put(2, Set.of("java", "programmation", "objet", "genre:INFORMATIQUE", "categorie:3", "jvm"));
+        index.put(3, Set.of("roman", "amour", "genre:ROMAN", "categorie:8"));
+
+        int[] similaires = index.query(1, 5, 0.1);
+        assertArrayEquals(new int[] { 2 }, similaires, "Seul le document 2 ressemble au document 1");
+
+        // Réindexation : le document 3 devient proche du document 1
+        index.put(3, Set.of("java", "programmation", "objet", "genre:INFORMATIQUE", "categorie:3"));
+        assertEquals(3, index.query(1, 5, 0.1)[0], "Un document identique arrive en premier");
+
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertArrayEquals(new int[] { 3 }, index.query(1, 5, 0.1));
+        assertEquals(2, index.size());
+
+        System.out.println("✅ Index LSH OK");
+    }
+}
@@ -0,0 +1,74 @@
+package com.infinitpages;
+
+import com.infinitpages.util.collections.IntRankedQueue;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests de la file ordonnée des réservations (rang en O(log n)).
+ * Aucune base de données n'est nécessaire.
+ */
+public class TestRankedQueue {
+
+    @Test
+    @DisplayName("La file est servie dans l'ordre d'arrivée, annulations comprises")
+    public void testOrdreEtAnnulation() {
+        System.out.println("🧪 Test ordre et annulation...");
+
+        IntRankedQueue file = new IntRankedQueue();
+        for (int id = 10; id <= 50; id += 10) {
+            file.add(id);
+        }
+        assertEquals(5, file.size());
+        assertEquals(0, file.rank(10));
+        assertEquals(3, file.rank(40));
+
+        assertTrue(file.remove(20), "Une réservation au milieu de la file s'annule");
+        assertFalse(file.remove(20), "Une réservation ne s'annule qu'une fois");
+        assertEquals(2, file.rank(40), "Les suivants avancent d'une place");
+        assertEquals(-1, file.rank(20));
+
+        assertEquals(10, file.poll());
+        assertEquals(30, file.peek());
+        assertArrayEquals(new int[] {30, 40, 50}, file.toArray());
+        assertThrows(IllegalArgumentException.class, () -> file.add(45), "Les identifiants arrivent croissants");
+
+        System.out.println("✓ Ordre et annulation OK");
+    }
+
+    @Test
+    @DisplayName("Les rangs restent exacts après de nombreux ajouts et retraits")
+    public void testRangsAleatoires() {
+        System.out.println("🧪 Test rangs aléatoires...");
+
+        Random random = new Random(42);
+        IntRankedQueue file = new IntRankedQueue(2);
+        List<Integer> attendu = new ArrayList<>();
+        int prochain = 1;
+
+        for (int i = 0; i < 5000; i++) {
+            int choix = random.nextInt(3);
+            if (choix == 0 || attendu.isEmpty()) {
+                file.add(prochain);
+                attendu.add(prochain++);
+            } else if (choix == 1) {
+                assertEquals((int) attendu.remove(0), file.poll());
+            } else {
+                Integer id = attendu.remove(random.nextInt(attendu.size()));
+                assertTrue(file.remove(id));
+            }
+
+            assertEquals(attendu.size(), file.size());
+            if (!attendu.isEmpty()) {
+                int position = random.nextInt(attendu.size());
+                assertEquals(position, file.rank(attendu.get(position)));
+            }
+        }
+
+        System.out.println("✓ Rangs aléatoires OK");
+    }
+}
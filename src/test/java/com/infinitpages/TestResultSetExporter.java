@@ -0,0 +1,146 @@
+package com.infinitpages;
+
+import com.infinitpages.util.export.ResultSetExporter;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests de l'export en continu des résultats SQL (CSV et JSON Lines).
+ * Le ResultSet est simulé en mémoire : aucune base de données n'est nécessaire.
+ */
+public class TestResultSetExporter {
+
+    @TempDir
+    Path dossier;
+
+    private static final String[] COLONNES = { "id", "titre", "disponible", "couverture" };
+    private static final int[] TYPES = { Types.INTEGER, Types.VARCHAR, Types.BOOLEAN, Types.VARBINARY };
+
+    /**
+     * ResultSet en mémoire, en lecture avant seulement, comme un curseur MySQL en flux.
+     */
+    private static ResultSet resultSet(List<Object[]> lignes) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+            ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class },
+            (proxy, methode, args) -> switch (methode.getName()) {
+                case "getColumnCount" -> COLONNES.length;
+                case "getColumnLabel", "getColumnName" -> COLONNES[(Integer) args[0] - 1];
+                case "getColumnType" -> TYPES[(Integer) args[0] - 1];
+                default -> throw new UnsupportedOperationException(methode.getName());
+            });
+
+        int[] position = { -1 };
+        Object[] dernier = { null };
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+            (proxy, methode, args) -> {
+                switch (methode.getName()) {
+                    case "getMetaData":
+                        return metaData;
+                    case "next":
+                        return ++position[0] < lignes.size();
+                    case "wasNull":
+                        return dernier[0] == null;
+                    case "getString":
+                    case "getBoolean":
+                    case "getBytes":
+                        Object valeur = lignes.get(position[0])[(Integer) args[0] - 1];
+                        dernier[0] = valeur;
+                        if (methode.getName().equals("getBoolean")) {
+                            return valeur != null && (Boolean) valeur;
+                        }
+                        if (methode.getName().equals("getString")) {
+                            return valeur == null ? null : valeur.toString();
+                        }
+                        return valeur;
+                    default:
+                        throw new UnsupportedOperationException(methode.getName());
+                }
+            });
+    }
+
+    private static List<Object[]> lignesExemple() {
+        List<Object[]> lignes = new ArrayList<>();
+        lignes.add(new Object[] { 1, "Le Petit Prince", true, null });
+        lignes.add(new Object[] { 2, "Guerre, et \"paix\"\nTome 1", false, new byte[] { 1, 2, 3 } });
+        lignes.add(new Object[] { 3, null, null, null });
+        return lignes;
+    }
+
+    @Test
+    @DisplayName("L'export CSV suit la RFC 4180 (en-tête, guillemets, valeurs nulles)")
+    public void testCsv() throws Exception {
+        System.out.println("🧪 Test export CSV...");
+
+        Path fichier = dossier.resolve("documents" + ResultSetExporter.Format.CSV.getExtension());
+        long lignes = new ResultSetExporter(ResultSetExporter.Format.CSV, false)
+            .export(resultSet(lignesExemple()), fichier);
+
+        assertEquals(3, lignes);
+        assertEquals("id,titre,disponible,couverture\n"
+                + "1,Le Petit Prince,true,\n"
+                + "2,\"Guerre, et \"\"paix\"\"\nTome 1\",false,AQID\n"
+                + "3,,,\n",
+            Files.readString(fichier, StandardCharsets.UTF_8));
+
+        System.out.println("✅ Export CSV OK");
+    }
+
+    @Test
+    @DisplayName("L'export JSON Lines écrit un objet typé par ligne")
+    public void testJsonLines() throws Exception {
+        System.out.println("🧪 Test export JSON Lines...");
+
+        Path fichier = dossier.resolve("documents" + ResultSetExporter.Format.JSONL.getExtension());
+        new ResultSetExporter(ResultSetExporter.Format.JSONL, false).export(resultSet(lignesExemple()), fichier);
+
+        List<String> lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        assertEquals(3, lignes.size());
+        assertEquals("{\"id\":1,\"titre\":\"Le Petit Prince\",\"disponible\":true,\"couverture\":null}", lignes.get(0));
+        assertEquals("{\"id\":2,\"titre\":\"Guerre, et \\\"paix\\\"\\nTome 1\",\"disponible\":false,\"couverture\":\"AQID\"}",
+            lignes.get(1));
+        assertEquals("{\"id\":3,\"titre\":null,\"disponible\":null,\"couverture\":null}", lignes.get(2));
+
+        System.out.println("✅ Export JSON Lines OK");
+    }
+
+    @Test
+    @DisplayName("Un gros export compressé garde toutes les lignes et les caractères accentués")
+    public void testGrosExportCompresse() throws Exception {
+        System.out.println("🧪 Test export compressé...");
+
+        // Assez de lignes pour vider plusieurs fois les tampons de texte et d'octets
+        List<Object[]> lignes = new ArrayList<>();
+        for (int i = 1; i <= 20_000; i++) {
+            lignes.add(new Object[] { i, "Œuvres complètes n° " + i + " — éd. ☕", i % 2 == 0, null });
+        }
+
+        Path fichier = dossier.resolve("documents.csv.gz");
+        long ecrites = new ResultSetExporter(ResultSetExporter.Format.CSV, true).export(resultSet(lignes), fichier);
+        assertEquals(lignes.size(), ecrites);
+
+        String contenu;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(fichier))) {
+            contenu = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] sorties = contenu.split("\n");
+        assertEquals(lignes.size() + 1, sorties.length, "En-tête plus une ligne par résultat");
+        assertEquals("1,Œuvres complètes n° 1 — éd. ☕,false,", sorties[1]);
+        assertEquals("20000,Œuvres complètes n° 20000 — éd. ☕,true,", sorties[20_000]);
+
+        System.out.println("✅ Export compressé OK : " + Files.size(fichier) + " octets");
+    }
+}
@@ -0,0 +1,61 @@
+package com.infinitpages;
+
+import com.infinitpages.util.sketch.SlidingWindowTopK;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la fenêtre glissante des documents les plus consultés.
+ * Le temps est passé en paramètre : aucune attente, aucune base de données.
+ */
+public class TestSlidingWindowTopK {
+
+    private static final long SECONDE = 1_000;
+
+    @Test
+    @DisplayName("Les documents les plus consultés sortent dans l'ordre")
+    public void testClassement() {
+        System.out.println("🧪 Test classement fenêtre glissante...");
+
+        SlidingWindowTopK fenetre = new SlidingWindowTopK(4, SECONDE, 3, 1024, 4, 7L);
+        for (int id = 1; id <= 20; id++) {
+            fenetre.add(id, id == 7 ? 50 : id == 3 ? 30 : id == 12 ? 20 : 1, 0);
+        }
+
+        assertArrayEquals(new int[] { 7, 3, 12 }, fenetre.top(3, 0));
+        assertArrayEquals(new int[] { 7 }, fenetre.top(1, 0));
+        assertEquals(50, fenetre.estimate(7, 0));
+
+        System.out.println("✅ Classement OK");
+    }
+
+    @Test
+    @DisplayName("Les consultations sorties de la fenêtre ne comptent plus")
+    public void testExpiration() {
+        System.out.println("🧪 Test expiration fenêtre glissante...");
+
+        // Fenêtre de 4 seaux d'une seconde
+        SlidingWindowTopK fenetre = new SlidingWindowTopK(4, SECONDE, 3, 1024, 4, 7L);
+        fenetre.add(1, 100, 0);
+        for (int i = 0; i < 10; i++) {
+            fenetre.add(2, 1, 2 * SECONDE);
+        }
+
+        assertArrayEquals(new int[] { 1, 2 }, fenetre.top(3, 2 * SECONDE));
+        assertEquals(100, fenetre.estimate(1, 4 * SECONDE - 1), "Encore dans la fenêtre");
+
+        // Le seau de l'instant 0 sort de la fenêtre
+        assertEquals(0, fenetre.estimate(1, 4 * SECONDE));
+        assertArrayEquals(new int[] { 2 }, fenetre.top(3, 4 * SECONDE));
+
+        // Puis celui de l'instant 2 s
+        assertArrayEquals(new int[0], fenetre.top(3, 6 * SECONDE));
+
+        // Un saut plus long que la fenêtre vide tout
+        fenetre.add(3, 5, 7 * SECONDE);
+        assertArrayEquals(new int[0], fenetre.top(3, 60 * SECONDE));
+        assertEquals(0, fenetre.estimate(3, 60 * SECONDE));
+
+        System.out.println("✅ Expiration OK");
+    }
+}
@@ -0,0 +1,88 @@
+package com.infinitpages;
+
+import com.infinitpages.util.scheduling.IntTimingWheel;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests de la roue temporelle hiérarchique des rappels.
+ * Aucune base de données n'est nécessaire.
+ */
+public class TestTimingWheel {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    @DisplayName("Les rappels se déclenchent à la bonne minute, y compris après cascade")
+    public void testDeclenchement() {
+        System.out.println("🧪 Test déclenchement...");
+
+        IntTimingWheel roue = new IntTimingWheel(MINUTE, 6, 4, 0L);
+        // 5 minutes (niveau 0), 3 jours (niveau 2), 90 jours (niveau 3)
+        long[] echeances = { 5 * MINUTE, 3 * 1440 * MINUTE, 90 * 1440 * MINUTE };
+        for (int i = 0; i < echeances.length; i++) {
+            roue.schedule(echeances[i], i);
+        }
+        assertEquals(3, roue.size());
+
+        for (int i = 0; i < echeances.length; i++) {
+            List<Integer> declenches = new ArrayList<>();
+            roue.advance(echeances[i] - 1, (handle, payload, echeance) -> declenches.add(payload));
+            assertTrue(declenches.isEmpty(), "Aucun rappel avant son échéance");
+
+            roue.advance(echeances[i], (handle, payload, echeance) -> declenches.add(payload));
+            assertEquals(List.of(i), declenches, "Le rappel se déclenche à son échéance");
+        }
+        assertEquals(0, roue.size());
+
+        System.out.println("✅ Déclenchements OK");
+    }
+
+    @Test
+    @DisplayName("Un rappel annulé ne se déclenche pas et son handle est réutilisé")
+    public void testAnnulation() {
+        System.out.println("🧪 Test annulation...");
+
+        IntTimingWheel roue = new IntTimingWheel(MINUTE, 6, 4, 0L);
+        int annule = roue.schedule(10 * MINUTE, 1);
+        roue.schedule(20 * MINUTE, 2);
+
+        assertTrue(roue.cancel(annule));
+        assertFalse(roue.cancel(annule), "Un rappel ne s'annule qu'une fois");
+        assertEquals(1, roue.size());
+
+        int reutilise = roue.schedule(15 * MINUTE, 3);
+        assertEquals(annule, reutilise, "Le handle libéré est réutilisé");
+        assertEquals(3, roue.payload(reutilise));
+
+        List<Integer> declenches = new ArrayList<>();
+        roue.advance(30 * MINUTE, (handle, payload, echeance) -> declenches.add(payload));
+        assertEquals(List.of(3, 2), declenches, "Les rappels sortent dans l'ordre des échéances");
+
+        System.out.println("✅ Annulation OK");
+    }
+
+    @Test
+    @DisplayName("Un rappel périodique peut être réarmé depuis le visiteur")
+    public void testReArmement() {
+        System.out.println("🧪 Test relance...");
+
+        IntTimingWheel roue = new IntTimingWheel(MINUTE, 6, 4, 0L);
+        long semaine = 7 * 1440 * MINUTE;
+        roue.schedule(semaine, 42);
+
+        List<Long> declenchements = new ArrayList<>();
+        roue.advance(3 * semaine, (handle, payload, echeance) -> {
+            declenchements.add(echeance);
+            roue.schedule(echeance + semaine, payload);
+        });
+
+        assertEquals(List.of(semaine, 2 * semaine, 3 * semaine), declenchements);
+        assertEquals(1, roue.size(), "La relance suivante reste en attente");
+
+        System.out.println("✅ Relances OK");
+    }
+}